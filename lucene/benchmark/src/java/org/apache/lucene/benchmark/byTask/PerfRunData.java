@@ -26,6 +26,8 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.benchmark.byTask.feeds.ContentSource;
@@ -44,10 +46,12 @@ import org.apache.lucene.facet.taxonomy.TaxonomyWriter;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.LRUQueryCache;
 import org.apache.lucene.store.ByteBuffersDirectory;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FSDirectory;
 import org.apache.lucene.util.IOUtils;
+import org.apache.lucene.util.NamedThreadFactory;
 
 /**
  * Data maintained by a performance test run.
@@ -72,6 +76,9 @@ import org.apache.lucene.util.IOUtils;
  *  <li><b>log.queries</b>=&lt;whether queries should be printed| Default: false&gt;
  *  <li><b>directory</b>=&lt;type of directory to use for the index| Default: ByteBuffersDirectory&gt;
  *  <li><b>taxonomy.directory</b>=&lt;type of directory for taxonomy index| Default: ByteBuffersDirectory&gt;
+ *  <li><b>query.cache.size</b>=&lt;maximum number of queries in the {@link LRUQueryCache} of the searcher, 0 disables caching| Default: 0&gt;
+ *  <li><b>query.cache.ram.mb</b>=&lt;maximum memory usage of the query cache| Default: 32&gt;
+ *  <li><b>writer.flush.threads</b>=&lt;number of threads that write the files of flushed segments concurrently, 0 writes them on the flushing thread| Default: 0&gt;
  * </ul>
  */
 public class PerfRunData implements Closeable {
@@ -100,6 +107,8 @@ public class PerfRunData implements Closeable {
 
   private DirectoryReader indexReader;
   private IndexSearcher indexSearcher;
+  private LRUQueryCache queryCache;
+  private ExecutorService flushExecutor;
   private IndexWriter indexWriter;
   private Config config;
   private long startTimeMillis;
@@ -147,6 +156,7 @@ public class PerfRunData implements Closeable {
     if (indexWriter != null) {
       indexWriter.close();
     }
+    shutdownFlushExecutor();
     IOUtils.close(indexReader, directory, 
                   taxonomyWriter, taxonomyReader, taxonomyDir, 
                   docMaker, facetSource, contentSource);
@@ -182,6 +192,13 @@ public class PerfRunData implements Closeable {
 
     // inputs
     resetInputs();
+
+    // query cache, null unless enabled
+    queryCache = createQueryCache();
+
+    // flush executor, null unless enabled; the writer that used it was closed above
+    shutdownFlushExecutor();
+    flushExecutor = createFlushExecutor();
     
     // release unused stuff
     System.runFinalization();
@@ -191,6 +208,36 @@ public class PerfRunData implements Closeable {
     setStartTimeMillis();
   }
 
+  private LRUQueryCache createQueryCache() {
+    final int maxSize = config.get("query.cache.size", 0);
+    if (maxSize <= 0) {
+      return null;
+    }
+    final long maxRamBytesUsed = (long) (config.get("query.cache.ram.mb", 32.0) * 1024 * 1024);
+    return new LRUQueryCache(maxSize, maxRamBytesUsed);
+  }
+
+  private ExecutorService createFlushExecutor() {
+    final int numThreads = config.get("writer.flush.threads", 0);
+    if (numThreads <= 0) {
+      return null;
+    }
+    final NamedThreadFactory threadFactory = new NamedThreadFactory("benchmark-flush");
+    return Executors.newFixedThreadPool(numThreads, r -> {
+      // the benchmark may exit without closing this run data
+      Thread t = threadFactory.newThread(r);
+      t.setDaemon(true);
+      return t;
+    });
+  }
+
+  private void shutdownFlushExecutor() {
+    if (flushExecutor != null) {
+      flushExecutor.shutdown();
+      flushExecutor = null;
+    }
+  }
+
   private Directory createDirectory(boolean eraseIndex, String dirName,
       String dirParam) throws IOException {
     String dirImpl = config.get(dirParam, DEFAULT_DIRECTORY);
@@ -359,13 +406,30 @@ public class PerfRunData implements Closeable {
       // Hold reference to new IR
       indexReader.incRef();
       indexSearcher = new IndexSearcher(indexReader);
-      // TODO Some day we should make the query cache in this module configurable and control clearing the cache
-      indexSearcher.setQueryCache(null);
+      // TODO Some day we should control clearing the cache
+      indexSearcher.setQueryCache(queryCache);
     } else {
       indexSearcher = null;
     }
   }
 
+  /**
+   * @return Returns the query cache of the index searcher, or null if the
+   * "query.cache.size" property is not set.
+   */
+  public LRUQueryCache getQueryCache() {
+    return queryCache;
+  }
+
+  /**
+   * @return Returns the executor that index writers use to write the files of
+   * flushed segments concurrently, or null if the "writer.flush.threads"
+   * property is not set.
+   */
+  public ExecutorService getFlushExecutor() {
+    return flushExecutor;
+  }
+
   /**
    * @return Returns the indexWriter.
    */
@@ -23,13 +23,16 @@ import java.io.UnsupportedEncodingException;
 import java.nio.charset.StandardCharsets;
 import java.text.ParsePosition;
 import java.text.SimpleDateFormat;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Random;
+import java.util.Set;
 import java.util.TimeZone;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -41,9 +44,12 @@ import org.apache.lucene.document.FloatPoint;
 import org.apache.lucene.document.IntPoint;
 import org.apache.lucene.document.FieldType;
 import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.SortedDocValuesField;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.document.TextField;
 import org.apache.lucene.index.IndexOptions;
+import org.apache.lucene.util.BytesRef;
 
 /**
  * Creates {@link Document} objects. Uses a {@link ContentSource} to generate
@@ -82,6 +88,13 @@ import org.apache.lucene.index.IndexOptions;
  * IDs from 0 to this limit.  This is useful with UpdateDoc
  * for testing performance of IndexWriter.updateDocument.
  * {@link DocData#getProps()} will be indexed. (default <b>false</b>).
+ * <li><b>doc.numeric.dv.props</b> - comma-separated names of indexed properties
+ * whose values are longs that should also be added as
+ * {@link NumericDocValuesField}s, e.g. in order to sort the index on them.
+ * (default <b>none</b>).
+ * <li><b>doc.sorted.dv.props</b> - comma-separated names of indexed properties
+ * that should also be added as {@link SortedDocValuesField}s.
+ * (default <b>none</b>).
  * </ul>
  */
 public class DocMaker implements Closeable {
@@ -211,6 +224,8 @@ public class DocMaker implements Closeable {
   protected ContentSource source;
   protected boolean reuseFields;
   protected boolean indexProperties;
+  protected Set<String> numericDocValuesProperties;
+  protected Set<String> sortedDocValuesProperties;
   
   private final AtomicInteger numDocsCreated = new AtomicInteger();
 
@@ -324,9 +339,16 @@ public class DocMaker implements Closeable {
       Properties props = docData.getProps();
       if (props != null) {
         for (final Map.Entry<Object,Object> entry : props.entrySet()) {
-          Field f = ds.getField((String) entry.getKey(), valType);
-          f.setStringValue((String) entry.getValue());
+          final String propName = (String) entry.getKey();
+          final String propValue = (String) entry.getValue();
+          Field f = ds.getField(propName, valType);
+          f.setStringValue(propValue);
           doc.add(f);
+          if (numericDocValuesProperties.contains(propName)) {
+            doc.add(new NumericDocValuesField(propName, Long.parseLong(propValue)));
+          } else if (sortedDocValuesProperties.contains(propName)) {
+            doc.add(new SortedDocValuesField(propName, new BytesRef(propValue)));
+          }
         }
         docData.setProps(null);
       }
@@ -463,6 +485,8 @@ public class DocMaker implements Closeable {
     docState = new ThreadLocal<>();
     
     indexProperties = config.get("doc.index.props", false);
+    numericDocValuesProperties = new HashSet<>(Arrays.asList(config.get("doc.numeric.dv.props", "").split(",")));
+    sortedDocValuesProperties = new HashSet<>(Arrays.asList(config.get("doc.sorted.dv.props", "").split(",")));
 
     updateDocIDLimit = config.get("doc.random.id.limit", -1);
     if (updateDocIDLimit != -1) {
@@ -26,10 +26,11 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 
 import org.apache.lucene.benchmark.byTask.PerfRunData;
+import org.apache.lucene.benchmark.byTask.feeds.DocMaker;
 import org.apache.lucene.benchmark.byTask.utils.Config;
 import org.apache.lucene.codecs.Codec;
 import org.apache.lucene.codecs.PostingsFormat;
-import org.apache.lucene.codecs.lucene80.Lucene80Codec;
+import org.apache.lucene.codecs.lucene90.Lucene90Codec;
 import org.apache.lucene.index.ConcurrentMergeScheduler;
 import org.apache.lucene.index.IndexCommit;
 import org.apache.lucene.index.IndexDeletionPolicy;
@@ -42,6 +43,7 @@ import org.apache.lucene.index.MergeScheduler;
 import org.apache.lucene.index.NoDeletionPolicy;
 import org.apache.lucene.index.NoMergePolicy;
 import org.apache.lucene.index.NoMergeScheduler;
+import org.apache.lucene.search.Sort;
 
 /**
  * Create an index. <br>
@@ -53,7 +55,14 @@ import org.apache.lucene.index.NoMergeScheduler;
  * org.apache.lucene.index.ConcurrentMergeScheduler),
  * concurrent.merge.scheduler.max.thread.count and
  * concurrent.merge.scheduler.max.merge.count (defaults per
- * ConcurrentMergeScheduler), default.codec </code>.
+ * ConcurrentMergeScheduler), default.codec, writer.record.indexing.stats
+ * (default false, see {@link IndexWriterConfig#setRecordIndexingStats(boolean)}),
+ * writer.flush.threads (default 0, see {@link PerfRunData#getFlushExecutor()}) </code>.
+ * <p>
+ * Takes optional param: the sort of the index, formatted like the params of
+ * {@link SearchWithSortTask}, e.g. <code>CreateIndex(sort_field:long,country:string)</code>.
+ * Sort fields need doc values, see the doc.numeric.dv.props and
+ * doc.sorted.dv.props properties of {@link DocMaker}.
  * <p>
  * This task also supports a "writer.info.stream" property with the following
  * values:
@@ -70,9 +79,22 @@ import org.apache.lucene.index.NoMergeScheduler;
  */
 public class CreateIndexTask extends PerfTask {
 
+  private Sort indexSort;
+
   public CreateIndexTask(PerfRunData runData) {
     super(runData);
   }
+
+  @Override
+  public boolean supportsParams() {
+    return true;
+  }
+
+  @Override
+  public void setParams(String params) {
+    super.setParams(params);
+    indexSort = SearchWithSortTask.parseSort(params);
+  }
   
   public static IndexDeletionPolicy getIndexDeletionPolicy(Config config) {
     String deletionPolicyName = config.get("deletion.policy", "org.apache.lucene.index.KeepOnlyLastCommitDeletionPolicy");
@@ -91,7 +113,11 @@ public class CreateIndexTask extends PerfTask {
   public int doLogic() throws IOException {
     PerfRunData runData = getRunData();
     Config config = runData.getConfig();
-    runData.setIndexWriter(configureWriter(config, runData, OpenMode.CREATE, null));
+    IndexWriterConfig iwc = createWriterConfig(config, runData, OpenMode.CREATE, null);
+    if (indexSort != null) {
+      iwc.setIndexSort(indexSort);
+    }
+    runData.setIndexWriter(createWriter(config, runData, iwc));
     return 1;
   }
   
@@ -138,7 +164,7 @@ public class CreateIndexTask extends PerfTask {
     if (defaultCodec == null && postingsFormat != null) {
       try {
         final PostingsFormat postingsFormatChosen = PostingsFormat.forName(postingsFormat);
-        iwConf.setCodec(new Lucene80Codec() {
+        iwConf.setCodec(new Lucene90Codec() {
           @Override
           public PostingsFormat getPostingsFormatForField(String field) {
             return postingsFormatChosen;
@@ -176,12 +202,17 @@ public class CreateIndexTask extends PerfTask {
       iwConf.setMaxBufferedDocs(maxBuffered);
       iwConf.setRAMBufferSizeMB(ramBuffer);
     }
+    iwConf.setRecordIndexingStats(config.get("writer.record.indexing.stats", false));
+    iwConf.setFlushExecutor(runData.getFlushExecutor());
     
     return iwConf;
   }
   
   public static IndexWriter configureWriter(Config config, PerfRunData runData, OpenMode mode, IndexCommit commit) throws IOException {
-    IndexWriterConfig iwc = createWriterConfig(config, runData, mode, commit);
+    return createWriter(config, runData, createWriterConfig(config, runData, mode, commit));
+  }
+
+  private static IndexWriter createWriter(Config config, PerfRunData runData, IndexWriterConfig iwc) throws IOException {
     String infoStreamVal = config.get("writer.info.stream", null);
     if (infoStreamVal != null) {
       if (infoStreamVal.equals("SystemOut")) {
@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.benchmark.byTask.tasks;
+
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.lucene.benchmark.byTask.PerfRunData;
+import org.apache.lucene.benchmark.byTask.feeds.FacetSource;
+import org.apache.lucene.benchmark.byTask.utils.Config;
+import org.apache.lucene.facet.DrillDownQuery;
+import org.apache.lucene.facet.DrillSideways;
+import org.apache.lucene.facet.DrillSideways.DrillSidewaysResult;
+import org.apache.lucene.facet.FacetsConfig;
+import org.apache.lucene.facet.taxonomy.TaxonomyReader;
+import org.apache.lucene.facet.taxonomy.TaxonomyReader.ChildrenIterator;
+import org.apache.lucene.search.IndexSearcher;
+
+/**
+ * Drill sideways search task: the query of the query maker is drilled down
+ * on a number of dimensions of the taxonomy, each on a random value, and the
+ * top children of these dimensions are computed.
+ * <p>
+ * Config properties:
+ * <ul>
+ * <li><b>drill.sideways.dims</b>=&lt;number of dimensions to drill down on| Default: 2&gt;
+ * </ul>
+ * <p>
+ * Requires an open reader and an open taxonomy reader, see {@link OpenReaderTask}
+ * and {@link OpenTaxonomyReaderTask}. Dimensions and values are those of the
+ * {@link FacetSource} in effect, so the index must have been built with
+ * {@link AddFacetedDocTask}.
+ * <br>Other side effects: none.
+ */
+public class DrillSidewaysTask extends SearchTask {
+
+  private FacetsConfig facetsConfig;
+  private int numDims;
+  private Random random;
+
+  public DrillSidewaysTask(PerfRunData runData) {
+    super(runData);
+  }
+
+  @Override
+  public void setup() throws Exception {
+    super.setup();
+    Config config = getRunData().getConfig();
+    if (facetsConfig == null) {
+      facetsConfig = new FacetsConfig();
+      getRunData().getFacetSource().configure(facetsConfig);
+      random = new Random(config.get("rand.seed", 13));
+    }
+    // may change from one round to the next
+    numDims = config.get("drill.sideways.dims", 2);
+  }
+
+  @Override
+  public int doLogic() throws Exception {
+    IndexSearcher searcher = getRunData().getIndexSearcher(); // (will incRef the reader)
+    if (searcher == null) {
+      throw new IllegalStateException("Index reader is not open");
+    }
+    TaxonomyReader taxoReader = getRunData().getTaxonomyReader(); // (will incRef the taxonomy reader)
+    try {
+      if (taxoReader == null) {
+        throw new IllegalStateException("Taxonomy reader is not open");
+      }
+
+      // drill down on random values of random dimensions
+      List<Integer> dims = children(taxoReader, TaxonomyReader.ROOT_ORDINAL);
+      Collections.shuffle(dims, random);
+      DrillDownQuery query = new DrillDownQuery(facetsConfig, getQueryMaker().makeQuery());
+      List<String> drilledDims = new ArrayList<>();
+      for (int dim : dims) {
+        if (drilledDims.size() >= numDims) {
+          break;
+        }
+        List<Integer> values = children(taxoReader, dim);
+        if (values.isEmpty() == false) {
+          String[] path = taxoReader.getPath(values.get(random.nextInt(values.size()))).components;
+          query.add(path[0], path[1]);
+          drilledDims.add(path[0]);
+        }
+      }
+
+      DrillSidewaysResult result = new DrillSideways(searcher, facetsConfig, taxoReader).search(query, numHits());
+      for (String dim : drilledDims) {
+        result.facets.getTopChildren(10, dim);
+      }
+      return 1;
+    } finally {
+      searcher.getIndexReader().decRef();
+      if (taxoReader != null) {
+        taxoReader.decRef();
+      }
+    }
+  }
+
+  private static List<Integer> children(TaxonomyReader taxoReader, int ordinal) throws Exception {
+    List<Integer> children = new ArrayList<>();
+    ChildrenIterator it = taxoReader.getChildren(ordinal);
+    for (int child = it.next(); child != TaxonomyReader.INVALID_ORDINAL; child = it.next()) {
+      children.add(child);
+    }
+    return children;
+  }
+}
@@ -0,0 +1,53 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.benchmark.byTask.tasks;
+
+
+import org.apache.lucene.benchmark.byTask.PerfRunData;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexingStats;
+
+/**
+ * Report the time that the current index writer spent in each stage of
+ * indexing and flushing documents, see {@link IndexWriter#getIndexingStats()}.
+ * Stages that are applied to every document are only reported if the
+ * "writer.record.indexing.stats" property was true when the writer was
+ * created, see {@link CreateIndexTask}.
+ * <br>Other side effects: None.
+ */
+public class RepIndexingStatsTask extends ReportTask {
+
+  public RepIndexingStatsTask(PerfRunData runData) {
+    super(runData);
+  }
+
+  @Override
+  public int doLogic() throws Exception {
+    IndexWriter iw = getRunData().getIndexWriter();
+    if (iw == null) {
+      throw new IllegalStateException("IndexWriter is not open");
+    }
+    IndexingStats stats = iw.getIndexingStats();
+
+    System.out.println();
+    System.out.println("------------> Report Indexing Stats");
+    System.out.print(stats);
+    System.out.println();
+
+    return 0;
+  }
+}
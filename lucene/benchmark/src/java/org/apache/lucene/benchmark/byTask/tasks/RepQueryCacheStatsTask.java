@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.benchmark.byTask.tasks;
+
+
+import java.util.Locale;
+
+import org.apache.lucene.benchmark.byTask.PerfRunData;
+import org.apache.lucene.search.LRUQueryCache;
+
+/**
+ * Report the hit rate and the size of the query cache of the searcher, which
+ * is enabled through the "query.cache.size" property, see {@link PerfRunData}.
+ * Counts are cumulative since the cache was created.
+ * <br>Other side effects: None.
+ */
+public class RepQueryCacheStatsTask extends ReportTask {
+
+  public RepQueryCacheStatsTask(PerfRunData runData) {
+    super(runData);
+  }
+
+  @Override
+  public int doLogic() throws Exception {
+    LRUQueryCache cache = getRunData().getQueryCache();
+    if (cache == null) {
+      throw new IllegalStateException("Query cache is not enabled, set query.cache.size");
+    }
+
+    final long total = cache.getTotalCount();
+    final double hitRate = total == 0 ? 0 : 100.0 * cache.getHitCount() / total;
+    System.out.println();
+    System.out.println("------------> Report Query Cache Stats");
+    System.out.println(String.format(Locale.ROOT, "lookups=%d hits=%d misses=%d hitRate=%.1f%%",
+        total, cache.getHitCount(), cache.getMissCount(), hitRate));
+    System.out.println(String.format(Locale.ROOT, "cached=%d size=%d evictions=%d ramMB=%.1f",
+        cache.getCacheCount(), cache.getCacheSize(), cache.getEvictionCount(), cache.ramBytesUsed() / 1024. / 1024.));
+    System.out.println();
+
+    return 0;
+  }
+}
@@ -49,6 +49,11 @@ public class SearchWithSortTask extends ReadTask {
   @Override
   public void setParams(String sortField) {
     super.setParams(sortField);
+    this.sort = parseSort(sortField);
+  }
+
+  /** Parses a sort formatted like the params of this task. */
+  static Sort parseSort(String sortField) {
     String[] fields = sortField.split(",");
     SortField[] sortFields = new SortField[fields.length];
     int upto = 0;
@@ -79,7 +84,7 @@ public class SearchWithSortTask extends ReadTask {
       System.arraycopy(sortFields, 0, newSortFields, 0, upto);
       sortFields = newSortFields;
     }
-    this.sort = new Sort(sortFields);
+    return new Sort(sortFields);
   }
 
   @Override
@@ -21,6 +21,7 @@ import java.io.Closeable;
 import java.io.IOException;
 
 import org.apache.lucene.index.BinaryDocValues;
+import org.apache.lucene.index.DocValuesSkipper;
 import org.apache.lucene.index.FieldInfo;
 import org.apache.lucene.index.NumericDocValues;
 import org.apache.lucene.index.SortedDocValues;
@@ -63,6 +64,17 @@ public abstract class DocValuesProducer implements Closeable, Accountable {
    *  The returned instance need not be thread-safe: it will only be
    *  used by a single thread. */
   public abstract SortedSetDocValues getSortedSet(FieldInfo field) throws IOException;
+
+  /** Returns a {@link DocValuesSkipper} for this field, or {@code null} if
+   *  the format didn't record skip data for it. This is only called on
+   *  {@link org.apache.lucene.index.DocValuesType#NUMERIC numeric} and
+   *  {@link org.apache.lucene.index.DocValuesType#SORTED_NUMERIC sorted numeric}
+   *  fields. The returned instance need not be thread-safe: it will only be
+   *  used by a single thread.
+   *  <p>The default implementation returns {@code null}. */
+  public DocValuesSkipper getSkipper(FieldInfo field) throws IOException {
+    return null;
+  }
   
   /** 
    * Checks consistency of this producer
@@ -21,6 +21,7 @@ import java.io.IOException;
 
 import org.apache.lucene.index.FieldInfos;
 import org.apache.lucene.index.SegmentInfo;
+import org.apache.lucene.index.SegmentReadState;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.IOContext;
 
@@ -37,6 +38,15 @@ public abstract class StoredFieldsFormat {
    *  fields. */
   public abstract StoredFieldsReader fieldsReader(Directory directory, SegmentInfo si, FieldInfos fn, IOContext context) throws IOException;
 
+  /** Returns a {@link StoredFieldsReader} to load stored
+   *  fields of the segment described by the given {@link SegmentReadState}.
+   *  Formats may override this method in order to take
+   *  {@link SegmentReadState#readerAttributes reader attributes} into account,
+   *  the default implementation ignores them. */
+  public StoredFieldsReader fieldsReader(SegmentReadState state) throws IOException {
+    return fieldsReader(state.directory, state.segmentInfo, state.fieldInfos, state.context);
+  }
+
   /** Returns a {@link StoredFieldsWriter} to write stored
    *  fields. */
   public abstract StoredFieldsWriter fieldsWriter(Directory directory, SegmentInfo si, IOContext context) throws IOException;
@@ -109,6 +109,16 @@ public final class BlockTreeTermsReader extends FieldsProducer {
   /** Attribute key for fst mode. */
   public static final String FST_MODE_KEY = "blocktree.terms.fst";
 
+  /**
+   * Attribute key for lazy loading of FSTs. By default, the terms index FST of
+   * a field is only loaded the first time that its terms are enumerated or
+   * seeked, so that opening a segment doesn't pay for fields that are never
+   * searched. Set this attribute to <code>false</code> in order to load all
+   * FSTs when the segment is opened.
+   * @see FieldReader#isFstLoaded()
+   */
+  public static final String FST_LAZY_KEY = "blocktree.terms.fst_lazy";
+
   static final Outputs<BytesRef> FST_OUTPUTS = ByteSequenceOutputs.getSingleton();
   
   static final BytesRef NO_OUTPUT = FST_OUTPUTS.getNoOutput();
@@ -191,6 +201,7 @@ public final class BlockTreeTermsReader extends FieldsProducer {
       seekDir(indexIn);
 
       final FSTLoadMode fstLoadMode = getLoadMode(state.readerAttributes, FST_MODE_KEY, defaultLoadMode);
+      final boolean loadFstLazily = getLazy(state.readerAttributes, FST_LAZY_KEY, true);
       final int numFields = termsIn.readVInt();
       if (numFields < 0) {
         throw new CorruptIndexException("invalid numFields: " + numFields, termsIn);
@@ -229,7 +240,8 @@ public final class BlockTreeTermsReader extends FieldsProducer {
         final long indexStartFP = indexIn.readVLong();
         FieldReader previous = fields.put(fieldInfo.name,
                                           new FieldReader(this, fieldInfo, numTerms, rootCode, sumTotalTermFreq, sumDocFreq, docCount,
-                                                          indexStartFP, longsSize, indexIn, minTerm, maxTerm, state.openedFromWriter, perFieldLoadMode));
+                                                          indexStartFP, longsSize, indexIn, minTerm, maxTerm, state.openedFromWriter, perFieldLoadMode,
+                                                          loadFstLazily));
         if (previous != null) {
           throw new CorruptIndexException("duplicate field: " + fieldInfo.name, termsIn);
         }
@@ -256,6 +268,21 @@ public final class BlockTreeTermsReader extends FieldsProducer {
     }
   }
 
+  private static boolean getLazy(Map<String, String> attributes, String key, boolean defaultValue) {
+    String value = attributes.get(key);
+    if (value == null) {
+      return defaultValue;
+    }
+    switch (value) {
+      case "true":
+        return true;
+      case "false":
+        return false;
+      default:
+        throw new IllegalArgumentException("Invalid value for " + key + " expected one of: [true, false] but was: " + value);
+    }
+  }
+
   private static BytesRef readBytesRef(IndexInput in) throws IOException {
     int numBytes = in.readVInt();
     if (numBytes < 0) {
@@ -334,6 +361,22 @@ public final class BlockTreeTermsReader extends FieldsProducer {
     return sizeInBytes;
   }
 
+  /**
+   * Returns the number of fields whose terms index FST has been loaded so far.
+   * The terms index of the remaining {@link #size()} fields hasn't been
+   * accessed yet.
+   * @see #FST_LAZY_KEY
+   */
+  public int getLoadedFstCount() {
+    int count = 0;
+    for (FieldReader reader : fields.values()) {
+      if (reader.isFstLoaded()) {
+        count++;
+      }
+    }
+    return count;
+  }
+
   @Override
   public Collection<Accountable> getChildResources() {
     List<Accountable> resources = new ArrayList<>();
@@ -353,6 +396,6 @@ public final class BlockTreeTermsReader extends FieldsProducer {
 
   @Override
   public String toString() {
-    return getClass().getSimpleName() + "(fields=" + fields.size() + ",delegate=" + postingsReader + ")";
+    return getClass().getSimpleName() + "(fields=" + fields.size() + ",loadedFsts=" + getLoadedFstCount() + ",delegate=" + postingsReader + ")";
   }
 }
@@ -61,12 +61,16 @@ public final class FieldReader extends Terms implements Accountable {
   final int longsSize;
   final BlockTreeTermsReader parent;
 
-  final FST<BytesRef> index;
+  // null if there is no terms index
+  private final IndexInput indexIn;
+  // loaded on first access, see getIndex()
+  private volatile FST<BytesRef> index;
   final boolean isFSTOffHeap;
   //private boolean DEBUG;
 
   FieldReader(BlockTreeTermsReader parent, FieldInfo fieldInfo, long numTerms, BytesRef rootCode, long sumTotalTermFreq, long sumDocFreq, int docCount,
-              long indexStartFP, int longsSize, IndexInput indexIn, BytesRef minTerm, BytesRef maxTerm, boolean openedFromWriter, BlockTreeTermsReader.FSTLoadMode fstLoadMode) throws IOException {
+              long indexStartFP, int longsSize, IndexInput indexIn, BytesRef minTerm, BytesRef maxTerm, boolean openedFromWriter,
+              BlockTreeTermsReader.FSTLoadMode fstLoadMode, boolean loadFstLazily) throws IOException {
     assert numTerms > 0;
     this.fieldInfo = fieldInfo;
     //DEBUG = BlockTreeTermsReader.DEBUG && fieldInfo.name.equals("id");
@@ -83,6 +87,7 @@ public final class FieldReader extends Terms implements Accountable {
     // if (DEBUG) {
     //   System.out.println("BTTR: seg=" + segment + " field=" + fieldInfo.name + " rootBlockCode=" + rootCode + " divisor=" + indexDivisor);
     // }
+    this.indexIn = indexIn;
     rootBlockFP = (new ByteArrayDataInput(rootCode.bytes, rootCode.offset, rootCode.length)).readVLong() >>> BlockTreeTermsReader.OUTPUT_FLAGS_NUM_BITS;
     // Initialize FST offheap if index is MMapDirectory and
     // docCount != sumDocFreq implying field is not primary key
@@ -103,6 +108,33 @@ public final class FieldReader extends Terms implements Accountable {
         default:
           throw new IllegalStateException("unknown enum constant: " + fstLoadMode);
       }
+      if (loadFstLazily == false) {
+        index = loadIndex();
+      }
+    } else {
+      isFSTOffHeap = false;
+    }
+  }
+
+  /**
+   * Return the terms index of this field, or <code>null</code> if there is no
+   * terms index. The terms index is loaded on first access so that opening a
+   * segment with many fields doesn't pay for the terms index of fields that
+   * are never searched.
+   */
+  FST<BytesRef> getIndex() throws IOException {
+    if (indexIn == null) {
+      return null;
+    }
+    final FST<BytesRef> index = this.index;
+    if (index != null) {
+      return index;
+    }
+    return loadIndex();
+  }
+
+  private synchronized FST<BytesRef> loadIndex() throws IOException {
+    if (index == null) {
       final IndexInput clone = indexIn.clone();
       clone.seek(indexStartFP);
       if (isFSTOffHeap) {
@@ -119,10 +151,8 @@ public final class FieldReader extends Terms implements Accountable {
         w.close();
         }
       */
-    } else {
-      isFSTOffHeap = false;
-      index = null;
     }
+    return index;
   }
 
   @Override
@@ -210,11 +240,13 @@ public final class FieldReader extends Terms implements Accountable {
     
   @Override
   public long ramBytesUsed() {
+    final FST<BytesRef> index = this.index;
     return BASE_RAM_BYTES_USED + ((index!=null)? index.ramBytesUsed() : 0);
   }
 
   @Override
   public Collection<Accountable> getChildResources() {
+    final FST<BytesRef> index = this.index;
     if (index == null) {
       return Collections.emptyList();
     } else {
@@ -234,4 +266,12 @@ public final class FieldReader extends Terms implements Accountable {
     return isFSTOffHeap;
   }
 
+  /**
+   * Returns <code>true</code> iff the FST has been loaded. FSTs are loaded
+   * the first time that a {@link TermsEnum} is created on this field.
+   */
+  public boolean isFstLoaded() {
+    return index != null;
+  }
+
 }
@@ -18,6 +18,7 @@ package org.apache.lucene.codecs.compressing;
 
 
 import java.io.IOException;
+import java.util.Map;
 
 import org.apache.lucene.codecs.CodecUtil;
 import org.apache.lucene.codecs.StoredFieldsFormat;
@@ -26,6 +27,7 @@ import org.apache.lucene.codecs.StoredFieldsWriter;
 import org.apache.lucene.index.FieldInfos;
 import org.apache.lucene.index.MergePolicy;
 import org.apache.lucene.index.SegmentInfo;
+import org.apache.lucene.index.SegmentReadState;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.IOContext;
 
@@ -44,6 +46,19 @@ import org.apache.lucene.store.IOContext;
  */
 public class CompressingStoredFieldsFormat extends StoredFieldsFormat {
 
+  /**
+   * Reader attribute that enables caching of decompressed chunks of documents.
+   * The value is the maximum number of bytes that the cache of a single
+   * segment may use, or <code>0</code> to disable caching, which is the
+   * default. Clones of a segment's stored fields reader share the same
+   * {@link StoredFieldsChunkCache cache}, so that frequently accessed
+   * documents, or consecutive documents as when paging through results, don't
+   * need to be decompressed over and over again.
+   * @see SegmentReadState#readerAttributes
+   * @see CompressingStoredFieldsReader#getChunkCache()
+   */
+  public static final String CHUNK_CACHE_SIZE_KEY = "compressing.stored_fields.chunk_cache_bytes";
+
   private final String formatName;
   private final String segmentSuffix;
   private final CompressionMode compressionMode;
@@ -122,6 +137,31 @@ public class CompressingStoredFieldsFormat extends StoredFieldsFormat {
         context, formatName, compressionMode);
   }
 
+  @Override
+  public StoredFieldsReader fieldsReader(SegmentReadState state) throws IOException {
+    return new CompressingStoredFieldsReader(state.directory, state.segmentInfo, segmentSuffix, state.fieldInfos,
+        state.context, formatName, compressionMode, getChunkCacheBytes(state.readerAttributes));
+  }
+
+  private static long getChunkCacheBytes(Map<String, String> attributes) {
+    String value = attributes.get(CHUNK_CACHE_SIZE_KEY);
+    if (value == null) {
+      return 0;
+    }
+    final long chunkCacheBytes;
+    try {
+      chunkCacheBytes = Long.parseLong(value);
+    } catch (NumberFormatException ex) {
+      throw new IllegalArgumentException("Invalid value for " + CHUNK_CACHE_SIZE_KEY
+          + " expected a number of bytes but was: " + value, ex);
+    }
+    if (chunkCacheBytes < 0) {
+      throw new IllegalArgumentException("Invalid value for " + CHUNK_CACHE_SIZE_KEY
+          + " expected a non-negative number of bytes but was: " + value);
+    }
+    return chunkCacheBytes;
+  }
+
   @Override
   public StoredFieldsWriter fieldsWriter(Directory directory, SegmentInfo si,
       IOContext context) throws IOException {
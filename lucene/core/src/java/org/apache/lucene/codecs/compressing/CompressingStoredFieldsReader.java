@@ -89,6 +89,8 @@ public final class CompressingStoredFieldsReader extends StoredFieldsReader {
   private final BlockState state;
   private final long numChunks; // number of compressed blocks written
   private final long numDirtyChunks; // number of incomplete compressed blocks written
+  private final StoredFieldsChunkCache chunkCache; // null if disabled, shared with clones
+  private StoredFieldsChunkCache.Chunk currentChunk; // the last chunk that was taken from the cache
   private boolean closed;
 
   // used by clone
@@ -107,13 +109,30 @@ public final class CompressingStoredFieldsReader extends StoredFieldsReader {
     this.numDirtyChunks = reader.numDirtyChunks;
     this.merging = merging;
     this.state = new BlockState();
+    // merges read every chunk once, they would only pollute the cache
+    this.chunkCache = merging ? null : reader.chunkCache;
     this.closed = false;
   }
 
-  /** Sole constructor. */
+  /** Create a new reader that doesn't cache decompressed chunks. */
   public CompressingStoredFieldsReader(Directory d, SegmentInfo si, String segmentSuffix, FieldInfos fn,
       IOContext context, String formatName, CompressionMode compressionMode) throws IOException {
+    this(d, si, segmentSuffix, fn, context, formatName, compressionMode, 0);
+  }
+
+  /**
+   * Create a new reader. If <code>chunkCacheBytes</code> is positive, then
+   * this reader and its clones share a {@link StoredFieldsChunkCache cache}
+   * of decompressed chunks that may use up to <code>chunkCacheBytes</code>
+   * bytes of memory.
+   */
+  public CompressingStoredFieldsReader(Directory d, SegmentInfo si, String segmentSuffix, FieldInfos fn,
+      IOContext context, String formatName, CompressionMode compressionMode, long chunkCacheBytes) throws IOException {
+    if (chunkCacheBytes < 0) {
+      throw new IllegalArgumentException("chunkCacheBytes must be >= 0, got " + chunkCacheBytes);
+    }
     this.compressionMode = compressionMode;
+    this.chunkCache = chunkCacheBytes == 0 ? null : new StoredFieldsChunkCache(chunkCacheBytes);
     final String segment = si.name;
     boolean success = false;
     fieldInfos = fn;
@@ -485,6 +504,27 @@ public final class CompressingStoredFieldsReader extends StoredFieldsReader {
       }
     }
 
+    /**
+     * Decompress the current block, which must not be sliced, into a chunk
+     * that can be shared with other readers through the cache. This block
+     * state doesn't contain any documents anymore after this call.
+     */
+    StoredFieldsChunkCache.Chunk toChunk() throws IOException {
+      assert sliced == false && merging == false;
+      final int totalLength = offsets[chunkDocs];
+      fieldsStream.seek(startPointer);
+      decompressor.decompress(fieldsStream, totalLength, 0, totalLength, bytes);
+      if (bytes.length != totalLength) {
+        throw new CorruptIndexException("Corrupted: expected chunk size = " + totalLength + ", got " + bytes.length, fieldsStream);
+      }
+      final StoredFieldsChunkCache.Chunk chunk = new StoredFieldsChunkCache.Chunk(docBase, chunkDocs,
+          ArrayUtil.copyOfSubArray(offsets, 0, chunkDocs + 1),
+          ArrayUtil.copyOfSubArray(numStoredFields, 0, chunkDocs),
+          ArrayUtil.copyOfSubArray(bytes.bytes, bytes.offset, bytes.offset + bytes.length));
+      chunkDocs = 0;
+      return chunk;
+    }
+
     /**
      * Get the serialized representation of the given docID. This docID has
      * to be contained in the current block.
@@ -560,6 +600,9 @@ public final class CompressingStoredFieldsReader extends StoredFieldsReader {
   }
 
   SerializedDocument document(int docID) throws IOException {
+    if (chunkCache != null) {
+      return cachedDocument(docID);
+    }
     if (state.contains(docID) == false) {
       fieldsStream.seek(indexReader.getStartPointer(docID));
       state.reset(docID);
@@ -568,6 +611,34 @@ public final class CompressingStoredFieldsReader extends StoredFieldsReader {
     return state.document(docID);
   }
 
+  private SerializedDocument cachedDocument(int docID) throws IOException {
+    if (currentChunk == null || currentChunk.contains(docID) == false) {
+      // sliced blocks are never cached, they are read through the block state instead
+      if (state.contains(docID)) {
+        return state.document(docID);
+      }
+      final long startPointer = indexReader.getStartPointer(docID);
+      StoredFieldsChunkCache.Chunk chunk = chunkCache.get(startPointer);
+      if (chunk == null) {
+        fieldsStream.seek(startPointer);
+        state.reset(docID);
+        if (state.sliced) {
+          return state.document(docID);
+        }
+        chunk = state.toChunk();
+        chunkCache.put(startPointer, chunk);
+      }
+      currentChunk = chunk;
+    }
+    assert currentChunk.contains(docID);
+
+    final StoredFieldsChunkCache.Chunk chunk = currentChunk;
+    final int index = docID - chunk.docBase;
+    final int offset = chunk.offsets[index];
+    final int length = chunk.offsets[index + 1] - offset;
+    return new SerializedDocument(new ByteArrayDataInput(chunk.bytes, offset, length), length, chunk.numStoredFields[index]);
+  }
+
   @Override
   public void visitDocument(int docID, StoredFieldVisitor visitor)
       throws IOException {
@@ -610,6 +681,14 @@ public final class CompressingStoredFieldsReader extends StoredFieldsReader {
     return new CompressingStoredFieldsReader(this, true);
   }
 
+  /**
+   * Return the cache of decompressed chunks that this reader shares with its
+   * clones, or <code>null</code> if chunks are not cached.
+   */
+  public StoredFieldsChunkCache getChunkCache() {
+    return chunkCache;
+  }
+
   int getVersion() {
     return version;
   }
@@ -648,12 +727,20 @@ public final class CompressingStoredFieldsReader extends StoredFieldsReader {
 
   @Override
   public long ramBytesUsed() {
-    return indexReader.ramBytesUsed();
+    long ramBytesUsed = indexReader.ramBytesUsed();
+    if (chunkCache != null) {
+      ramBytesUsed += chunkCache.ramBytesUsed();
+    }
+    return ramBytesUsed;
   }
   
   @Override
   public Collection<Accountable> getChildResources() {
-    return Collections.singleton(Accountables.namedAccountable("stored field index", indexReader));
+    final Accountable index = Accountables.namedAccountable("stored field index", indexReader);
+    if (chunkCache == null) {
+      return Collections.singleton(index);
+    }
+    return Arrays.asList(index, Accountables.namedAccountable("stored field chunk cache", chunkCache));
   }
 
   @Override
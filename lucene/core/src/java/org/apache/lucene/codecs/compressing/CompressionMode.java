@@ -23,6 +23,7 @@ import java.util.zip.Deflater;
 import java.util.zip.Inflater;
 
 import org.apache.lucene.index.CorruptIndexException;
+import org.apache.lucene.store.ByteBuffersDataOutput;
 import org.apache.lucene.store.DataInput;
 import org.apache.lucene.store.DataOutput;
 import org.apache.lucene.util.ArrayUtil;
@@ -113,6 +114,69 @@ public abstract class CompressionMode {
 
   };
 
+  /**
+   * A compression mode for small documents that compresses chunks with LZ4
+   * like {@link #FAST}, but splits them into a preset dictionary, made of the
+   * first bytes of the chunk, and {@value #NUM_SUB_BLOCKS} sub-blocks which
+   * are compressed independently using this dictionary. Since documents of a
+   * chunk tend to be similar, sub-blocks compress almost as well as the whole
+   * chunk, while retrieving a single document only requires decompressing
+   * the dictionary and the sub-blocks that contain this document. This makes
+   * it possible to use chunks that are {@value #NUM_SUB_BLOCKS} times larger,
+   * such as 80KB instead of 8KB, and get a better compression ratio at a
+   * similar cost of retrieving documents.
+   */
+  public static final CompressionMode FAST_WITH_PRESET_DICT = new CompressionMode() {
+
+    @Override
+    public Compressor newCompressor() {
+      return new LZ4WithPresetDictCompressor();
+    }
+
+    @Override
+    public Decompressor newDecompressor() {
+      return new LZ4WithPresetDictDecompressor();
+    }
+
+    @Override
+    public String toString() {
+      return "FAST_WITH_PRESET_DICT";
+    }
+
+  };
+
+  /**
+   * Same as {@link #FAST_WITH_PRESET_DICT} but using DEFLATE like
+   * {@link #HIGH_COMPRESSION}, for instance with chunks of 480KB instead of
+   * 60KB.
+   */
+  public static final CompressionMode HIGH_COMPRESSION_WITH_PRESET_DICT = new CompressionMode() {
+
+    @Override
+    public Compressor newCompressor() {
+      return new DeflateWithPresetDictCompressor(6);
+    }
+
+    @Override
+    public Decompressor newDecompressor() {
+      return new DeflateWithPresetDictDecompressor();
+    }
+
+    @Override
+    public String toString() {
+      return "HIGH_COMPRESSION_WITH_PRESET_DICT";
+    }
+
+  };
+
+  /** Number of sub-blocks that chunks are split into by compression modes
+   *  that use a preset dictionary. */
+  public static final int NUM_SUB_BLOCKS = 10;
+
+  /** Ratio of the length of sub-blocks to the length of the preset
+   *  dictionary. */
+  private static final int DICT_SIZE_FACTOR = 2;
+
   /** Sole constructor. */
   protected CompressionMode() {}
 
@@ -296,4 +360,319 @@ public abstract class CompressionMode {
 
   }
 
+  /** Return the length of the preset dictionary of a chunk of {@code len} bytes. */
+  private static int presetDictLength(int len) {
+    return len / (NUM_SUB_BLOCKS * DICT_SIZE_FACTOR);
+  }
+
+  /** Return the length of the sub-blocks that follow a preset dictionary of
+   *  {@code dictLength} bytes in a chunk of {@code len} bytes. */
+  private static int subBlockLength(int len, int dictLength) {
+    return (len - dictLength + NUM_SUB_BLOCKS - 1) / NUM_SUB_BLOCKS;
+  }
+
+  /** Read the compressed lengths of the dictionary and sub-blocks of a chunk
+   *  that is compressed with a preset dictionary. */
+  private static int[] readCompressedLengths(DataInput in, int originalLength, int dictLength, int blockLength, int[] compressedLengths) throws IOException {
+    final int numBlocks = blockLength == 0 ? 0 : (originalLength - dictLength + blockLength - 1) / blockLength;
+    if (numBlocks > NUM_SUB_BLOCKS) {
+      throw new CorruptIndexException("Too many sub-blocks: " + numBlocks, in);
+    }
+    compressedLengths = ArrayUtil.grow(compressedLengths, numBlocks + 1);
+    compressedLengths[numBlocks] = -1; // sentinel
+    for (int i = 0; i < numBlocks; ++i) {
+      compressedLengths[i] = in.readVInt();
+    }
+    return compressedLengths;
+  }
+
+  /**
+   * Chunks are written as follows:
+   * <ul>
+   *   <li>the length of the dictionary and of sub-blocks as VInts,
+   *   <li>the compressed dictionary,
+   *   <li>the compressed length of each sub-block as VInts,
+   *   <li>the compressed sub-blocks.
+   * </ul>
+   */
+  private static final class LZ4WithPresetDictCompressor extends Compressor {
+
+    private final LZ4.HashTable ht = new LZ4.HashTable();
+    private final ByteBuffersDataOutput compressed = ByteBuffersDataOutput.newResettableInstance();
+    private final int[] compressedLengths = new int[NUM_SUB_BLOCKS];
+    // the dictionary followed by the current sub-block
+    private byte[] buffer = new byte[0];
+
+    @Override
+    public void compress(byte[] bytes, int off, int len, DataOutput out) throws IOException {
+      final int dictLength = presetDictLength(len);
+      final int blockLength = subBlockLength(len, dictLength);
+      out.writeVInt(dictLength);
+      out.writeVInt(blockLength);
+
+      // the dictionary is compressed on its own
+      LZ4.compress(bytes, off, dictLength, out, ht);
+
+      buffer = ArrayUtil.grow(buffer, dictLength + blockLength);
+      System.arraycopy(bytes, off, buffer, 0, dictLength);
+      compressed.reset();
+      int numBlocks = 0;
+      for (int start = off + dictLength, end = off + len; start < end; start += blockLength) {
+        final int l = Math.min(blockLength, end - start);
+        System.arraycopy(bytes, start, buffer, dictLength, l);
+        final long before = compressed.size();
+        LZ4.compressWithDictionary(buffer, 0, dictLength, l, compressed, ht);
+        compressedLengths[numBlocks++] = Math.toIntExact(compressed.size() - before);
+      }
+      for (int i = 0; i < numBlocks; ++i) {
+        out.writeVInt(compressedLengths[i]);
+      }
+      compressed.copyTo(out);
+    }
+
+    @Override
+    public void close() throws IOException {
+      // no-op
+    }
+  }
+
+  private static final class LZ4WithPresetDictDecompressor extends Decompressor {
+
+    private int[] compressedLengths = new int[0];
+    private byte[] buffer = new byte[0];
+
+    @Override
+    public void decompress(DataInput in, int originalLength, int offset, int length, BytesRef bytes) throws IOException {
+      assert offset + length <= originalLength;
+      if (length == 0) {
+        bytes.length = 0;
+        return;
+      }
+      final int dictLength = in.readVInt();
+      final int blockLength = in.readVInt();
+      if (dictLength > originalLength || (long) dictLength + (long) blockLength * NUM_SUB_BLOCKS < originalLength) {
+        throw new CorruptIndexException("Illegal dictionary length " + dictLength + " or sub-block length " + blockLength
+            + " for a chunk of length " + originalLength, in);
+      }
+
+      // add 7 padding bytes, this is not necessary but can help decompression run faster
+      buffer = ArrayUtil.grow(buffer, dictLength + blockLength + 7);
+      bytes.bytes = ArrayUtil.grow(bytes.bytes, length);
+      bytes.offset = bytes.length = 0;
+
+      // the dictionary is always needed, and may contain some of the requested bytes
+      if (LZ4.decompress(in, dictLength, buffer, 0) != dictLength) {
+        throw new CorruptIndexException("Corrupted: illegal dictionary", in);
+      }
+      final int end = offset + length;
+      if (offset < dictLength) {
+        bytes.length = Math.min(end, dictLength) - offset;
+        System.arraycopy(buffer, offset, bytes.bytes, 0, bytes.length);
+      }
+
+      compressedLengths = readCompressedLengths(in, originalLength, dictLength, blockLength, compressedLengths);
+      int block = 0;
+      int blockStart = dictLength;
+      // skip sub-blocks that are entirely before offset
+      while (compressedLengths[block] != -1 && blockStart + blockLength <= offset) {
+        in.skipBytes(compressedLengths[block++]);
+        blockStart += blockLength;
+      }
+      // decompress sub-blocks that intersect with [offset, offset + length)
+      while (blockStart < end) {
+        final int toDecompress = Math.min(blockLength, end - blockStart);
+        if (LZ4.decompress(in, dictLength + toDecompress, buffer, dictLength) > dictLength + blockLength) {
+          throw new CorruptIndexException("Corrupted: sub-block is too long", in);
+        }
+        final int from = Math.max(offset, blockStart);
+        System.arraycopy(buffer, dictLength + from - blockStart, bytes.bytes, bytes.length, toDecompress - (from - blockStart));
+        bytes.length += toDecompress - (from - blockStart);
+        blockStart += blockLength;
+      }
+      assert bytes.length == length;
+    }
+
+    @Override
+    public Decompressor clone() {
+      return new LZ4WithPresetDictDecompressor();
+    }
+  }
+
+  /** Same format as {@link LZ4WithPresetDictCompressor}, but with DEFLATE. */
+  private static final class DeflateWithPresetDictCompressor extends Compressor {
+
+    private final Deflater compressor;
+    private final ByteBuffersDataOutput compressed = ByteBuffersDataOutput.newResettableInstance();
+    private final int[] compressedLengths = new int[NUM_SUB_BLOCKS];
+    private byte[] buffer = new byte[64];
+    private boolean closed;
+
+    DeflateWithPresetDictCompressor(int level) {
+      compressor = new Deflater(level, true);
+    }
+
+    /** Compress {@code bytes[off:off+len]} into {@code buffer} using
+     *  {@code bytes[dictOff:dictOff+dictLength]} as a preset dictionary and
+     *  return the compressed length. */
+    private int deflate(byte[] bytes, int dictOff, int dictLength, int off, int len) {
+      if (len == 0) {
+        // no output
+        return 0;
+      }
+      compressor.reset();
+      if (dictLength > 0) {
+        compressor.setDictionary(bytes, dictOff, dictLength);
+      }
+      compressor.setInput(bytes, off, len);
+      compressor.finish();
+      int totalCount = 0;
+      for (;;) {
+        totalCount += compressor.deflate(buffer, totalCount, buffer.length - totalCount);
+        assert totalCount <= buffer.length;
+        if (compressor.finished()) {
+          return totalCount;
+        }
+        buffer = ArrayUtil.grow(buffer);
+      }
+    }
+
+    @Override
+    public void compress(byte[] bytes, int off, int len, DataOutput out) throws IOException {
+      final int dictLength = presetDictLength(len);
+      final int blockLength = subBlockLength(len, dictLength);
+      out.writeVInt(dictLength);
+      out.writeVInt(blockLength);
+
+      // the dictionary is compressed on its own
+      int count = deflate(bytes, off, 0, off, dictLength);
+      out.writeVInt(count);
+      out.writeBytes(buffer, count);
+
+      compressed.reset();
+      int numBlocks = 0;
+      for (int start = off + dictLength, end = off + len; start < end; start += blockLength) {
+        count = deflate(bytes, off, dictLength, start, Math.min(blockLength, end - start));
+        compressed.writeBytes(buffer, count);
+        compressedLengths[numBlocks++] = count;
+      }
+      for (int i = 0; i < numBlocks; ++i) {
+        out.writeVInt(compressedLengths[i]);
+      }
+      compressed.copyTo(out);
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (closed == false) {
+        compressor.end();
+        closed = true;
+      }
+    }
+  }
+
+  private static final class DeflateWithPresetDictDecompressor extends Decompressor {
+
+    private int[] compressedLengths = new int[0];
+    private byte[] compressed = new byte[0];
+    private byte[] dictionary = new byte[0];
+    private byte[] blockBuffer = new byte[0];
+
+    /** Decompress {@code compressedLength} bytes from {@code in} into
+     *  {@code dest[destOff:destOff+len]}. */
+    private void inflate(Inflater decompressor, DataInput in, int compressedLength, byte[] dict, int dictLength, byte[] dest, int destOff, int len) throws IOException {
+      if (len == 0) {
+        if (compressedLength != 0) {
+          throw new CorruptIndexException("Lengths mismatch: " + compressedLength + " compressed bytes for an empty sequence", in);
+        }
+        return;
+      }
+      // pad with extra "dummy byte": see javadocs for using Inflater(true)
+      // we do it for compliance, but it's unnecessary for years in zlib.
+      compressed = ArrayUtil.grow(compressed, compressedLength + 1);
+      in.readBytes(compressed, 0, compressedLength);
+      compressed[compressedLength] = 0; // explicitly set dummy byte to 0
+
+      decompressor.reset();
+      if (dictLength > 0) {
+        decompressor.setDictionary(dict, 0, dictLength);
+      }
+      decompressor.setInput(compressed, 0, compressedLength + 1);
+      final int count;
+      try {
+        count = decompressor.inflate(dest, destOff, len);
+      } catch (DataFormatException e) {
+        throw new IOException(e);
+      }
+      if (count != len || decompressor.finished() == false) {
+        throw new CorruptIndexException("Lengths mismatch: " + count + " != " + len
+            + " or invalid decoder state: finished=" + decompressor.finished(), in);
+      }
+    }
+
+    @Override
+    public void decompress(DataInput in, int originalLength, int offset, int length, BytesRef bytes) throws IOException {
+      assert offset + length <= originalLength;
+      if (length == 0) {
+        bytes.length = 0;
+        return;
+      }
+      final int dictLength = in.readVInt();
+      final int blockLength = in.readVInt();
+      if (dictLength > originalLength || (long) dictLength + (long) blockLength * NUM_SUB_BLOCKS < originalLength) {
+        throw new CorruptIndexException("Illegal dictionary length " + dictLength + " or sub-block length " + blockLength
+            + " for a chunk of length " + originalLength, in);
+      }
+
+      bytes.offset = bytes.length = 0;
+      bytes.bytes = ArrayUtil.grow(bytes.bytes, length);
+
+      // one inflater per call, reset before every sub-block
+      final Inflater decompressor = new Inflater(true);
+      try {
+        // the dictionary is always needed, and may contain some of the requested bytes
+        dictionary = ArrayUtil.grow(dictionary, dictLength);
+        inflate(decompressor, in, in.readVInt(), dictionary, 0, dictionary, 0, dictLength);
+        final int end = offset + length;
+        if (offset < dictLength) {
+          bytes.length = Math.min(end, dictLength) - offset;
+          System.arraycopy(dictionary, offset, bytes.bytes, 0, bytes.length);
+        }
+
+        compressedLengths = readCompressedLengths(in, originalLength, dictLength, blockLength, compressedLengths);
+        int block = 0;
+        int blockStart = dictLength;
+        // skip sub-blocks that are entirely before offset
+        while (compressedLengths[block] != -1 && blockStart + blockLength <= offset) {
+          in.skipBytes(compressedLengths[block++]);
+          blockStart += blockLength;
+        }
+        // decompress sub-blocks that intersect with [offset, offset + length),
+        // DEFLATE can't stop in the middle of a sub-block so they are fully
+        // decompressed, into bytes if they are entirely requested
+        while (blockStart < end) {
+          final int blockLen = Math.min(blockLength, originalLength - blockStart);
+          final int from = Math.max(offset, blockStart);
+          final int to = Math.min(end, blockStart + blockLen);
+          if (from == blockStart && to == blockStart + blockLen) {
+            inflate(decompressor, in, compressedLengths[block++], dictionary, dictLength, bytes.bytes, bytes.length, blockLen);
+          } else {
+            blockBuffer = ArrayUtil.grow(blockBuffer, blockLen);
+            inflate(decompressor, in, compressedLengths[block++], dictionary, dictLength, blockBuffer, 0, blockLen);
+            System.arraycopy(blockBuffer, from - blockStart, bytes.bytes, bytes.length, to - from);
+          }
+          bytes.length += to - from;
+          blockStart += blockLength;
+        }
+      } finally {
+        decompressor.end();
+      }
+      assert bytes.length == length;
+    }
+
+    @Override
+    public Decompressor clone() {
+      return new DeflateWithPresetDictDecompressor();
+    }
+  }
+
 }
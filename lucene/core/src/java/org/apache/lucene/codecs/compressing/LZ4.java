@@ -201,20 +201,44 @@ final class LZ4 {
    * but can safely be reused.
    */
   public static void compress(byte[] bytes, int off, int len, DataOutput out, HashTable ht) throws IOException {
+    compressWithDictionary(bytes, off, 0, len, out, ht);
+  }
 
-    final int base = off;
-    final int end = off + len;
+  /**
+   * Compress <code>bytes[dictOff+dictLen:dictOff+dictLen+len]</code> into
+   * <code>out</code>, allowing matches to refer to the preset dictionary
+   * <code>bytes[dictOff:dictOff+dictLen]</code>, which is not written to
+   * <code>out</code>. The dictionary must be in <code>dest</code> right before
+   * the decompressed bytes when calling {@link #decompress}, and only its last
+   * 64KB may be referred to. <code>ht</code> shouldn't be shared across
+   * threads but can safely be reused.
+   */
+  public static void compressWithDictionary(byte[] bytes, int dictOff, int dictLen, int len, DataOutput out, HashTable ht) throws IOException {
 
-    int anchor = off++;
+    final int base = dictOff;
+    final int end = dictOff + dictLen + len;
+
+    int off = dictOff + dictLen;
+    int anchor = off;
+    if (dictLen == 0) {
+      // the first position can't match since there is nothing before it
+      ++off;
+    }
 
     if (len > LAST_LITERALS + MIN_MATCH) {
 
       final int limit = end - LAST_LITERALS;
       final int matchLimit = limit - MIN_MATCH;
-      ht.reset(len);
+      ht.reset(dictLen + len);
       final int hashLog = ht.hashLog;
       final PackedInts.Mutable hashTable = ht.hashTable;
 
+      // index the dictionary, the last 64KB only since farther references
+      // can't be encoded
+      for (int i = Math.max(dictOff, anchor - MAX_DISTANCE + 1); i < anchor; ++i) {
+        hashTable.set(hash(readInt(bytes, i), hashLog), i - base);
+      }
+
       main:
       while (off <= limit) {
         // find a match
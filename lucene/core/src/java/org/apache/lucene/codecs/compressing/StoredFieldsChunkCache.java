@@ -0,0 +1,230 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.codecs.compressing;
+
+import static org.apache.lucene.util.RamUsageEstimator.HASHTABLE_RAM_BYTES_PER_ENTRY;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.RamUsageEstimator;
+
+/**
+ * A size-bounded cache of decompressed chunks of documents, shared by all
+ * {@link CompressingStoredFieldsReader}s that are cloned from the same
+ * segment core. Entries are keyed by the start pointer of the chunk in the
+ * fields stream.
+ * <p>
+ * Lookups and insertions never block each other. When the cache grows over
+ * its maximum size, the thread that inserted the last entry evicts entries
+ * using a second-chance (CLOCK) policy which approximates LRU: entries are
+ * visited in insertion order and entries that have been hit since they were
+ * last visited are given another round instead of being evicted.
+ * <p>
+ * This cache is enabled through the
+ * {@link CompressingStoredFieldsFormat#CHUNK_CACHE_SIZE_KEY} reader attribute.
+ * @lucene.experimental
+ */
+public final class StoredFieldsChunkCache implements Accountable {
+
+  static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(StoredFieldsChunkCache.class);
+
+  // the chunk, its three arrays, the hash table entry and the boxed key that
+  // is referenced both by the hash table and by the eviction queue
+  private static final long CHUNK_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(Chunk.class)
+      + 3 * RamUsageEstimator.NUM_BYTES_ARRAY_HEADER
+      + HASHTABLE_RAM_BYTES_PER_ENTRY
+      + 2 * RamUsageEstimator.NUM_BYTES_OBJECT_REF + RamUsageEstimator.NUM_BYTES_OBJECT_HEADER + Long.BYTES;
+
+  private final long maxRamBytesUsed;
+  private final Map<Long, Chunk> chunks;
+  // start pointers of cached chunks, in the order in which they will be considered for eviction
+  private final Queue<Long> clock;
+  private final AtomicLong ramBytesUsed;
+
+  private final LongAdder hitCount;
+  private final LongAdder missCount;
+  private final LongAdder cacheCount;
+  private final LongAdder evictionCount;
+
+  /**
+   * Create a new cache that may use up to <code>maxRamBytesUsed</code> bytes
+   * of memory.
+   */
+  StoredFieldsChunkCache(long maxRamBytesUsed) {
+    if (maxRamBytesUsed <= 0) {
+      throw new IllegalArgumentException("maxRamBytesUsed must be > 0, got " + maxRamBytesUsed);
+    }
+    this.maxRamBytesUsed = maxRamBytesUsed;
+    chunks = new ConcurrentHashMap<>();
+    clock = new ConcurrentLinkedQueue<>();
+    ramBytesUsed = new AtomicLong();
+    hitCount = new LongAdder();
+    missCount = new LongAdder();
+    cacheCount = new LongAdder();
+    evictionCount = new LongAdder();
+  }
+
+  /**
+   * Return the chunk that starts at the given pointer, or <code>null</code>
+   * if it is not cached.
+   */
+  Chunk get(long startPointer) {
+    final Chunk chunk = chunks.get(startPointer);
+    if (chunk == null) {
+      missCount.increment();
+    } else {
+      hitCount.increment();
+      chunk.referenced = true;
+    }
+    return chunk;
+  }
+
+  /**
+   * Cache the chunk that starts at the given pointer and evict other chunks
+   * if necessary in order to stay under the maximum size.
+   */
+  void put(long startPointer, Chunk chunk) {
+    if (chunk.ramBytesUsed > maxRamBytesUsed) {
+      // caching this chunk would flush the whole cache
+      return;
+    }
+    if (chunks.putIfAbsent(startPointer, chunk) != null) {
+      // another reader decompressed the same chunk concurrently
+      return;
+    }
+    clock.add(startPointer);
+    cacheCount.increment();
+    long ramBytesUsed = this.ramBytesUsed.addAndGet(chunk.ramBytesUsed);
+    while (ramBytesUsed > maxRamBytesUsed) {
+      final Long candidateKey = clock.poll();
+      if (candidateKey == null) {
+        // other threads are evicting concurrently
+        break;
+      }
+      final Chunk candidate = chunks.get(candidateKey);
+      if (candidate.referenced) {
+        // give it a second chance
+        candidate.referenced = false;
+        clock.add(candidateKey);
+      } else if (chunks.remove(candidateKey, candidate)) {
+        evictionCount.increment();
+        this.ramBytesUsed.addAndGet(-candidate.ramBytesUsed);
+      }
+      ramBytesUsed = this.ramBytesUsed.get();
+    }
+  }
+
+  /** Return the maximum amount of memory that this cache may use. */
+  public long getMaxRamBytesUsed() {
+    return maxRamBytesUsed;
+  }
+
+  /**
+   * Return the total number of times that a chunk has been looked up in this
+   * cache. Lookups only happen when a reader moves to a different chunk, so
+   * reading several documents in a row from the same chunk only counts once.
+   * Note that by definition, {@link #getTotalCount()} is the sum of
+   * {@link #getHitCount()} and {@link #getMissCount()}.
+   */
+  public long getTotalCount() {
+    return getHitCount() + getMissCount();
+  }
+
+  /**
+   * Return how many chunk lookups were served from the cache, without any
+   * decompression.
+   * @see #getTotalCount()
+   */
+  public long getHitCount() {
+    return hitCount.sum();
+  }
+
+  /**
+   * Return how many chunk lookups had to read and decompress the chunk.
+   * @see #getTotalCount()
+   */
+  public long getMissCount() {
+    return missCount.sum();
+  }
+
+  /** Return the number of chunks which are currently stored in the cache. */
+  public long getCacheSize() {
+    return chunks.size();
+  }
+
+  /** Return the total number of chunks that have been put in the cache. */
+  public long getCacheCount() {
+    return cacheCount.sum();
+  }
+
+  /**
+   * Return the number of chunks that have been removed from the cache in
+   * order to stay under the maximum size.
+   */
+  public long getEvictionCount() {
+    return evictionCount.sum();
+  }
+
+  @Override
+  public long ramBytesUsed() {
+    return BASE_RAM_BYTES_USED + ramBytesUsed.get();
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getSimpleName() + "(maxRamBytesUsed=" + maxRamBytesUsed + ",size=" + getCacheSize()
+        + ",hits=" + getHitCount() + ",misses=" + getMissCount() + ")";
+  }
+
+  /** A decompressed chunk of documents. */
+  static final class Chunk {
+
+    final int docBase, chunkDocs;
+    // offsets of documents in bytes, with chunkDocs + 1 entries
+    final int[] offsets;
+    final int[] numStoredFields;
+    final byte[] bytes;
+    final long ramBytesUsed;
+
+    // whether the chunk has been hit since it was last visited for eviction
+    volatile boolean referenced;
+
+    Chunk(int docBase, int chunkDocs, int[] offsets, int[] numStoredFields, byte[] bytes) {
+      assert offsets.length == chunkDocs + 1;
+      assert numStoredFields.length == chunkDocs;
+      assert bytes.length == offsets[chunkDocs];
+      this.docBase = docBase;
+      this.chunkDocs = chunkDocs;
+      this.offsets = offsets;
+      this.numStoredFields = numStoredFields;
+      this.bytes = bytes;
+      this.ramBytesUsed = CHUNK_RAM_BYTES_USED
+          + (long) Integer.BYTES * (offsets.length + numStoredFields.length)
+          + bytes.length;
+    }
+
+    boolean contains(int docID) {
+      return docID >= docBase && docID < docBase + chunkDocs;
+    }
+  }
+}
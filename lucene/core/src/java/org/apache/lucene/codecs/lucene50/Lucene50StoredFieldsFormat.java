@@ -29,6 +29,7 @@ import org.apache.lucene.codecs.compressing.CompressingStoredFieldsIndexWriter;
 import org.apache.lucene.codecs.compressing.CompressionMode;
 import org.apache.lucene.index.FieldInfos;
 import org.apache.lucene.index.SegmentInfo;
+import org.apache.lucene.index.SegmentReadState;
 import org.apache.lucene.index.StoredFieldVisitor;
 import org.apache.lucene.store.DataOutput;
 import org.apache.lucene.store.Directory;
@@ -165,12 +166,20 @@ public final class Lucene50StoredFieldsFormat extends StoredFieldsFormat {
 
   @Override
   public StoredFieldsReader fieldsReader(Directory directory, SegmentInfo si, FieldInfos fn, IOContext context) throws IOException {
+    return impl(getMode(si)).fieldsReader(directory, si, fn, context);
+  }
+
+  @Override
+  public StoredFieldsReader fieldsReader(SegmentReadState state) throws IOException {
+    return impl(getMode(state.segmentInfo)).fieldsReader(state);
+  }
+
+  private static Mode getMode(SegmentInfo si) {
     String value = si.getAttribute(MODE_KEY);
     if (value == null) {
       throw new IllegalStateException("missing value for " + MODE_KEY + " for segment: " + si.name);
     }
-    Mode mode = Mode.valueOf(value);
-    return impl(mode).fieldsReader(directory, si, fn, context);
+    return Mode.valueOf(value);
   }
 
   @Override
@@ -0,0 +1,1185 @@
+// This file has been automatically generated, DO NOT EDIT
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.codecs.lucene84;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.lucene.store.DataInput;
+import org.apache.lucene.store.DataOutput;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.util.packed.PackedInts;
+
+/**
+ * Encodes and decodes blocks of {@link #BLOCK_SIZE} integers with a fixed
+ * number of bits per value.
+ * <p>
+ * Unlike {@link org.apache.lucene.util.packed.PackedInts}, values are not
+ * packed one after the other. Instead, a block is first "collapsed" into
+ * longs that hold several values in lanes of 8, 16 or 32 bits, the smallest
+ * lane width that can hold the number of bits per value. Then lanes are packed
+ * by shifting every collapsed long by the same amount and OR-ing it into the
+ * output, so that all lanes of all longs are processed by the same sequence of
+ * shifts and masks. This gives loops that have no dependencies across
+ * iterations, which the JVM can auto-vectorize, and makes it possible to
+ * compute prefix sums of doc deltas on two 32-bit lanes at once.
+ * <p>
+ * The number of bytes used by a block is always {@code bitsPerValue * 16}.
+ */
+final class ForUtil {
+
+  /**
+   * Number of integers per block.
+   */
+  static final int BLOCK_SIZE = 128;
+  private static final int BLOCK_SIZE_LOG2 = 7;
+
+  /**
+   * Special number of bits per value used whenever all values to encode are equal.
+   */
+  private static final int ALL_VALUES_EQUAL = 0;
+
+  private static long expandMask32(long mask32) {
+    return mask32 | (mask32 << 32);
+  }
+
+  private static long expandMask16(long mask16) {
+    return expandMask32(mask16 | (mask16 << 16));
+  }
+
+  private static long expandMask8(long mask8) {
+    return expandMask16(mask8 | (mask8 << 8));
+  }
+
+  private static long mask32(int bitsPerValue) {
+    return expandMask32((1L << bitsPerValue) - 1);
+  }
+
+  private static long mask16(int bitsPerValue) {
+    return expandMask16((1L << bitsPerValue) - 1);
+  }
+
+  private static long mask8(int bitsPerValue) {
+    return expandMask8((1L << bitsPerValue) - 1);
+  }
+
+  private static void expand8(long[] arr) {
+    for (int i = 0; i < 16; ++i) {
+      long l = arr[i];
+      arr[i] = (l >>> 56) & 0xFFL;
+      arr[16 + i] = (l >>> 48) & 0xFFL;
+      arr[32 + i] = (l >>> 40) & 0xFFL;
+      arr[48 + i] = (l >>> 32) & 0xFFL;
+      arr[64 + i] = (l >>> 24) & 0xFFL;
+      arr[80 + i] = (l >>> 16) & 0xFFL;
+      arr[96 + i] = (l >>> 8) & 0xFFL;
+      arr[112 + i] = l & 0xFFL;
+    }
+  }
+
+  private static void expand8To32(long[] arr) {
+    for (int i = 0; i < 16; ++i) {
+      long l = arr[i];
+      arr[i] = (l >>> 24) & 0x000000FF000000FFL;
+      arr[16 + i] = (l >>> 16) & 0x000000FF000000FFL;
+      arr[32 + i] = (l >>> 8) & 0x000000FF000000FFL;
+      arr[48 + i] = l & 0x000000FF000000FFL;
+    }
+  }
+
+  private static void collapse8(long[] arr) {
+    for (int i = 0; i < 16; ++i) {
+      arr[i] = (arr[i] << 56) | (arr[16 + i] << 48) | (arr[32 + i] << 40) | (arr[48 + i] << 32)
+          | (arr[64 + i] << 24) | (arr[80 + i] << 16) | (arr[96 + i] << 8) | arr[112 + i];
+    }
+  }
+
+  private static void expand16(long[] arr) {
+    for (int i = 0; i < 32; ++i) {
+      long l = arr[i];
+      arr[i] = (l >>> 48) & 0xFFFFL;
+      arr[32 + i] = (l >>> 32) & 0xFFFFL;
+      arr[64 + i] = (l >>> 16) & 0xFFFFL;
+      arr[96 + i] = l & 0xFFFFL;
+    }
+  }
+
+  private static void expand16To32(long[] arr) {
+    for (int i = 0; i < 32; ++i) {
+      long l = arr[i];
+      arr[i] = (l >>> 16) & 0x0000FFFF0000FFFFL;
+      arr[32 + i] = l & 0x0000FFFF0000FFFFL;
+    }
+  }
+
+  private static void collapse16(long[] arr) {
+    for (int i = 0; i < 32; ++i) {
+      arr[i] = (arr[i] << 48) | (arr[32 + i] << 32) | (arr[64 + i] << 16) | arr[96 + i];
+    }
+  }
+
+  private static void expand32(long[] arr) {
+    for (int i = 0; i < 64; ++i) {
+      long l = arr[i];
+      arr[i] = l >>> 32;
+      arr[64 + i] = l & 0xFFFFFFFFL;
+    }
+  }
+
+  private static void collapse32(long[] arr) {
+    for (int i = 0; i < 64; ++i) {
+      arr[i] = (arr[i] << 32) | arr[64 + i];
+    }
+  }
+
+  /**
+   * Compute the prefix sum of a block that is collapsed on 32-bit lanes, the
+   * upper lanes holding the first 64 values and the lower lanes the last 64
+   * values. Sums are computed on both lanes at once and only need to be
+   * fixed up for the second half of the block once expanded.
+   */
+  private static void prefixSum32(long[] arr, long base) {
+    arr[0] += base << 32;
+    innerPrefixSum32(arr);
+    expand32(arr);
+    final long l = arr[BLOCK_SIZE / 2 - 1];
+    for (int i = BLOCK_SIZE / 2; i < BLOCK_SIZE; ++i) {
+      arr[i] += l;
+    }
+  }
+
+  private static void innerPrefixSum32(long[] arr) {
+    for (int i = 1; i < BLOCK_SIZE / 2; ++i) {
+      arr[i] += arr[i - 1];
+    }
+  }
+
+  private static final long[] MASKS8 = new long[8];
+  private static final long[] MASKS16 = new long[16];
+  private static final long[] MASKS32 = new long[32];
+  static {
+    for (int i = 0; i < 8; ++i) {
+      MASKS8[i] = mask8(i);
+    }
+    for (int i = 0; i < 16; ++i) {
+      MASKS16[i] = mask16(i);
+    }
+    for (int i = 0; i < 32; ++i) {
+      MASKS32[i] = mask32(i);
+    }
+  }
+
+  private final long[] tmp = new long[BLOCK_SIZE / 2];
+
+  /**
+   * Write a block of values, prefixed with the number of bits per value that
+   * is required to encode them. {@code longs} is used as scratch space and
+   * its content is undefined after this method returns.
+   */
+  void writeBlock(long[] longs, DataOutput out) throws IOException {
+    if (isAllEqual(longs)) {
+      out.writeByte((byte) ALL_VALUES_EQUAL);
+      out.writeVInt(Math.toIntExact(longs[0]));
+      return;
+    }
+    long or = 0;
+    for (int i = 0; i < BLOCK_SIZE; ++i) {
+      assert longs[i] >= 0 && longs[i] <= 0xFFFFFFFFL : longs[i];
+      or |= longs[i];
+    }
+    final int bitsPerValue = PackedInts.bitsRequired(or);
+    out.writeByte((byte) bitsPerValue);
+    encode(longs, bitsPerValue, out);
+  }
+
+  /**
+   * Read a block of values that has been written with
+   * {@link #writeBlock(long[], DataOutput)}.
+   */
+  void readBlock(DataInput in, long[] longs) throws IOException {
+    final int bitsPerValue = in.readByte();
+    if (bitsPerValue == ALL_VALUES_EQUAL) {
+      Arrays.fill(longs, 0, BLOCK_SIZE, in.readVInt());
+    } else {
+      decode(bitsPerValue, in, longs);
+    }
+  }
+
+  /**
+   * Read a block of deltas that has been written with
+   * {@link #writeBlock(long[], DataOutput)} and turn it into absolute values
+   * by adding {@code base} to its prefix sum.
+   */
+  void readBlockAndPrefixSum(DataInput in, long base, long[] longs) throws IOException {
+    final int bitsPerValue = in.readByte();
+    if (bitsPerValue == ALL_VALUES_EQUAL) {
+      final long value = in.readVInt();
+      for (int i = 0; i < BLOCK_SIZE; ++i) {
+        longs[i] = base + value * (i + 1);
+      }
+    } else {
+      decodeAndPrefixSum(bitsPerValue, in, base, longs);
+    }
+  }
+
+  /**
+   * Skip a block of values that has been written with
+   * {@link #writeBlock(long[], DataOutput)}.
+   */
+  void skipBlock(IndexInput in) throws IOException {
+    final int bitsPerValue = in.readByte();
+    if (bitsPerValue == ALL_VALUES_EQUAL) {
+      in.readVInt();
+    } else {
+      in.seek(in.getFilePointer() + numBytes(bitsPerValue));
+    }
+  }
+
+  private static boolean isAllEqual(long[] longs) {
+    final long v = longs[0];
+    for (int i = 1; i < BLOCK_SIZE; ++i) {
+      if (longs[i] != v) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Encode 128 integers from {@code longs} into {@code out}. {@code longs} is
+   * used as scratch space and its content is undefined after this method
+   * returns.
+   */
+  void encode(long[] longs, int bitsPerValue, DataOutput out) throws IOException {
+    assert bitsPerValue > 0 && bitsPerValue <= 32 : bitsPerValue;
+    final int nextPrimitive;
+    final int numLongs;
+    if (bitsPerValue <= 8) {
+      nextPrimitive = 8;
+      numLongs = BLOCK_SIZE / 8;
+      collapse8(longs);
+    } else if (bitsPerValue <= 16) {
+      nextPrimitive = 16;
+      numLongs = BLOCK_SIZE / 4;
+      collapse16(longs);
+    } else {
+      nextPrimitive = 32;
+      numLongs = BLOCK_SIZE / 2;
+      collapse32(longs);
+    }
+
+    final int numLongsPerShift = bitsPerValue * 2;
+    int idx = 0;
+    int shift = nextPrimitive - bitsPerValue;
+    for (int i = 0; i < numLongsPerShift; ++i) {
+      tmp[i] = longs[idx++] << shift;
+    }
+    for (shift = shift - bitsPerValue; shift >= 0; shift -= bitsPerValue) {
+      for (int i = 0; i < numLongsPerShift; ++i) {
+        tmp[i] |= longs[idx++] << shift;
+      }
+    }
+
+    // Values that didn't fit in whole lanes are spread over the bits that
+    // remain at the bottom of every lane.
+    final int remainingBitsPerLong = shift + bitsPerValue;
+    final long[] masks;
+    if (nextPrimitive == 8) {
+      masks = MASKS8;
+    } else if (nextPrimitive == 16) {
+      masks = MASKS16;
+    } else {
+      masks = MASKS32;
+    }
+    int tmpIdx = 0;
+    int remainingBitsPerValue = bitsPerValue;
+    while (idx < numLongs) {
+      if (remainingBitsPerValue >= remainingBitsPerLong) {
+        remainingBitsPerValue -= remainingBitsPerLong;
+        tmp[tmpIdx++] |= (longs[idx] >>> remainingBitsPerValue) & masks[remainingBitsPerLong];
+        if (remainingBitsPerValue == 0) {
+          idx++;
+          remainingBitsPerValue = bitsPerValue;
+        }
+      } else {
+        final long mask1 = masks[remainingBitsPerValue];
+        final long mask2 = masks[remainingBitsPerLong - remainingBitsPerValue];
+        tmp[tmpIdx] |= (longs[idx++] & mask1) << (remainingBitsPerLong - remainingBitsPerValue);
+        remainingBitsPerValue = bitsPerValue - remainingBitsPerLong + remainingBitsPerValue;
+        tmp[tmpIdx++] |= (longs[idx] >>> remainingBitsPerValue) & mask2;
+      }
+    }
+
+    for (int i = 0; i < numLongsPerShift; ++i) {
+      out.writeLong(tmp[i]);
+    }
+  }
+
+  /**
+   * Number of bytes required to encode 128 integers of {@code bitsPerValue} bits per value.
+   */
+  static int numBytes(int bitsPerValue) {
+    return bitsPerValue << (BLOCK_SIZE_LOG2 - 3);
+  }
+
+  private static void readLongs(DataInput in, long[] tmp, int count) throws IOException {
+    for (int i = 0; i < count; ++i) {
+      tmp[i] = in.readLong();
+    }
+  }
+
+  private static void shiftLongs(long[] a, int count, long[] b, int bi, int shift, long mask) {
+    for (int i = 0; i < count; ++i) {
+      b[bi + i] = (a[i] >>> shift) & mask;
+    }
+  }
+
+  // mask for lanes of <primitive> bits that keeps the <bits> lowest bits of every lane
+  private static final long MASK8_1 = mask8(1);
+  private static final long MASK8_2 = mask8(2);
+  private static final long MASK8_3 = mask8(3);
+  private static final long MASK8_4 = mask8(4);
+  private static final long MASK8_5 = mask8(5);
+  private static final long MASK8_6 = mask8(6);
+  private static final long MASK8_7 = mask8(7);
+  private static final long MASK8_8 = mask8(8);
+  private static final long MASK16_1 = mask16(1);
+  private static final long MASK16_2 = mask16(2);
+  private static final long MASK16_3 = mask16(3);
+  private static final long MASK16_4 = mask16(4);
+  private static final long MASK16_5 = mask16(5);
+  private static final long MASK16_6 = mask16(6);
+  private static final long MASK16_7 = mask16(7);
+  private static final long MASK16_9 = mask16(9);
+  private static final long MASK16_10 = mask16(10);
+  private static final long MASK16_11 = mask16(11);
+  private static final long MASK16_12 = mask16(12);
+  private static final long MASK16_13 = mask16(13);
+  private static final long MASK16_14 = mask16(14);
+  private static final long MASK16_15 = mask16(15);
+  private static final long MASK16_16 = mask16(16);
+  private static final long MASK32_1 = mask32(1);
+  private static final long MASK32_2 = mask32(2);
+  private static final long MASK32_3 = mask32(3);
+  private static final long MASK32_4 = mask32(4);
+  private static final long MASK32_5 = mask32(5);
+  private static final long MASK32_6 = mask32(6);
+  private static final long MASK32_7 = mask32(7);
+  private static final long MASK32_8 = mask32(8);
+  private static final long MASK32_9 = mask32(9);
+  private static final long MASK32_10 = mask32(10);
+  private static final long MASK32_11 = mask32(11);
+  private static final long MASK32_12 = mask32(12);
+  private static final long MASK32_13 = mask32(13);
+  private static final long MASK32_14 = mask32(14);
+  private static final long MASK32_15 = mask32(15);
+  private static final long MASK32_17 = mask32(17);
+  private static final long MASK32_18 = mask32(18);
+  private static final long MASK32_19 = mask32(19);
+  private static final long MASK32_20 = mask32(20);
+  private static final long MASK32_21 = mask32(21);
+  private static final long MASK32_22 = mask32(22);
+  private static final long MASK32_23 = mask32(23);
+  private static final long MASK32_24 = mask32(24);
+  private static final long MASK32_25 = mask32(25);
+  private static final long MASK32_26 = mask32(26);
+  private static final long MASK32_27 = mask32(27);
+  private static final long MASK32_28 = mask32(28);
+  private static final long MASK32_29 = mask32(29);
+  private static final long MASK32_30 = mask32(30);
+  private static final long MASK32_31 = mask32(31);
+  private static final long MASK32_32 = mask32(32);
+
+  /**
+   * Decode 128 integers into {@code longs}.
+   */
+  void decode(int bitsPerValue, DataInput in, long[] longs) throws IOException {
+    switch (bitsPerValue) {
+      case 1:
+        decode1(in, tmp, longs);
+        expand8(longs);
+        break;
+      case 2:
+        decode2(in, tmp, longs);
+        expand8(longs);
+        break;
+      case 3:
+        decode3(in, tmp, longs);
+        expand8(longs);
+        break;
+      case 4:
+        decode4(in, tmp, longs);
+        expand8(longs);
+        break;
+      case 5:
+        decode5(in, tmp, longs);
+        expand8(longs);
+        break;
+      case 6:
+        decode6(in, tmp, longs);
+        expand8(longs);
+        break;
+      case 7:
+        decode7(in, tmp, longs);
+        expand8(longs);
+        break;
+      case 8:
+        decode8(in, tmp, longs);
+        expand8(longs);
+        break;
+      case 9:
+        decode9(in, tmp, longs);
+        expand16(longs);
+        break;
+      case 10:
+        decode10(in, tmp, longs);
+        expand16(longs);
+        break;
+      case 11:
+        decode11(in, tmp, longs);
+        expand16(longs);
+        break;
+      case 12:
+        decode12(in, tmp, longs);
+        expand16(longs);
+        break;
+      case 13:
+        decode13(in, tmp, longs);
+        expand16(longs);
+        break;
+      case 14:
+        decode14(in, tmp, longs);
+        expand16(longs);
+        break;
+      case 15:
+        decode15(in, tmp, longs);
+        expand16(longs);
+        break;
+      case 16:
+        decode16(in, tmp, longs);
+        expand16(longs);
+        break;
+      case 17:
+        decode17(in, tmp, longs);
+        expand32(longs);
+        break;
+      case 18:
+        decode18(in, tmp, longs);
+        expand32(longs);
+        break;
+      case 19:
+        decode19(in, tmp, longs);
+        expand32(longs);
+        break;
+      case 20:
+        decode20(in, tmp, longs);
+        expand32(longs);
+        break;
+      case 21:
+        decode21(in, tmp, longs);
+        expand32(longs);
+        break;
+      case 22:
+        decode22(in, tmp, longs);
+        expand32(longs);
+        break;
+      case 23:
+        decode23(in, tmp, longs);
+        expand32(longs);
+        break;
+      case 24:
+        decode24(in, tmp, longs);
+        expand32(longs);
+        break;
+      case 25:
+        decode25(in, tmp, longs);
+        expand32(longs);
+        break;
+      case 26:
+        decode26(in, tmp, longs);
+        expand32(longs);
+        break;
+      case 27:
+        decode27(in, tmp, longs);
+        expand32(longs);
+        break;
+      case 28:
+        decode28(in, tmp, longs);
+        expand32(longs);
+        break;
+      case 29:
+        decode29(in, tmp, longs);
+        expand32(longs);
+        break;
+      case 30:
+        decode30(in, tmp, longs);
+        expand32(longs);
+        break;
+      case 31:
+        decode31(in, tmp, longs);
+        expand32(longs);
+        break;
+      case 32:
+        decode32(in, tmp, longs);
+        expand32(longs);
+        break;
+      default:
+        throw new AssertionError("Unsupported number of bits per value: " + bitsPerValue);
+    }
+  }
+
+  /**
+   * Decode 128 deltas into {@code longs} and compute their prefix sum, starting
+   * from {@code base}.
+   */
+  void decodeAndPrefixSum(int bitsPerValue, DataInput in, long base, long[] longs) throws IOException {
+    switch (bitsPerValue) {
+      case 1:
+        decode1(in, tmp, longs);
+        expand8To32(longs);
+        prefixSum32(longs, base);
+        break;
+      case 2:
+        decode2(in, tmp, longs);
+        expand8To32(longs);
+        prefixSum32(longs, base);
+        break;
+      case 3:
+        decode3(in, tmp, longs);
+        expand8To32(longs);
+        prefixSum32(longs, base);
+        break;
+      case 4:
+        decode4(in, tmp, longs);
+        expand8To32(longs);
+        prefixSum32(longs, base);
+        break;
+      case 5:
+        decode5(in, tmp, longs);
+        expand8To32(longs);
+        prefixSum32(longs, base);
+        break;
+      case 6:
+        decode6(in, tmp, longs);
+        expand8To32(longs);
+        prefixSum32(longs, base);
+        break;
+      case 7:
+        decode7(in, tmp, longs);
+        expand8To32(longs);
+        prefixSum32(longs, base);
+        break;
+      case 8:
+        decode8(in, tmp, longs);
+        expand8To32(longs);
+        prefixSum32(longs, base);
+        break;
+      case 9:
+        decode9(in, tmp, longs);
+        expand16To32(longs);
+        prefixSum32(longs, base);
+        break;
+      case 10:
+        decode10(in, tmp, longs);
+        expand16To32(longs);
+        prefixSum32(longs, base);
+        break;
+      case 11:
+        decode11(in, tmp, longs);
+        expand16To32(longs);
+        prefixSum32(longs, base);
+        break;
+      case 12:
+        decode12(in, tmp, longs);
+        expand16To32(longs);
+        prefixSum32(longs, base);
+        break;
+      case 13:
+        decode13(in, tmp, longs);
+        expand16To32(longs);
+        prefixSum32(longs, base);
+        break;
+      case 14:
+        decode14(in, tmp, longs);
+        expand16To32(longs);
+        prefixSum32(longs, base);
+        break;
+      case 15:
+        decode15(in, tmp, longs);
+        expand16To32(longs);
+        prefixSum32(longs, base);
+        break;
+      case 16:
+        decode16(in, tmp, longs);
+        expand16To32(longs);
+        prefixSum32(longs, base);
+        break;
+      case 17:
+        decode17(in, tmp, longs);
+        prefixSum32(longs, base);
+        break;
+      case 18:
+        decode18(in, tmp, longs);
+        prefixSum32(longs, base);
+        break;
+      case 19:
+        decode19(in, tmp, longs);
+        prefixSum32(longs, base);
+        break;
+      case 20:
+        decode20(in, tmp, longs);
+        prefixSum32(longs, base);
+        break;
+      case 21:
+        decode21(in, tmp, longs);
+        prefixSum32(longs, base);
+        break;
+      case 22:
+        decode22(in, tmp, longs);
+        prefixSum32(longs, base);
+        break;
+      case 23:
+        decode23(in, tmp, longs);
+        prefixSum32(longs, base);
+        break;
+      case 24:
+        decode24(in, tmp, longs);
+        prefixSum32(longs, base);
+        break;
+      case 25:
+        decode25(in, tmp, longs);
+        prefixSum32(longs, base);
+        break;
+      case 26:
+        decode26(in, tmp, longs);
+        prefixSum32(longs, base);
+        break;
+      case 27:
+        decode27(in, tmp, longs);
+        prefixSum32(longs, base);
+        break;
+      case 28:
+        decode28(in, tmp, longs);
+        prefixSum32(longs, base);
+        break;
+      case 29:
+        decode29(in, tmp, longs);
+        prefixSum32(longs, base);
+        break;
+      case 30:
+        decode30(in, tmp, longs);
+        prefixSum32(longs, base);
+        break;
+      case 31:
+        decode31(in, tmp, longs);
+        prefixSum32(longs, base);
+        break;
+      case 32:
+        decode32(in, tmp, longs);
+        prefixSum32(longs, base);
+        break;
+      default:
+        throw new AssertionError("Unsupported number of bits per value: " + bitsPerValue);
+    }
+  }
+
+  private static void decode1(DataInput in, long[] tmp, long[] longs) throws IOException {
+    readLongs(in, tmp, 2);
+    shiftLongs(tmp, 2, longs, 0, 7, MASK8_1);
+    shiftLongs(tmp, 2, longs, 2, 6, MASK8_1);
+    shiftLongs(tmp, 2, longs, 4, 5, MASK8_1);
+    shiftLongs(tmp, 2, longs, 6, 4, MASK8_1);
+    shiftLongs(tmp, 2, longs, 8, 3, MASK8_1);
+    shiftLongs(tmp, 2, longs, 10, 2, MASK8_1);
+    shiftLongs(tmp, 2, longs, 12, 1, MASK8_1);
+    shiftLongs(tmp, 2, longs, 14, 0, MASK8_1);
+  }
+
+  private static void decode2(DataInput in, long[] tmp, long[] longs) throws IOException {
+    readLongs(in, tmp, 4);
+    shiftLongs(tmp, 4, longs, 0, 6, MASK8_2);
+    shiftLongs(tmp, 4, longs, 4, 4, MASK8_2);
+    shiftLongs(tmp, 4, longs, 8, 2, MASK8_2);
+    shiftLongs(tmp, 4, longs, 12, 0, MASK8_2);
+  }
+
+  private static void decode3(DataInput in, long[] tmp, long[] longs) throws IOException {
+    readLongs(in, tmp, 6);
+    shiftLongs(tmp, 6, longs, 0, 5, MASK8_3);
+    shiftLongs(tmp, 6, longs, 6, 2, MASK8_3);
+    longs[12] = (tmp[0] & MASK8_2) << 1 | ((tmp[1] >>> 1) & MASK8_1);
+    longs[13] = (tmp[1] & MASK8_1) << 2 | (tmp[2] & MASK8_2);
+    longs[14] = (tmp[3] & MASK8_2) << 1 | ((tmp[4] >>> 1) & MASK8_1);
+    longs[15] = (tmp[4] & MASK8_1) << 2 | (tmp[5] & MASK8_2);
+  }
+
+  private static void decode4(DataInput in, long[] tmp, long[] longs) throws IOException {
+    readLongs(in, tmp, 8);
+    shiftLongs(tmp, 8, longs, 0, 4, MASK8_4);
+    shiftLongs(tmp, 8, longs, 8, 0, MASK8_4);
+  }
+
+  private static void decode5(DataInput in, long[] tmp, long[] longs) throws IOException {
+    readLongs(in, tmp, 10);
+    shiftLongs(tmp, 10, longs, 0, 3, MASK8_5);
+    longs[10] = (tmp[0] & MASK8_3) << 2 | ((tmp[1] >>> 1) & MASK8_2);
+    longs[11] = (tmp[1] & MASK8_1) << 4 | (tmp[2] & MASK8_3) << 1 | ((tmp[3] >>> 2) & MASK8_1);
+    longs[12] = (tmp[3] & MASK8_2) << 3 | (tmp[4] & MASK8_3);
+    longs[13] = (tmp[5] & MASK8_3) << 2 | ((tmp[6] >>> 1) & MASK8_2);
+    longs[14] = (tmp[6] & MASK8_1) << 4 | (tmp[7] & MASK8_3) << 1 | ((tmp[8] >>> 2) & MASK8_1);
+    longs[15] = (tmp[8] & MASK8_2) << 3 | (tmp[9] & MASK8_3);
+  }
+
+  private static void decode6(DataInput in, long[] tmp, long[] longs) throws IOException {
+    readLongs(in, tmp, 12);
+    shiftLongs(tmp, 12, longs, 0, 2, MASK8_6);
+    longs[12] = (tmp[0] & MASK8_2) << 4 | (tmp[1] & MASK8_2) << 2 | (tmp[2] & MASK8_2);
+    longs[13] = (tmp[3] & MASK8_2) << 4 | (tmp[4] & MASK8_2) << 2 | (tmp[5] & MASK8_2);
+    longs[14] = (tmp[6] & MASK8_2) << 4 | (tmp[7] & MASK8_2) << 2 | (tmp[8] & MASK8_2);
+    longs[15] = (tmp[9] & MASK8_2) << 4 | (tmp[10] & MASK8_2) << 2 | (tmp[11] & MASK8_2);
+  }
+
+  private static void decode7(DataInput in, long[] tmp, long[] longs) throws IOException {
+    readLongs(in, tmp, 14);
+    shiftLongs(tmp, 14, longs, 0, 1, MASK8_7);
+    longs[14] = (tmp[0] & MASK8_1) << 6 | (tmp[1] & MASK8_1) << 5 | (tmp[2] & MASK8_1) << 4 | (tmp[3] & MASK8_1) << 3 | (tmp[4] & MASK8_1) << 2 | (tmp[5] & MASK8_1) << 1 | (tmp[6] & MASK8_1);
+    longs[15] = (tmp[7] & MASK8_1) << 6 | (tmp[8] & MASK8_1) << 5 | (tmp[9] & MASK8_1) << 4 | (tmp[10] & MASK8_1) << 3 | (tmp[11] & MASK8_1) << 2 | (tmp[12] & MASK8_1) << 1 | (tmp[13] & MASK8_1);
+  }
+
+  private static void decode8(DataInput in, long[] tmp, long[] longs) throws IOException {
+    readLongs(in, tmp, 16);
+    shiftLongs(tmp, 16, longs, 0, 0, MASK8_8);
+  }
+
+  private static void decode9(DataInput in, long[] tmp, long[] longs) throws IOException {
+    readLongs(in, tmp, 18);
+    shiftLongs(tmp, 18, longs, 0, 7, MASK16_9);
+    longs[18] = (tmp[0] & MASK16_7) << 2 | ((tmp[1] >>> 5) & MASK16_2);
+    longs[19] = (tmp[1] & MASK16_5) << 4 | ((tmp[2] >>> 3) & MASK16_4);
+    longs[20] = (tmp[2] & MASK16_3) << 6 | ((tmp[3] >>> 1) & MASK16_6);
+    longs[21] = (tmp[3] & MASK16_1) << 8 | (tmp[4] & MASK16_7) << 1 | ((tmp[5] >>> 6) & MASK16_1);
+    longs[22] = (tmp[5] & MASK16_6) << 3 | ((tmp[6] >>> 4) & MASK16_3);
+    longs[23] = (tmp[6] & MASK16_4) << 5 | ((tmp[7] >>> 2) & MASK16_5);
+    longs[24] = (tmp[7] & MASK16_2) << 7 | (tmp[8] & MASK16_7);
+    longs[25] = (tmp[9] & MASK16_7) << 2 | ((tmp[10] >>> 5) & MASK16_2);
+    longs[26] = (tmp[10] & MASK16_5) << 4 | ((tmp[11] >>> 3) & MASK16_4);
+    longs[27] = (tmp[11] & MASK16_3) << 6 | ((tmp[12] >>> 1) & MASK16_6);
+    longs[28] = (tmp[12] & MASK16_1) << 8 | (tmp[13] & MASK16_7) << 1 | ((tmp[14] >>> 6) & MASK16_1);
+    longs[29] = (tmp[14] & MASK16_6) << 3 | ((tmp[15] >>> 4) & MASK16_3);
+    longs[30] = (tmp[15] & MASK16_4) << 5 | ((tmp[16] >>> 2) & MASK16_5);
+    longs[31] = (tmp[16] & MASK16_2) << 7 | (tmp[17] & MASK16_7);
+  }
+
+  private static void decode10(DataInput in, long[] tmp, long[] longs) throws IOException {
+    readLongs(in, tmp, 20);
+    shiftLongs(tmp, 20, longs, 0, 6, MASK16_10);
+    longs[20] = (tmp[0] & MASK16_6) << 4 | ((tmp[1] >>> 2) & MASK16_4);
+    longs[21] = (tmp[1] & MASK16_2) << 8 | (tmp[2] & MASK16_6) << 2 | ((tmp[3] >>> 4) & MASK16_2);
+    longs[22] = (tmp[3] & MASK16_4) << 6 | (tmp[4] & MASK16_6);
+    longs[23] = (tmp[5] & MASK16_6) << 4 | ((tmp[6] >>> 2) & MASK16_4);
+    longs[24] = (tmp[6] & MASK16_2) << 8 | (tmp[7] & MASK16_6) << 2 | ((tmp[8] >>> 4) & MASK16_2);
+    longs[25] = (tmp[8] & MASK16_4) << 6 | (tmp[9] & MASK16_6);
+    longs[26] = (tmp[10] & MASK16_6) << 4 | ((tmp[11] >>> 2) & MASK16_4);
+    longs[27] = (tmp[11] & MASK16_2) << 8 | (tmp[12] & MASK16_6) << 2 | ((tmp[13] >>> 4) & MASK16_2);
+    longs[28] = (tmp[13] & MASK16_4) << 6 | (tmp[14] & MASK16_6);
+    longs[29] = (tmp[15] & MASK16_6) << 4 | ((tmp[16] >>> 2) & MASK16_4);
+    longs[30] = (tmp[16] & MASK16_2) << 8 | (tmp[17] & MASK16_6) << 2 | ((tmp[18] >>> 4) & MASK16_2);
+    longs[31] = (tmp[18] & MASK16_4) << 6 | (tmp[19] & MASK16_6);
+  }
+
+  private static void decode11(DataInput in, long[] tmp, long[] longs) throws IOException {
+    readLongs(in, tmp, 22);
+    shiftLongs(tmp, 22, longs, 0, 5, MASK16_11);
+    longs[22] = (tmp[0] & MASK16_5) << 6 | (tmp[1] & MASK16_5) << 1 | ((tmp[2] >>> 4) & MASK16_1);
+    longs[23] = (tmp[2] & MASK16_4) << 7 | (tmp[3] & MASK16_5) << 2 | ((tmp[4] >>> 3) & MASK16_2);
+    longs[24] = (tmp[4] & MASK16_3) << 8 | (tmp[5] & MASK16_5) << 3 | ((tmp[6] >>> 2) & MASK16_3);
+    longs[25] = (tmp[6] & MASK16_2) << 9 | (tmp[7] & MASK16_5) << 4 | ((tmp[8] >>> 1) & MASK16_4);
+    longs[26] = (tmp[8] & MASK16_1) << 10 | (tmp[9] & MASK16_5) << 5 | (tmp[10] & MASK16_5);
+    longs[27] = (tmp[11] & MASK16_5) << 6 | (tmp[12] & MASK16_5) << 1 | ((tmp[13] >>> 4) & MASK16_1);
+    longs[28] = (tmp[13] & MASK16_4) << 7 | (tmp[14] & MASK16_5) << 2 | ((tmp[15] >>> 3) & MASK16_2);
+    longs[29] = (tmp[15] & MASK16_3) << 8 | (tmp[16] & MASK16_5) << 3 | ((tmp[17] >>> 2) & MASK16_3);
+    longs[30] = (tmp[17] & MASK16_2) << 9 | (tmp[18] & MASK16_5) << 4 | ((tmp[19] >>> 1) & MASK16_4);
+    longs[31] = (tmp[19] & MASK16_1) << 10 | (tmp[20] & MASK16_5) << 5 | (tmp[21] & MASK16_5);
+  }
+
+  private static void decode12(DataInput in, long[] tmp, long[] longs) throws IOException {
+    readLongs(in, tmp, 24);
+    shiftLongs(tmp, 24, longs, 0, 4, MASK16_12);
+    longs[24] = (tmp[0] & MASK16_4) << 8 | (tmp[1] & MASK16_4) << 4 | (tmp[2] & MASK16_4);
+    longs[25] = (tmp[3] & MASK16_4) << 8 | (tmp[4] & MASK16_4) << 4 | (tmp[5] & MASK16_4);
+    longs[26] = (tmp[6] & MASK16_4) << 8 | (tmp[7] & MASK16_4) << 4 | (tmp[8] & MASK16_4);
+    longs[27] = (tmp[9] & MASK16_4) << 8 | (tmp[10] & MASK16_4) << 4 | (tmp[11] & MASK16_4);
+    longs[28] = (tmp[12] & MASK16_4) << 8 | (tmp[13] & MASK16_4) << 4 | (tmp[14] & MASK16_4);
+    longs[29] = (tmp[15] & MASK16_4) << 8 | (tmp[16] & MASK16_4) << 4 | (tmp[17] & MASK16_4);
+    longs[30] = (tmp[18] & MASK16_4) << 8 | (tmp[19] & MASK16_4) << 4 | (tmp[20] & MASK16_4);
+    longs[31] = (tmp[21] & MASK16_4) << 8 | (tmp[22] & MASK16_4) << 4 | (tmp[23] & MASK16_4);
+  }
+
+  private static void decode13(DataInput in, long[] tmp, long[] longs) throws IOException {
+    readLongs(in, tmp, 26);
+    shiftLongs(tmp, 26, longs, 0, 3, MASK16_13);
+    longs[26] = (tmp[0] & MASK16_3) << 10 | (tmp[1] & MASK16_3) << 7 | (tmp[2] & MASK16_3) << 4 | (tmp[3] & MASK16_3) << 1 | ((tmp[4] >>> 2) & MASK16_1);
+    longs[27] = (tmp[4] & MASK16_2) << 11 | (tmp[5] & MASK16_3) << 8 | (tmp[6] & MASK16_3) << 5 | (tmp[7] & MASK16_3) << 2 | ((tmp[8] >>> 1) & MASK16_2);
+    longs[28] = (tmp[8] & MASK16_1) << 12 | (tmp[9] & MASK16_3) << 9 | (tmp[10] & MASK16_3) << 6 | (tmp[11] & MASK16_3) << 3 | (tmp[12] & MASK16_3);
+    longs[29] = (tmp[13] & MASK16_3) << 10 | (tmp[14] & MASK16_3) << 7 | (tmp[15] & MASK16_3) << 4 | (tmp[16] & MASK16_3) << 1 | ((tmp[17] >>> 2) & MASK16_1);
+    longs[30] = (tmp[17] & MASK16_2) << 11 | (tmp[18] & MASK16_3) << 8 | (tmp[19] & MASK16_3) << 5 | (tmp[20] & MASK16_3) << 2 | ((tmp[21] >>> 1) & MASK16_2);
+    longs[31] = (tmp[21] & MASK16_1) << 12 | (tmp[22] & MASK16_3) << 9 | (tmp[23] & MASK16_3) << 6 | (tmp[24] & MASK16_3) << 3 | (tmp[25] & MASK16_3);
+  }
+
+  private static void decode14(DataInput in, long[] tmp, long[] longs) throws IOException {
+    readLongs(in, tmp, 28);
+    shiftLongs(tmp, 28, longs, 0, 2, MASK16_14);
+    longs[28] = (tmp[0] & MASK16_2) << 12 | (tmp[1] & MASK16_2) << 10 | (tmp[2] & MASK16_2) << 8 | (tmp[3] & MASK16_2) << 6 | (tmp[4] & MASK16_2) << 4 | (tmp[5] & MASK16_2) << 2 | (tmp[6] & MASK16_2);
+    longs[29] = (tmp[7] & MASK16_2) << 12 | (tmp[8] & MASK16_2) << 10 | (tmp[9] & MASK16_2) << 8 | (tmp[10] & MASK16_2) << 6 | (tmp[11] & MASK16_2) << 4 | (tmp[12] & MASK16_2) << 2 | (tmp[13] & MASK16_2);
+    longs[30] = (tmp[14] & MASK16_2) << 12 | (tmp[15] & MASK16_2) << 10 | (tmp[16] & MASK16_2) << 8 | (tmp[17] & MASK16_2) << 6 | (tmp[18] & MASK16_2) << 4 | (tmp[19] & MASK16_2) << 2 | (tmp[20] & MASK16_2);
+    longs[31] = (tmp[21] & MASK16_2) << 12 | (tmp[22] & MASK16_2) << 10 | (tmp[23] & MASK16_2) << 8 | (tmp[24] & MASK16_2) << 6 | (tmp[25] & MASK16_2) << 4 | (tmp[26] & MASK16_2) << 2 | (tmp[27] & MASK16_2);
+  }
+
+  private static void decode15(DataInput in, long[] tmp, long[] longs) throws IOException {
+    readLongs(in, tmp, 30);
+    shiftLongs(tmp, 30, longs, 0, 1, MASK16_15);
+    longs[30] = (tmp[0] & MASK16_1) << 14 | (tmp[1] & MASK16_1) << 13 | (tmp[2] & MASK16_1) << 12 | (tmp[3] & MASK16_1) << 11 | (tmp[4] & MASK16_1) << 10 | (tmp[5] & MASK16_1) << 9 | (tmp[6] & MASK16_1) << 8 | (tmp[7] & MASK16_1) << 7 | (tmp[8] & MASK16_1) << 6 | (tmp[9] & MASK16_1) << 5 | (tmp[10] & MASK16_1) << 4 | (tmp[11] & MASK16_1) << 3 | (tmp[12] & MASK16_1) << 2 | (tmp[13] & MASK16_1) << 1 | (tmp[14] & MASK16_1);
+    longs[31] = (tmp[15] & MASK16_1) << 14 | (tmp[16] & MASK16_1) << 13 | (tmp[17] & MASK16_1) << 12 | (tmp[18] & MASK16_1) << 11 | (tmp[19] & MASK16_1) << 10 | (tmp[20] & MASK16_1) << 9 | (tmp[21] & MASK16_1) << 8 | (tmp[22] & MASK16_1) << 7 | (tmp[23] & MASK16_1) << 6 | (tmp[24] & MASK16_1) << 5 | (tmp[25] & MASK16_1) << 4 | (tmp[26] & MASK16_1) << 3 | (tmp[27] & MASK16_1) << 2 | (tmp[28] & MASK16_1) << 1 | (tmp[29] & MASK16_1);
+  }
+
+  private static void decode16(DataInput in, long[] tmp, long[] longs) throws IOException {
+    readLongs(in, tmp, 32);
+    shiftLongs(tmp, 32, longs, 0, 0, MASK16_16);
+  }
+
+  private static void decode17(DataInput in, long[] tmp, long[] longs) throws IOException {
+    readLongs(in, tmp, 34);
+    shiftLongs(tmp, 34, longs, 0, 15, MASK32_17);
+    longs[34] = (tmp[0] & MASK32_15) << 2 | ((tmp[1] >>> 13) & MASK32_2);
+    longs[35] = (tmp[1] & MASK32_13) << 4 | ((tmp[2] >>> 11) & MASK32_4);
+    longs[36] = (tmp[2] & MASK32_11) << 6 | ((tmp[3] >>> 9) & MASK32_6);
+    longs[37] = (tmp[3] & MASK32_9) << 8 | ((tmp[4] >>> 7) & MASK32_8);
+    longs[38] = (tmp[4] & MASK32_7) << 10 | ((tmp[5] >>> 5) & MASK32_10);
+    longs[39] = (tmp[5] & MASK32_5) << 12 | ((tmp[6] >>> 3) & MASK32_12);
+    longs[40] = (tmp[6] & MASK32_3) << 14 | ((tmp[7] >>> 1) & MASK32_14);
+    longs[41] = (tmp[7] & MASK32_1) << 16 | (tmp[8] & MASK32_15) << 1 | ((tmp[9] >>> 14) & MASK32_1);
+    longs[42] = (tmp[9] & MASK32_14) << 3 | ((tmp[10] >>> 12) & MASK32_3);
+    longs[43] = (tmp[10] & MASK32_12) << 5 | ((tmp[11] >>> 10) & MASK32_5);
+    longs[44] = (tmp[11] & MASK32_10) << 7 | ((tmp[12] >>> 8) & MASK32_7);
+    longs[45] = (tmp[12] & MASK32_8) << 9 | ((tmp[13] >>> 6) & MASK32_9);
+    longs[46] = (tmp[13] & MASK32_6) << 11 | ((tmp[14] >>> 4) & MASK32_11);
+    longs[47] = (tmp[14] & MASK32_4) << 13 | ((tmp[15] >>> 2) & MASK32_13);
+    longs[48] = (tmp[15] & MASK32_2) << 15 | (tmp[16] & MASK32_15);
+    longs[49] = (tmp[17] & MASK32_15) << 2 | ((tmp[18] >>> 13) & MASK32_2);
+    longs[50] = (tmp[18] & MASK32_13) << 4 | ((tmp[19] >>> 11) & MASK32_4);
+    longs[51] = (tmp[19] & MASK32_11) << 6 | ((tmp[20] >>> 9) & MASK32_6);
+    longs[52] = (tmp[20] & MASK32_9) << 8 | ((tmp[21] >>> 7) & MASK32_8);
+    longs[53] = (tmp[21] & MASK32_7) << 10 | ((tmp[22] >>> 5) & MASK32_10);
+    longs[54] = (tmp[22] & MASK32_5) << 12 | ((tmp[23] >>> 3) & MASK32_12);
+    longs[55] = (tmp[23] & MASK32_3) << 14 | ((tmp[24] >>> 1) & MASK32_14);
+    longs[56] = (tmp[24] & MASK32_1) << 16 | (tmp[25] & MASK32_15) << 1 | ((tmp[26] >>> 14) & MASK32_1);
+    longs[57] = (tmp[26] & MASK32_14) << 3 | ((tmp[27] >>> 12) & MASK32_3);
+    longs[58] = (tmp[27] & MASK32_12) << 5 | ((tmp[28] >>> 10) & MASK32_5);
+    longs[59] = (tmp[28] & MASK32_10) << 7 | ((tmp[29] >>> 8) & MASK32_7);
+    longs[60] = (tmp[29] & MASK32_8) << 9 | ((tmp[30] >>> 6) & MASK32_9);
+    longs[61] = (tmp[30] & MASK32_6) << 11 | ((tmp[31] >>> 4) & MASK32_11);
+    longs[62] = (tmp[31] & MASK32_4) << 13 | ((tmp[32] >>> 2) & MASK32_13);
+    longs[63] = (tmp[32] & MASK32_2) << 15 | (tmp[33] & MASK32_15);
+  }
+
+  private static void decode18(DataInput in, long[] tmp, long[] longs) throws IOException {
+    readLongs(in, tmp, 36);
+    shiftLongs(tmp, 36, longs, 0, 14, MASK32_18);
+    longs[36] = (tmp[0] & MASK32_14) << 4 | ((tmp[1] >>> 10) & MASK32_4);
+    longs[37] = (tmp[1] & MASK32_10) << 8 | ((tmp[2] >>> 6) & MASK32_8);
+    longs[38] = (tmp[2] & MASK32_6) << 12 | ((tmp[3] >>> 2) & MASK32_12);
+    longs[39] = (tmp[3] & MASK32_2) << 16 | (tmp[4] & MASK32_14) << 2 | ((tmp[5] >>> 12) & MASK32_2);
+    longs[40] = (tmp[5] & MASK32_12) << 6 | ((tmp[6] >>> 8) & MASK32_6);
+    longs[41] = (tmp[6] & MASK32_8) << 10 | ((tmp[7] >>> 4) & MASK32_10);
+    longs[42] = (tmp[7] & MASK32_4) << 14 | (tmp[8] & MASK32_14);
+    longs[43] = (tmp[9] & MASK32_14) << 4 | ((tmp[10] >>> 10) & MASK32_4);
+    longs[44] = (tmp[10] & MASK32_10) << 8 | ((tmp[11] >>> 6) & MASK32_8);
+    longs[45] = (tmp[11] & MASK32_6) << 12 | ((tmp[12] >>> 2) & MASK32_12);
+    longs[46] = (tmp[12] & MASK32_2) << 16 | (tmp[13] & MASK32_14) << 2 | ((tmp[14] >>> 12) & MASK32_2);
+    longs[47] = (tmp[14] & MASK32_12) << 6 | ((tmp[15] >>> 8) & MASK32_6);
+    longs[48] = (tmp[15] & MASK32_8) << 10 | ((tmp[16] >>> 4) & MASK32_10);
+    longs[49] = (tmp[16] & MASK32_4) << 14 | (tmp[17] & MASK32_14);
+    longs[50] = (tmp[18] & MASK32_14) << 4 | ((tmp[19] >>> 10) & MASK32_4);
+    longs[51] = (tmp[19] & MASK32_10) << 8 | ((tmp[20] >>> 6) & MASK32_8);
+    longs[52] = (tmp[20] & MASK32_6) << 12 | ((tmp[21] >>> 2) & MASK32_12);
+    longs[53] = (tmp[21] & MASK32_2) << 16 | (tmp[22] & MASK32_14) << 2 | ((tmp[23] >>> 12) & MASK32_2);
+    longs[54] = (tmp[23] & MASK32_12) << 6 | ((tmp[24] >>> 8) & MASK32_6);
+    longs[55] = (tmp[24] & MASK32_8) << 10 | ((tmp[25] >>> 4) & MASK32_10);
+    longs[56] = (tmp[25] & MASK32_4) << 14 | (tmp[26] & MASK32_14);
+    longs[57] = (tmp[27] & MASK32_14) << 4 | ((tmp[28] >>> 10) & MASK32_4);
+    longs[58] = (tmp[28] & MASK32_10) << 8 | ((tmp[29] >>> 6) & MASK32_8);
+    longs[59] = (tmp[29] & MASK32_6) << 12 | ((tmp[30] >>> 2) & MASK32_12);
+    longs[60] = (tmp[30] & MASK32_2) << 16 | (tmp[31] & MASK32_14) << 2 | ((tmp[32] >>> 12) & MASK32_2);
+    longs[61] = (tmp[32] & MASK32_12) << 6 | ((tmp[33] >>> 8) & MASK32_6);
+    longs[62] = (tmp[33] & MASK32_8) << 10 | ((tmp[34] >>> 4) & MASK32_10);
+    longs[63] = (tmp[34] & MASK32_4) << 14 | (tmp[35] & MASK32_14);
+  }
+
+  private static void decode19(DataInput in, long[] tmp, long[] longs) throws IOException {
+    readLongs(in, tmp, 38);
+    shiftLongs(tmp, 38, longs, 0, 13, MASK32_19);
+    longs[38] = (tmp[0] & MASK32_13) << 6 | ((tmp[1] >>> 7) & MASK32_6);
+    longs[39] = (tmp[1] & MASK32_7) << 12 | ((tmp[2] >>> 1) & MASK32_12);
+    longs[40] = (tmp[2] & MASK32_1) << 18 | (tmp[3] & MASK32_13) << 5 | ((tmp[4] >>> 8) & MASK32_5);
+    longs[41] = (tmp[4] & MASK32_8) << 11 | ((tmp[5] >>> 2) & MASK32_11);
+    longs[42] = (tmp[5] & MASK32_2) << 17 | (tmp[6] & MASK32_13) << 4 | ((tmp[7] >>> 9) & MASK32_4);
+    longs[43] = (tmp[7] & MASK32_9) << 10 | ((tmp[8] >>> 3) & MASK32_10);
+    longs[44] = (tmp[8] & MASK32_3) << 16 | (tmp[9] & MASK32_13) << 3 | ((tmp[10] >>> 10) & MASK32_3);
+    longs[45] = (tmp[10] & MASK32_10) << 9 | ((tmp[11] >>> 4) & MASK32_9);
+    longs[46] = (tmp[11] & MASK32_4) << 15 | (tmp[12] & MASK32_13) << 2 | ((tmp[13] >>> 11) & MASK32_2);
+    longs[47] = (tmp[13] & MASK32_11) << 8 | ((tmp[14] >>> 5) & MASK32_8);
+    longs[48] = (tmp[14] & MASK32_5) << 14 | (tmp[15] & MASK32_13) << 1 | ((tmp[16] >>> 12) & MASK32_1);
+    longs[49] = (tmp[16] & MASK32_12) << 7 | ((tmp[17] >>> 6) & MASK32_7);
+    longs[50] = (tmp[17] & MASK32_6) << 13 | (tmp[18] & MASK32_13);
+    longs[51] = (tmp[19] & MASK32_13) << 6 | ((tmp[20] >>> 7) & MASK32_6);
+    longs[52] = (tmp[20] & MASK32_7) << 12 | ((tmp[21] >>> 1) & MASK32_12);
+    longs[53] = (tmp[21] & MASK32_1) << 18 | (tmp[22] & MASK32_13) << 5 | ((tmp[23] >>> 8) & MASK32_5);
+    longs[54] = (tmp[23] & MASK32_8) << 11 | ((tmp[24] >>> 2) & MASK32_11);
+    longs[55] = (tmp[24] & MASK32_2) << 17 | (tmp[25] & MASK32_13) << 4 | ((tmp[26] >>> 9) & MASK32_4);
+    longs[56] = (tmp[26] & MASK32_9) << 10 | ((tmp[27] >>> 3) & MASK32_10);
+    longs[57] = (tmp[27] & MASK32_3) << 16 | (tmp[28] & MASK32_13) << 3 | ((tmp[29] >>> 10) & MASK32_3);
+    longs[58] = (tmp[29] & MASK32_10) << 9 | ((tmp[30] >>> 4) & MASK32_9);
+    longs[59] = (tmp[30] & MASK32_4) << 15 | (tmp[31] & MASK32_13) << 2 | ((tmp[32] >>> 11) & MASK32_2);
+    longs[60] = (tmp[32] & MASK32_11) << 8 | ((tmp[33] >>> 5) & MASK32_8);
+    longs[61] = (tmp[33] & MASK32_5) << 14 | (tmp[34] & MASK32_13) << 1 | ((tmp[35] >>> 12) & MASK32_1);
+    longs[62] = (tmp[35] & MASK32_12) << 7 | ((tmp[36] >>> 6) & MASK32_7);
+    longs[63] = (tmp[36] & MASK32_6) << 13 | (tmp[37] & MASK32_13);
+  }
+
+  private static void decode20(DataInput in, long[] tmp, long[] longs) throws IOException {
+    readLongs(in, tmp, 40);
+    shiftLongs(tmp, 40, longs, 0, 12, MASK32_20);
+    longs[40] = (tmp[0] & MASK32_12) << 8 | ((tmp[1] >>> 4) & MASK32_8);
+    longs[41] = (tmp[1] & MASK32_4) << 16 | (tmp[2] & MASK32_12) << 4 | ((tmp[3] >>> 8) & MASK32_4);
+    longs[42] = (tmp[3] & MASK32_8) << 12 | (tmp[4] & MASK32_12);
+    longs[43] = (tmp[5] & MASK32_12) << 8 | ((tmp[6] >>> 4) & MASK32_8);
+    longs[44] = (tmp[6] & MASK32_4) << 16 | (tmp[7] & MASK32_12) << 4 | ((tmp[8] >>> 8) & MASK32_4);
+    longs[45] = (tmp[8] & MASK32_8) << 12 | (tmp[9] & MASK32_12);
+    longs[46] = (tmp[10] & MASK32_12) << 8 | ((tmp[11] >>> 4) & MASK32_8);
+    longs[47] = (tmp[11] & MASK32_4) << 16 | (tmp[12] & MASK32_12) << 4 | ((tmp[13] >>> 8) & MASK32_4);
+    longs[48] = (tmp[13] & MASK32_8) << 12 | (tmp[14] & MASK32_12);
+    longs[49] = (tmp[15] & MASK32_12) << 8 | ((tmp[16] >>> 4) & MASK32_8);
+    longs[50] = (tmp[16] & MASK32_4) << 16 | (tmp[17] & MASK32_12) << 4 | ((tmp[18] >>> 8) & MASK32_4);
+    longs[51] = (tmp[18] & MASK32_8) << 12 | (tmp[19] & MASK32_12);
+    longs[52] = (tmp[20] & MASK32_12) << 8 | ((tmp[21] >>> 4) & MASK32_8);
+    longs[53] = (tmp[21] & MASK32_4) << 16 | (tmp[22] & MASK32_12) << 4 | ((tmp[23] >>> 8) & MASK32_4);
+    longs[54] = (tmp[23] & MASK32_8) << 12 | (tmp[24] & MASK32_12);
+    longs[55] = (tmp[25] & MASK32_12) << 8 | ((tmp[26] >>> 4) & MASK32_8);
+    longs[56] = (tmp[26] & MASK32_4) << 16 | (tmp[27] & MASK32_12) << 4 | ((tmp[28] >>> 8) & MASK32_4);
+    longs[57] = (tmp[28] & MASK32_8) << 12 | (tmp[29] & MASK32_12);
+    longs[58] = (tmp[30] & MASK32_12) << 8 | ((tmp[31] >>> 4) & MASK32_8);
+    longs[59] = (tmp[31] & MASK32_4) << 16 | (tmp[32] & MASK32_12) << 4 | ((tmp[33] >>> 8) & MASK32_4);
+    longs[60] = (tmp[33] & MASK32_8) << 12 | (tmp[34] & MASK32_12);
+    longs[61] = (tmp[35] & MASK32_12) << 8 | ((tmp[36] >>> 4) & MASK32_8);
+    longs[62] = (tmp[36] & MASK32_4) << 16 | (tmp[37] & MASK32_12) << 4 | ((tmp[38] >>> 8) & MASK32_4);
+    longs[63] = (tmp[38] & MASK32_8) << 12 | (tmp[39] & MASK32_12);
+  }
+
+  private static void decode21(DataInput in, long[] tmp, long[] longs) throws IOException {
+    readLongs(in, tmp, 42);
+    shiftLongs(tmp, 42, longs, 0, 11, MASK32_21);
+    longs[42] = (tmp[0] & MASK32_11) << 10 | ((tmp[1] >>> 1) & MASK32_10);
+    longs[43] = (tmp[1] & MASK32_1) << 20 | (tmp[2] & MASK32_11) << 9 | ((tmp[3] >>> 2) & MASK32_9);
+    longs[44] = (tmp[3] & MASK32_2) << 19 | (tmp[4] & MASK32_11) << 8 | ((tmp[5] >>> 3) & MASK32_8);
+    longs[45] = (tmp[5] & MASK32_3) << 18 | (tmp[6] & MASK32_11) << 7 | ((tmp[7] >>> 4) & MASK32_7);
+    longs[46] = (tmp[7] & MASK32_4) << 17 | (tmp[8] & MASK32_11) << 6 | ((tmp[9] >>> 5) & MASK32_6);
+    longs[47] = (tmp[9] & MASK32_5) << 16 | (tmp[10] & MASK32_11) << 5 | ((tmp[11] >>> 6) & MASK32_5);
+    longs[48] = (tmp[11] & MASK32_6) << 15 | (tmp[12] & MASK32_11) << 4 | ((tmp[13] >>> 7) & MASK32_4);
+    longs[49] = (tmp[13] & MASK32_7) << 14 | (tmp[14] & MASK32_11) << 3 | ((tmp[15] >>> 8) & MASK32_3);
+    longs[50] = (tmp[15] & MASK32_8) << 13 | (tmp[16] & MASK32_11) << 2 | ((tmp[17] >>> 9) & MASK32_2);
+    longs[51] = (tmp[17] & MASK32_9) << 12 | (tmp[18] & MASK32_11) << 1 | ((tmp[19] >>> 10) & MASK32_1);
+    longs[52] = (tmp[19] & MASK32_10) << 11 | (tmp[20] & MASK32_11);
+    longs[53] = (tmp[21] & MASK32_11) << 10 | ((tmp[22] >>> 1) & MASK32_10);
+    longs[54] = (tmp[22] & MASK32_1) << 20 | (tmp[23] & MASK32_11) << 9 | ((tmp[24] >>> 2) & MASK32_9);
+    longs[55] = (tmp[24] & MASK32_2) << 19 | (tmp[25] & MASK32_11) << 8 | ((tmp[26] >>> 3) & MASK32_8);
+    longs[56] = (tmp[26] & MASK32_3) << 18 | (tmp[27] & MASK32_11) << 7 | ((tmp[28] >>> 4) & MASK32_7);
+    longs[57] = (tmp[28] & MASK32_4) << 17 | (tmp[29] & MASK32_11) << 6 | ((tmp[30] >>> 5) & MASK32_6);
+    longs[58] = (tmp[30] & MASK32_5) << 16 | (tmp[31] & MASK32_11) << 5 | ((tmp[32] >>> 6) & MASK32_5);
+    longs[59] = (tmp[32] & MASK32_6) << 15 | (tmp[33] & MASK32_11) << 4 | ((tmp[34] >>> 7) & MASK32_4);
+    longs[60] = (tmp[34] & MASK32_7) << 14 | (tmp[35] & MASK32_11) << 3 | ((tmp[36] >>> 8) & MASK32_3);
+    longs[61] = (tmp[36] & MASK32_8) << 13 | (tmp[37] & MASK32_11) << 2 | ((tmp[38] >>> 9) & MASK32_2);
+    longs[62] = (tmp[38] & MASK32_9) << 12 | (tmp[39] & MASK32_11) << 1 | ((tmp[40] >>> 10) & MASK32_1);
+    longs[63] = (tmp[40] & MASK32_10) << 11 | (tmp[41] & MASK32_11);
+  }
+
+  private static void decode22(DataInput in, long[] tmp, long[] longs) throws IOException {
+    readLongs(in, tmp, 44);
+    shiftLongs(tmp, 44, longs, 0, 10, MASK32_22);
+    longs[44] = (tmp[0] & MASK32_10) << 12 | (tmp[1] & MASK32_10) << 2 | ((tmp[2] >>> 8) & MASK32_2);
+    longs[45] = (tmp[2] & MASK32_8) << 14 | (tmp[3] & MASK32_10) << 4 | ((tmp[4] >>> 6) & MASK32_4);
+    longs[46] = (tmp[4] & MASK32_6) << 16 | (tmp[5] & MASK32_10) << 6 | ((tmp[6] >>> 4) & MASK32_6);
+    longs[47] = (tmp[6] & MASK32_4) << 18 | (tmp[7] & MASK32_10) << 8 | ((tmp[8] >>> 2) & MASK32_8);
+    longs[48] = (tmp[8] & MASK32_2) << 20 | (tmp[9] & MASK32_10) << 10 | (tmp[10] & MASK32_10);
+    longs[49] = (tmp[11] & MASK32_10) << 12 | (tmp[12] & MASK32_10) << 2 | ((tmp[13] >>> 8) & MASK32_2);
+    longs[50] = (tmp[13] & MASK32_8) << 14 | (tmp[14] & MASK32_10) << 4 | ((tmp[15] >>> 6) & MASK32_4);
+    longs[51] = (tmp[15] & MASK32_6) << 16 | (tmp[16] & MASK32_10) << 6 | ((tmp[17] >>> 4) & MASK32_6);
+    longs[52] = (tmp[17] & MASK32_4) << 18 | (tmp[18] & MASK32_10) << 8 | ((tmp[19] >>> 2) & MASK32_8);
+    longs[53] = (tmp[19] & MASK32_2) << 20 | (tmp[20] & MASK32_10) << 10 | (tmp[21] & MASK32_10);
+    longs[54] = (tmp[22] & MASK32_10) << 12 | (tmp[23] & MASK32_10) << 2 | ((tmp[24] >>> 8) & MASK32_2);
+    longs[55] = (tmp[24] & MASK32_8) << 14 | (tmp[25] & MASK32_10) << 4 | ((tmp[26] >>> 6) & MASK32_4);
+    longs[56] = (tmp[26] & MASK32_6) << 16 | (tmp[27] & MASK32_10) << 6 | ((tmp[28] >>> 4) & MASK32_6);
+    longs[57] = (tmp[28] & MASK32_4) << 18 | (tmp[29] & MASK32_10) << 8 | ((tmp[30] >>> 2) & MASK32_8);
+    longs[58] = (tmp[30] & MASK32_2) << 20 | (tmp[31] & MASK32_10) << 10 | (tmp[32] & MASK32_10);
+    longs[59] = (tmp[33] & MASK32_10) << 12 | (tmp[34] & MASK32_10) << 2 | ((tmp[35] >>> 8) & MASK32_2);
+    longs[60] = (tmp[35] & MASK32_8) << 14 | (tmp[36] & MASK32_10) << 4 | ((tmp[37] >>> 6) & MASK32_4);
+    longs[61] = (tmp[37] & MASK32_6) << 16 | (tmp[38] & MASK32_10) << 6 | ((tmp[39] >>> 4) & MASK32_6);
+    longs[62] = (tmp[39] & MASK32_4) << 18 | (tmp[40] & MASK32_10) << 8 | ((tmp[41] >>> 2) & MASK32_8);
+    longs[63] = (tmp[41] & MASK32_2) << 20 | (tmp[42] & MASK32_10) << 10 | (tmp[43] & MASK32_10);
+  }
+
+  private static void decode23(DataInput in, long[] tmp, long[] longs) throws IOException {
+    readLongs(in, tmp, 46);
+    shiftLongs(tmp, 46, longs, 0, 9, MASK32_23);
+    longs[46] = (tmp[0] & MASK32_9) << 14 | (tmp[1] & MASK32_9) << 5 | ((tmp[2] >>> 4) & MASK32_5);
+    longs[47] = (tmp[2] & MASK32_4) << 19 | (tmp[3] & MASK32_9) << 10 | (tmp[4] & MASK32_9) << 1 | ((tmp[5] >>> 8) & MASK32_1);
+    longs[48] = (tmp[5] & MASK32_8) << 15 | (tmp[6] & MASK32_9) << 6 | ((tmp[7] >>> 3) & MASK32_6);
+    longs[49] = (tmp[7] & MASK32_3) << 20 | (tmp[8] & MASK32_9) << 11 | (tmp[9] & MASK32_9) << 2 | ((tmp[10] >>> 7) & MASK32_2);
+    longs[50] = (tmp[10] & MASK32_7) << 16 | (tmp[11] & MASK32_9) << 7 | ((tmp[12] >>> 2) & MASK32_7);
+    longs[51] = (tmp[12] & MASK32_2) << 21 | (tmp[13] & MASK32_9) << 12 | (tmp[14] & MASK32_9) << 3 | ((tmp[15] >>> 6) & MASK32_3);
+    longs[52] = (tmp[15] & MASK32_6) << 17 | (tmp[16] & MASK32_9) << 8 | ((tmp[17] >>> 1) & MASK32_8);
+    longs[53] = (tmp[17] & MASK32_1) << 22 | (tmp[18] & MASK32_9) << 13 | (tmp[19] & MASK32_9) << 4 | ((tmp[20] >>> 5) & MASK32_4);
+    longs[54] = (tmp[20] & MASK32_5) << 18 | (tmp[21] & MASK32_9) << 9 | (tmp[22] & MASK32_9);
+    longs[55] = (tmp[23] & MASK32_9) << 14 | (tmp[24] & MASK32_9) << 5 | ((tmp[25] >>> 4) & MASK32_5);
+    longs[56] = (tmp[25] & MASK32_4) << 19 | (tmp[26] & MASK32_9) << 10 | (tmp[27] & MASK32_9) << 1 | ((tmp[28] >>> 8) & MASK32_1);
+    longs[57] = (tmp[28] & MASK32_8) << 15 | (tmp[29] & MASK32_9) << 6 | ((tmp[30] >>> 3) & MASK32_6);
+    longs[58] = (tmp[30] & MASK32_3) << 20 | (tmp[31] & MASK32_9) << 11 | (tmp[32] & MASK32_9) << 2 | ((tmp[33] >>> 7) & MASK32_2);
+    longs[59] = (tmp[33] & MASK32_7) << 16 | (tmp[34] & MASK32_9) << 7 | ((tmp[35] >>> 2) & MASK32_7);
+    longs[60] = (tmp[35] & MASK32_2) << 21 | (tmp[36] & MASK32_9) << 12 | (tmp[37] & MASK32_9) << 3 | ((tmp[38] >>> 6) & MASK32_3);
+    longs[61] = (tmp[38] & MASK32_6) << 17 | (tmp[39] & MASK32_9) << 8 | ((tmp[40] >>> 1) & MASK32_8);
+    longs[62] = (tmp[40] & MASK32_1) << 22 | (tmp[41] & MASK32_9) << 13 | (tmp[42] & MASK32_9) << 4 | ((tmp[43] >>> 5) & MASK32_4);
+    longs[63] = (tmp[43] & MASK32_5) << 18 | (tmp[44] & MASK32_9) << 9 | (tmp[45] & MASK32_9);
+  }
+
+  private static void decode24(DataInput in, long[] tmp, long[] longs) throws IOException {
+    readLongs(in, tmp, 48);
+    shiftLongs(tmp, 48, longs, 0, 8, MASK32_24);
+    longs[48] = (tmp[0] & MASK32_8) << 16 | (tmp[1] & MASK32_8) << 8 | (tmp[2] & MASK32_8);
+    longs[49] = (tmp[3] & MASK32_8) << 16 | (tmp[4] & MASK32_8) << 8 | (tmp[5] & MASK32_8);
+    longs[50] = (tmp[6] & MASK32_8) << 16 | (tmp[7] & MASK32_8) << 8 | (tmp[8] & MASK32_8);
+    longs[51] = (tmp[9] & MASK32_8) << 16 | (tmp[10] & MASK32_8) << 8 | (tmp[11] & MASK32_8);
+    longs[52] = (tmp[12] & MASK32_8) << 16 | (tmp[13] & MASK32_8) << 8 | (tmp[14] & MASK32_8);
+    longs[53] = (tmp[15] & MASK32_8) << 16 | (tmp[16] & MASK32_8) << 8 | (tmp[17] & MASK32_8);
+    longs[54] = (tmp[18] & MASK32_8) << 16 | (tmp[19] & MASK32_8) << 8 | (tmp[20] & MASK32_8);
+    longs[55] = (tmp[21] & MASK32_8) << 16 | (tmp[22] & MASK32_8) << 8 | (tmp[23] & MASK32_8);
+    longs[56] = (tmp[24] & MASK32_8) << 16 | (tmp[25] & MASK32_8) << 8 | (tmp[26] & MASK32_8);
+    longs[57] = (tmp[27] & MASK32_8) << 16 | (tmp[28] & MASK32_8) << 8 | (tmp[29] & MASK32_8);
+    longs[58] = (tmp[30] & MASK32_8) << 16 | (tmp[31] & MASK32_8) << 8 | (tmp[32] & MASK32_8);
+    longs[59] = (tmp[33] & MASK32_8) << 16 | (tmp[34] & MASK32_8) << 8 | (tmp[35] & MASK32_8);
+    longs[60] = (tmp[36] & MASK32_8) << 16 | (tmp[37] & MASK32_8) << 8 | (tmp[38] & MASK32_8);
+    longs[61] = (tmp[39] & MASK32_8) << 16 | (tmp[40] & MASK32_8) << 8 | (tmp[41] & MASK32_8);
+    longs[62] = (tmp[42] & MASK32_8) << 16 | (tmp[43] & MASK32_8) << 8 | (tmp[44] & MASK32_8);
+    longs[63] = (tmp[45] & MASK32_8) << 16 | (tmp[46] & MASK32_8) << 8 | (tmp[47] & MASK32_8);
+  }
+
+  private static void decode25(DataInput in, long[] tmp, long[] longs) throws IOException {
+    readLongs(in, tmp, 50);
+    shiftLongs(tmp, 50, longs, 0, 7, MASK32_25);
+    longs[50] = (tmp[0] & MASK32_7) << 18 | (tmp[1] & MASK32_7) << 11 | (tmp[2] & MASK32_7) << 4 | ((tmp[3] >>> 3) & MASK32_4);
+    longs[51] = (tmp[3] & MASK32_3) << 22 | (tmp[4] & MASK32_7) << 15 | (tmp[5] & MASK32_7) << 8 | (tmp[6] & MASK32_7) << 1 | ((tmp[7] >>> 6) & MASK32_1);
+    longs[52] = (tmp[7] & MASK32_6) << 19 | (tmp[8] & MASK32_7) << 12 | (tmp[9] & MASK32_7) << 5 | ((tmp[10] >>> 2) & MASK32_5);
+    longs[53] = (tmp[10] & MASK32_2) << 23 | (tmp[11] & MASK32_7) << 16 | (tmp[12] & MASK32_7) << 9 | (tmp[13] & MASK32_7) << 2 | ((tmp[14] >>> 5) & MASK32_2);
+    longs[54] = (tmp[14] & MASK32_5) << 20 | (tmp[15] & MASK32_7) << 13 | (tmp[16] & MASK32_7) << 6 | ((tmp[17] >>> 1) & MASK32_6);
+    longs[55] = (tmp[17] & MASK32_1) << 24 | (tmp[18] & MASK32_7) << 17 | (tmp[19] & MASK32_7) << 10 | (tmp[20] & MASK32_7) << 3 | ((tmp[21] >>> 4) & MASK32_3);
+    longs[56] = (tmp[21] & MASK32_4) << 21 | (tmp[22] & MASK32_7) << 14 | (tmp[23] & MASK32_7) << 7 | (tmp[24] & MASK32_7);
+    longs[57] = (tmp[25] & MASK32_7) << 18 | (tmp[26] & MASK32_7) << 11 | (tmp[27] & MASK32_7) << 4 | ((tmp[28] >>> 3) & MASK32_4);
+    longs[58] = (tmp[28] & MASK32_3) << 22 | (tmp[29] & MASK32_7) << 15 | (tmp[30] & MASK32_7) << 8 | (tmp[31] & MASK32_7) << 1 | ((tmp[32] >>> 6) & MASK32_1);
+    longs[59] = (tmp[32] & MASK32_6) << 19 | (tmp[33] & MASK32_7) << 12 | (tmp[34] & MASK32_7) << 5 | ((tmp[35] >>> 2) & MASK32_5);
+    longs[60] = (tmp[35] & MASK32_2) << 23 | (tmp[36] & MASK32_7) << 16 | (tmp[37] & MASK32_7) << 9 | (tmp[38] & MASK32_7) << 2 | ((tmp[39] >>> 5) & MASK32_2);
+    longs[61] = (tmp[39] & MASK32_5) << 20 | (tmp[40] & MASK32_7) << 13 | (tmp[41] & MASK32_7) << 6 | ((tmp[42] >>> 1) & MASK32_6);
+    longs[62] = (tmp[42] & MASK32_1) << 24 | (tmp[43] & MASK32_7) << 17 | (tmp[44] & MASK32_7) << 10 | (tmp[45] & MASK32_7) << 3 | ((tmp[46] >>> 4) & MASK32_3);
+    longs[63] = (tmp[46] & MASK32_4) << 21 | (tmp[47] & MASK32_7) << 14 | (tmp[48] & MASK32_7) << 7 | (tmp[49] & MASK32_7);
+  }
+
+  private static void decode26(DataInput in, long[] tmp, long[] longs) throws IOException {
+    readLongs(in, tmp, 52);
+    shiftLongs(tmp, 52, longs, 0, 6, MASK32_26);
+    longs[52] = (tmp[0] & MASK32_6) << 20 | (tmp[1] & MASK32_6) << 14 | (tmp[2] & MASK32_6) << 8 | (tmp[3] & MASK32_6) << 2 | ((tmp[4] >>> 4) & MASK32_2);
+    longs[53] = (tmp[4] & MASK32_4) << 22 | (tmp[5] & MASK32_6) << 16 | (tmp[6] & MASK32_6) << 10 | (tmp[7] & MASK32_6) << 4 | ((tmp[8] >>> 2) & MASK32_4);
+    longs[54] = (tmp[8] & MASK32_2) << 24 | (tmp[9] & MASK32_6) << 18 | (tmp[10] & MASK32_6) << 12 | (tmp[11] & MASK32_6) << 6 | (tmp[12] & MASK32_6);
+    longs[55] = (tmp[13] & MASK32_6) << 20 | (tmp[14] & MASK32_6) << 14 | (tmp[15] & MASK32_6) << 8 | (tmp[16] & MASK32_6) << 2 | ((tmp[17] >>> 4) & MASK32_2);
+    longs[56] = (tmp[17] & MASK32_4) << 22 | (tmp[18] & MASK32_6) << 16 | (tmp[19] & MASK32_6) << 10 | (tmp[20] & MASK32_6) << 4 | ((tmp[21] >>> 2) & MASK32_4);
+    longs[57] = (tmp[21] & MASK32_2) << 24 | (tmp[22] & MASK32_6) << 18 | (tmp[23] & MASK32_6) << 12 | (tmp[24] & MASK32_6) << 6 | (tmp[25] & MASK32_6);
+    longs[58] = (tmp[26] & MASK32_6) << 20 | (tmp[27] & MASK32_6) << 14 | (tmp[28] & MASK32_6) << 8 | (tmp[29] & MASK32_6) << 2 | ((tmp[30] >>> 4) & MASK32_2);
+    longs[59] = (tmp[30] & MASK32_4) << 22 | (tmp[31] & MASK32_6) << 16 | (tmp[32] & MASK32_6) << 10 | (tmp[33] & MASK32_6) << 4 | ((tmp[34] >>> 2) & MASK32_4);
+    longs[60] = (tmp[34] & MASK32_2) << 24 | (tmp[35] & MASK32_6) << 18 | (tmp[36] & MASK32_6) << 12 | (tmp[37] & MASK32_6) << 6 | (tmp[38] & MASK32_6);
+    longs[61] = (tmp[39] & MASK32_6) << 20 | (tmp[40] & MASK32_6) << 14 | (tmp[41] & MASK32_6) << 8 | (tmp[42] & MASK32_6) << 2 | ((tmp[43] >>> 4) & MASK32_2);
+    longs[62] = (tmp[43] & MASK32_4) << 22 | (tmp[44] & MASK32_6) << 16 | (tmp[45] & MASK32_6) << 10 | (tmp[46] & MASK32_6) << 4 | ((tmp[47] >>> 2) & MASK32_4);
+    longs[63] = (tmp[47] & MASK32_2) << 24 | (tmp[48] & MASK32_6) << 18 | (tmp[49] & MASK32_6) << 12 | (tmp[50] & MASK32_6) << 6 | (tmp[51] & MASK32_6);
+  }
+
+  private static void decode27(DataInput in, long[] tmp, long[] longs) throws IOException {
+    readLongs(in, tmp, 54);
+    shiftLongs(tmp, 54, longs, 0, 5, MASK32_27);
+    longs[54] = (tmp[0] & MASK32_5) << 22 | (tmp[1] & MASK32_5) << 17 | (tmp[2] & MASK32_5) << 12 | (tmp[3] & MASK32_5) << 7 | (tmp[4] & MASK32_5) << 2 | ((tmp[5] >>> 3) & MASK32_2);
+    longs[55] = (tmp[5] & MASK32_3) << 24 | (tmp[6] & MASK32_5) << 19 | (tmp[7] & MASK32_5) << 14 | (tmp[8] & MASK32_5) << 9 | (tmp[9] & MASK32_5) << 4 | ((tmp[10] >>> 1) & MASK32_4);
+    longs[56] = (tmp[10] & MASK32_1) << 26 | (tmp[11] & MASK32_5) << 21 | (tmp[12] & MASK32_5) << 16 | (tmp[13] & MASK32_5) << 11 | (tmp[14] & MASK32_5) << 6 | (tmp[15] & MASK32_5) << 1 | ((tmp[16] >>> 4) & MASK32_1);
+    longs[57] = (tmp[16] & MASK32_4) << 23 | (tmp[17] & MASK32_5) << 18 | (tmp[18] & MASK32_5) << 13 | (tmp[19] & MASK32_5) << 8 | (tmp[20] & MASK32_5) << 3 | ((tmp[21] >>> 2) & MASK32_3);
+    longs[58] = (tmp[21] & MASK32_2) << 25 | (tmp[22] & MASK32_5) << 20 | (tmp[23] & MASK32_5) << 15 | (tmp[24] & MASK32_5) << 10 | (tmp[25] & MASK32_5) << 5 | (tmp[26] & MASK32_5);
+    longs[59] = (tmp[27] & MASK32_5) << 22 | (tmp[28] & MASK32_5) << 17 | (tmp[29] & MASK32_5) << 12 | (tmp[30] & MASK32_5) << 7 | (tmp[31] & MASK32_5) << 2 | ((tmp[32] >>> 3) & MASK32_2);
+    longs[60] = (tmp[32] & MASK32_3) << 24 | (tmp[33] & MASK32_5) << 19 | (tmp[34] & MASK32_5) << 14 | (tmp[35] & MASK32_5) << 9 | (tmp[36] & MASK32_5) << 4 | ((tmp[37] >>> 1) & MASK32_4);
+    longs[61] = (tmp[37] & MASK32_1) << 26 | (tmp[38] & MASK32_5) << 21 | (tmp[39] & MASK32_5) << 16 | (tmp[40] & MASK32_5) << 11 | (tmp[41] & MASK32_5) << 6 | (tmp[42] & MASK32_5) << 1 | ((tmp[43] >>> 4) & MASK32_1);
+    longs[62] = (tmp[43] & MASK32_4) << 23 | (tmp[44] & MASK32_5) << 18 | (tmp[45] & MASK32_5) << 13 | (tmp[46] & MASK32_5) << 8 | (tmp[47] & MASK32_5) << 3 | ((tmp[48] >>> 2) & MASK32_3);
+    longs[63] = (tmp[48] & MASK32_2) << 25 | (tmp[49] & MASK32_5) << 20 | (tmp[50] & MASK32_5) << 15 | (tmp[51] & MASK32_5) << 10 | (tmp[52] & MASK32_5) << 5 | (tmp[53] & MASK32_5);
+  }
+
+  private static void decode28(DataInput in, long[] tmp, long[] longs) throws IOException {
+    readLongs(in, tmp, 56);
+    shiftLongs(tmp, 56, longs, 0, 4, MASK32_28);
+    longs[56] = (tmp[0] & MASK32_4) << 24 | (tmp[1] & MASK32_4) << 20 | (tmp[2] & MASK32_4) << 16 | (tmp[3] & MASK32_4) << 12 | (tmp[4] & MASK32_4) << 8 | (tmp[5] & MASK32_4) << 4 | (tmp[6] & MASK32_4);
+    longs[57] = (tmp[7] & MASK32_4) << 24 | (tmp[8] & MASK32_4) << 20 | (tmp[9] & MASK32_4) << 16 | (tmp[10] & MASK32_4) << 12 | (tmp[11] & MASK32_4) << 8 | (tmp[12] & MASK32_4) << 4 | (tmp[13] & MASK32_4);
+    longs[58] = (tmp[14] & MASK32_4) << 24 | (tmp[15] & MASK32_4) << 20 | (tmp[16] & MASK32_4) << 16 | (tmp[17] & MASK32_4) << 12 | (tmp[18] & MASK32_4) << 8 | (tmp[19] & MASK32_4) << 4 | (tmp[20] & MASK32_4);
+    longs[59] = (tmp[21] & MASK32_4) << 24 | (tmp[22] & MASK32_4) << 20 | (tmp[23] & MASK32_4) << 16 | (tmp[24] & MASK32_4) << 12 | (tmp[25] & MASK32_4) << 8 | (tmp[26] & MASK32_4) << 4 | (tmp[27] & MASK32_4);
+    longs[60] = (tmp[28] & MASK32_4) << 24 | (tmp[29] & MASK32_4) << 20 | (tmp[30] & MASK32_4) << 16 | (tmp[31] & MASK32_4) << 12 | (tmp[32] & MASK32_4) << 8 | (tmp[33] & MASK32_4) << 4 | (tmp[34] & MASK32_4);
+    longs[61] = (tmp[35] & MASK32_4) << 24 | (tmp[36] & MASK32_4) << 20 | (tmp[37] & MASK32_4) << 16 | (tmp[38] & MASK32_4) << 12 | (tmp[39] & MASK32_4) << 8 | (tmp[40] & MASK32_4) << 4 | (tmp[41] & MASK32_4);
+    longs[62] = (tmp[42] & MASK32_4) << 24 | (tmp[43] & MASK32_4) << 20 | (tmp[44] & MASK32_4) << 16 | (tmp[45] & MASK32_4) << 12 | (tmp[46] & MASK32_4) << 8 | (tmp[47] & MASK32_4) << 4 | (tmp[48] & MASK32_4);
+    longs[63] = (tmp[49] & MASK32_4) << 24 | (tmp[50] & MASK32_4) << 20 | (tmp[51] & MASK32_4) << 16 | (tmp[52] & MASK32_4) << 12 | (tmp[53] & MASK32_4) << 8 | (tmp[54] & MASK32_4) << 4 | (tmp[55] & MASK32_4);
+  }
+
+  private static void decode29(DataInput in, long[] tmp, long[] longs) throws IOException {
+    readLongs(in, tmp, 58);
+    shiftLongs(tmp, 58, longs, 0, 3, MASK32_29);
+    longs[58] = (tmp[0] & MASK32_3) << 26 | (tmp[1] & MASK32_3) << 23 | (tmp[2] & MASK32_3) << 20 | (tmp[3] & MASK32_3) << 17 | (tmp[4] & MASK32_3) << 14 | (tmp[5] & MASK32_3) << 11 | (tmp[6] & MASK32_3) << 8 | (tmp[7] & MASK32_3) << 5 | (tmp[8] & MASK32_3) << 2 | ((tmp[9] >>> 1) & MASK32_2);
+    longs[59] = (tmp[9] & MASK32_1) << 28 | (tmp[10] & MASK32_3) << 25 | (tmp[11] & MASK32_3) << 22 | (tmp[12] & MASK32_3) << 19 | (tmp[13] & MASK32_3) << 16 | (tmp[14] & MASK32_3) << 13 | (tmp[15] & MASK32_3) << 10 | (tmp[16] & MASK32_3) << 7 | (tmp[17] & MASK32_3) << 4 | (tmp[18] & MASK32_3) << 1 | ((tmp[19] >>> 2) & MASK32_1);
+    longs[60] = (tmp[19] & MASK32_2) << 27 | (tmp[20] & MASK32_3) << 24 | (tmp[21] & MASK32_3) << 21 | (tmp[22] & MASK32_3) << 18 | (tmp[23] & MASK32_3) << 15 | (tmp[24] & MASK32_3) << 12 | (tmp[25] & MASK32_3) << 9 | (tmp[26] & MASK32_3) << 6 | (tmp[27] & MASK32_3) << 3 | (tmp[28] & MASK32_3);
+    longs[61] = (tmp[29] & MASK32_3) << 26 | (tmp[30] & MASK32_3) << 23 | (tmp[31] & MASK32_3) << 20 | (tmp[32] & MASK32_3) << 17 | (tmp[33] & MASK32_3) << 14 | (tmp[34] & MASK32_3) << 11 | (tmp[35] & MASK32_3) << 8 | (tmp[36] & MASK32_3) << 5 | (tmp[37] & MASK32_3) << 2 | ((tmp[38] >>> 1) & MASK32_2);
+    longs[62] = (tmp[38] & MASK32_1) << 28 | (tmp[39] & MASK32_3) << 25 | (tmp[40] & MASK32_3) << 22 | (tmp[41] & MASK32_3) << 19 | (tmp[42] & MASK32_3) << 16 | (tmp[43] & MASK32_3) << 13 | (tmp[44] & MASK32_3) << 10 | (tmp[45] & MASK32_3) << 7 | (tmp[46] & MASK32_3) << 4 | (tmp[47] & MASK32_3) << 1 | ((tmp[48] >>> 2) & MASK32_1);
+    longs[63] = (tmp[48] & MASK32_2) << 27 | (tmp[49] & MASK32_3) << 24 | (tmp[50] & MASK32_3) << 21 | (tmp[51] & MASK32_3) << 18 | (tmp[52] & MASK32_3) << 15 | (tmp[53] & MASK32_3) << 12 | (tmp[54] & MASK32_3) << 9 | (tmp[55] & MASK32_3) << 6 | (tmp[56] & MASK32_3) << 3 | (tmp[57] & MASK32_3);
+  }
+
+  private static void decode30(DataInput in, long[] tmp, long[] longs) throws IOException {
+    readLongs(in, tmp, 60);
+    shiftLongs(tmp, 60, longs, 0, 2, MASK32_30);
+    longs[60] = (tmp[0] & MASK32_2) << 28 | (tmp[1] & MASK32_2) << 26 | (tmp[2] & MASK32_2) << 24 | (tmp[3] & MASK32_2) << 22 | (tmp[4] & MASK32_2) << 20 | (tmp[5] & MASK32_2) << 18 | (tmp[6] & MASK32_2) << 16 | (tmp[7] & MASK32_2) << 14 | (tmp[8] & MASK32_2) << 12 | (tmp[9] & MASK32_2) << 10 | (tmp[10] & MASK32_2) << 8 | (tmp[11] & MASK32_2) << 6 | (tmp[12] & MASK32_2) << 4 | (tmp[13] & MASK32_2) << 2 | (tmp[14] & MASK32_2);
+    longs[61] = (tmp[15] & MASK32_2) << 28 | (tmp[16] & MASK32_2) << 26 | (tmp[17] & MASK32_2) << 24 | (tmp[18] & MASK32_2) << 22 | (tmp[19] & MASK32_2) << 20 | (tmp[20] & MASK32_2) << 18 | (tmp[21] & MASK32_2) << 16 | (tmp[22] & MASK32_2) << 14 | (tmp[23] & MASK32_2) << 12 | (tmp[24] & MASK32_2) << 10 | (tmp[25] & MASK32_2) << 8 | (tmp[26] & MASK32_2) << 6 | (tmp[27] & MASK32_2) << 4 | (tmp[28] & MASK32_2) << 2 | (tmp[29] & MASK32_2);
+    longs[62] = (tmp[30] & MASK32_2) << 28 | (tmp[31] & MASK32_2) << 26 | (tmp[32] & MASK32_2) << 24 | (tmp[33] & MASK32_2) << 22 | (tmp[34] & MASK32_2) << 20 | (tmp[35] & MASK32_2) << 18 | (tmp[36] & MASK32_2) << 16 | (tmp[37] & MASK32_2) << 14 | (tmp[38] & MASK32_2) << 12 | (tmp[39] & MASK32_2) << 10 | (tmp[40] & MASK32_2) << 8 | (tmp[41] & MASK32_2) << 6 | (tmp[42] & MASK32_2) << 4 | (tmp[43] & MASK32_2) << 2 | (tmp[44] & MASK32_2);
+    longs[63] = (tmp[45] & MASK32_2) << 28 | (tmp[46] & MASK32_2) << 26 | (tmp[47] & MASK32_2) << 24 | (tmp[48] & MASK32_2) << 22 | (tmp[49] & MASK32_2) << 20 | (tmp[50] & MASK32_2) << 18 | (tmp[51] & MASK32_2) << 16 | (tmp[52] & MASK32_2) << 14 | (tmp[53] & MASK32_2) << 12 | (tmp[54] & MASK32_2) << 10 | (tmp[55] & MASK32_2) << 8 | (tmp[56] & MASK32_2) << 6 | (tmp[57] & MASK32_2) << 4 | (tmp[58] & MASK32_2) << 2 | (tmp[59] & MASK32_2);
+  }
+
+  private static void decode31(DataInput in, long[] tmp, long[] longs) throws IOException {
+    readLongs(in, tmp, 62);
+    shiftLongs(tmp, 62, longs, 0, 1, MASK32_31);
+    longs[62] = (tmp[0] & MASK32_1) << 30 | (tmp[1] & MASK32_1) << 29 | (tmp[2] & MASK32_1) << 28 | (tmp[3] & MASK32_1) << 27 | (tmp[4] & MASK32_1) << 26 | (tmp[5] & MASK32_1) << 25 | (tmp[6] & MASK32_1) << 24 | (tmp[7] & MASK32_1) << 23 | (tmp[8] & MASK32_1) << 22 | (tmp[9] & MASK32_1) << 21 | (tmp[10] & MASK32_1) << 20 | (tmp[11] & MASK32_1) << 19 | (tmp[12] & MASK32_1) << 18 | (tmp[13] & MASK32_1) << 17 | (tmp[14] & MASK32_1) << 16 | (tmp[15] & MASK32_1) << 15 | (tmp[16] & MASK32_1) << 14 | (tmp[17] & MASK32_1) << 13 | (tmp[18] & MASK32_1) << 12 | (tmp[19] & MASK32_1) << 11 | (tmp[20] & MASK32_1) << 10 | (tmp[21] & MASK32_1) << 9 | (tmp[22] & MASK32_1) << 8 | (tmp[23] & MASK32_1) << 7 | (tmp[24] & MASK32_1) << 6 | (tmp[25] & MASK32_1) << 5 | (tmp[26] & MASK32_1) << 4 | (tmp[27] & MASK32_1) << 3 | (tmp[28] & MASK32_1) << 2 | (tmp[29] & MASK32_1) << 1 | (tmp[30] & MASK32_1);
+    longs[63] = (tmp[31] & MASK32_1) << 30 | (tmp[32] & MASK32_1) << 29 | (tmp[33] & MASK32_1) << 28 | (tmp[34] & MASK32_1) << 27 | (tmp[35] & MASK32_1) << 26 | (tmp[36] & MASK32_1) << 25 | (tmp[37] & MASK32_1) << 24 | (tmp[38] & MASK32_1) << 23 | (tmp[39] & MASK32_1) << 22 | (tmp[40] & MASK32_1) << 21 | (tmp[41] & MASK32_1) << 20 | (tmp[42] & MASK32_1) << 19 | (tmp[43] & MASK32_1) << 18 | (tmp[44] & MASK32_1) << 17 | (tmp[45] & MASK32_1) << 16 | (tmp[46] & MASK32_1) << 15 | (tmp[47] & MASK32_1) << 14 | (tmp[48] & MASK32_1) << 13 | (tmp[49] & MASK32_1) << 12 | (tmp[50] & MASK32_1) << 11 | (tmp[51] & MASK32_1) << 10 | (tmp[52] & MASK32_1) << 9 | (tmp[53] & MASK32_1) << 8 | (tmp[54] & MASK32_1) << 7 | (tmp[55] & MASK32_1) << 6 | (tmp[56] & MASK32_1) << 5 | (tmp[57] & MASK32_1) << 4 | (tmp[58] & MASK32_1) << 3 | (tmp[59] & MASK32_1) << 2 | (tmp[60] & MASK32_1) << 1 | (tmp[61] & MASK32_1);
+  }
+
+  private static void decode32(DataInput in, long[] tmp, long[] longs) throws IOException {
+    readLongs(in, tmp, 64);
+    shiftLongs(tmp, 64, longs, 0, 0, MASK32_32);
+  }
+}
@@ -0,0 +1,497 @@
+#! /usr/bin/env python
+
+# Licensed to the Apache Software Foundation (ASF) under one or more
+# contributor license agreements.  See the NOTICE file distributed with
+# this work for additional information regarding copyright ownership.
+# The ASF licenses this file to You under the Apache License, Version 2.0
+# (the "License"); you may not use this file except in compliance with
+# the License.  You may obtain a copy of the License at
+#
+#     http://www.apache.org/licenses/LICENSE-2.0
+#
+# Unless required by applicable law or agreed to in writing, software
+# distributed under the License is distributed on an "AS IS" BASIS,
+# WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+# See the License for the specific language governing permissions and
+# limitations under the License.
+
+"""Code generation for ForUtil.java"""
+
+MAX_SPECIALIZED_BITS_PER_VALUE = 32
+OUTPUT_FILE = "ForUtil.java"
+PRIMITIVE_SIZE = [8, 16, 32]
+HEADER = """// This file has been automatically generated, DO NOT EDIT
+
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.codecs.lucene84;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.lucene.store.DataInput;
+import org.apache.lucene.store.DataOutput;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.util.packed.PackedInts;
+
+/**
+ * Encodes and decodes blocks of {@link #BLOCK_SIZE} integers with a fixed
+ * number of bits per value.
+ * <p>
+ * Unlike {@link org.apache.lucene.util.packed.PackedInts}, values are not
+ * packed one after the other. Instead, a block is first "collapsed" into
+ * longs that hold several values in lanes of 8, 16 or 32 bits, the smallest
+ * lane width that can hold the number of bits per value. Then lanes are packed
+ * by shifting every collapsed long by the same amount and OR-ing it into the
+ * output, so that all lanes of all longs are processed by the same sequence of
+ * shifts and masks. This gives loops that have no dependencies across
+ * iterations, which the JVM can auto-vectorize, and makes it possible to
+ * compute prefix sums of doc deltas on two 32-bit lanes at once.
+ * <p>
+ * The number of bytes used by a block is always {@code bitsPerValue * 16}.
+ */
+final class ForUtil {
+
+  /**
+   * Number of integers per block.
+   */
+  static final int BLOCK_SIZE = 128;
+  private static final int BLOCK_SIZE_LOG2 = 7;
+
+  /**
+   * Special number of bits per value used whenever all values to encode are equal.
+   */
+  private static final int ALL_VALUES_EQUAL = 0;
+
+  private static long expandMask32(long mask32) {
+    return mask32 | (mask32 << 32);
+  }
+
+  private static long expandMask16(long mask16) {
+    return expandMask32(mask16 | (mask16 << 16));
+  }
+
+  private static long expandMask8(long mask8) {
+    return expandMask16(mask8 | (mask8 << 8));
+  }
+
+  private static long mask32(int bitsPerValue) {
+    return expandMask32((1L << bitsPerValue) - 1);
+  }
+
+  private static long mask16(int bitsPerValue) {
+    return expandMask16((1L << bitsPerValue) - 1);
+  }
+
+  private static long mask8(int bitsPerValue) {
+    return expandMask8((1L << bitsPerValue) - 1);
+  }
+
+  private static void expand8(long[] arr) {
+    for (int i = 0; i < 16; ++i) {
+      long l = arr[i];
+      arr[i] = (l >>> 56) & 0xFFL;
+      arr[16 + i] = (l >>> 48) & 0xFFL;
+      arr[32 + i] = (l >>> 40) & 0xFFL;
+      arr[48 + i] = (l >>> 32) & 0xFFL;
+      arr[64 + i] = (l >>> 24) & 0xFFL;
+      arr[80 + i] = (l >>> 16) & 0xFFL;
+      arr[96 + i] = (l >>> 8) & 0xFFL;
+      arr[112 + i] = l & 0xFFL;
+    }
+  }
+
+  private static void expand8To32(long[] arr) {
+    for (int i = 0; i < 16; ++i) {
+      long l = arr[i];
+      arr[i] = (l >>> 24) & 0x000000FF000000FFL;
+      arr[16 + i] = (l >>> 16) & 0x000000FF000000FFL;
+      arr[32 + i] = (l >>> 8) & 0x000000FF000000FFL;
+      arr[48 + i] = l & 0x000000FF000000FFL;
+    }
+  }
+
+  private static void collapse8(long[] arr) {
+    for (int i = 0; i < 16; ++i) {
+      arr[i] = (arr[i] << 56) | (arr[16 + i] << 48) | (arr[32 + i] << 40) | (arr[48 + i] << 32)
+          | (arr[64 + i] << 24) | (arr[80 + i] << 16) | (arr[96 + i] << 8) | arr[112 + i];
+    }
+  }
+
+  private static void expand16(long[] arr) {
+    for (int i = 0; i < 32; ++i) {
+      long l = arr[i];
+      arr[i] = (l >>> 48) & 0xFFFFL;
+      arr[32 + i] = (l >>> 32) & 0xFFFFL;
+      arr[64 + i] = (l >>> 16) & 0xFFFFL;
+      arr[96 + i] = l & 0xFFFFL;
+    }
+  }
+
+  private static void expand16To32(long[] arr) {
+    for (int i = 0; i < 32; ++i) {
+      long l = arr[i];
+      arr[i] = (l >>> 16) & 0x0000FFFF0000FFFFL;
+      arr[32 + i] = l & 0x0000FFFF0000FFFFL;
+    }
+  }
+
+  private static void collapse16(long[] arr) {
+    for (int i = 0; i < 32; ++i) {
+      arr[i] = (arr[i] << 48) | (arr[32 + i] << 32) | (arr[64 + i] << 16) | arr[96 + i];
+    }
+  }
+
+  private static void expand32(long[] arr) {
+    for (int i = 0; i < 64; ++i) {
+      long l = arr[i];
+      arr[i] = l >>> 32;
+      arr[64 + i] = l & 0xFFFFFFFFL;
+    }
+  }
+
+  private static void collapse32(long[] arr) {
+    for (int i = 0; i < 64; ++i) {
+      arr[i] = (arr[i] << 32) | arr[64 + i];
+    }
+  }
+
+  /**
+   * Compute the prefix sum of a block that is collapsed on 32-bit lanes, the
+   * upper lanes holding the first 64 values and the lower lanes the last 64
+   * values. Sums are computed on both lanes at once and only need to be
+   * fixed up for the second half of the block once expanded.
+   */
+  private static void prefixSum32(long[] arr, long base) {
+    arr[0] += base << 32;
+    innerPrefixSum32(arr);
+    expand32(arr);
+    final long l = arr[BLOCK_SIZE / 2 - 1];
+    for (int i = BLOCK_SIZE / 2; i < BLOCK_SIZE; ++i) {
+      arr[i] += l;
+    }
+  }
+
+  private static void innerPrefixSum32(long[] arr) {
+    for (int i = 1; i < BLOCK_SIZE / 2; ++i) {
+      arr[i] += arr[i - 1];
+    }
+  }
+
+  private static final long[] MASKS8 = new long[8];
+  private static final long[] MASKS16 = new long[16];
+  private static final long[] MASKS32 = new long[32];
+  static {
+    for (int i = 0; i < 8; ++i) {
+      MASKS8[i] = mask8(i);
+    }
+    for (int i = 0; i < 16; ++i) {
+      MASKS16[i] = mask16(i);
+    }
+    for (int i = 0; i < 32; ++i) {
+      MASKS32[i] = mask32(i);
+    }
+  }
+
+  private final long[] tmp = new long[BLOCK_SIZE / 2];
+
+  /**
+   * Write a block of values, prefixed with the number of bits per value that
+   * is required to encode them. {@code longs} is used as scratch space and
+   * its content is undefined after this method returns.
+   */
+  void writeBlock(long[] longs, DataOutput out) throws IOException {
+    if (isAllEqual(longs)) {
+      out.writeByte((byte) ALL_VALUES_EQUAL);
+      out.writeVInt(Math.toIntExact(longs[0]));
+      return;
+    }
+    long or = 0;
+    for (int i = 0; i < BLOCK_SIZE; ++i) {
+      assert longs[i] >= 0 && longs[i] <= 0xFFFFFFFFL : longs[i];
+      or |= longs[i];
+    }
+    final int bitsPerValue = PackedInts.bitsRequired(or);
+    out.writeByte((byte) bitsPerValue);
+    encode(longs, bitsPerValue, out);
+  }
+
+  /**
+   * Read a block of values that has been written with
+   * {@link #writeBlock(long[], DataOutput)}.
+   */
+  void readBlock(DataInput in, long[] longs) throws IOException {
+    final int bitsPerValue = in.readByte();
+    if (bitsPerValue == ALL_VALUES_EQUAL) {
+      Arrays.fill(longs, 0, BLOCK_SIZE, in.readVInt());
+    } else {
+      decode(bitsPerValue, in, longs);
+    }
+  }
+
+  /**
+   * Read a block of deltas that has been written with
+   * {@link #writeBlock(long[], DataOutput)} and turn it into absolute values
+   * by adding {@code base} to its prefix sum.
+   */
+  void readBlockAndPrefixSum(DataInput in, long base, long[] longs) throws IOException {
+    final int bitsPerValue = in.readByte();
+    if (bitsPerValue == ALL_VALUES_EQUAL) {
+      final long value = in.readVInt();
+      for (int i = 0; i < BLOCK_SIZE; ++i) {
+        longs[i] = base + value * (i + 1);
+      }
+    } else {
+      decodeAndPrefixSum(bitsPerValue, in, base, longs);
+    }
+  }
+
+  /**
+   * Skip a block of values that has been written with
+   * {@link #writeBlock(long[], DataOutput)}.
+   */
+  void skipBlock(IndexInput in) throws IOException {
+    final int bitsPerValue = in.readByte();
+    if (bitsPerValue == ALL_VALUES_EQUAL) {
+      in.readVInt();
+    } else {
+      in.seek(in.getFilePointer() + numBytes(bitsPerValue));
+    }
+  }
+
+  private static boolean isAllEqual(long[] longs) {
+    final long v = longs[0];
+    for (int i = 1; i < BLOCK_SIZE; ++i) {
+      if (longs[i] != v) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Encode 128 integers from {@code longs} into {@code out}. {@code longs} is
+   * used as scratch space and its content is undefined after this method
+   * returns.
+   */
+  void encode(long[] longs, int bitsPerValue, DataOutput out) throws IOException {
+    assert bitsPerValue > 0 && bitsPerValue <= 32 : bitsPerValue;
+    final int nextPrimitive;
+    final int numLongs;
+    if (bitsPerValue <= 8) {
+      nextPrimitive = 8;
+      numLongs = BLOCK_SIZE / 8;
+      collapse8(longs);
+    } else if (bitsPerValue <= 16) {
+      nextPrimitive = 16;
+      numLongs = BLOCK_SIZE / 4;
+      collapse16(longs);
+    } else {
+      nextPrimitive = 32;
+      numLongs = BLOCK_SIZE / 2;
+      collapse32(longs);
+    }
+
+    final int numLongsPerShift = bitsPerValue * 2;
+    int idx = 0;
+    int shift = nextPrimitive - bitsPerValue;
+    for (int i = 0; i < numLongsPerShift; ++i) {
+      tmp[i] = longs[idx++] << shift;
+    }
+    for (shift = shift - bitsPerValue; shift >= 0; shift -= bitsPerValue) {
+      for (int i = 0; i < numLongsPerShift; ++i) {
+        tmp[i] |= longs[idx++] << shift;
+      }
+    }
+
+    // Values that didn't fit in whole lanes are spread over the bits that
+    // remain at the bottom of every lane.
+    final int remainingBitsPerLong = shift + bitsPerValue;
+    final long[] masks;
+    if (nextPrimitive == 8) {
+      masks = MASKS8;
+    } else if (nextPrimitive == 16) {
+      masks = MASKS16;
+    } else {
+      masks = MASKS32;
+    }
+    int tmpIdx = 0;
+    int remainingBitsPerValue = bitsPerValue;
+    while (idx < numLongs) {
+      if (remainingBitsPerValue >= remainingBitsPerLong) {
+        remainingBitsPerValue -= remainingBitsPerLong;
+        tmp[tmpIdx++] |= (longs[idx] >>> remainingBitsPerValue) & masks[remainingBitsPerLong];
+        if (remainingBitsPerValue == 0) {
+          idx++;
+          remainingBitsPerValue = bitsPerValue;
+        }
+      } else {
+        final long mask1 = masks[remainingBitsPerValue];
+        final long mask2 = masks[remainingBitsPerLong - remainingBitsPerValue];
+        tmp[tmpIdx] |= (longs[idx++] & mask1) << (remainingBitsPerLong - remainingBitsPerValue);
+        remainingBitsPerValue = bitsPerValue - remainingBitsPerLong + remainingBitsPerValue;
+        tmp[tmpIdx++] |= (longs[idx] >>> remainingBitsPerValue) & mask2;
+      }
+    }
+
+    for (int i = 0; i < numLongsPerShift; ++i) {
+      out.writeLong(tmp[i]);
+    }
+  }
+
+  /**
+   * Number of bytes required to encode 128 integers of {@code bitsPerValue} bits per value.
+   */
+  static int numBytes(int bitsPerValue) {
+    return bitsPerValue << (BLOCK_SIZE_LOG2 - 3);
+  }
+
+  private static void readLongs(DataInput in, long[] tmp, int count) throws IOException {
+    for (int i = 0; i < count; ++i) {
+      tmp[i] = in.readLong();
+    }
+  }
+
+  private static void shiftLongs(long[] a, int count, long[] b, int bi, int shift, long mask) {
+    for (int i = 0; i < count; ++i) {
+      b[bi + i] = (a[i] >>> shift) & mask;
+    }
+  }
+
+"""
+
+def writeRemainder(bpv, next_primitive, remaining_bits_per_long, o, num_values, f):
+  # emit one statement per collapsed long that is spread over the low
+  # remaining_bits_per_long bits of the lanes of tmp
+  tmp_idx = 0
+  avail = remaining_bits_per_long
+  for idx in range(o, o + num_values):
+    need = bpv
+    terms = []
+    while need > 0:
+      take = min(avail, need)
+      shr = avail - take
+      shl = need - take
+      term = 'tmp[%d]' %tmp_idx
+      if shr > 0:
+        term = '(%s >>> %d)' %(term, shr)
+      term = '(%s & MASK%d_%d)' %(term, next_primitive, take)
+      if shl > 0:
+        term = '%s << %d' %(term, shl)
+      terms.append(term)
+      need -= take
+      avail -= take
+      if avail == 0:
+        tmp_idx += 1
+        avail = remaining_bits_per_long
+    f.write('    longs[%d] = %s;\n' %(idx, ' | '.join(terms)))
+  assert tmp_idx == bpv * 2
+
+def writeDecode(bpv, f):
+  next_primitive = 32
+  if bpv <= 8:
+    next_primitive = 8
+  elif bpv <= 16:
+    next_primitive = 16
+  num_longs = next_primitive * 2
+  num_longs_per_shift = bpv * 2
+  f.write('  private static void decode%d(DataInput in, long[] tmp, long[] longs) throws IOException {\n' %bpv)
+  f.write('    readLongs(in, tmp, %d);\n' %num_longs_per_shift)
+  o = 0
+  shift = next_primitive - bpv
+  while shift >= 0:
+    f.write('    shiftLongs(tmp, %d, longs, %d, %d, MASK%d_%d);\n' %(num_longs_per_shift, o, shift, next_primitive, bpv))
+    o += num_longs_per_shift
+    shift -= bpv
+  remaining_bits_per_long = shift + bpv
+  if o < num_longs:
+    writeRemainder(bpv, next_primitive, remaining_bits_per_long, o, num_longs - o, f)
+  f.write('  }\n')
+
+def usedMasks():
+  masks = set()
+  for bpv in range(1, MAX_SPECIALIZED_BITS_PER_VALUE + 1):
+    next_primitive = 32
+    if bpv <= 8:
+      next_primitive = 8
+    elif bpv <= 16:
+      next_primitive = 16
+    masks.add((next_primitive, bpv))
+    remaining_bits_per_long = next_primitive % bpv
+    for i in range(1, remaining_bits_per_long + 1):
+      masks.add((next_primitive, i))
+  return sorted(masks)
+
+if __name__ == '__main__':
+  f = open(OUTPUT_FILE, 'w')
+  f.write(HEADER)
+  f.write('  // mask for lanes of <primitive> bits that keeps the <bits> lowest bits of every lane\n')
+  for primitive, bits in usedMasks():
+    f.write('  private static final long MASK%d_%d = mask%d(%d);\n' %(primitive, bits, primitive, bits))
+  f.write('\n')
+
+  f.write("""  /**
+   * Decode 128 integers into {@code longs}.
+   */
+  void decode(int bitsPerValue, DataInput in, long[] longs) throws IOException {
+    switch (bitsPerValue) {
+""")
+  for bpv in range(1, MAX_SPECIALIZED_BITS_PER_VALUE + 1):
+    next_primitive = 32
+    if bpv <= 8:
+      next_primitive = 8
+    elif bpv <= 16:
+      next_primitive = 16
+    f.write('      case %d:\n' %bpv)
+    f.write('        decode%d(in, tmp, longs);\n' %bpv)
+    f.write('        expand%d(longs);\n' %next_primitive)
+    f.write('        break;\n')
+  f.write('      default:\n')
+  f.write('        throw new AssertionError("Unsupported number of bits per value: " + bitsPerValue);\n')
+  f.write('    }\n')
+  f.write('  }\n\n')
+
+  f.write("""  /**
+   * Decode 128 deltas into {@code longs} and compute their prefix sum, starting
+   * from {@code base}.
+   */
+  void decodeAndPrefixSum(int bitsPerValue, DataInput in, long base, long[] longs) throws IOException {
+    switch (bitsPerValue) {
+""")
+  for bpv in range(1, MAX_SPECIALIZED_BITS_PER_VALUE + 1):
+    next_primitive = 32
+    if bpv <= 8:
+      next_primitive = 8
+    elif bpv <= 16:
+      next_primitive = 16
+    f.write('      case %d:\n' %bpv)
+    f.write('        decode%d(in, tmp, longs);\n' %bpv)
+    if next_primitive != 32:
+      f.write('        expand%dTo32(longs);\n' %next_primitive)
+    f.write('        prefixSum32(longs, base);\n')
+    f.write('        break;\n')
+  f.write('      default:\n')
+  f.write('        throw new AssertionError("Unsupported number of bits per value: " + bitsPerValue);\n')
+  f.write('    }\n')
+  f.write('  }\n')
+
+  for bpv in range(1, MAX_SPECIALIZED_BITS_PER_VALUE + 1):
+    f.write('\n')
+    writeDecode(bpv, f)
+
+  f.write('}\n')
+  f.close()
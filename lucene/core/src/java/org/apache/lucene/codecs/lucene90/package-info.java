@@ -0,0 +1,28 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * Lucene 9.0 file format.
+ * <p>
+ * {@link org.apache.lucene.codecs.lucene90.Lucene90Codec} writes the same
+ * files as the Lucene 8.0 format, see {@link org.apache.lucene.codecs.lucene80}
+ * for an overview of the index format, except for
+ * {@link org.apache.lucene.codecs.lucene90.Lucene90DocValuesFormat doc values},
+ * which additionally record a skip index of the minimum and maximum values of
+ * blocks of documents.
+ */
+package org.apache.lucene.codecs.lucene90;
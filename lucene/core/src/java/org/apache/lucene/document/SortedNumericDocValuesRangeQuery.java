@@ -20,6 +20,7 @@ import java.io.IOException;
 import java.util.Objects;
 
 import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.DocValuesSkipper;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.index.LeafReaderContext;
@@ -27,6 +28,7 @@ import org.apache.lucene.index.NumericDocValues;
 import org.apache.lucene.index.SortedNumericDocValues;
 import org.apache.lucene.search.ConstantScoreScorer;
 import org.apache.lucene.search.ConstantScoreWeight;
+import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.search.DocValuesFieldExistsQuery;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Query;
@@ -115,6 +117,16 @@ abstract class SortedNumericDocValuesRangeQuery extends Query {
         if (values == null) {
           return null;
         }
+        final DocValuesSkipper skipper = context.reader().getDocValuesSkipper(field);
+        if (skipper != null) {
+          if (skipper.minValue() > upperValue || skipper.maxValue() < lowerValue) {
+            return null;
+          }
+          if (skipper.minValue() >= lowerValue && skipper.maxValue() <= upperValue) {
+            // all documents that have a value match
+            return new ConstantScoreScorer(this, score(), scoreMode, values);
+          }
+        }
         final NumericDocValues singleton = DocValues.unwrapSingleton(values);
         final TwoPhaseIterator iterator;
         if (singleton != null) {
@@ -151,10 +163,109 @@ abstract class SortedNumericDocValuesRangeQuery extends Query {
             }
           };
         }
+        if (skipper != null) {
+          return new ConstantScoreScorer(this, score(), scoreMode,
+              new SkippingTwoPhaseIterator(iterator, skipper, lowerValue, upperValue));
+        }
         return new ConstantScoreScorer(this, score(), scoreMode, iterator);
       }
 
     };
   }
 
+  /**
+   * Wraps a {@link TwoPhaseIterator} over doc values in order to skip over
+   * intervals of documents whose values are all out of the range, and to
+   * match without checking values in intervals that are fully in the range.
+   */
+  private static class SkippingTwoPhaseIterator extends TwoPhaseIterator {
+
+    private final TwoPhaseIterator in;
+    private final SkippingApproximation approximation;
+
+    SkippingTwoPhaseIterator(TwoPhaseIterator in, DocValuesSkipper skipper, long lowerValue, long upperValue) {
+      this(in, new SkippingApproximation(in.approximation(), skipper, lowerValue, upperValue));
+    }
+
+    private SkippingTwoPhaseIterator(TwoPhaseIterator in, SkippingApproximation approximation) {
+      super(approximation);
+      this.in = in;
+      this.approximation = approximation;
+    }
+
+    @Override
+    public boolean matches() throws IOException {
+      return approximation.docID() <= approximation.matchAllUpTo || in.matches();
+    }
+
+    @Override
+    public float matchCost() {
+      return in.matchCost();
+    }
+  }
+
+  private static class SkippingApproximation extends DocIdSetIterator {
+
+    private final DocIdSetIterator in;
+    private final DocValuesSkipper skipper;
+    private final long lowerValue;
+    private final long upperValue;
+    private int doc = -1;
+    // all documents up to this doc ID (inclusive) match
+    private int matchAllUpTo = -1;
+
+    SkippingApproximation(DocIdSetIterator in, DocValuesSkipper skipper, long lowerValue, long upperValue) {
+      this.in = in;
+      this.skipper = skipper;
+      this.lowerValue = lowerValue;
+      this.upperValue = upperValue;
+    }
+
+    @Override
+    public int docID() {
+      return doc;
+    }
+
+    @Override
+    public int nextDoc() throws IOException {
+      return advance(doc + 1);
+    }
+
+    @Override
+    public int advance(int target) throws IOException {
+      if (target <= matchAllUpTo) {
+        doc = in.advance(target);
+        if (doc <= matchAllUpTo) {
+          return doc;
+        }
+        target = doc;
+      }
+      while (true) {
+        skipper.advance(target);
+        skipper.advance(lowerValue, upperValue);
+        if (skipper.minDocID(0) == NO_MORE_DOCS) {
+          return doc = NO_MORE_DOCS;
+        }
+        doc = in.advance(Math.max(target, skipper.minDocID(0)));
+        if (doc <= skipper.maxDocID(0)) {
+          // find the largest interval whose values are all in the range
+          matchAllUpTo = -1;
+          for (int level = skipper.numLevels() - 1; level >= 0; --level) {
+            if (skipper.minValue(level) >= lowerValue && skipper.maxValue(level) <= upperValue) {
+              matchAllUpTo = skipper.maxDocID(level);
+              break;
+            }
+          }
+          return doc;
+        }
+        target = doc;
+      }
+    }
+
+    @Override
+    public long cost() {
+      return in.cost();
+    }
+  }
+
 }
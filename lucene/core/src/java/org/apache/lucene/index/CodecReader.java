@@ -168,6 +168,21 @@ public abstract class CodecReader extends LeafReader implements Accountable {
     return getDocValuesReader().getSortedNumeric(fi);
   }
 
+  @Override
+  public final DocValuesSkipper getDocValuesSkipper(String field) throws IOException {
+    ensureOpen();
+    FieldInfo fi = getFieldInfos().fieldInfo(field);
+    if (fi == null) {
+      // Field does not exist
+      return null;
+    }
+    if (fi.getDocValuesType() != DocValuesType.NUMERIC && fi.getDocValuesType() != DocValuesType.SORTED_NUMERIC) {
+      // Only numeric doc values may have skip data
+      return null;
+    }
+    return getDocValuesReader().getSkipper(fi);
+  }
+
   @Override
   public final SortedSetDocValues getSortedSetDocValues(String field) throws IOException {
     ensureOpen();
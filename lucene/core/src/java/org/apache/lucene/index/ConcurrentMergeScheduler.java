@@ -21,6 +21,8 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.lucene.index.MergePolicy.OneMerge;
 import org.apache.lucene.store.AlreadyClosedException;
@@ -60,6 +62,11 @@ import org.apache.lucene.util.ThreadInterruptedException;
  *  disk for backwards compatibility.  To enable default
  *  settings for spinning or solid state disks for such
  *  operating systems, use {@link #setDefaultMaxMergesAndThreads(boolean)}.
+ *
+ *  <p>Optionally, a {@link LoadSignal} may be configured with
+ *  {@link #setLoadSignal} in order to slow down merges when they hurt
+ *  foreground activity such as searches, and speed them up when there is
+ *  spare capacity.</p>
  */ 
 
 public class ConcurrentMergeScheduler extends MergeScheduler {
@@ -121,6 +128,18 @@ public class ConcurrentMergeScheduler extends MergeScheduler {
 
   private double forceMergeMBPerSec = Double.POSITIVE_INFINITY;
 
+  private Executor intraMergeExecutor;
+
+  /** How often merge threads sample the {@link LoadSignal}, if any. */
+  private static final long LOAD_SIGNAL_SAMPLE_INTERVAL_NS = TimeUnit.MILLISECONDS.toNanos(500);
+
+  private volatile LoadSignal loadSignal;
+
+  /** Last load reported by the {@link LoadSignal}, 1 if there is no signal. */
+  private double load = 1.0;
+
+  private volatile long lastLoadSampleNS;
+
   /** Sole constructor, with all settings set to default
    *  values. */
   public ConcurrentMergeScheduler() {
@@ -224,16 +243,148 @@ public class ConcurrentMergeScheduler extends MergeScheduler {
     return doAutoIOThrottle;
   }
 
-  /** Returns the currently set per-merge IO writes rate limit, if {@link #enableAutoIOThrottle}
+  /** Returns the currently set per-merge IO writes rate limit, adjusted to the
+   *  load if a {@link #setLoadSignal LoadSignal} is set, if {@link #enableAutoIOThrottle}
    *  was called, else {@code Double.POSITIVE_INFINITY}. */
   public synchronized double getIORateLimitMBPerSec() {
     if (doAutoIOThrottle) {
-      return targetMBPerSec;
+      return loadAdjustedMBPerSec();
     } else {
       return Double.POSITIVE_INFINITY;
     }
   }
 
+  /** Expert: sets the {@link Executor} that is used to merge stored fields,
+   *  doc values, points, term vectors and postings of a single merge
+   *  concurrently, so that a large merge, such as a {@link IndexWriter#forceMerge
+   *  forced merge} down to a single segment, may use more than one core.
+   *  Postings are always merged by the merge thread, and parts that the
+   *  executor rejects are merged by the merge thread too. All parts of a merge
+   *  share its IO rate limit. This executor also runs the merges of
+   *  {@link IndexWriter#addIndexes(CodecReader...)} concurrently, see
+   *  {@link #getAddIndexesExecutor}. By default, this is {@code null} and
+   *  merges run entirely on their merge thread.
+   *
+   *  <p>This executor is not shut down by this merge scheduler. */
+  public synchronized void setIntraMergeExecutor(Executor executor) {
+    this.intraMergeExecutor = executor;
+  }
+
+  @Override
+  public synchronized Executor getIntraMergeExecutor(OneMerge merge) {
+    return intraMergeExecutor;
+  }
+
+  /** Returns the {@link #setIntraMergeExecutor intra-merge executor}, which
+   *  merges the readers passed to {@link IndexWriter#addIndexes(CodecReader...)}
+   *  concurrently too. */
+  @Override
+  public synchronized Executor getAddIndexesExecutor() {
+    return intraMergeExecutor;
+  }
+
+  /**
+   * Provides the load of the system that merges compete with for IO and CPU,
+   * typically derived from the latency of searches.
+   *
+   * @see ConcurrentMergeScheduler#setLoadSignal
+   */
+  @FunctionalInterface
+  public interface LoadSignal {
+
+    /**
+     * Returns the current load, relative to the acceptable load: {@code 1}
+     * means that the load is exactly acceptable, {@code 2} that it is twice
+     * the acceptable load, for instance because the 95th percentile of search
+     * latency is twice its target, and {@code 0.5} that there is spare
+     * capacity. This method is called frequently by merge threads and must be
+     * cheap, it should typically return a value that is computed periodically
+     * by another thread.
+     */
+    double getLoad();
+  }
+
+  /** Expert: sets the {@link LoadSignal} that this scheduler uses to adapt
+   *  merging to the load of the system. When the load is greater than 1, the
+   *  IO rate of merges that are throttled by {@link #enableAutoIOThrottle auto
+   *  IO throttling} is divided by the load, and so is the maximum number of
+   *  merge threads, down to a single thread: the largest merges are paused.
+   *  When the load is less than 1, the IO rate of throttled merges is raised
+   *  accordingly. The maximum number of merge threads is never raised above
+   *  {@link #getMaxThreadCount()}, and forced merges keep running at
+   *  {@link #getForceMergeMBPerSec()}.
+   *
+   *  <p>The signal is sampled when merges start and finish, and regularly
+   *  while they run. Changes are reported to the {@link org.apache.lucene.util.InfoStream} of the
+   *  {@link IndexWriter} under the {@code MS} component. Samples that are
+   *  negative or NaN are ignored and the last valid load is kept. By default, this is
+   *  {@code null} and merging is only adapted to the merge backlog. */
+  public synchronized void setLoadSignal(LoadSignal loadSignal) {
+    this.loadSignal = loadSignal;
+    if (loadSignal == null) {
+      load = 1.0;
+    }
+    updateMergeThreads();
+  }
+
+  /** Returns the {@link LoadSignal}, or {@code null} if none is set.
+   *
+   * @see #setLoadSignal */
+  public synchronized LoadSignal getLoadSignal() {
+    return loadSignal;
+  }
+
+  /** Samples the {@link LoadSignal}, returns the new load. */
+  private synchronized double sampleLoad() {
+    final LoadSignal loadSignal = this.loadSignal;
+    if (loadSignal == null) {
+      return load;
+    }
+    lastLoadSampleNS = System.nanoTime();
+    double newLoad = loadSignal.getLoad();
+    if (Double.isNaN(newLoad) || newLoad < 0) {
+      // don't let a buggy signal break merging, keep the last valid load
+      if (verbose()) {
+        message("load signal: ignoring invalid load " + newLoad + ", keeping " + load);
+      }
+      return load;
+    }
+    if (newLoad != load && verbose()) {
+      message(String.format(Locale.ROOT, "load signal: load changed from %.2f to %.2f", load, newLoad));
+    }
+    load = newLoad;
+    return load;
+  }
+
+  /** Called by merge threads as they write bytes, to react to load changes
+   *  while merges run. */
+  private void maybeUpdateLoad() {
+    if (loadSignal != null && System.nanoTime() - lastLoadSampleNS >= LOAD_SIGNAL_SAMPLE_INTERVAL_NS) {
+      synchronized (this) {
+        // check again now that we hold the lock, another merge thread may have sampled the load
+        if (System.nanoTime() - lastLoadSampleNS >= LOAD_SIGNAL_SAMPLE_INTERVAL_NS) {
+          updateMergeThreads();
+        }
+      }
+    }
+  }
+
+  /** Returns the maximum number of running merge threads given the current load. */
+  private int loadAdjustedMaxThreadCount() {
+    if (load <= 1.0 || maxThreadCount == AUTO_DETECT_MERGES_AND_THREADS) {
+      return maxThreadCount;
+    }
+    return Math.max(1, (int) (maxThreadCount / load));
+  }
+
+  /** Returns the IO rate limit of throttled merges given the current load. */
+  private double loadAdjustedMBPerSec() {
+    if (load == 1.0) {
+      return targetMBPerSec;
+    }
+    return Math.min(MAX_MERGE_MB_PER_SEC, Math.max(MIN_MERGE_MB_PER_SEC, targetMBPerSec / load));
+  }
+
   /** Returns {@code maxThreadCount}.
    *
    * @see #setMaxMergesAndThreads(int, int) */
@@ -280,10 +431,8 @@ public class ConcurrentMergeScheduler extends MergeScheduler {
         // somewhere that is failing to pass down the right IOContext:
         assert context.context == IOContext.Context.MERGE: "got context=" + context.context;
         
-        // Because rateLimiter is bound to a particular merge thread, this method should
-        // always be called from that context. Verify this.
-        assert mergeThread == Thread.currentThread() : "Not the same merge thread, current="
-          + Thread.currentThread() + ", expected=" + mergeThread;
+        // NOTE: this may be called from the intra-merge executor rather than from the
+        // merge thread, rateLimiter is shared by all threads that work on this merge
 
         return new RateLimitedIndexOutput(rateLimiter, in.createOutput(name, context));
       }
@@ -330,12 +479,19 @@ public class ConcurrentMergeScheduler extends MergeScheduler {
       }
     }
 
+    sampleLoad();
+    final int effectiveMaxThreadCount = loadAdjustedMaxThreadCount();
+    final double effectiveMBPerSec = loadAdjustedMBPerSec();
+
     long now = System.nanoTime();
 
     StringBuilder message;
     if (verbose()) {
       message = new StringBuilder();
-      message.append(String.format(Locale.ROOT, "updateMergeThreads ioThrottle=%s targetMBPerSec=%.1f MB/sec", doAutoIOThrottle, targetMBPerSec));
+      message.append(String.format(Locale.ROOT, "updateMergeThreads ioThrottle=%s targetMBPerSec=%.1f MB/sec", doAutoIOThrottle, effectiveMBPerSec));
+      if (loadSignal != null) {
+        message.append(String.format(Locale.ROOT, " load=%.2f maxThreadCount=%d", load, effectiveMaxThreadCount));
+      }
     } else {
       message = null;
     }
@@ -346,7 +502,7 @@ public class ConcurrentMergeScheduler extends MergeScheduler {
       OneMerge merge = mergeThread.merge;
 
       // pause the thread if maxThreadCount is smaller than the number of merge threads.
-      final boolean doPause = threadIdx < bigMergeCount - maxThreadCount;
+      final boolean doPause = threadIdx < bigMergeCount - effectiveMaxThreadCount;
 
       double newMBPerSec;
       if (doPause) {
@@ -359,7 +515,7 @@ public class ConcurrentMergeScheduler extends MergeScheduler {
         // Don't rate limit small merges:
         newMBPerSec = Double.POSITIVE_INFINITY;
       } else {
-        newMBPerSec = targetMBPerSec;
+        newMBPerSec = effectiveMBPerSec;
       }
 
       MergeRateLimiter rateLimiter = mergeThread.rateLimiter;
@@ -643,7 +799,13 @@ public class ConcurrentMergeScheduler extends MergeScheduler {
     public MergeThread(IndexWriter writer, OneMerge merge) {
       this.writer = writer;
       this.merge = merge;
-      this.rateLimiter = new MergeRateLimiter(merge.getMergeProgress());
+      this.rateLimiter = new MergeRateLimiter(merge.getMergeProgress()) {
+        @Override
+        public long pause(long bytes) throws MergePolicy.MergeAbortedException {
+          maybeUpdateLoad();
+          return super.pause(bytes);
+        }
+      };
     }
 
     @Override
@@ -728,6 +890,9 @@ public class ConcurrentMergeScheduler extends MergeScheduler {
     sb.append("maxThreadCount=").append(maxThreadCount).append(", ");    
     sb.append("maxMergeCount=").append(maxMergeCount).append(", ");    
     sb.append("ioThrottle=").append(doAutoIOThrottle);
+    if (loadSignal != null) {
+      sb.append(", load=").append(load);
+    }
     return sb.toString();
   }
 
@@ -828,7 +993,7 @@ public class ConcurrentMergeScheduler extends MergeScheduler {
     if (newMerge.maxNumSegments != -1) {
       rate = forceMergeMBPerSec;
     } else {
-      rate = targetMBPerSec;
+      rate = loadAdjustedMBPerSec();
     }
     rateLimiter.setMBPerSec(rate);
     targetMBPerSecChanged();
@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.index;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.apache.lucene.util.IOUtils;
+
+/**
+ * Runs the independent parts of a flush or a merge, which each write their
+ * own files, concurrently on an {@link Executor}.
+ */
+final class ConcurrentTasks {
+
+  private ConcurrentTasks() {}
+
+  /** Runs the given tasks on {@code executor} if it is not null, except for
+   *  the last task which is always run by the current thread, as well as tasks
+   *  that the executor rejects. All tasks are waited for, even if some of them
+   *  fail, so that no file is still being written when the caller cleans up,
+   *  then the first exception is rethrown with other exceptions suppressed. */
+  static void run(Executor executor, List<Callable<Void>> tasks) throws IOException {
+    final List<FutureTask<Void>> futures = new ArrayList<>(tasks.size());
+    for (int i = 0; i < tasks.size(); ++i) {
+      FutureTask<Void> task = new FutureTask<>(tasks.get(i));
+      futures.add(task);
+      if (executor != null && i < tasks.size() - 1) {
+        try {
+          executor.execute(task);
+        } catch (RejectedExecutionException e) {
+          // saturated executor, do it ourselves
+          task.run();
+        }
+      } else {
+        task.run();
+      }
+    }
+
+    Throwable th = null;
+    boolean interrupted = false;
+    for (FutureTask<Void> future : futures) {
+      while (true) {
+        try {
+          future.get();
+          break;
+        } catch (InterruptedException e) {
+          // keep waiting, files may still be open
+          interrupted = true;
+        } catch (ExecutionException e) {
+          th = IOUtils.useOrSuppress(th, e.getCause());
+          break;
+        }
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+    if (th != null) {
+      throw IOUtils.rethrowAlways(th);
+    }
+  }
+}
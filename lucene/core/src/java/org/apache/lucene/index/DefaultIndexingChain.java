@@ -27,6 +27,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 
 import org.apache.lucene.analysis.TokenStream;
 import org.apache.lucene.codecs.DocValuesConsumer;
@@ -78,11 +79,17 @@ final class DefaultIndexingChain extends DocConsumer {
 
   private final Set<String> finishedDocValues = new HashSet<>();
 
+  private final IndexingStats.Recorder indexingStats;
+  // Non-null if stages that are applied to every document are recorded:
+  private final IndexingStats.DocumentStats documentStats;
+
   public DefaultIndexingChain(DocumentsWriterPerThread docWriter) throws IOException {
     this.docWriter = docWriter;
     this.fieldInfos = docWriter.getFieldInfosBuilder();
     this.docState = docWriter.docState;
     this.bytesUsed = docWriter.bytesUsed;
+    this.indexingStats = docWriter.indexingStats;
+    this.documentStats = indexingStats.recordDocumentStages ? new IndexingStats.DocumentStats(indexingStats) : null;
 
     final TermsHash termVectorsWriter;
     if (docWriter.getSegmentInfo().getIndexSort() == null) {
@@ -125,36 +132,84 @@ final class DefaultIndexingChain extends DocConsumer {
 
     // NOTE: caller (DocumentsWriterPerThread) handles
     // aborting on any exception from this method
-    Sorter.DocMap sortMap = maybeSortSegment(state);
     int maxDoc = state.segmentInfo.maxDoc();
     long t0 = System.nanoTime();
-    writeNorms(state, sortMap);
-    if (docState.infoStream.isEnabled("IW")) {
-      docState.infoStream.message("IW", ((System.nanoTime()-t0)/1000000) + " msec to write norms");
+    Sorter.DocMap sortMap = maybeSortSegment(state);
+    if (state.segmentInfo.getIndexSort() != null) {
+      indexingStats.record(IndexingStats.Stage.FLUSH_SORT, System.nanoTime() - t0, maxDoc, 0, 0);
     }
-    SegmentReadState readState = new SegmentReadState(state.directory, state.segmentInfo, state.fieldInfos, true, IOContext.READ, state.segmentSuffix, Collections.emptyMap());
-    
     t0 = System.nanoTime();
-    writeDocValues(state, sortMap);
+    writeNorms(state, sortMap);
+    indexingStats.record(IndexingStats.Stage.FLUSH_NORMS, System.nanoTime() - t0, maxDoc, 0, 0);
     if (docState.infoStream.isEnabled("IW")) {
-      docState.infoStream.message("IW", ((System.nanoTime()-t0)/1000000) + " msec to write docValues");
+      docState.infoStream.message("IW", ((System.nanoTime()-t0)/1000000) + " msec to write norms");
     }
 
-    t0 = System.nanoTime();
-    writePoints(state, sortMap);
-    if (docState.infoStream.isEnabled("IW")) {
-      docState.infoStream.message("IW", ((System.nanoTime()-t0)/1000000) + " msec to write points");
+    // Postings need norms, but doc values, points, stored fields and postings
+    // are otherwise independent from each other, so they may be written
+    // concurrently. Postings go last so that they are written by this thread.
+    List<Callable<Void>> tasks = new ArrayList<>();
+    tasks.add(() -> {
+      long start = System.nanoTime();
+      writeDocValues(state, sortMap);
+      indexingStats.record(IndexingStats.Stage.FLUSH_DOC_VALUES, System.nanoTime() - start, maxDoc, 0, 0);
+      if (docState.infoStream.isEnabled("IW")) {
+        docState.infoStream.message("IW", ((System.nanoTime()-start)/1000000) + " msec to write docValues");
+      }
+      return null;
+    });
+    tasks.add(() -> {
+      long start = System.nanoTime();
+      writePoints(state, sortMap);
+      indexingStats.record(IndexingStats.Stage.FLUSH_POINTS, System.nanoTime() - start, maxDoc, 0, 0);
+      if (docState.infoStream.isEnabled("IW")) {
+        docState.infoStream.message("IW", ((System.nanoTime()-start)/1000000) + " msec to write points");
+      }
+      return null;
+    });
+    tasks.add(() -> {
+      // it's possible all docs hit non-aborting exceptions...
+      long start = System.nanoTime();
+      storedFieldsConsumer.finish(maxDoc);
+      storedFieldsConsumer.flush(state, sortMap);
+      indexingStats.record(IndexingStats.Stage.FLUSH_STORED_FIELDS, System.nanoTime() - start, maxDoc, 0, 0);
+      if (docState.infoStream.isEnabled("IW")) {
+        docState.infoStream.message("IW", ((System.nanoTime()-start)/1000000) + " msec to finish stored fields");
+      }
+      return null;
+    });
+    tasks.add(() -> {
+      long start = System.nanoTime();
+      writePostings(state, sortMap);
+      indexingStats.record(IndexingStats.Stage.FLUSH_POSTINGS, System.nanoTime() - start, maxDoc, 0, 0);
+      if (docState.infoStream.isEnabled("IW")) {
+        docState.infoStream.message("IW", ((System.nanoTime()-start)/1000000) + " msec to write postings and finish vectors");
+      }
+      return null;
+    });
+    ConcurrentTasks.run(docWriter.flushExecutor, tasks);
+
+    // postings and vectors have been written: give the indexing buffers back
+    // to the allocator so that it may reuse them for other DWPTs
+    for (TermsHash hash = termsHash; hash != null; hash = hash.nextTermsHash) {
+      hash.reset();
     }
-    
-    // it's possible all docs hit non-aborting exceptions...
+
+    // Important to save after asking consumer to flush so
+    // consumer can alter the FieldInfo* if necessary.  EG,
+    // FreqProxTermsWriter does this with
+    // FieldInfo.storePayload.
     t0 = System.nanoTime();
-    storedFieldsConsumer.finish(maxDoc);
-    storedFieldsConsumer.flush(state, sortMap);
+    docWriter.codec.fieldInfosFormat().write(state.directory, state.segmentInfo, "", state.fieldInfos, IOContext.DEFAULT);
     if (docState.infoStream.isEnabled("IW")) {
-      docState.infoStream.message("IW", ((System.nanoTime()-t0)/1000000) + " msec to finish stored fields");
+      docState.infoStream.message("IW", ((System.nanoTime()-t0)/1000000) + " msec to write fieldInfos");
     }
 
-    t0 = System.nanoTime();
+    return sortMap;
+  }
+
+  /** Writes postings and term vectors. */
+  private void writePostings(SegmentWriteState state, Sorter.DocMap sortMap) throws IOException {
     Map<String,TermsHashPerField> fieldsToFlush = new HashMap<>();
     for (int i=0;i<fieldHash.length;i++) {
       PerField perField = fieldHash[i];
@@ -166,6 +221,7 @@ final class DefaultIndexingChain extends DocConsumer {
       }
     }
 
+    SegmentReadState readState = new SegmentReadState(state.directory, state.segmentInfo, state.fieldInfos, true, IOContext.READ, state.segmentSuffix, Collections.emptyMap());
     try (NormsProducer norms = readState.fieldInfos.hasNorms()
         ? state.segmentInfo.getCodec().normsFormat().normsProducer(readState)
         : null) {
@@ -176,21 +232,6 @@ final class DefaultIndexingChain extends DocConsumer {
       }
       termsHash.flush(fieldsToFlush, state, sortMap, normsMergeInstance);
     }
-    if (docState.infoStream.isEnabled("IW")) {
-      docState.infoStream.message("IW", ((System.nanoTime()-t0)/1000000) + " msec to write postings and finish vectors");
-    }
-
-    // Important to save after asking consumer to flush so
-    // consumer can alter the FieldInfo* if necessary.  EG,
-    // FreqProxTermsWriter does this with
-    // FieldInfo.storePayload.
-    t0 = System.nanoTime();
-    docWriter.codec.fieldInfosFormat().write(state.directory, state.segmentInfo, "", state.fieldInfos, IOContext.DEFAULT);
-    if (docState.infoStream.isEnabled("IW")) {
-      docState.infoStream.message("IW", ((System.nanoTime()-t0)/1000000) + " msec to write fieldInfos");
-    }
-
-    return sortMap;
   }
 
   /** Writes all buffered points. */
@@ -411,7 +452,15 @@ final class DefaultIndexingChain extends DocConsumer {
         for (int i=0;i<fieldCount;i++) {
           fields[i].finish();
         }
+        final long start = documentStats == null ? 0L : System.nanoTime();
         finishStoredFields();
+        if (documentStats != null) {
+          // stored fields are compressed when a document completes a chunk
+          documentStats.add(IndexingStats.Stage.STORED_FIELDS, System.nanoTime() - start, 0, 0);
+        }
+      }
+      if (documentStats != null) {
+        documentStats.finishDocument();
       }
     }
 
@@ -459,12 +508,16 @@ final class DefaultIndexingChain extends DocConsumer {
         if (value != null && value.length() > IndexWriter.MAX_STORED_STRING_LENGTH) {
           throw new IllegalArgumentException("stored field \"" + field.name() + "\" is too large (" + value.length() + " characters) to store");
         }
+        final long start = documentStats == null ? 0L : System.nanoTime();
         try {
           storedFieldsConsumer.writeField(fp.fieldInfo, field);
         } catch (Throwable th) {
           docWriter.onAbortingException(th);
           throw th;
         }
+        if (documentStats != null) {
+          documentStats.add(IndexingStats.Stage.STORED_FIELDS, System.nanoTime() - start, 1, 0);
+        }
       }
     }
 
@@ -476,13 +529,27 @@ final class DefaultIndexingChain extends DocConsumer {
       if (fp == null) {
         fp = getOrAddField(fieldName, fieldType, false);
       }
-      indexDocValue(fp, dvType, field);
+      if (documentStats == null) {
+        indexDocValue(fp, dvType, field);
+      } else {
+        final long start = System.nanoTime();
+        final long startBytes = bytesUsed.get();
+        indexDocValue(fp, dvType, field);
+        documentStats.add(IndexingStats.Stage.DOC_VALUES, System.nanoTime() - start, 1, bytesUsed.get() - startBytes);
+      }
     }
     if (fieldType.pointDataDimensionCount() != 0) {
       if (fp == null) {
         fp = getOrAddField(fieldName, fieldType, false);
       }
-      indexPoint(fp, field);
+      if (documentStats == null) {
+        indexPoint(fp, field);
+      } else {
+        final long start = System.nanoTime();
+        final long startBytes = bytesUsed.get();
+        indexPoint(fp, field);
+        documentStats.add(IndexingStats.Stage.POINTS, System.nanoTime() - start, 1, bytesUsed.get() - startBytes);
+      }
     }
     
     return fieldCount;
@@ -796,6 +863,12 @@ final class DefaultIndexingChain extends DocConsumer {
       }
 
       final boolean analyzed = fieldType.tokenized() && docState.analyzer != null;
+
+      // time spent in TermsHashPerField is inversion, the rest is analysis
+      final long startNanos = documentStats == null ? 0L : System.nanoTime();
+      final long startBytes = documentStats == null ? 0L : bytesUsed.get();
+      long inversionNanos = 0;
+      int numTokens = 0;
         
       /*
        * To assist people in tracking down problems in analysis components, we wish to write the field name to the infostream
@@ -858,6 +931,7 @@ final class DefaultIndexingChain extends DocConsumer {
           // internal state of the terms hash is now
           // corrupt and should not be flushed to a
           // new segment:
+          final long addStart = documentStats == null ? 0L : System.nanoTime();
           try {
             termsHashPerField.add();
           } catch (MaxBytesLengthExceededException e) {
@@ -874,6 +948,10 @@ final class DefaultIndexingChain extends DocConsumer {
             docWriter.onAbortingException(th);
             throw th;
           }
+          if (documentStats != null) {
+            inversionNanos += System.nanoTime() - addStart;
+            numTokens++;
+          }
         }
 
         // trigger streams to perform end-of-stream operations
@@ -892,6 +970,12 @@ final class DefaultIndexingChain extends DocConsumer {
         }
       }
 
+      if (documentStats != null) {
+        final long totalNanos = System.nanoTime() - startNanos;
+        documentStats.add(IndexingStats.Stage.ANALYSIS, totalNanos - inversionNanos, numTokens, 0);
+        documentStats.add(IndexingStats.Stage.INVERSION, inversionNanos, numTokens, bytesUsed.get() - startBytes);
+      }
+
       if (analyzed) {
         invertState.position += docState.analyzer.getPositionIncrementGap(fieldInfo.name);
         invertState.offset += docState.analyzer.getOffsetGap(fieldInfo.name);
@@ -339,6 +339,25 @@ abstract class DocValuesFieldUpdates implements Accountable {
           return cmp;
         }
       }.sort(0, size);
+
+      // Only the last update to a given docID is visible, so we drop the ones
+      // that it overrides. This helps when the same documents are updated over
+      // and over again, e.g. counters:
+      int upto = 0;
+      for (int i = 0; i < size; ++i) {
+        final long doc = docs.get(i) >>> 1;
+        if (i + 1 < size && (docs.get(i + 1) >>> 1) == doc) {
+          continue; // overridden by the next update
+        }
+        if (upto != i) {
+          swap(upto, i);
+        }
+        upto++;
+      }
+      if (upto < size) {
+        size = upto;
+        resize(size);
+      }
     }
   }
 
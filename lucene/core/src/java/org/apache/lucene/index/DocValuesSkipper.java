@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.index;
+
+import java.io.IOException;
+
+import org.apache.lucene.search.DocIdSetIterator;
+
+/**
+ * Skipper for {@link NumericDocValues} and {@link SortedNumericDocValues}
+ * that exposes the minimum and maximum values of intervals of doc IDs.
+ * <p>
+ * Intervals are organized in levels: level {@code 0} has the smallest
+ * intervals, and every interval of level {@code N+1} is the union of
+ * contiguous intervals of level {@code N}. Intervals only cover documents
+ * that have a value, so there may be gaps between them, and the interval
+ * that the skipper is positioned on at level {@code N} is always included in
+ * the interval it is positioned on at level {@code N+1}.
+ * <p>
+ * This allows queries and sorts to skip over whole ranges of documents
+ * whose values can't match without having to read these values, see
+ * {@link #advance(long, long)}.
+ *
+ * @lucene.experimental
+ */
+public abstract class DocValuesSkipper {
+
+  /** Sole constructor. (For invocation by subclass
+   *  constructors, typically implicit.) */
+  protected DocValuesSkipper() {}
+
+  /**
+   * Advance this skipper so that all levels contain the first document on
+   * or after {@code target} that has a value. When there is no such document,
+   * {@link #minDocID(int)} and {@link #maxDocID(int)} return
+   * {@link DocIdSetIterator#NO_MORE_DOCS} on all levels. Calling this method
+   * with a target that is not greater than {@link #maxDocID(int) maxDocID(0)}
+   * is a no-op.
+   * <p>
+   * <b>NOTE</b>: The returned interval may start after {@code target} if
+   * documents between {@code target} and the start of the interval don't
+   * have a value.
+   */
+  public abstract void advance(int target) throws IOException;
+
+  /** Return the number of levels. This number may change when moving to a different interval. */
+  public abstract int numLevels();
+
+  /**
+   * Return the minimum doc ID of the interval on the given level, inclusive. This returns
+   * {@code -1} if {@link #advance(int)} has not been called yet and
+   * {@link DocIdSetIterator#NO_MORE_DOCS} if the iterator is exhausted. This method is
+   * non-increasing when {@code level} increases.
+   */
+  public abstract int minDocID(int level);
+
+  /**
+   * Return the maximum doc ID of the interval on the given level, inclusive. This returns
+   * {@code -1} if {@link #advance(int)} has not been called yet and
+   * {@link DocIdSetIterator#NO_MORE_DOCS} if the iterator is exhausted. This method is
+   * non-decreasing when {@code level} increases.
+   */
+  public abstract int maxDocID(int level);
+
+  /**
+   * Return the minimum value of the interval on the given level, inclusive. The result is
+   * undefined if the skipper is not positioned on an interval.
+   */
+  public abstract long minValue(int level);
+
+  /**
+   * Return the maximum value of the interval on the given level, inclusive. The result is
+   * undefined if the skipper is not positioned on an interval.
+   */
+  public abstract long maxValue(int level);
+
+  /**
+   * Return the number of documents that have a value in the interval on the given level.
+   */
+  public abstract int docCount(int level);
+
+  /** Return the global minimum value across all documents. */
+  public abstract long minValue();
+
+  /** Return the global maximum value across all documents. */
+  public abstract long maxValue();
+
+  /** Return the number of documents that have a value for this field. */
+  public abstract int docCount();
+
+  /**
+   * Advance this skipper to the first interval at or after the current one
+   * whose values may intersect {@code [minValue, maxValue]}. Intervals are
+   * checked from the highest level down so that large ranges of doc IDs
+   * can be skipped at once. If the skipper has not been positioned yet, it
+   * is first advanced to doc ID {@code 0}. If no interval may contain
+   * matching values, then the skipper is exhausted.
+   */
+  public final void advance(long minValue, long maxValue) throws IOException {
+    if (minDocID(0) == -1) {
+      advance(0);
+    }
+    outer:
+    while (minDocID(0) != DocIdSetIterator.NO_MORE_DOCS) {
+      for (int level = numLevels() - 1; level >= 0; --level) {
+        if (minValue(level) > maxValue || maxValue(level) < minValue) {
+          // no value in this interval can match, go to the next one
+          advance(maxDocID(level) + 1);
+          continue outer;
+        }
+      }
+      return;
+    }
+  }
+}
@@ -130,6 +130,8 @@ final class DocumentsWriter implements Closeable, Accountable {
   final DocumentsWriterPerThreadPool perThreadPool;
   final FlushPolicy flushPolicy;
   final DocumentsWriterFlushControl flushControl;
+  // statistics about the stages of indexing, shared by all DWPTs
+  final IndexingStats.Recorder indexingStats;
   private long lastSeqNo;
   
   DocumentsWriter(FlushNotifications flushNotifications, int indexCreatedVersionMajor, AtomicLong pendingNumDocs, boolean enableTestPoints,
@@ -145,6 +147,7 @@ final class DocumentsWriter implements Closeable, Accountable {
     flushPolicy = config.getFlushPolicy();
     this.globalFieldNumberMap = globalFieldNumberMap;
     this.pendingNumDocs = pendingNumDocs;
+    this.indexingStats = new IndexingStats.Recorder(config.getRecordIndexingStats());
     flushControl = new DocumentsWriterFlushControl(this, config);
     this.segmentNameSupplier = segmentNameSupplier;
     this.enableTestPoints = enableTestPoints;
@@ -427,7 +430,7 @@ final class DocumentsWriter implements Closeable, Accountable {
       final FieldInfos.Builder infos = new FieldInfos.Builder(globalFieldNumberMap);
       state.dwpt = new DocumentsWriterPerThread(indexCreatedVersionMajor, segmentNameSupplier.get(), directoryOrig,
                                                 directory, config, infoStream, deleteQueue, infos,
-                                                pendingNumDocs, enableTestPoints);
+                                                pendingNumDocs, enableTestPoints, indexingStats);
     }
   }
 
@@ -440,10 +440,18 @@ final class DocumentsWriterFlushControl implements Accountable {
     return documentsWriter.deleteQueue.ramBytesUsed();
   }
 
+  /** Returns heap bytes of indexing buffers that are retained by the
+   *  {@link IndexingBufferAllocator} in order to be reused by the next DWPTs.
+   *  These bytes are not taken into account to decide on flushing or stalling
+   *  since flushing doesn't free them. */
+  public long getRetainedIndexingBufferBytes() {
+    return config.getIndexingBufferAllocator().ramBytesUsed();
+  }
+
   @Override
   public long ramBytesUsed() {
     // TODO: improve this to return more detailed info?
-    return getDeleteBytesUsed() + netBytes();
+    return getDeleteBytesUsed() + netBytes() + getRetainedIndexingBufferBytes();
   }
   
   synchronized int numFlushingDWPT() {
@@ -338,7 +338,7 @@ public final class FieldInfo {
   /**
    * Get a codec attribute value, or null if it does not exist
    */
-  public String getAttribute(String key) {
+  public synchronized String getAttribute(String key) {
     return attributes.get(key);
   }
   
@@ -352,8 +352,11 @@ public final class FieldInfo {
    * If a value already exists for the key in the field, it will be replaced with
    * the new value. If the value of the attributes for a same field is changed between
    * the documents, the behaviour after merge is undefined.
+   * <p>
+   * This method is synchronized since formats of a segment may be written
+   * concurrently on flush, see {@link IndexWriterConfig#setFlushExecutor}.
    */
-  public String putAttribute(String key, String value) {
+  public synchronized String putAttribute(String key, String value) {
     return attributes.put(key, value);
   }
   
@@ -24,9 +24,11 @@ import org.apache.lucene.util.ArrayUtil;
 import org.apache.lucene.util.Bits;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.BytesRefArray;
+import org.apache.lucene.util.BytesRefBuilder;
 import org.apache.lucene.util.BytesRefIterator;
 import org.apache.lucene.util.Counter;
 import org.apache.lucene.util.FixedBitSet;
+import org.apache.lucene.util.IntroSorter;
 import org.apache.lucene.util.RamUsageEstimator;
 
 /**
@@ -199,6 +201,84 @@ final class FieldUpdatesBuffer {
     return new BufferedUpdateIterator();
   }
 
+  /** Returns the number of buffered updates. */
+  int numUpdates() {
+    return numUpdates;
+  }
+
+  /** Returns the field of the term of the update at the given index, in insertion order. */
+  String termField(int idx) {
+    return fields[getArrayIndex(fields.length, idx)];
+  }
+
+  /** Returns the value of the term of the update at the given index, in insertion order. */
+  BytesRef termValue(BytesRefBuilder spare, int idx) {
+    return termValues.get(spare, idx);
+  }
+
+  /** Returns the max document ID that the update at the given index applies to. */
+  int docUpTo(int idx) {
+    return docsUpTo[getArrayIndex(docsUpTo.length, idx)];
+  }
+
+  /**
+   * Returns the indexes of the buffered updates between <code>from</code>
+   * inclusive and <code>to</code> exclusive, sorted by term field, then term
+   * value, then insertion order, so that update terms can be looked up with a
+   * single forward pass over the terms dictionary of a segment.
+   */
+  int[] sortedUpdates(int from, int to) {
+    assert from >= 0 && from <= to && to <= numUpdates : "from=" + from + " to=" + to + " numUpdates=" + numUpdates;
+    final int[] sorted = new int[to - from];
+    for (int i = 0; i < sorted.length; ++i) {
+      sorted[i] = from + i;
+    }
+    new IntroSorter() {
+      private final BytesRefBuilder scratch1 = new BytesRefBuilder();
+      private final BytesRefBuilder scratch2 = new BytesRefBuilder();
+      private final BytesRefBuilder pivotTerm = new BytesRefBuilder();
+      private String pivotField;
+      private int pivotIdx;
+
+      @Override
+      protected void swap(int i, int j) {
+        final int tmp = sorted[i];
+        sorted[i] = sorted[j];
+        sorted[j] = tmp;
+      }
+
+      @Override
+      protected int compare(int i, int j) {
+        final int idx1 = sorted[i], idx2 = sorted[j];
+        return compare(termField(idx1), termValues.get(scratch1, idx1), idx1, idx2);
+      }
+
+      @Override
+      protected void setPivot(int i) {
+        pivotIdx = sorted[i];
+        pivotField = termField(pivotIdx);
+        pivotTerm.copyBytes(termValues.get(scratch1, pivotIdx));
+      }
+
+      @Override
+      protected int comparePivot(int j) {
+        return compare(pivotField, pivotTerm.get(), pivotIdx, sorted[j]);
+      }
+
+      private int compare(String field1, BytesRef term1, int idx1, int idx2) {
+        int cmp = field1.compareTo(termField(idx2));
+        if (cmp == 0) {
+          cmp = term1.compareTo(termValues.get(scratch2, idx2));
+          if (cmp == 0) {
+            cmp = Integer.compare(idx1, idx2);
+          }
+        }
+        return cmp;
+      }
+    }.sort(0, sorted.length);
+    return sorted;
+  }
+
   boolean isNumeric() {
     assert isNumeric || byteValues != null;
     return isNumeric;
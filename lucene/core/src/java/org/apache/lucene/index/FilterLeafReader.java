@@ -404,6 +404,12 @@ public abstract class FilterLeafReader extends LeafReader {
     return in.getSortedSetDocValues(field);
   }
 
+  @Override
+  public DocValuesSkipper getDocValuesSkipper(String field) throws IOException {
+    ensureOpen();
+    return in.getDocValuesSkipper(field);
+  }
+
   @Override
   public NumericDocValues getNormValues(String field) throws IOException {
     ensureOpen();
@@ -17,6 +17,7 @@
 package org.apache.lucene.index;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.lucene.util.IOSupplier;
@@ -57,6 +58,17 @@ public class FilterMergePolicy extends MergePolicy {
     return in.findForcedDeletesMerges(segmentInfos, mergeContext);
   }
 
+  @Override
+  public MergeSpecification findFullFlushMerges(MergeTrigger mergeTrigger, SegmentInfos segmentInfos, MergeContext mergeContext)
+      throws IOException {
+    return in.findFullFlushMerges(mergeTrigger, segmentInfos, mergeContext);
+  }
+
+  @Override
+  public List<List<CodecReader>> findAddIndexesMerges(List<CodecReader> readers, MergeContext mergeContext) throws IOException {
+    return in.findAddIndexesMerges(readers, mergeContext);
+  }
+
   @Override
   public boolean useCompoundFile(SegmentInfos infos, SegmentCommitInfo mergedInfo, MergeContext mergeContext)
       throws IOException {
@@ -68,6 +80,11 @@ public class FilterMergePolicy extends MergePolicy {
     return in.size(info, context);
   }
 
+  @Override
+  protected long size(CodecReader reader) throws IOException {
+    return in.size(reader);
+  }
+
   @Override
   public double getNoCFSRatio() {
     return in.getNoCFSRatio();
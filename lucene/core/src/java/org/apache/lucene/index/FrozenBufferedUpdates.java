@@ -19,6 +19,7 @@ package org.apache.lucene.index;
 import java.io.Closeable;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
@@ -28,7 +29,6 @@ import java.util.Set;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.ReentrantLock;
-import java.util.function.IntConsumer;
 
 import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.search.IndexSearcher;
@@ -39,6 +39,7 @@ import org.apache.lucene.search.Weight;
 import org.apache.lucene.util.ArrayUtil;
 import org.apache.lucene.util.Bits;
 import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefBuilder;
 import org.apache.lucene.util.IOUtils;
 import org.apache.lucene.util.InfoStream;
 import org.apache.lucene.util.RamUsageEstimator;
@@ -484,93 +485,11 @@ final class FrozenBufferedUpdates {
     // We first write all our updates private, and only in the end publish to the ReadersAndUpdates */
     final List<DocValuesFieldUpdates> resolvedUpdates = new ArrayList<>();
     for (Map.Entry<String, FieldUpdatesBuffer> fieldUpdate : updates.entrySet()) {
-      String updateField = fieldUpdate.getKey();
-      DocValuesFieldUpdates dvUpdates = null;
-      FieldUpdatesBuffer value = fieldUpdate.getValue();
-      boolean isNumeric = value.isNumeric();
-      FieldUpdatesBuffer.BufferedUpdateIterator iterator = value.iterator();
-      FieldUpdatesBuffer.BufferedUpdate bufferedUpdate;
-      TermDocsIterator termDocsIterator = new TermDocsIterator(segState.reader, false);
-      while ((bufferedUpdate = iterator.next()) != null) {
-        // TODO: we traverse the terms in update order (not term order) so that we
-        // apply the updates in the correct order, i.e. if two terms update the
-        // same document, the last one that came in wins, irrespective of the
-        // terms lexical order.
-        // we can apply the updates in terms order if we keep an updatesGen (and
-        // increment it with every update) and attach it to each NumericUpdate. Note
-        // that we cannot rely only on docIDUpto because an app may send two updates
-        // which will get same docIDUpto, yet will still need to respect the order
-        // those updates arrived.
-        // TODO: we could at least *collate* by field?
-        final DocIdSetIterator docIdSetIterator = termDocsIterator.nextTerm(bufferedUpdate.termField, bufferedUpdate.termValue);
-        if (docIdSetIterator != null) {
-          final int limit;
-          if (delGen == segState.delGen) {
-            assert segmentPrivateDeletes;
-            limit = bufferedUpdate.docUpTo;
-          } else {
-            limit = Integer.MAX_VALUE;
-          }
-          final BytesRef binaryValue;
-          final long longValue;
-          if (bufferedUpdate.hasValue == false) {
-            longValue = -1;
-            binaryValue = null;
-          } else {
-            longValue = bufferedUpdate.numericValue;
-            binaryValue = bufferedUpdate.binaryValue;
-          }
-           termDocsIterator.getDocs();
-          if (dvUpdates == null) {
-            if (isNumeric) {
-              if (value.hasSingleValue()) {
-                dvUpdates = new NumericDocValuesFieldUpdates
-                    .SingleValueNumericDocValuesFieldUpdates(delGen, updateField, segState.reader.maxDoc(),
-                    value.getNumericValue(0));
-              } else {
-                dvUpdates = new NumericDocValuesFieldUpdates(delGen, updateField, value.getMinNumeric(),
-                    value.getMaxNumeric(), segState.reader.maxDoc());
-              }
-            } else {
-              dvUpdates = new BinaryDocValuesFieldUpdates(delGen, updateField, segState.reader.maxDoc());
-            }
-            resolvedUpdates.add(dvUpdates);
-          }
-          final IntConsumer docIdConsumer;
-          final DocValuesFieldUpdates update = dvUpdates;
-          if (bufferedUpdate.hasValue == false) {
-            docIdConsumer = doc -> update.reset(doc);
-          } else if (isNumeric) {
-            docIdConsumer = doc -> update.add(doc, longValue);
-          } else {
-            docIdConsumer = doc -> update.add(doc, binaryValue);
-          }
-          final Bits acceptDocs = segState.rld.getLiveDocs();
-          if (segState.rld.sortMap != null && segmentPrivateDeletes) {
-            // This segment was sorted on flush; we must apply seg-private deletes carefully in this case:
-            int doc;
-            while ((doc = docIdSetIterator.nextDoc()) != DocIdSetIterator.NO_MORE_DOCS) {
-              if (acceptDocs == null || acceptDocs.get(doc)) {
-                // The limit is in the pre-sorted doc space:
-                if (segState.rld.sortMap.newToOld(doc) < limit) {
-                  docIdConsumer.accept(doc);
-                  updateCount++;
-                }
-              }
-            }
-          } else {
-            int doc;
-            while ((doc = docIdSetIterator.nextDoc()) != DocIdSetIterator.NO_MORE_DOCS) {
-              if (doc >= limit) {
-                break; // no more docs that can be updated for this term
-              }
-              if (acceptDocs == null || acceptDocs.get(doc)) {
-                docIdConsumer.accept(doc);
-                updateCount++;
-              }
-            }
-          }
-        }
+      FieldUpdatesResolver resolver = new FieldUpdatesResolver(segState, fieldUpdate.getKey(), fieldUpdate.getValue(),
+          delGen, segmentPrivateDeletes);
+      updateCount += resolver.resolve();
+      if (resolver.dvUpdates != null) {
+        resolvedUpdates.add(resolver.dvUpdates);
       }
     }
 
@@ -585,6 +504,170 @@ final class FrozenBufferedUpdates {
     return updateCount;
   }
 
+  /**
+   * Resolves the buffered doc-values updates of a single field against a segment.
+   * <p>
+   * Update terms are looked up in term order, which only needs a single forward
+   * pass over the terms dictionary, and matching docs are recorded along with the
+   * index of their update. Updates are then applied in the order they came in so
+   * that if two terms update the same document, the last one wins, irrespective of
+   * the terms lexical order. In order to bound the memory used by recorded matches,
+   * updates are resolved in consecutive windows of insertion order, and windows are
+   * halved whenever their matches don't fit in {@link #MAX_BUFFERED_MATCHES}.
+   */
+  private static final class FieldUpdatesResolver {
+
+    /** Maximum number of matching docs that are buffered before being applied. */
+    static final int MAX_BUFFERED_MATCHES = 1 << 14;
+
+    private final BufferedUpdatesStream.SegmentState segState;
+    private final String updateField;
+    private final FieldUpdatesBuffer value;
+    private final long delGen;
+    private final boolean segmentPrivateDeletes;
+    private final BytesRefBuilder termScratch = new BytesRefBuilder();
+    private final FieldUpdatesBuffer.BufferedUpdateIterator iterator;
+    private FieldUpdatesBuffer.BufferedUpdate bufferedUpdate;
+    private int bufferedUpdateIdx = -1;
+    // index of the update in the high 32 bits and matching doc in the low 32 bits
+    private long[] matches = new long[0];
+    private int numMatches;
+    private boolean matchesInUpdateOrder;
+    private long updateCount;
+    DocValuesFieldUpdates dvUpdates;
+
+    FieldUpdatesResolver(BufferedUpdatesStream.SegmentState segState, String updateField, FieldUpdatesBuffer value,
+                         long delGen, boolean segmentPrivateDeletes) {
+      this.segState = segState;
+      this.updateField = updateField;
+      this.value = value;
+      this.delGen = delGen;
+      this.segmentPrivateDeletes = segmentPrivateDeletes;
+      this.iterator = value.iterator();
+    }
+
+    /** Resolve and apply all updates of the field, and return the number of updated docs. */
+    long resolve() throws IOException {
+      final int numUpdates = value.numUpdates();
+      int windowSize = numUpdates;
+      for (int from = 0; from < numUpdates; ) {
+        final int to = from + Math.min(windowSize, numUpdates - from);
+        if (resolveWindow(from, to)) {
+          applyMatches();
+          from = to;
+          // the window may have been shrunk because of a few updates that match
+          // many docs, grow it back for the next ones
+          windowSize = (int) Math.min(numUpdates, 2L * windowSize);
+        } else {
+          // too many matches to buffer, retry with fewer updates
+          assert to - from > 1;
+          windowSize = (to - from) / 2;
+        }
+      }
+      return updateCount;
+    }
+
+    /**
+     * Record docs that match updates between <code>from</code> inclusive and
+     * <code>to</code> exclusive, and return <code>false</code> if they don't fit
+     * in the buffer.
+     */
+    private boolean resolveWindow(int from, int to) throws IOException {
+      numMatches = 0;
+      matchesInUpdateOrder = true;
+      final Bits acceptDocs = segState.rld.getLiveDocs();
+      final TermDocsIterator termDocsIterator = new TermDocsIterator(segState.reader, true);
+      for (int idx : value.sortedUpdates(from, to)) {
+        final DocIdSetIterator docIdSetIterator = termDocsIterator.nextTerm(value.termField(idx), value.termValue(termScratch, idx));
+        if (docIdSetIterator == null) {
+          continue;
+        }
+        final int limit;
+        if (delGen == segState.delGen) {
+          assert segmentPrivateDeletes;
+          limit = value.docUpTo(idx);
+        } else {
+          limit = Integer.MAX_VALUE;
+        }
+        int doc;
+        while ((doc = docIdSetIterator.nextDoc()) != DocIdSetIterator.NO_MORE_DOCS) {
+          if (segState.rld.sortMap != null && segmentPrivateDeletes) {
+            // This segment was sorted on flush; we must apply seg-private deletes carefully in this case:
+            // The limit is in the pre-sorted doc space:
+            if (segState.rld.sortMap.newToOld(doc) >= limit) {
+              continue;
+            }
+          } else if (doc >= limit) {
+            break; // no more docs that can be updated for this term
+          }
+          if (acceptDocs == null || acceptDocs.get(doc)) {
+            if (numMatches == matches.length) {
+              if (matches.length < MAX_BUFFERED_MATCHES) {
+                matches = ArrayUtil.growExact(matches, Math.min(MAX_BUFFERED_MATCHES, ArrayUtil.oversize(numMatches + 1, Long.BYTES)));
+              } else if (to - from == 1) {
+                // matches of a single update are always in update order
+                applyMatches();
+              } else {
+                return false;
+              }
+            }
+            final long match = ((long) idx << 32) | doc;
+            if (numMatches > 0 && match < matches[numMatches - 1]) {
+              matchesInUpdateOrder = false;
+            }
+            matches[numMatches++] = match;
+          }
+        }
+      }
+      return true;
+    }
+
+    /** Apply buffered matches in update order and clear them. */
+    private void applyMatches() throws IOException {
+      if (numMatches == 0) {
+        return;
+      }
+      if (matchesInUpdateOrder == false) {
+        Arrays.sort(matches, 0, numMatches);
+        matchesInUpdateOrder = true;
+      }
+      if (dvUpdates == null) {
+        final int maxDoc = segState.reader.maxDoc();
+        if (value.isNumeric()) {
+          if (value.hasSingleValue()) {
+            dvUpdates = new NumericDocValuesFieldUpdates
+                .SingleValueNumericDocValuesFieldUpdates(delGen, updateField, maxDoc,
+                value.getNumericValue(0));
+          } else {
+            dvUpdates = new NumericDocValuesFieldUpdates(delGen, updateField, value.getMinNumeric(),
+                value.getMaxNumeric(), maxDoc);
+          }
+        } else {
+          dvUpdates = new BinaryDocValuesFieldUpdates(delGen, updateField, maxDoc);
+        }
+      }
+      for (int i = 0; i < numMatches; ++i) {
+        final int idx = (int) (matches[i] >>> 32);
+        final int doc = (int) matches[i];
+        // windows are applied in insertion order so the iterator only moves forward
+        assert idx >= bufferedUpdateIdx;
+        while (bufferedUpdateIdx < idx) {
+          bufferedUpdate = iterator.next();
+          bufferedUpdateIdx++;
+        }
+        if (bufferedUpdate.hasValue == false) {
+          dvUpdates.reset(doc);
+        } else if (value.isNumeric()) {
+          dvUpdates.add(doc, bufferedUpdate.numericValue);
+        } else {
+          dvUpdates.add(doc, bufferedUpdate.binaryValue);
+        }
+      }
+      updateCount += numMatches;
+      numMatches = 0;
+    }
+  }
+
   // Delete by query
   private long applyQueryDeletes(BufferedUpdatesStream.SegmentState[] segStates) throws IOException {
 
@@ -766,6 +849,10 @@ final class FrozenBufferedUpdates {
    * It accepts a field, value tuple and returns a {@link DocIdSetIterator} if the field has an entry
    * for the given value. It has an optimized way of iterating the term dictionary if the terms are
    * passed in sorted order and makes sure terms and postings are reused as much as possible.
+   * When iterating the terms of a {@link LeafReader} in sorted order, fields whose terms all
+   * match a single document, such as primary keys, are looked up with
+   * {@link TermsEnum#seekExact} rather than {@link TermsEnum#seekCeil} since most lookups are
+   * expected to miss, which term dictionaries may detect more efficiently, eg. with a bloom filter.
    */
   static final class TermDocsIterator {
     private final TermsProvider provider;
@@ -773,7 +860,13 @@ final class FrozenBufferedUpdates {
     private TermsEnum termsEnum;
     private PostingsEnum postingsEnum;
     private final boolean sortedTerms;
+    private final boolean detectPrimaryKeys;
     private BytesRef readerTerm;
+    // false if the last seekExact missed, in which case readerTerm is a copy of the missing term
+    private boolean positioned;
+    private final BytesRefBuilder missingTerm = new BytesRefBuilder();
+    private boolean primaryKey;
+    private BytesRef maxTerm; // only set for primary keys
     private BytesRef lastTerm; // only set with asserts
 
     @FunctionalInterface
@@ -782,16 +875,18 @@ final class FrozenBufferedUpdates {
     }
 
     TermDocsIterator(Fields fields, boolean sortedTerms) {
-      this(fields::terms, sortedTerms);
+      // in-memory fields don't have statistics
+      this(fields::terms, sortedTerms, false);
     }
 
     TermDocsIterator(LeafReader reader, boolean sortedTerms) {
-      this(reader::terms, sortedTerms);
+      this(reader::terms, sortedTerms, sortedTerms);
     }
 
-    private TermDocsIterator(TermsProvider provider, boolean sortedTerms) {
+    private TermDocsIterator(TermsProvider provider, boolean sortedTerms, boolean detectPrimaryKeys) {
       this.sortedTerms = sortedTerms;
       this.provider = provider;
+      this.detectPrimaryKeys = detectPrimaryKeys;
     }
 
     private void setField(String field) throws IOException {
@@ -804,6 +899,10 @@ final class FrozenBufferedUpdates {
           if (sortedTerms) {
             assert (lastTerm = null) == null; // need to reset otherwise we fail the assertSorted below since we sort per field
             readerTerm = termsEnum.next();
+            positioned = true;
+            // every term matches a single document
+            primaryKey = detectPrimaryKeys && terms.size() != -1 && terms.size() == terms.getSumDocFreq();
+            maxTerm = primaryKey ? BytesRef.deepCopyOf(terms.getMax()) : null;
           }
         } else {
           termsEnum = null;
@@ -823,7 +922,24 @@ final class FrozenBufferedUpdates {
           if (cmp < 0) {
             return null; // requested term does not exist in this segment
           } else if (cmp == 0) {
-            return getDocs();
+            // if the enum is not positioned, this term was just looked up and is missing
+            return positioned ? getDocs() : null;
+          } else if (primaryKey) {
+            if (term.compareTo(maxTerm) > 0) {
+              // no more terms in this segment
+              termsEnum = null;
+              return null;
+            } else if (termsEnum.seekExact(term)) {
+              positioned = true;
+              readerTerm = termsEnum.term();
+              return getDocs();
+            } else {
+              // the enum is unpositioned after a failed seekExact, so its term can't be used anymore
+              positioned = false;
+              missingTerm.copyBytes(term);
+              readerTerm = missingTerm.get();
+              return null;
+            }
           } else if (cmp > 0) {
             TermsEnum.SeekStatus status = termsEnum.seekCeil(term);
             switch (status) {
@@ -25,13 +25,17 @@ import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
@@ -487,6 +491,7 @@ public class IndexWriter implements Closeable, TwoPhaseCommit, Accountable,
      */
     boolean success2 = false;
     try {
+      final boolean flushedBeforeMerging = flushAndMergeOnFullFlush(MergeTrigger.GET_READER, applyAllDeletes);
       boolean success = false;
       synchronized (fullFlushLock) {
         try {
@@ -543,7 +548,7 @@ public class IndexWriter implements Closeable, TwoPhaseCommit, Accountable,
           }
         }
       }
-      anyChanges |= maybeMerge.getAndSet(false);
+      anyChanges |= flushedBeforeMerging | maybeMerge.getAndSet(false);
       if (anyChanges) {
         maybeMerge(config.getMergePolicy(), MergeTrigger.FULL_FLUSH, UNBOUNDED_MAX_MERGE_SEGMENTS);
       }
@@ -603,6 +608,21 @@ public class IndexWriter implements Closeable, TwoPhaseCommit, Accountable,
 
             // Sort by largest ramBytesUsed:
             final List<ReadersAndUpdates> list = readerPool.getReadersByRam();
+
+            // Merging pending updates in memory is much cheaper than writing new
+            // doc values generations, so we try it first:
+            final long completedDelGen = bufferedUpdatesStream.getCompletedDelGen();
+            for (ReadersAndUpdates rld : list) {
+              if (ramBytesUsed <= 0.5 * ramBufferSizeMB * 1024 * 1024) {
+                break;
+              }
+              ramBytesUsed -= rld.compactDVUpdates(completedDelGen);
+            }
+            if (infoStream.isEnabled("BD")) {
+              infoStream.message("BD", String.format(Locale.ROOT, "done compact DV updates: now %.2f MB used vs IWC Buffer %.2f MB",
+                  ramBytesUsed/1024./1024., ramBufferSizeMB));
+            }
+
             int count = 0;
             for (ReadersAndUpdates rld : list) {
 
@@ -2202,6 +2222,76 @@ public class IndexWriter implements Closeable, TwoPhaseCommit, Accountable,
     return newMergesFound;
   }
 
+  /** Flushes all pending changes, then runs the merges that the merge policy
+   *  returns from {@link MergePolicy#findFullFlushMerges} and waits for them
+   *  for up to {@link IndexWriterConfig#getMaxFullFlushMergeWaitMillis()}.
+   *  This must be called before the full flush of a commit or NRT reader and
+   *  without holding the full flush lock: merges may run on the calling
+   *  thread, and a merge that fails must be able to close this writer.
+   *  Merges that complete in time are visible to the commit point or reader
+   *  that the following full flush creates. Merges that don't complete in time
+   *  keep running, the segments they merge are still part of
+   *  {@link #segmentInfos} until then.
+   *  Returns true if a segment was flushed or deletes were applied. */
+  private boolean flushAndMergeOnFullFlush(MergeTrigger trigger, boolean applyAllDeletes) throws IOException {
+    assert trigger == MergeTrigger.COMMIT || trigger == MergeTrigger.GET_READER : trigger;
+    assert holdsFullFlushLock() == false;
+    final long maxWaitMillis = config.getMaxFullFlushMergeWaitMillis();
+    if (maxWaitMillis <= 0) {
+      return false;
+    }
+
+    final boolean anyChanges = doFlush(applyAllDeletes);
+    final long startNS = System.nanoTime();
+    final List<MergePolicy.OneMerge> merges = new ArrayList<>();
+    synchronized (this) {
+      if (stopMerges || tragedy.get() != null) {
+        return anyChanges;
+      }
+      final MergePolicy.MergeSpecification spec = config.getMergePolicy().findFullFlushMerges(trigger, segmentInfos, this);
+      if (spec != null) {
+        for (MergePolicy.OneMerge merge : spec.merges) {
+          if (registerMerge(merge)) {
+            merges.add(merge);
+          }
+        }
+      }
+    }
+    if (merges.isEmpty()) {
+      return anyChanges;
+    }
+
+    mergeScheduler.merge(this, trigger, true);
+
+    final long deadlineNS = startNS + TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+    int numPending;
+    synchronized (this) {
+      while (true) {
+        numPending = 0;
+        for (MergePolicy.OneMerge merge : merges) {
+          if (pendingMerges.contains(merge) || runningMerges.contains(merge)) {
+            numPending++;
+          }
+        }
+        final long remainingNS = deadlineNS - System.nanoTime();
+        if (numPending == 0 || remainingNS <= 0) {
+          break;
+        }
+        try {
+          // mergeFinish notifies us
+          wait(Math.max(1, TimeUnit.NANOSECONDS.toMillis(remainingNS)));
+        } catch (InterruptedException ie) {
+          throw new ThreadInterruptedException(ie);
+        }
+      }
+    }
+    if (infoStream.isEnabled("IW")) {
+      infoStream.message("IW", String.format(Locale.ROOT, "%s: %d of %d full flush merges completed in %.1f msec",
+          trigger, merges.size() - numPending, merges.size(), (System.nanoTime() - startNS) / 1000000.));
+    }
+    return anyChanges;
+  }
+
   /** Expert: to be used by a {@link MergePolicy} to avoid
    *  selecting merges for segments already being merged.
    *  The returned collection is not cloned, and thus is
@@ -2919,16 +3009,21 @@ public class IndexWriter implements Closeable, TwoPhaseCommit, Accountable,
    * index.
    * 
    * <p>
-   * <b>NOTE:</b> this merges all given {@link LeafReader}s in one
-   * merge. If you intend to merge a large number of readers, it may be better
-   * to call this method multiple times, each time with a small set of readers.
-   * In principle, if you use a merge policy with a {@code mergeFactor} or
-   * {@code maxMergeAtOnce} parameter, you should pass that many readers in one
-   * call.
+   * <b>NOTE:</b> the {@link MergePolicy#findAddIndexesMerges merge policy}
+   * groups the given readers into merges, each producing a new segment, which
+   * run concurrently on the {@link MergeScheduler#getAddIndexesExecutor()
+   * executor} of the {@link MergeScheduler} if it has one. The default
+   * {@link MergePolicy} implementation merges all readers in one merge, while
+   * {@link TieredMergePolicy} and {@link LogMergePolicy} respect their limits
+   * on the number of segments per merge and on the size of merged segments.
+   * New segments are added to the index at once and in the order of the
+   * given readers once all merges have completed. If this method hits an
+   * exception, none of the readers is added and new files are deleted.
    * 
    * <p>
-   * <b>NOTE:</b> this method does not call or make use of the {@link MergeScheduler},
-   * so any custom bandwidth throttling is at the moment ignored.
+   * <b>NOTE:</b> merges of this method are not registered with the
+   * {@link MergeScheduler}, so any custom bandwidth throttling is at the
+   * moment ignored.
    * 
    * @return The <a href="#sequence_number">sequence number</a>
    * for this operation
@@ -2945,63 +3040,184 @@ public class IndexWriter implements Closeable, TwoPhaseCommit, Accountable,
 
     // long so we can detect int overflow:
     long numDocs = 0;
-    long seqNo;
+    long seqNo = -1;
     try {
       if (infoStream.isEnabled("IW")) {
         infoStream.message("IW", "flush at addIndexes(CodecReader...)");
       }
       flush(false, true);
 
-      String mergedName = newSegmentName();
-      int numSoftDeleted = 0;
       for (CodecReader leaf : readers) {
         numDocs += leaf.numDocs();
         validateMergeReader(leaf);
-        if (softDeletesEnabled) {
-            Bits liveDocs = leaf.getLiveDocs();
-            numSoftDeleted += PendingSoftDeletes.countSoftDeletes(
-            DocValuesFieldExistsQuery.getDocValuesDocIdSetIterator(config.getSoftDeletesField(), leaf), liveDocs);
-        }
       }
       
       // Best-effort up front check:
       testReserveDocs(numDocs);
 
-      final IOContext context = new IOContext(new MergeInfo(Math.toIntExact(numDocs), -1, false, UNBOUNDED_MAX_MERGE_SEGMENTS));
+      final List<List<CodecReader>> merges = findAddIndexesMerges(readers);
+      final SegmentCommitInfo[] infos = new SegmentCommitInfo[merges.size()];
+      final List<Callable<Void>> tasks = new ArrayList<>(merges.size());
+      for (int i = 0; i < merges.size(); ++i) {
+        final int index = i;
+        final List<CodecReader> merge = merges.get(i);
+        tasks.add(() -> {
+          infos[index] = addIndexesMerge(merge);
+          return null;
+        });
+      }
+      boolean success = false;
+      try {
+        // FutureTask#get, which ConcurrentTasks waits on, makes infos visible to this thread
+        ConcurrentTasks.run(merges.size() > 1 ? mergeScheduler.getAddIndexesExecutor() : null, tasks);
+        success = true;
+      } finally {
+        if (!success) {
+          // some merges may have completed, none of their segments has been added
+          for (SegmentCommitInfo info : infos) {
+            if (info != null) {
+              // Safe: these files must exist
+              deleteNewFiles(info.files());
+            }
+          }
+        }
+      }
 
-      // TODO: somehow we should fix this merge so it's
-      // abortable so that IW.close(false) is able to stop it
-      TrackingDirectoryWrapper trackingDir = new TrackingDirectoryWrapper(directory);
+      final List<SegmentCommitInfo> newSegments = new ArrayList<>(infos.length);
+      long totalMaxDoc = 0;
+      for (SegmentCommitInfo info : infos) {
+        if (info != null) {
+          newSegments.add(info);
+          totalMaxDoc += info.info.maxDoc();
+        }
+      }
+      if (newSegments.isEmpty() == false) {
+        // Register all new segments at once and in the order of the readers,
+        // so that a commit point either has all of them or none of them:
+        synchronized (commitLock) {
+          synchronized (this) {
+            success = false;
+            try {
+              if (stopMerges) {
+                // the writer is being rolled back, drop new segments
+                return docWriter.deleteQueue.getNextSequenceNumber();
+              }
+              ensureOpen();
 
-      // We set the min version to null for now, it will be set later by SegmentMerger
-      SegmentInfo info = new SegmentInfo(directoryOrig, Version.LATEST, null, mergedName, -1,
-                                         false, codec, Collections.emptyMap(), StringHelper.randomId(), Collections.emptyMap(), config.getIndexSort());
+              // Now reserve the docs, just before we update SIS:
+              reserveDocs(totalMaxDoc);
 
-      SegmentMerger merger = new SegmentMerger(Arrays.asList(readers), info, infoStream, trackingDir,
-                                               globalFieldNumberMap, 
-                                               context);
+              seqNo = docWriter.deleteQueue.getNextSequenceNumber();
+              segmentInfos.addAll(newSegments);
+              success = true;
+            } finally {
+              if (!success) {
+                for (SegmentCommitInfo info : newSegments) {
+                  // Safe: these files must exist
+                  deleteNewFiles(info.files());
+                }
+              }
+            }
+            checkpoint();
+          }
+        }
+      }
+    } catch (VirtualMachineError tragedy) {
+      tragicEvent(tragedy, "addIndexes(CodecReader...)");
+      throw tragedy;
+    }
+
+    if (seqNo == -1) {
+      // nothing was added
+      return docWriter.deleteQueue.getNextSequenceNumber();
+    }
+    maybeMerge();
+
+    return seqNo;
+  }
+
+  /** Asks the merge policy how to merge the readers passed to
+   *  {@link #addIndexes(CodecReader...)} and checks that each reader is
+   *  merged exactly once. */
+  private List<List<CodecReader>> findAddIndexesMerges(CodecReader[] readers) throws IOException {
+    final List<List<CodecReader>> merges = config.getMergePolicy().findAddIndexesMerges(
+        Collections.unmodifiableList(Arrays.asList(readers)), this);
+    // the same reader may be passed more than once
+    final Map<CodecReader, Integer> counts = new IdentityHashMap<>();
+    for (CodecReader reader : readers) {
+      counts.merge(reader, 1, Integer::sum);
+    }
+    for (List<CodecReader> merge : merges) {
+      for (CodecReader reader : merge) {
+        if (counts.merge(reader, -1, Integer::sum) < 0) {
+          throw new IllegalStateException("MergePolicy " + config.getMergePolicy().getClass().getName()
+              + " returned a reader that was not passed to addIndexes or returned it more than once: " + reader);
+        }
+      }
+    }
+    for (int count : counts.values()) {
+      if (count != 0) {
+        throw new IllegalStateException("MergePolicy " + config.getMergePolicy().getClass().getName()
+            + " did not return all readers that were passed to addIndexes");
+      }
+    }
+    if (infoStream.isEnabled("IW")) {
+      infoStream.message("IW", "addIndexes(CodecReader...): " + readers.length + " readers in " + merges.size() + " merges");
+    }
+    return merges;
+  }
 
-      if (!merger.shouldMerge()) {
-        return docWriter.deleteQueue.getNextSequenceNumber();
+  /** Merges the given readers into a new segment, which the caller adds to
+   *  the index. Returns {@code null} if the readers were empty. New files are
+   *  deleted if this method hits an exception. This may be called
+   *  concurrently for disjoint sets of readers. */
+  private SegmentCommitInfo addIndexesMerge(List<CodecReader> readers) throws IOException {
+    long numDocs = 0;
+    int numSoftDeleted = 0;
+    for (CodecReader leaf : readers) {
+      numDocs += leaf.numDocs();
+      if (softDeletesEnabled) {
+          Bits liveDocs = leaf.getLiveDocs();
+          numSoftDeleted += PendingSoftDeletes.countSoftDeletes(
+          DocValuesFieldExistsQuery.getDocValuesDocIdSetIterator(config.getSoftDeletesField(), leaf), liveDocs);
       }
+    }
+
+    String mergedName = newSegmentName();
+    final IOContext context = new IOContext(new MergeInfo(Math.toIntExact(numDocs), -1, false, UNBOUNDED_MAX_MERGE_SEGMENTS));
+
+    // TODO: somehow we should fix this merge so it's
+    // abortable so that IW.close(false) is able to stop it
+    TrackingDirectoryWrapper trackingDir = new TrackingDirectoryWrapper(directory);
+    TrackingDirectoryWrapper trackingCFSDir = new TrackingDirectoryWrapper(directory);
+    Set<String> mergedFiles = Collections.emptySet();
 
+    // We set the min version to null for now, it will be set later by SegmentMerger
+    SegmentInfo info = new SegmentInfo(directoryOrig, Version.LATEST, null, mergedName, -1,
+                                       false, codec, Collections.emptyMap(), StringHelper.randomId(), Collections.emptyMap(), config.getIndexSort());
+
+    SegmentMerger merger = new SegmentMerger(readers, info, infoStream, trackingDir,
+                                             globalFieldNumberMap, 
+                                             context, null);
+
+    if (!merger.shouldMerge()) {
+      return null;
+    }
+
+    boolean success = false;
+    try {
       merger.merge();                // merge 'em
       SegmentCommitInfo infoPerCommit = new SegmentCommitInfo(info, 0, numSoftDeleted, -1L, -1L, -1L);
 
-      info.setFiles(new HashSet<>(trackingDir.getCreatedFiles()));
+      mergedFiles = new HashSet<>(trackingDir.getCreatedFiles());
+      info.setFiles(mergedFiles);
       trackingDir.clearCreatedFiles();
-                                         
+
       setDiagnostics(info, SOURCE_ADDINDEXES_READERS);
 
       final MergePolicy mergePolicy = config.getMergePolicy();
       boolean useCompoundFile;
       synchronized(this) { // Guard segmentInfos
-        if (stopMerges) {
-          // Safe: these files must exist
-          deleteNewFiles(infoPerCommit.files());
-
-          return docWriter.deleteQueue.getNextSequenceNumber();
-        }
         ensureOpen();
         useCompoundFile = mergePolicy.useCompoundFile(segmentInfos, infoPerCommit, this);
       }
@@ -3009,7 +3225,6 @@ public class IndexWriter implements Closeable, TwoPhaseCommit, Accountable,
       // Now create the compound file if needed
       if (useCompoundFile) {
         Collection<String> filesToDelete = infoPerCommit.files();
-        TrackingDirectoryWrapper trackingCFSDir = new TrackingDirectoryWrapper(directory);
         // TODO: unlike merge, on exception we arent sniping any trash cfs files here?
         // createCompoundFile tries to cleanup, but it might not always be able to...
         try {
@@ -3018,6 +3233,7 @@ public class IndexWriter implements Closeable, TwoPhaseCommit, Accountable,
           // delete new non cfs files directly: they were never
           // registered with IFD
           deleteNewFiles(filesToDelete);
+          mergedFiles = Collections.emptySet();
         }
         info.setUseCompoundFile(true);
       }
@@ -3029,31 +3245,17 @@ public class IndexWriter implements Closeable, TwoPhaseCommit, Accountable,
       codec.segmentInfoFormat().write(trackingDir, info, context);
 
       info.addFiles(trackingDir.getCreatedFiles());
-
-      // Register the new segment
-      synchronized(this) {
-        if (stopMerges) {
-          // Safe: these files must exist
-          deleteNewFiles(infoPerCommit.files());
-
-          return docWriter.deleteQueue.getNextSequenceNumber();
-        }
-        ensureOpen();
-
-        // Now reserve the docs, just before we update SIS:
-        reserveDocs(numDocs);
-      
-        segmentInfos.add(infoPerCommit);
-        seqNo = docWriter.deleteQueue.getNextSequenceNumber();
-        checkpoint();
+      success = true;
+      return infoPerCommit;
+    } finally {
+      if (!success) {
+        // files may have been partially written or already deleted
+        Set<String> newFiles = new HashSet<>(mergedFiles);
+        newFiles.addAll(trackingDir.getCreatedFiles());
+        newFiles.addAll(trackingCFSDir.getCreatedFiles());
+        IOUtils.deleteFilesIgnoringExceptions(directory, newFiles);
       }
-    } catch (VirtualMachineError tragedy) {
-      tragicEvent(tragedy, "addIndexes(CodecReader...)");
-      throw tragedy;
     }
-    maybeMerge();
-
-    return seqNo;
   }
 
   /** Copies the segment files as-is into the IndexWriter's directory. */
@@ -3184,6 +3386,7 @@ public class IndexWriter implements Closeable, TwoPhaseCommit, Accountable,
       testPoint("startDoFlush");
       SegmentInfos toCommit = null;
       boolean anyChanges = false;
+      boolean flushedBeforeMerging = false;
       long seqNo;
 
       // This is copied from doFlush, except it's modified to
@@ -3192,6 +3395,8 @@ public class IndexWriter implements Closeable, TwoPhaseCommit, Accountable,
 
       try {
 
+        flushedBeforeMerging = flushAndMergeOnFullFlush(MergeTrigger.COMMIT, true);
+
         synchronized (fullFlushLock) {
           boolean flushSuccess = false;
           boolean success = false;
@@ -3270,7 +3475,7 @@ public class IndexWriter implements Closeable, TwoPhaseCommit, Accountable,
       }
      
       try {
-        if (anyChanges) {
+        if (anyChanges || flushedBeforeMerging) {
           maybeMerge.set(true);
         }
         startCommit(toCommit);
@@ -4448,10 +4653,14 @@ public class IndexWriter implements Closeable, TwoPhaseCommit, Accountable,
         }
         mergeReaders.add(wrappedReader);
       }
+      Executor intraMergeExecutor = mergeScheduler.getIntraMergeExecutor(merge);
+      if (intraMergeExecutor != null) {
+        intraMergeExecutor = merge.getMergeProgress().wrapIntraMergeExecutor(intraMergeExecutor);
+      }
       final SegmentMerger merger = new SegmentMerger(mergeReaders,
                                                      merge.info.info, infoStream, dirWrapper,
                                                      globalFieldNumberMap, 
-                                                     context);
+                                                     context, intraMergeExecutor);
       merge.info.setSoftDelCount(Math.toIntExact(softDeleteCount.get()));
       merge.checkAborted();
 
@@ -5269,6 +5478,18 @@ public class IndexWriter implements Closeable, TwoPhaseCommit, Accountable,
     return segmentInfos.clone();
   }
 
+  /**
+   * Returns cumulative statistics about the time spent in the different
+   * stages of indexing documents and flushing segments since this writer was
+   * opened. This is cheap and may be called frequently, eg. to poll metrics.
+   *
+   * @see IndexWriterConfig#setRecordIndexingStats(boolean)
+   * @lucene.experimental
+   */
+  public IndexingStats getIndexingStats() {
+    return docWriter.indexingStats.getStats();
+  }
+
   /**
    * Returns accurate {@link DocStats} form this writer. The numDoc for instance can change after maxDoc is fetched
    * that causes numDocs to be greater than maxDoc which makes it hard to get accurate document stats from IndexWriter.
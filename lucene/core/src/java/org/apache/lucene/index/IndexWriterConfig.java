@@ -22,6 +22,7 @@ import java.util.Arrays;
 import java.util.EnumSet;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 
 import org.apache.lucene.analysis.Analyzer;
@@ -112,6 +113,10 @@ public final class IndexWriterConfig extends LiveIndexWriterConfig {
   
   /** Default value for whether calls to {@link IndexWriter#close()} include a commit. */
   public final static boolean DEFAULT_COMMIT_ON_CLOSE = true;
+
+  /** Default value for the time to wait for merges on full flushes (set to
+   *  <code>0</code>, merges never delay full flushes). */
+  public final static long DEFAULT_MAX_FULL_FLUSH_MERGE_WAIT_MILLIS = 0;
   
   // indicates whether this config instance is already attached to a writer.
   // not final so that it can be cloned properly.
@@ -555,4 +560,87 @@ public final class IndexWriterConfig extends LiveIndexWriterConfig {
     this.readerAttributes = Map.copyOf(Objects.requireNonNull(readerAttributes));
     return this;
   }
+
+  /**
+   * Expert: Sets the {@link Executor} that is used to write the files of
+   * flushed segments concurrently. Once postings have been inverted and norms
+   * have been written, doc values, points, stored fields and postings along
+   * with term vectors are independent from each other, so they are handed to
+   * this executor rather than being written one after the other by the
+   * flushing thread, which reduces the time during which this thread is
+   * blocked and indexing may be stalled. Postings are always written by the
+   * flushing thread, and tasks that are rejected by the executor are run by
+   * the flushing thread too, so a small bounded thread pool is a good fit.
+   * By default, this is {@code null} and all files are written by the flushing
+   * thread.
+   *
+   * <p>The executor is not shut down by {@link IndexWriter}.
+   *
+   * <p>Only takes effect when IndexWriter is first created.
+   */
+  public IndexWriterConfig setFlushExecutor(Executor flushExecutor) {
+    this.flushExecutor = flushExecutor;
+    return this;
+  }
+
+  /**
+   * Expert: Sets the maximum amount of time, in milliseconds, that
+   * {@link IndexWriter#commit()} and
+   * {@link DirectoryReader#open(IndexWriter) near-real-time reader} opens wait
+   * for the merges returned by
+   * {@link MergePolicy#findFullFlushMerges(MergeTrigger, SegmentInfos, MergePolicy.MergeContext)}.
+   * These merges typically merge segments that were just flushed, so that the
+   * new commit point or reader has fewer segments. Merges that don't complete
+   * within this budget are not exposed by this commit or reader but keep
+   * running in the background. Setting this to {@code 0}, the default, disables
+   * merging on full flushes.
+   *
+   * <p><b>NOTE</b>: this setting has no effect unless the merge policy returns
+   * merges from {@link MergePolicy#findFullFlushMerges}, which the built-in
+   * merge policies don't do.
+   *
+   * <p>Only takes effect when IndexWriter is first created.
+   */
+  public IndexWriterConfig setMaxFullFlushMergeWaitMillis(long maxFullFlushMergeWaitMillis) {
+    if (maxFullFlushMergeWaitMillis < 0) {
+      throw new IllegalArgumentException("maxFullFlushMergeWaitMillis must be >= 0, got " + maxFullFlushMergeWaitMillis);
+    }
+    this.maxFullFlushMergeWaitMillis = maxFullFlushMergeWaitMillis;
+    return this;
+  }
+
+  /**
+   * Expert: Sets whether the time spent analyzing and inverting indexed fields,
+   * and buffering stored fields, doc values and points of every document
+   * should be recorded in {@link IndexWriter#getIndexingStats()}. This requires
+   * timing every field and token of every document, which slows down
+   * indexing, so it is disabled by default. Stages of flushes are recorded
+   * regardless of this setting.
+   *
+   * <p>Only takes effect when IndexWriter is first created.
+   */
+  public IndexWriterConfig setRecordIndexingStats(boolean recordIndexingStats) {
+    this.recordIndexingStats = recordIndexingStats;
+    return this;
+  }
+
+  /**
+   * Expert: Sets the {@link IndexingBufferAllocator} that provides the byte and
+   * int blocks that buffer postings and term vectors in memory until segments
+   * get flushed. The default {@link IndexingBufferAllocator.Direct} allocates
+   * new blocks that become garbage once the segment is flushed, which can put
+   * significant pressure on the garbage collector with large RAM buffers since
+   * these blocks usually live long enough to be promoted to the old
+   * generation. {@link IndexingBufferAllocator.Recycling} retains them instead
+   * so that the next segments reuse them.
+   *
+   * <p>Only takes effect when IndexWriter is first created.
+   */
+  public IndexWriterConfig setIndexingBufferAllocator(IndexingBufferAllocator indexingBufferAllocator) {
+    if (indexingBufferAllocator == null) {
+      throw new IllegalArgumentException("indexingBufferAllocator must not be null");
+    }
+    this.indexingBufferAllocator = indexingBufferAllocator;
+    return this;
+  }
 }
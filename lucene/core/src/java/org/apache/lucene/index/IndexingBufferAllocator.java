@@ -0,0 +1,243 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.index;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.ByteBlockPool;
+import org.apache.lucene.util.Counter;
+import org.apache.lucene.util.IntBlockPool;
+
+/**
+ * Provides the {@link ByteBlockPool.Allocator}s and
+ * {@link IntBlockPool.Allocator}s that {@link DocumentsWriterPerThread}s use
+ * to buffer postings and term vectors in memory until they get flushed.
+ * <p>
+ * Allocators must account for the blocks that they hand out in the given
+ * {@link Counter}, which {@link IndexWriter} uses to decide when to flush,
+ * and must decrement it by the size of the blocks that are given back to
+ * them. Blocks that are handed out must be filled with zeroes. Memory that
+ * an implementation retains once blocks have been given back should be
+ * reported by {@link #ramBytesUsed()}: it is included in
+ * {@link IndexWriter#ramBytesUsed()} but is not taken into account to decide
+ * on flushing or stalling since flushing doesn't free it.
+ *
+ * @see IndexWriterConfig#setIndexingBufferAllocator(IndexingBufferAllocator)
+ * @lucene.experimental
+ */
+public abstract class IndexingBufferAllocator implements Accountable {
+
+  /** Sole constructor. (For invocation by subclass
+   *  constructors, typically implicit.) */
+  protected IndexingBufferAllocator() {}
+
+  /** Return a new allocator of byte blocks of {@link ByteBlockPool#BYTE_BLOCK_SIZE}
+   *  bytes that tracks allocated bytes in the given counter. */
+  public abstract ByteBlockPool.Allocator newByteBlockAllocator(Counter bytesUsed);
+
+  /** Return a new allocator of int blocks of {@link IntBlockPool#INT_BLOCK_SIZE}
+   *  ints that tracks allocated bytes in the given counter. */
+  public abstract IntBlockPool.Allocator newIntBlockAllocator(Counter bytesUsed);
+
+  /** Return the number of bytes that are retained by this allocator and that
+   *  are not in use by any {@link DocumentsWriterPerThread}. The default
+   *  implementation returns {@code 0}. */
+  @Override
+  public long ramBytesUsed() {
+    return 0L;
+  }
+
+  /**
+   * An {@link IndexingBufferAllocator} that allocates new blocks on the heap
+   * and lets them become garbage once they are given back. This is the
+   * default.
+   */
+  public static final class Direct extends IndexingBufferAllocator {
+
+    /** Sole constructor. */
+    public Direct() {}
+
+    @Override
+    public ByteBlockPool.Allocator newByteBlockAllocator(Counter bytesUsed) {
+      return new ByteBlockPool.DirectTrackingAllocator(bytesUsed);
+    }
+
+    @Override
+    public IntBlockPool.Allocator newIntBlockAllocator(Counter bytesUsed) {
+      return new IntBlockPool.Allocator(IntBlockPool.INT_BLOCK_SIZE) {
+
+        @Override
+        public int[] getIntBlock() {
+          int[] b = new int[blockSize];
+          bytesUsed.addAndGet(blockSize * Integer.BYTES);
+          return b;
+        }
+
+        @Override
+        public void recycleIntBlocks(int[][] blocks, int start, int end) {
+          bytesUsed.addAndGet(-((end - start) * (blockSize * Integer.BYTES)));
+        }
+      };
+    }
+
+    @Override
+    public String toString() {
+      return getClass().getSimpleName();
+    }
+  }
+
+  /**
+   * An {@link IndexingBufferAllocator} that keeps the blocks of flushed or
+   * aborted {@link DocumentsWriterPerThread}s, zero-filled, up to a maximum
+   * size, so that the next {@link DocumentsWriterPerThread}s reuse them
+   * instead of allocating new blocks. With large RAM buffers, this prevents
+   * indexing buffers from being promoted to the old generation and becoming
+   * garbage on every flush. A good maximum size is the size of the RAM
+   * buffer, see {@link IndexWriterConfig#setRAMBufferSizeMB(double)}.
+   * <p>
+   * Instances are thread-safe and may be shared by several {@link IndexWriter}s.
+   */
+  public static final class Recycling extends IndexingBufferAllocator {
+
+    private static final int BYTE_BLOCK_BYTES = ByteBlockPool.BYTE_BLOCK_SIZE;
+    private static final int INT_BLOCK_BYTES = IntBlockPool.INT_BLOCK_SIZE * Integer.BYTES;
+
+    private final long maxRetainedBytes;
+    private final Deque<byte[]> byteBlocks = new ArrayDeque<>();
+    private final Deque<int[]> intBlocks = new ArrayDeque<>();
+    private long retainedBytes;
+
+    /** Create a new allocator that retains at most {@code maxRetainedBytes} bytes of blocks. */
+    public Recycling(long maxRetainedBytes) {
+      if (maxRetainedBytes < 0) {
+        throw new IllegalArgumentException("maxRetainedBytes must be >= 0, got " + maxRetainedBytes);
+      }
+      this.maxRetainedBytes = maxRetainedBytes;
+    }
+
+    @Override
+    public ByteBlockPool.Allocator newByteBlockAllocator(Counter bytesUsed) {
+      return new ByteBlockPool.Allocator(ByteBlockPool.BYTE_BLOCK_SIZE) {
+
+        @Override
+        public byte[] getByteBlock() {
+          byte[] block = pollByteBlock();
+          if (block == null) {
+            block = new byte[blockSize];
+          }
+          bytesUsed.addAndGet(blockSize);
+          return block;
+        }
+
+        @Override
+        public void recycleByteBlocks(byte[][] blocks, int start, int end) {
+          bytesUsed.addAndGet(-((end - start) * blockSize));
+          for (int i = start; i < end; i++) {
+            offerByteBlock(blocks[i]);
+            blocks[i] = null;
+          }
+        }
+      };
+    }
+
+    @Override
+    public IntBlockPool.Allocator newIntBlockAllocator(Counter bytesUsed) {
+      return new IntBlockPool.Allocator(IntBlockPool.INT_BLOCK_SIZE) {
+
+        @Override
+        public int[] getIntBlock() {
+          int[] block = pollIntBlock();
+          if (block == null) {
+            block = new int[blockSize];
+          }
+          bytesUsed.addAndGet(INT_BLOCK_BYTES);
+          return block;
+        }
+
+        @Override
+        public void recycleIntBlocks(int[][] blocks, int start, int end) {
+          bytesUsed.addAndGet(-((end - start) * INT_BLOCK_BYTES));
+          for (int i = start; i < end; i++) {
+            offerIntBlock(blocks[i]);
+            blocks[i] = null;
+          }
+        }
+      };
+    }
+
+    private synchronized byte[] pollByteBlock() {
+      final byte[] block = byteBlocks.pollLast();
+      if (block != null) {
+        retainedBytes -= BYTE_BLOCK_BYTES;
+      }
+      return block;
+    }
+
+    private synchronized int[] pollIntBlock() {
+      final int[] block = intBlocks.pollLast();
+      if (block != null) {
+        retainedBytes -= INT_BLOCK_BYTES;
+      }
+      return block;
+    }
+
+    private synchronized boolean reserve(long bytes) {
+      if (retainedBytes + bytes > maxRetainedBytes) {
+        return false;
+      }
+      retainedBytes += bytes;
+      return true;
+    }
+
+    private void offerByteBlock(byte[] block) {
+      if (block != null && reserve(BYTE_BLOCK_BYTES)) {
+        // slices rely on blocks being filled with zeroes, do it outside of the lock
+        Arrays.fill(block, (byte) 0);
+        synchronized (this) {
+          byteBlocks.addLast(block);
+        }
+      }
+    }
+
+    private void offerIntBlock(int[] block) {
+      if (block != null && reserve(INT_BLOCK_BYTES)) {
+        Arrays.fill(block, 0);
+        synchronized (this) {
+          intBlocks.addLast(block);
+        }
+      }
+    }
+
+    /** Return the maximum number of bytes of blocks that this allocator retains. */
+    public long getMaxRetainedBytes() {
+      return maxRetainedBytes;
+    }
+
+    @Override
+    public synchronized long ramBytesUsed() {
+      return retainedBytes;
+    }
+
+    @Override
+    public String toString() {
+      return getClass().getSimpleName() + "(maxRetainedBytes=" + maxRetainedBytes + ",retainedBytes=" + ramBytesUsed() + ")";
+    }
+  }
+}
@@ -0,0 +1,213 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.index;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cumulative statistics about the time that {@link IndexWriter} spent in the
+ * different stages of indexing documents and flushing them to new segments,
+ * see {@link IndexWriter#getIndexingStats()}.
+ * <p>
+ * Stages of flushes are always recorded. Stages that are applied to every
+ * document, from {@link Stage#ANALYSIS} to {@link Stage#POINTS}, require
+ * timing every field of every document and are only recorded if
+ * {@link IndexWriterConfig#setRecordIndexingStats(boolean)} is enabled.
+ * <p>
+ * Instances are immutable snapshots, taking one only reads a few counters.
+ *
+ * @lucene.experimental
+ */
+public final class IndexingStats {
+
+  /** A stage of indexing. */
+  public enum Stage {
+    /** Consuming token streams of indexed fields, including analysis. The
+     *  count is the number of tokens. */
+    ANALYSIS,
+    /** Adding tokens to the in-memory inverted index, in
+     *  {@link TermsHashPerField}. The count is the number of tokens and bytes
+     *  are those allocated in the indexing buffer. */
+    INVERSION,
+    /** Buffering and compressing stored fields. The count is the number of
+     *  stored field values. */
+    STORED_FIELDS,
+    /** Buffering doc values. The count is the number of values and bytes are
+     *  those allocated in the indexing buffer. */
+    DOC_VALUES,
+    /** Buffering points. The count is the number of values and bytes are
+     *  those allocated in the indexing buffer. */
+    POINTS,
+    /** Computing the order of documents of flushed segments when an index
+     *  sort is configured. */
+    FLUSH_SORT,
+    /** Writing norms of flushed segments. */
+    FLUSH_NORMS,
+    /** Writing doc values of flushed segments. */
+    FLUSH_DOC_VALUES,
+    /** Writing points of flushed segments. */
+    FLUSH_POINTS,
+    /** Writing stored fields of flushed segments. */
+    FLUSH_STORED_FIELDS,
+    /** Writing postings and term vectors of flushed segments. */
+    FLUSH_POSTINGS,
+    /** Flushing segments, end to end. The count is the number of flushed
+     *  segments and bytes are the size of these segments on disk. */
+    FLUSH
+  }
+
+  private static final Stage[] STAGES = Stage.values();
+
+  private final long[] nanos;
+  private final long[] docs;
+  private final long[] counts;
+  private final long[] bytes;
+
+  private IndexingStats(long[] nanos, long[] docs, long[] counts, long[] bytes) {
+    this.nanos = nanos;
+    this.docs = docs;
+    this.counts = counts;
+    this.bytes = bytes;
+  }
+
+  /** Return the number of nanoseconds spent in the given stage. Stages of
+   *  flushes may run concurrently, see
+   *  {@link IndexWriterConfig#setFlushExecutor}. */
+  public long getNanos(Stage stage) {
+    return nanos[stage.ordinal()];
+  }
+
+  /** Return the number of documents that went through the given stage. */
+  public long getDocs(Stage stage) {
+    return docs[stage.ordinal()];
+  }
+
+  /** Return the number of items that went through the given stage, see
+   *  the documentation of each {@link Stage}, or 0 if not applicable. */
+  public long getCount(Stage stage) {
+    return counts[stage.ordinal()];
+  }
+
+  /** Return the number of bytes that went through the given stage, see the
+   *  documentation of each {@link Stage}, or 0 if not applicable. */
+  public long getBytes(Stage stage) {
+    return bytes[stage.ordinal()];
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder sb = new StringBuilder();
+    sb.append(String.format(Locale.ROOT, "%-20s %12s %12s %14s %14s%n", "stage", "millis", "docs", "count", "bytes"));
+    for (Stage stage : STAGES) {
+      final int i = stage.ordinal();
+      sb.append(String.format(Locale.ROOT, "%-20s %12.1f %12d %14d %14d%n",
+          stage.name().toLowerCase(Locale.ROOT), nanos[i] / 1_000_000.0, docs[i], counts[i], bytes[i]));
+    }
+    return sb.toString();
+  }
+
+  /** Accumulates statistics, shared by all {@link DocumentsWriterPerThread}s
+   *  of an {@link IndexWriter}. */
+  static final class Recorder {
+
+    /** Whether stages that are applied to every document should be recorded. */
+    final boolean recordDocumentStages;
+
+    private final LongAdder[] nanos = newAdders();
+    private final LongAdder[] docs = newAdders();
+    private final LongAdder[] counts = newAdders();
+    private final LongAdder[] bytes = newAdders();
+
+    Recorder(boolean recordDocumentStages) {
+      this.recordDocumentStages = recordDocumentStages;
+    }
+
+    private static LongAdder[] newAdders() {
+      final LongAdder[] adders = new LongAdder[STAGES.length];
+      for (int i = 0; i < adders.length; ++i) {
+        adders[i] = new LongAdder();
+      }
+      return adders;
+    }
+
+    /** Record that {@code numDocs} documents and {@code count} items, that
+     *  account for {@code numBytes} bytes, went through the given stage in
+     *  {@code numNanos} nanoseconds. */
+    void record(Stage stage, long numNanos, long numDocs, long count, long numBytes) {
+      final int i = stage.ordinal();
+      nanos[i].add(numNanos);
+      docs[i].add(numDocs);
+      if (count != 0) {
+        counts[i].add(count);
+      }
+      if (numBytes != 0) {
+        bytes[i].add(numBytes);
+      }
+    }
+
+    /** Return a snapshot of the statistics recorded so far. */
+    IndexingStats getStats() {
+      return new IndexingStats(sum(nanos), sum(docs), sum(counts), sum(bytes));
+    }
+
+    private static long[] sum(LongAdder[] adders) {
+      final long[] sums = new long[adders.length];
+      for (int i = 0; i < adders.length; ++i) {
+        sums[i] = adders[i].sum();
+      }
+      return sums;
+    }
+  }
+
+  /** Per-document statistics of a {@link DefaultIndexingChain}, which are
+   *  added to the {@link Recorder} once a document has been processed so
+   *  that shared counters are only updated once per document and stage. */
+  static final class DocumentStats {
+
+    private final Recorder recorder;
+    private final long[] nanos = new long[STAGES.length];
+    private final long[] counts = new long[STAGES.length];
+    private final long[] bytes = new long[STAGES.length];
+    private final boolean[] seen = new boolean[STAGES.length];
+
+    DocumentStats(Recorder recorder) {
+      this.recorder = recorder;
+    }
+
+    /** Record time spent in a stage for the current document. The document
+     *  is only counted for this stage if {@code count} is positive. */
+    void add(Stage stage, long numNanos, long count, long numBytes) {
+      final int i = stage.ordinal();
+      seen[i] |= count > 0;
+      nanos[i] += numNanos;
+      counts[i] += count;
+      bytes[i] += numBytes;
+    }
+
+    /** Called when the current document is done. */
+    void finishDocument() {
+      for (int i = 0; i < seen.length; ++i) {
+        if (seen[i] || nanos[i] != 0) {
+          recorder.record(STAGES[i], nanos[i], seen[i] ? 1 : 0, counts[i], bytes[i]);
+          seen[i] = false;
+          nanos[i] = counts[i] = bytes[i] = 0;
+        }
+      }
+    }
+  }
+}
@@ -197,6 +197,14 @@ public abstract class LeafReader extends IndexReader {
    *  used by a single thread. */
   public abstract SortedSetDocValues getSortedSetDocValues(String field) throws IOException;
 
+  /** Returns a {@link DocValuesSkipper} for this field, or
+   *  null if the field has no {@link NumericDocValues} or
+   *  {@link SortedNumericDocValues}, or if skip data was not
+   *  recorded for it. The returned instance should only be
+   *  used by a single thread.
+   *  @lucene.experimental */
+  public abstract DocValuesSkipper getDocValuesSkipper(String field) throws IOException;
+
   /** Returns {@link NumericDocValues} representing norms
    *  for this field, or null if no {@link NumericDocValues}
    *  were indexed. The returned instance should only be
@@ -20,6 +20,7 @@ package org.apache.lucene.index;
 import java.util.Collections;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
 
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.codecs.Codec;
@@ -117,6 +118,18 @@ public class LiveIndexWriterConfig {
   /** the attributes for the NRT readers */
   protected Map<String, String> readerAttributes = Collections.emptyMap();
 
+  /** Executor used to write the files of flushed segments concurrently, or null to write them on the flushing thread. */
+  protected Executor flushExecutor;
+
+  /** Amount of time to wait for merges returned by {@link MergePolicy#findFullFlushMerges} on commit or NRT reader open. */
+  protected long maxFullFlushMergeWaitMillis = IndexWriterConfig.DEFAULT_MAX_FULL_FLUSH_MERGE_WAIT_MILLIS;
+
+  /** True if the time spent in each stage of indexing documents should be recorded. */
+  protected boolean recordIndexingStats = false;
+
+  /** Provides the allocators of the blocks that buffer postings and term vectors in memory. */
+  protected IndexingBufferAllocator indexingBufferAllocator = new IndexingBufferAllocator.Direct();
+
 
   // used by IndexWriterConfig
   LiveIndexWriterConfig(Analyzer analyzer) {
@@ -505,6 +518,10 @@ public class LiveIndexWriterConfig {
     sb.append("checkPendingFlushOnUpdate=").append(isCheckPendingFlushOnUpdate()).append("\n");
     sb.append("softDeletesField=").append(getSoftDeletesField()).append("\n");
     sb.append("readerAttributes=").append(getReaderAttributes()).append("\n");
+    sb.append("flushExecutor=").append(getFlushExecutor()).append("\n");
+    sb.append("maxFullFlushMergeWaitMillis=").append(getMaxFullFlushMergeWaitMillis()).append("\n");
+    sb.append("recordIndexingStats=").append(getRecordIndexingStats()).append("\n");
+    sb.append("indexingBufferAllocator=").append(getIndexingBufferAllocator()).append("\n");
     return sb.toString();
   }
 
@@ -514,4 +531,45 @@ public class LiveIndexWriterConfig {
   public Map<String, String> getReaderAttributes() {
     return this.readerAttributes;
   }
+
+  /**
+   * Returns the {@link Executor} that is used to write the files of flushed
+   * segments concurrently, or {@code null} if they are written by the flushing
+   * thread.
+   *
+   * @see IndexWriterConfig#setFlushExecutor(Executor)
+   */
+  public Executor getFlushExecutor() {
+    return flushExecutor;
+  }
+
+  /**
+   * Returns the maximum amount of time, in milliseconds, that commits and
+   * near-real-time reader opens wait for merges of just-flushed segments.
+   *
+   * @see IndexWriterConfig#setMaxFullFlushMergeWaitMillis(long)
+   */
+  public long getMaxFullFlushMergeWaitMillis() {
+    return maxFullFlushMergeWaitMillis;
+  }
+
+  /**
+   * Returns true if the time spent in each stage of indexing documents is
+   * recorded.
+   *
+   * @see IndexWriterConfig#setRecordIndexingStats(boolean)
+   */
+  public boolean getRecordIndexingStats() {
+    return recordIndexingStats;
+  }
+
+  /**
+   * Returns the {@link IndexingBufferAllocator} that provides the blocks that
+   * buffer postings and term vectors in memory.
+   *
+   * @see IndexWriterConfig#setIndexingBufferAllocator(IndexingBufferAllocator)
+   */
+  public IndexingBufferAllocator getIndexingBufferAllocator() {
+    return indexingBufferAllocator;
+  }
 }
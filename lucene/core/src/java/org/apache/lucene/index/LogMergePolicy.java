@@ -355,6 +355,25 @@ public abstract class LogMergePolicy extends MergePolicy {
     }
   }
 
+  /**
+   * Groups the readers passed to {@link IndexWriter#addIndexes(CodecReader...)}
+   * into merges of at most {@link #getMergeFactor() mergeFactor} readers and
+   * at most {@link #getMaxMergeDocs() maxMergeDocs} live documents, which are
+   * merged concurrently.
+   */
+  @Override
+  public List<List<CodecReader>> findAddIndexesMerges(List<CodecReader> readers, MergeContext mergeContext) throws IOException {
+    final long[] sizes = new long[readers.size()];
+    for (int i = 0; i < sizes.length; ++i) {
+      sizes[i] = readers.get(i).numDocs();
+    }
+    final List<List<CodecReader>> groups = groupReaders(readers, sizes, mergeFactor, maxMergeDocs);
+    if (verbose(mergeContext)) {
+      message("findAddIndexesMerges: " + readers.size() + " readers, " + groups.size() + " merges", mergeContext);
+    }
+    return groups;
+  }
+
   /**
    * Finds merges necessary to force-merge all deletes from the
    * index.  We simply merge adjacent segments that have
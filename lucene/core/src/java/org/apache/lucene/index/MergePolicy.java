@@ -19,11 +19,14 @@ package org.apache.lucene.index;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
@@ -97,11 +100,15 @@ public abstract class MergePolicy {
 
     /**
      * This field is for sanity-check purposes only. Only the same thread that invoked
-     * {@link OneMerge#mergeInit()} is permitted to be calling 
-     * {@link #pauseNanos}. This is always verified at runtime. 
+     * {@link OneMerge#mergeInit()}, or threads that merge parts of this merge on
+     * its behalf, see {@link MergeScheduler#getIntraMergeExecutor}, are permitted
+     * to be calling {@link #pauseNanos}. This is always verified at runtime.
      */
     private Thread owner;
 
+    /** Threads other than the owner that are currently working on this merge. */
+    private final Set<Thread> helpers = ConcurrentHashMap.newKeySet();
+
     /** Creates a new merge progress info. */
     public OneMergeProgress() {
       // Place all the pause reasons in there immediately so that we can simply update values.
@@ -142,7 +149,7 @@ public abstract class MergePolicy {
      *      condition 
      */
     public void pauseNanos(long pauseNanos, PauseReason reason, BooleanSupplier condition) throws InterruptedException {
-      if (Thread.currentThread() != owner) {
+      if (Thread.currentThread() != owner && helpers.contains(Thread.currentThread()) == false) {
         throw new RuntimeException("Only the merge owner thread can call pauseNanos(). This thread: "
             + Thread.currentThread().getName() + ", owner thread: "
             + owner);
@@ -182,6 +189,20 @@ public abstract class MergePolicy {
               (e) -> e.getValue().get()));
     }
 
+    /** Wraps the given executor so that the threads that run its tasks are
+     *  allowed to call {@link #pauseNanos} while they work on this merge. */
+    final Executor wrapIntraMergeExecutor(Executor executor) {
+      return task -> executor.execute(() -> {
+        final Thread thread = Thread.currentThread();
+        helpers.add(thread);
+        try {
+          task.run();
+        } finally {
+          helpers.remove(thread);
+        }
+      });
+    }
+
     final void setMergeThread(Thread owner) {
       assert this.owner == null;
       this.owner = owner;
@@ -526,6 +547,79 @@ public abstract class MergePolicy {
   public abstract MergeSpecification findForcedDeletesMerges(
       SegmentInfos segmentInfos, MergeContext mergeContext) throws IOException;
 
+  /**
+   * Expert: determine what set of merge operations should run as part of a
+   * full flush, ie. when {@link IndexWriter#commit() committing} or opening a
+   * {@link DirectoryReader#open(IndexWriter) near-real-time reader}.
+   * {@link IndexWriter} executes these merges and waits for them for up to
+   * {@link IndexWriterConfig#getMaxFullFlushMergeWaitMillis()} before exposing
+   * the new segments, so that merges of the small segments that were just
+   * flushed may be included in the commit point or reader. Merges that don't
+   * complete in time keep running in the background and are exposed on the
+   * next commit or reader reopen, like other merges. This call is always
+   * synchronized on the {@link IndexWriter} instance so only one thread at a
+   * time will call this method.
+   *
+   * <p>The default implementation returns {@code null}, meaning that no merge
+   * runs as part of full flushes.
+   *
+   * @param mergeTrigger either {@link MergeTrigger#COMMIT} or {@link MergeTrigger#GET_READER}
+   * @param segmentInfos the total set of segments in the index, including
+   *          those that were just flushed
+   * @param mergeContext the IndexWriter to find the merges on
+   */
+  public MergeSpecification findFullFlushMerges(MergeTrigger mergeTrigger, SegmentInfos segmentInfos, MergeContext mergeContext)
+      throws IOException {
+    return null;
+  }
+
+  /**
+   * Determines how the readers that are passed to {@link IndexWriter#addIndexes(CodecReader...)}
+   * are merged into the index: each returned group of readers is merged into
+   * a new segment, and groups are merged concurrently if the {@link MergeScheduler}
+   * provides an {@link MergeScheduler#getAddIndexesExecutor() executor} for
+   * them. Every reader must be returned exactly once.
+   *
+   * <p>The default implementation merges all readers into a single segment.
+   *
+   * @param readers the readers to add to the index
+   * @param mergeContext the IndexWriter to find the merges on
+   */
+  public List<List<CodecReader>> findAddIndexesMerges(List<CodecReader> readers, MergeContext mergeContext) throws IOException {
+    return Collections.singletonList(readers);
+  }
+
+  /**
+   * Groups consecutive readers so that each group has at most
+   * {@code maxReadersPerMerge} readers and a total size of at most
+   * {@code maxMergeSize}, unless it consists of a single reader.
+   *
+   * @param readers the readers to group
+   * @param sizes the size of each reader, in any unit
+   * @param maxReadersPerMerge the maximum number of readers per group
+   * @param maxMergeSize the maximum size of a group
+   */
+  protected final List<List<CodecReader>> groupReaders(List<CodecReader> readers, long[] sizes, int maxReadersPerMerge, long maxMergeSize) {
+    assert readers.size() == sizes.length;
+    List<List<CodecReader>> groups = new ArrayList<>();
+    List<CodecReader> group = new ArrayList<>();
+    long groupSize = 0;
+    for (int i = 0; i < sizes.length; ++i) {
+      if (group.isEmpty() == false
+          && (group.size() >= maxReadersPerMerge || groupSize + sizes[i] > maxMergeSize)) {
+        groups.add(group);
+        group = new ArrayList<>();
+        groupSize = 0;
+      }
+      group.add(readers.get(i));
+      groupSize += sizes[i];
+    }
+    if (group.isEmpty() == false) {
+      groups.add(group);
+    }
+    return groups;
+  }
+
   /**
    * Returns true if a new segment (regardless of its origin) should use the
    * compound file format. The default implementation returns <code>true</code>
@@ -563,6 +657,21 @@ public abstract class MergePolicy {
     return (info.info.maxDoc() <= 0 ? byteSize : (long) (byteSize * (1.0 - delRatio)));
   }
 
+  /** Return the estimated byte size of a reader that is passed to
+   *  {@link IndexWriter#addIndexes(CodecReader...)}, prorated by the
+   *  percentage of its live documents, or {@code 0} if it is not backed by a
+   *  segment so that its size is unknown. */
+  protected long size(CodecReader reader) throws IOException {
+    CodecReader unwrapped = FilterCodecReader.unwrap(reader);
+    if (unwrapped instanceof SegmentReader == false) {
+      return 0;
+    }
+    SegmentCommitInfo info = ((SegmentReader) unwrapped).getSegmentInfo();
+    long byteSize = info.sizeInBytes();
+    int maxDoc = info.info.maxDoc();
+    return maxDoc <= 0 ? byteSize : (long) (byteSize * ((double) reader.numDocs() / maxDoc));
+  }
+
   /**
    * Asserts that the delCount for this SegmentCommitInfo is valid
    */
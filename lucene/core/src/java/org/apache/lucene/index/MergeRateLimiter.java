@@ -41,7 +41,8 @@ public class MergeRateLimiter extends RateLimiter {
   private volatile double mbPerSec;
   private volatile long minPauseCheckBytes;
 
-  private long lastNS;
+  private final Object pauseLock = new Object();
+  private long lastNS; // guarded by pauseLock
 
   private AtomicLong totalBytesWritten = new AtomicLong();
 
@@ -87,7 +88,8 @@ public class MergeRateLimiter extends RateLimiter {
     totalBytesWritten.addAndGet(bytes);
 
     // While loop because we may wake up and check again when our rate limit
-    // is changed while we were pausing:
+    // is changed while we were pausing, or when another thread that writes
+    // parts of the same merge was let through:
     long paused = 0;
     long delta;
     while ((delta = maybePause(bytes, System.nanoTime())) >= 0) {
@@ -122,19 +124,26 @@ public class MergeRateLimiter extends RateLimiter {
     double rate = mbPerSec; // read from volatile rate once.
     double secondsToPause = (bytes/1024./1024.) / rate;
 
-    // Time we should sleep until; this is purely instantaneous
-    // rate (just adds seconds onto the last time we had paused to);
-    // maybe we should also offer decayed recent history one?
-    long targetNS = lastNS + (long) (1000000000 * secondsToPause);
-
-    long curPauseNS = targetNS - curNS;
-
-    // We don't bother with thread pausing if the pause is smaller than 2 msec.
-    if (curPauseNS <= MIN_PAUSE_NS) {
-      // Set to curNS, not targetNS, to enforce the instant rate, not
-      // the "averaged over all history" rate:
-      lastNS = curNS;
-      return -1;
+    long curPauseNS;
+    // Parts of a merge may be written concurrently, see
+    // MergeScheduler#getIntraMergeExecutor: threads are let through one at a
+    // time so that they all share the same rate. The lock is not held while
+    // pausing so that other threads may still be woken up or aborted.
+    synchronized (pauseLock) {
+      // Time we should sleep until; this is purely instantaneous
+      // rate (just adds seconds onto the last time we had paused to);
+      // maybe we should also offer decayed recent history one?
+      long targetNS = lastNS + (long) (1000000000 * secondsToPause);
+
+      curPauseNS = targetNS - curNS;
+
+      // We don't bother with thread pausing if the pause is smaller than 2 msec.
+      if (curPauseNS <= MIN_PAUSE_NS) {
+        // Set to curNS, not targetNS, to enforce the instant rate, not
+        // the "averaged over all history" rate:
+        lastNS = curNS;
+        return -1;
+      }
     }
 
     // Defensive: don't sleep for too long; the loop above will call us again if
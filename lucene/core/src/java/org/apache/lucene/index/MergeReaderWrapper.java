@@ -153,6 +153,21 @@ class MergeReaderWrapper extends LeafReader {
     return docValues.getSortedSet(fi);
   }
 
+  @Override
+  public DocValuesSkipper getDocValuesSkipper(String field) throws IOException {
+    ensureOpen();
+    FieldInfo fi = getFieldInfos().fieldInfo(field);
+    if (fi == null) {
+      // Field does not exist
+      return null;
+    }
+    if (fi.getDocValuesType() != DocValuesType.NUMERIC && fi.getDocValuesType() != DocValuesType.SORTED_NUMERIC) {
+      // Field was not indexed with numeric doc values
+      return null;
+    }
+    return docValues.getSkipper(fi);
+  }
+
   @Override
   public NumericDocValues getNormValues(String field) throws IOException {
     ensureOpen();
@@ -19,6 +19,7 @@ package org.apache.lucene.index;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.concurrent.Executor;
 
 import org.apache.lucene.index.MergePolicy.OneMerge;
 import org.apache.lucene.store.Directory;
@@ -54,6 +55,28 @@ public abstract class MergeScheduler implements Closeable {
     return in;
   }
 
+  /**
+   * Returns the {@link Executor} that should be used to merge the formats of
+   * the given merge concurrently, or {@code null} to merge them one after the
+   * other on the merge thread, which is the default. Parts of the merge that
+   * run on this executor write through the {@link Directory} returned by
+   * {@link #wrapForMerge}.
+   */
+  public Executor getIntraMergeExecutor(OneMerge merge) {
+    return null;
+  }
+
+  /**
+   * Returns the {@link Executor} that {@link IndexWriter#addIndexes(CodecReader...)}
+   * should use to run the merges that {@link MergePolicy#findAddIndexesMerges}
+   * returns concurrently, or {@code null} to run them one after the other on
+   * the calling thread, which is the default. The calling thread always runs
+   * one of these merges and waits for the others to complete.
+   */
+  public Executor getAddIndexesExecutor() {
+    return null;
+  }
+
   /** Close this MergeScheduler. */
   @Override
   public abstract void close() throws IOException;
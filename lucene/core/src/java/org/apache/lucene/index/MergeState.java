@@ -114,31 +114,13 @@ public class MergeState {
       liveDocs[i] = reader.getLiveDocs();
       fieldInfos[i] = reader.getFieldInfos();
 
+      // merge instances are pulled by the threads that merge each format, see withMergeInstances
       normsProducers[i] = reader.getNormsReader();
-      if (normsProducers[i] != null) {
-        normsProducers[i] = normsProducers[i].getMergeInstance();
-      }
-      
       docValuesProducers[i] = reader.getDocValuesReader();
-      if (docValuesProducers[i] != null) {
-        docValuesProducers[i] = docValuesProducers[i].getMergeInstance();
-      }
-      
       storedFieldsReaders[i] = reader.getFieldsReader();
-      if (storedFieldsReaders[i] != null) {
-        storedFieldsReaders[i] = storedFieldsReaders[i].getMergeInstance();
-      }
-      
       termVectorsReaders[i] = reader.getTermVectorsReader();
-      if (termVectorsReaders[i] != null) {
-        termVectorsReaders[i] = termVectorsReaders[i].getMergeInstance();
-      }
-      
-      fieldsProducers[i] = reader.getPostingsReader().getMergeInstance();
+      fieldsProducers[i] = reader.getPostingsReader();
       pointsReaders[i] = reader.getPointsReader();
-      if (pointsReaders[i] != null) {
-        pointsReaders[i] = pointsReaders[i].getMergeInstance();
-      }
       numDocs += reader.numDocs();
     }
 
@@ -148,6 +130,55 @@ public class MergeState {
     this.docMaps = buildDocMaps(readers, indexSort);
   }
 
+  private MergeState(MergeState other) {
+    infoStream = other.infoStream;
+    segmentInfo = other.segmentInfo;
+    mergeFieldInfos = other.mergeFieldInfos;
+    needsIndexSort = other.needsIndexSort;
+    docMaps = other.docMaps;
+    leafDocMaps = other.leafDocMaps;
+    maxDocs = other.maxDocs;
+    liveDocs = other.liveDocs;
+    // formats may temporarily replace field infos and readers, see PerFieldMergeState
+    fieldInfos = other.fieldInfos.clone();
+    normsProducers = other.normsProducers.clone();
+    docValuesProducers = other.docValuesProducers.clone();
+    storedFieldsReaders = other.storedFieldsReaders.clone();
+    termVectorsReaders = other.termVectorsReaders.clone();
+    fieldsProducers = other.fieldsProducers.clone();
+    pointsReaders = other.pointsReaders.clone();
+  }
+
+  /**
+   * Returns a copy of this merge state whose readers are replaced with their
+   * merge instances. Merge instances may only be consumed by the thread that
+   * pulled them, so formats that are merged concurrently each call this method
+   * from the thread that merges them. The copy may also be modified without
+   * affecting formats that are merged concurrently.
+   */
+  MergeState withMergeInstances() {
+    MergeState state = new MergeState(this);
+    for (int i = 0; i < maxDocs.length; i++) {
+      if (state.normsProducers[i] != null) {
+        state.normsProducers[i] = state.normsProducers[i].getMergeInstance();
+      }
+      if (state.docValuesProducers[i] != null) {
+        state.docValuesProducers[i] = state.docValuesProducers[i].getMergeInstance();
+      }
+      if (state.storedFieldsReaders[i] != null) {
+        state.storedFieldsReaders[i] = state.storedFieldsReaders[i].getMergeInstance();
+      }
+      if (state.termVectorsReaders[i] != null) {
+        state.termVectorsReaders[i] = state.termVectorsReaders[i].getMergeInstance();
+      }
+      state.fieldsProducers[i] = state.fieldsProducers[i].getMergeInstance();
+      if (state.pointsReaders[i] != null) {
+        state.pointsReaders[i] = state.pointsReaders[i].getMergeInstance();
+      }
+    }
+    return state;
+  }
+
   // Remap docIDs around deletions
   private DocMap[] buildDeletionDocMaps(List<CodecReader> readers) {
 
@@ -37,6 +37,7 @@ import org.apache.lucene.codecs.DocValuesConsumer;
 import org.apache.lucene.codecs.DocValuesFormat;
 import org.apache.lucene.codecs.FieldInfosFormat;
 import org.apache.lucene.codecs.blocktree.BlockTreeTermsReader;
+import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FlushInfo;
 import org.apache.lucene.store.IOContext;
@@ -161,6 +162,72 @@ final class ReadersAndUpdates {
     }
   }
 
+  /**
+   * Merges the pending doc values updates of each field whose delGen is less
+   * than or equal to <code>maxDelGen</code> into a single packet that only
+   * holds the last update of each document. This is much cheaper than writing
+   * a new doc values generation, and frees lots of memory when the same
+   * documents keep being updated.
+   * <p>
+   * This is a no-op while the segment is merging, since the merge still
+   * references the pending packets so that it can re-apply them to the merged
+   * segment.
+   *
+   * @return the number of bytes that were freed
+   */
+  public synchronized long compactDVUpdates(long maxDelGen) {
+    if (isMerging) {
+      // compacting would not free the original packets, which are also in mergingDVUpdates
+      return 0;
+    }
+    long bytesFreed = 0;
+    for (List<DocValuesFieldUpdates> updates : pendingDVUpdates.values()) {
+      final List<DocValuesFieldUpdates> updatesToCompact = new ArrayList<>();
+      long compactedDelGen = -1;
+      long bytes = 0;
+      for (DocValuesFieldUpdates update : updates) {
+        if (update.delGen <= maxDelGen) {
+          updatesToCompact.add(update);
+          compactedDelGen = Math.max(compactedDelGen, update.delGen);
+          bytes += update.ramBytesUsed();
+        }
+      }
+      if (updatesToCompact.size() < 2) {
+        // nothing to merge
+        continue;
+      }
+      final DocValuesFieldUpdates first = updatesToCompact.get(0);
+      final DocValuesFieldUpdates compacted;
+      if (first.type == DocValuesType.BINARY) {
+        compacted = new BinaryDocValuesFieldUpdates(compactedDelGen, first.field, first.maxDoc);
+      } else {
+        assert first.type == DocValuesType.NUMERIC : "unsupported type: " + first.type;
+        compacted = new NumericDocValuesFieldUpdates(compactedDelGen, first.field, first.maxDoc);
+      }
+      final DocValuesFieldUpdates.Iterator[] subs = new DocValuesFieldUpdates.Iterator[updatesToCompact.size()];
+      for (int i = 0; i < subs.length; i++) {
+        subs[i] = updatesToCompact.get(i).iterator();
+      }
+      final DocValuesFieldUpdates.Iterator iterator = DocValuesFieldUpdates.mergedIterator(subs);
+      if (iterator != null) {
+        for (int doc = iterator.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = iterator.nextDoc()) {
+          if (iterator.hasValue()) {
+            compacted.add(doc, iterator);
+          } else {
+            compacted.reset(doc);
+          }
+        }
+      }
+      compacted.finish();
+      // packets are not ordered within the list, writeFieldUpdates sorts them by delGen
+      updates.removeAll(updatesToCompact);
+      updates.add(compacted);
+      bytesFreed += bytes - compacted.ramBytesUsed();
+    }
+    ramBytesUsed.addAndGet(-bytesFreed);
+    return bytesFreed;
+  }
+
   public synchronized long getNumDVUpdates() {
     long count = 0;
     for (List<DocValuesFieldUpdates> updates : pendingDVUpdates.values()) {
@@ -327,7 +327,7 @@ public final class SegmentInfo {
    * value.
    * This method make a copy on write for every attribute change.
    */
-  public String putAttribute(String key, String value) {
+  public synchronized String putAttribute(String key, String value) {
     HashMap<String, String> newMap = new HashMap<>(attributes);
     String oldValue = newMap.put(key, value);
     // we make a full copy of this to prevent concurrent modifications to this in the toString method
@@ -18,8 +18,11 @@ package org.apache.lucene.index;
 
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
 
 import org.apache.lucene.codecs.Codec;
 import org.apache.lucene.codecs.DocValuesConsumer;
@@ -47,13 +50,15 @@ final class SegmentMerger {
   private final Codec codec;
   
   private final IOContext context;
+
+  private final Executor executor;
   
   final MergeState mergeState;
   private final FieldInfos.Builder fieldInfosBuilder;
 
   // note, just like in codec apis Directory 'dir' is NOT the same as segmentInfo.dir!!
   SegmentMerger(List<CodecReader> readers, SegmentInfo segmentInfo, InfoStream infoStream, Directory dir,
-                FieldInfos.FieldNumbers fieldNumbers, IOContext context) throws IOException {
+                FieldInfos.FieldNumbers fieldNumbers, IOContext context, Executor executor) throws IOException {
     if (context.context != IOContext.Context.MERGE) {
       throw new IllegalArgumentException("IOContext.context should be MERGE; got: " + context.context);
     }
@@ -61,6 +66,7 @@ final class SegmentMerger {
     directory = dir;
     this.codec = segmentInfo.getCodec();
     this.context = context;
+    this.executor = executor;
     this.fieldInfosBuilder = new FieldInfos.Builder(fieldNumbers);
     Version minVersion = Version.LATEST;
     for (CodecReader reader : readers) {
@@ -89,7 +95,9 @@ final class SegmentMerger {
   }
 
   /**
-   * Merges the readers into the directory passed to the constructor
+   * Merges the readers into the directory passed to the constructor. If an
+   * executor was passed to the constructor, then formats are merged
+   * concurrently on this executor.
    * @return The number of documents that were merged
    * @throws CorruptIndexException if the index is corrupt
    * @throws IOException if there is a low-level IO error
@@ -99,111 +107,103 @@ final class SegmentMerger {
       throw new IllegalStateException("Merge would result in 0 document segment");
     }
     mergeFieldInfos();
-    long t0 = 0;
-    if (mergeState.infoStream.isEnabled("SM")) {
-      t0 = System.nanoTime();
-    }
-    int numMerged = mergeFields();
-    if (mergeState.infoStream.isEnabled("SM")) {
-      long t1 = System.nanoTime();
-      mergeState.infoStream.message("SM", ((t1-t0)/1000000) + " msec to merge stored fields [" + numMerged + " docs]");
-    }
-    assert numMerged == mergeState.segmentInfo.maxDoc(): "numMerged=" + numMerged + " vs mergeState.segmentInfo.maxDoc()=" + mergeState.segmentInfo.maxDoc();
 
     final SegmentWriteState segmentWriteState = new SegmentWriteState(mergeState.infoStream, directory, mergeState.segmentInfo,
                                                                       mergeState.mergeFieldInfos, null, context);
     final SegmentReadState segmentReadState = new SegmentReadState(directory, mergeState.segmentInfo, mergeState.mergeFieldInfos,
         true, IOContext.READ, segmentWriteState.segmentSuffix, Collections.emptyMap());
-
-    if (mergeState.mergeFieldInfos.hasNorms()) {
-      if (mergeState.infoStream.isEnabled("SM")) {
-        t0 = System.nanoTime();
-      }
-      mergeNorms(segmentWriteState);
-      if (mergeState.infoStream.isEnabled("SM")) {
-        long t1 = System.nanoTime();
-        mergeState.infoStream.message("SM", ((t1-t0)/1000000) + " msec to merge norms [" + numMerged + " docs]");
-      }
-    }
-
-    if (mergeState.infoStream.isEnabled("SM")) {
-      t0 = System.nanoTime();
-    }
-    try (NormsProducer norms = mergeState.mergeFieldInfos.hasNorms()
-        ? codec.normsFormat().normsProducer(segmentReadState)
-        : null) {
-      NormsProducer normsMergeInstance = null;
-      if (norms != null) {
-        // Use the merge instance in order to reuse the same IndexInput for all terms
-        normsMergeInstance = norms.getMergeInstance();
-      }
-      mergeTerms(segmentWriteState, normsMergeInstance);
-    }
-    if (mergeState.infoStream.isEnabled("SM")) {
-      long t1 = System.nanoTime();
-      mergeState.infoStream.message("SM", ((t1-t0)/1000000) + " msec to merge postings [" + numMerged + " docs]");
-    }
-
-    if (mergeState.infoStream.isEnabled("SM")) {
-      t0 = System.nanoTime();
-    }
+    final int maxDoc = mergeState.segmentInfo.maxDoc();
+
+    // Formats are merged independently from each other, except postings that
+    // need norms, so they may be merged concurrently. Postings go last so that
+    // they are merged by the merge thread. Every task pulls the merge instances
+    // that it consumes from its own thread.
+    List<Callable<Void>> tasks = new ArrayList<>();
+    tasks.add(() -> {
+      long t0 = System.nanoTime();
+      int numMerged = mergeFields(mergeState.withMergeInstances());
+      logMergeTime(t0, "merge stored fields");
+      assert numMerged == maxDoc: "numMerged=" + numMerged + " vs mergeState.segmentInfo.maxDoc()=" + maxDoc;
+      return null;
+    });
     if (mergeState.mergeFieldInfos.hasDocValues()) {
-      mergeDocValues(segmentWriteState);
-    }
-    if (mergeState.infoStream.isEnabled("SM")) {
-      long t1 = System.nanoTime();
-      mergeState.infoStream.message("SM", ((t1-t0)/1000000) + " msec to merge doc values [" + numMerged + " docs]");
-    }
-
-    if (mergeState.infoStream.isEnabled("SM")) {
-      t0 = System.nanoTime();
+      tasks.add(() -> {
+        long t0 = System.nanoTime();
+        mergeDocValues(mergeState.withMergeInstances(), segmentWriteState);
+        logMergeTime(t0, "merge doc values");
+        return null;
+      });
     }
     if (mergeState.mergeFieldInfos.hasPointValues()) {
-      mergePoints(segmentWriteState);
-    }
-    if (mergeState.infoStream.isEnabled("SM")) {
-      long t1 = System.nanoTime();
-      mergeState.infoStream.message("SM", ((t1-t0)/1000000) + " msec to merge points [" + numMerged + " docs]");
+      tasks.add(() -> {
+        long t0 = System.nanoTime();
+        mergePoints(mergeState.withMergeInstances(), segmentWriteState);
+        logMergeTime(t0, "merge points");
+        return null;
+      });
     }
-
     if (mergeState.mergeFieldInfos.hasVectors()) {
-      if (mergeState.infoStream.isEnabled("SM")) {
+      tasks.add(() -> {
+        long t0 = System.nanoTime();
+        int numMerged = mergeVectors(mergeState.withMergeInstances());
+        logMergeTime(t0, "merge vectors");
+        assert numMerged == maxDoc;
+        return null;
+      });
+    }
+    tasks.add(() -> {
+      final MergeState mergeState = this.mergeState.withMergeInstances();
+      long t0;
+      if (mergeState.mergeFieldInfos.hasNorms()) {
         t0 = System.nanoTime();
+        mergeNorms(mergeState, segmentWriteState);
+        logMergeTime(t0, "merge norms");
       }
-      numMerged = mergeVectors();
-      if (mergeState.infoStream.isEnabled("SM")) {
-        long t1 = System.nanoTime();
-        mergeState.infoStream.message("SM", ((t1-t0)/1000000) + " msec to merge vectors [" + numMerged + " docs]");
+
+      t0 = System.nanoTime();
+      try (NormsProducer norms = mergeState.mergeFieldInfos.hasNorms()
+          ? codec.normsFormat().normsProducer(segmentReadState)
+          : null) {
+        NormsProducer normsMergeInstance = null;
+        if (norms != null) {
+          // Use the merge instance in order to reuse the same IndexInput for all terms
+          normsMergeInstance = norms.getMergeInstance();
+        }
+        mergeTerms(mergeState, segmentWriteState, normsMergeInstance);
       }
-      assert numMerged == mergeState.segmentInfo.maxDoc();
-    }
-    
+      logMergeTime(t0, "merge postings");
+      return null;
+    });
+    ConcurrentTasks.run(executor, tasks);
+
     // write the merged infos
-    if (mergeState.infoStream.isEnabled("SM")) {
-      t0 = System.nanoTime();
-    }
+    long t0 = System.nanoTime();
     codec.fieldInfosFormat().write(directory, mergeState.segmentInfo, "", mergeState.mergeFieldInfos, context);
+    logMergeTime(t0, "write field infos");
+
+    return mergeState;
+  }
+
+  private void logMergeTime(long t0, String action) {
     if (mergeState.infoStream.isEnabled("SM")) {
       long t1 = System.nanoTime();
-      mergeState.infoStream.message("SM", ((t1-t0)/1000000) + " msec to write field infos [" + numMerged + " docs]");
+      mergeState.infoStream.message("SM", ((t1-t0)/1000000) + " msec to " + action + " [" + mergeState.segmentInfo.maxDoc() + " docs]");
     }
-
-    return mergeState;
   }
 
-  private void mergeDocValues(SegmentWriteState segmentWriteState) throws IOException {
+  private void mergeDocValues(MergeState mergeState, SegmentWriteState segmentWriteState) throws IOException {
     try (DocValuesConsumer consumer = codec.docValuesFormat().fieldsConsumer(segmentWriteState)) {
       consumer.merge(mergeState);
     }
   }
 
-  private void mergePoints(SegmentWriteState segmentWriteState) throws IOException {
+  private void mergePoints(MergeState mergeState, SegmentWriteState segmentWriteState) throws IOException {
     try (PointsWriter writer = codec.pointsFormat().fieldsWriter(segmentWriteState)) {
       writer.merge(mergeState);
     }
   }
 
-  private void mergeNorms(SegmentWriteState segmentWriteState) throws IOException {
+  private void mergeNorms(MergeState mergeState, SegmentWriteState segmentWriteState) throws IOException {
     try (NormsConsumer consumer = codec.normsFormat().normsConsumer(segmentWriteState)) {
       consumer.merge(mergeState);
     }
@@ -224,7 +224,7 @@ final class SegmentMerger {
    * @throws CorruptIndexException if the index is corrupt
    * @throws IOException if there is a low-level IO error
    */
-  private int mergeFields() throws IOException {
+  private int mergeFields(MergeState mergeState) throws IOException {
     try (StoredFieldsWriter fieldsWriter = codec.storedFieldsFormat().fieldsWriter(directory, mergeState.segmentInfo, context)) {
       return fieldsWriter.merge(mergeState);
     }
@@ -234,13 +234,13 @@ final class SegmentMerger {
    * Merge the TermVectors from each of the segments into the new one.
    * @throws IOException if there is a low-level IO error
    */
-  private int mergeVectors() throws IOException {
+  private int mergeVectors(MergeState mergeState) throws IOException {
     try (TermVectorsWriter termVectorsWriter = codec.termVectorsFormat().vectorsWriter(directory, mergeState.segmentInfo, context)) {
       return termVectorsWriter.merge(mergeState);
     }
   }
 
-  private void mergeTerms(SegmentWriteState segmentWriteState, NormsProducer norms) throws IOException {
+  private void mergeTerms(MergeState mergeState, SegmentWriteState segmentWriteState, NormsProducer norms) throws IOException {
     try (FieldsConsumer consumer = codec.postingsFormat().fieldsConsumer(segmentWriteState)) {
       consumer.merge(mergeState, norms);
     }
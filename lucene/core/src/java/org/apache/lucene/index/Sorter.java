@@ -27,6 +27,7 @@ import org.apache.lucene.search.SortedNumericSelector;
 import org.apache.lucene.search.SortedNumericSortField;
 import org.apache.lucene.search.SortedSetSelector;
 import org.apache.lucene.search.SortedSetSortField;
+import org.apache.lucene.util.NumericUtils;
 import org.apache.lucene.util.TimSorter;
 import org.apache.lucene.util.packed.PackedInts;
 import org.apache.lucene.util.packed.PackedLongValues;
@@ -92,6 +93,23 @@ final class Sorter {
     public abstract int compare(int docID1, int docID2);
   }
 
+  /** A {@link DocComparator} that can also map documents to keys that sort
+   *  like documents when compared as unsigned longs, which allows sorting
+   *  documents with a radix sort. */
+  static abstract class SortableDocComparator extends DocComparator {
+
+    /** Return the key of the given doc ID. Comparing the keys of two
+     *  documents with {@link Long#compareUnsigned(long, long)} must give the
+     *  same result as {@link #compare(int, int)}. */
+    abstract long sortableKey(int docID);
+  }
+
+  /** Minimum number of documents to sort with a radix sort rather than with
+   *  TimSort, which is faster on small or almost sorted inputs. */
+  static final int RADIX_SORT_THRESHOLD = 1024;
+
+  private static final int HISTOGRAM_SIZE = 256;
+
   private static final class DocValueSorter extends TimSorter {
     
     private final int[] docs;
@@ -138,17 +156,20 @@ final class Sorter {
     }
   }
 
-  /** Computes the old-to-new permutation over the given comparator. */
-  private static Sorter.DocMap sort(final int maxDoc, DocComparator comparator) {
-    // check if the index is sorted
-    boolean sorted = true;
+  /** Returns true if doc IDs are already sorted according to the given comparator. */
+  private static boolean isSorted(int maxDoc, DocComparator comparator) {
     for (int i = 1; i < maxDoc; ++i) {
       if (comparator.compare(i-1, i) > 0) {
-        sorted = false;
-        break;
+        return false;
       }
     }
-    if (sorted) {
+    return true;
+  }
+
+  /** Computes the old-to-new permutation over the given comparator with TimSort. */
+  static Sorter.DocMap sort(final int maxDoc, DocComparator comparator) {
+    // check if the index is sorted
+    if (isSorted(maxDoc, comparator)) {
       return null;
     }
 
@@ -163,6 +184,78 @@ final class Sorter {
     // that case timSort can save a lot of time
     sorter.sort(0, docs.length); // docs is now the newToOld mapping
 
+    return newDocMap(docs);
+  }
+
+  /** Sorts doc IDs with a stable LSD radix sort on the keys of the given
+   *  comparators, from the last one to the first one, and returns the
+   *  new-to-old mapping. Since the sort is stable, ties are broken by doc ID. */
+  static int[] radixSort(final int maxDoc, SortableDocComparator[] comparators) {
+    int[] docs = new int[maxDoc];
+    for (int i = 0; i < maxDoc; i++) {
+      docs[i] = i;
+    }
+    int[] docsBuffer = new int[maxDoc];
+    long[] keys = new long[maxDoc];
+    long[] keysBuffer = new long[maxDoc];
+    final int[] histogram = new int[HISTOGRAM_SIZE];
+
+    for (int c = comparators.length - 1; c >= 0; --c) {
+      final SortableDocComparator comparator = comparators[c];
+      long minKey = -1L; // max unsigned value
+      long maxKey = 0L;
+      for (int i = 0; i < maxDoc; ++i) {
+        final long key = comparator.sortableKey(docs[i]);
+        keys[i] = key;
+        if (Long.compareUnsigned(key, minKey) < 0) {
+          minKey = key;
+        }
+        if (Long.compareUnsigned(key, maxKey) > 0) {
+          maxKey = key;
+        }
+      }
+      // only sort on the bits that differ across keys
+      final int numBits = 64 - Long.numberOfLeadingZeros(maxKey - minKey);
+
+      for (int shift = 0; shift < numBits; shift += 8) {
+        Arrays.fill(histogram, 0);
+        for (int i = 0; i < maxDoc; ++i) {
+          histogram[(int) ((keys[i] - minKey) >>> shift) & 0xFF]++;
+        }
+        int accum = 0;
+        for (int b = 0; b < HISTOGRAM_SIZE; ++b) {
+          final int count = histogram[b];
+          if (count == maxDoc) {
+            break; // all keys have the same byte, nothing to do
+          }
+          histogram[b] = accum;
+          accum += count;
+        }
+        if (accum == 0) {
+          continue;
+        }
+        for (int i = 0; i < maxDoc; ++i) {
+          final int dest = histogram[(int) ((keys[i] - minKey) >>> shift) & 0xFF]++;
+          docsBuffer[dest] = docs[i];
+          keysBuffer[dest] = keys[i];
+        }
+        // swap arrays
+        int[] tmpDocs = docs;
+        docs = docsBuffer;
+        docsBuffer = tmpDocs;
+        long[] tmpKeys = keys;
+        keys = keysBuffer;
+        keysBuffer = tmpKeys;
+      }
+    }
+    return docs;
+  }
+
+  /** Builds a {@link DocMap} from the given new-to-old mapping, which is
+   *  reused to compute the old-to-new mapping. */
+  private static Sorter.DocMap newDocMap(final int[] docs) {
+    final int maxDoc = docs.length;
+
     // The reason why we use MonotonicAppendingLongBuffer here is that it
     // wastes very little memory if the index is in random order but can save
     // a lot of memory if the index is already "almost" sorted
@@ -250,6 +343,13 @@ final class Sorter {
     SortedDocValues get() throws IOException;
   }
 
+  /** Maps a signed value to a key that sorts like it when compared as an
+   *  unsigned long, or in reverse order if {@code reverseMul} is -1. */
+  private static long toSortableKey(long value, int reverseMul) {
+    final long key = value ^ Long.MIN_VALUE;
+    return reverseMul == 1 ? key : ~key;
+  }
+
   /** We cannot use the {@link FieldComparator} API because that API requires that you send it docIDs in order.  Note that this API
    *  allocates arrays[maxDoc] to hold the native values needed for comparison, but 1) they are transient (only alive while sorting this one
    *  segment), and 2) in the typical index sorting case, they are only used to sort newly flushed segments, which will be smaller than
@@ -281,11 +381,27 @@ final class Sorter {
           ords[docID] = sorted.ordValue();
         }
 
-        return new DocComparator() {
+        // missing values sort first or last, and other ords are shifted by one
+        final long maxKey = (long) sorted.getValueCount() + 1;
+        return new SortableDocComparator() {
           @Override
           public int compare(int docID1, int docID2) {
             return reverseMul * Integer.compare(ords[docID1], ords[docID2]);
           }
+
+          @Override
+          long sortableKey(int docID) {
+            final int ord = ords[docID];
+            final long key;
+            if (ord == Integer.MIN_VALUE) {
+              key = 0;
+            } else if (ord == Integer.MAX_VALUE) {
+              key = maxKey;
+            } else {
+              key = ord + 1L;
+            }
+            return reverseMul == 1 ? key : maxKey - key;
+          }
         };
       }
 
@@ -304,11 +420,16 @@ final class Sorter {
           values[docID] = dvs.longValue();
         }
 
-        return new DocComparator() {
+        return new SortableDocComparator() {
           @Override
           public int compare(int docID1, int docID2) {
             return reverseMul * Long.compare(values[docID1], values[docID2]);
           }
+
+          @Override
+          long sortableKey(int docID) {
+            return toSortableKey(values[docID], reverseMul);
+          }
         };
       }
 
@@ -328,11 +449,16 @@ final class Sorter {
           values[docID] = (int) dvs.longValue();
         }
 
-        return new DocComparator() {
+        return new SortableDocComparator() {
           @Override
           public int compare(int docID1, int docID2) {
             return reverseMul * Integer.compare(values[docID1], values[docID2]);
           }
+
+          @Override
+          long sortableKey(int docID) {
+            return toSortableKey(values[docID], reverseMul);
+          }
         };
       }
 
@@ -351,11 +477,16 @@ final class Sorter {
           values[docID] = Double.longBitsToDouble(dvs.longValue());
         }
 
-        return new DocComparator() {
+        return new SortableDocComparator() {
           @Override
           public int compare(int docID1, int docID2) {
             return reverseMul * Double.compare(values[docID1], values[docID2]);
           }
+
+          @Override
+          long sortableKey(int docID) {
+            return toSortableKey(NumericUtils.doubleToSortableLong(values[docID]), reverseMul);
+          }
         };
       }
 
@@ -374,11 +505,16 @@ final class Sorter {
           values[docID] = Float.intBitsToFloat((int) dvs.longValue());
         }
 
-        return new DocComparator() {
+        return new SortableDocComparator() {
           @Override
           public int compare(int docID1, int docID2) {
             return reverseMul * Float.compare(values[docID1], values[docID2]);
           }
+
+          @Override
+          long sortableKey(int docID) {
+            return toSortableKey(NumericUtils.floatToSortableInt(values[docID]), reverseMul);
+          }
         };
       }
 
@@ -425,7 +561,23 @@ final class Sorter {
       }
     };
 
-    return sort(maxDoc, comparator);
+    if (maxDoc < RADIX_SORT_THRESHOLD) {
+      return sort(maxDoc, comparator);
+    }
+    final SortableDocComparator[] sortableComparators = new SortableDocComparator[comparators.length];
+    for (int i = 0; i < comparators.length; i++) {
+      if (comparators[i] instanceof SortableDocComparator == false) {
+        return sort(maxDoc, comparator);
+      }
+      sortableComparators[i] = (SortableDocComparator) comparators[i];
+    }
+    // check if the index is sorted
+    if (isSorted(maxDoc, comparator)) {
+      return null;
+    }
+    // large flushes are typically not sorted at all, where a radix sort on
+    // primitive keys is much faster than comparison-based TimSort
+    return newDocMap(radixSort(maxDoc, sortableComparators));
   }
 
   /**
@@ -1207,6 +1207,12 @@ class SortingLeafReader extends FilterLeafReader {
     return new SortingSortedDocValues(oldDocValues, ords);
   }
 
+  @Override
+  public DocValuesSkipper getDocValuesSkipper(String field) throws IOException {
+    // skip data is computed on the unsorted doc ID space
+    return null;
+  }
+
   @Override
   public SortedSetDocValues getSortedSetDocValues(String field) throws IOException {
     SortedSetDocValues oldDocValues = in.getSortedSetDocValues(field);
@@ -815,6 +815,24 @@ public class TieredMergePolicy extends MergePolicy {
 
   }
 
+  /** Groups the readers passed to {@link IndexWriter#addIndexes(CodecReader...)}
+   *  into merges of at most {@link #getMaxMergeAtOnce} readers, which produce
+   *  segments of at most {@link #getMaxMergedSegmentMB} as estimated by the
+   *  size of the segments backing the readers, so that groups are merged
+   *  concurrently into segments that natural merges may still merge. */
+  @Override
+  public List<List<CodecReader>> findAddIndexesMerges(List<CodecReader> readers, MergeContext mergeContext) throws IOException {
+    final long[] sizes = new long[readers.size()];
+    for (int i = 0; i < sizes.length; ++i) {
+      sizes[i] = size(readers.get(i));
+    }
+    final List<List<CodecReader>> groups = groupReaders(readers, sizes, maxMergeAtOnce, maxMergedSegmentBytes);
+    if (verbose(mergeContext)) {
+      message("findAddIndexesMerges: " + readers.size() + " readers, " + groups.size() + " merges", mergeContext);
+    }
+    return groups;
+  }
+
   private long floorSize(long bytes) {
     return Math.max(floorSegmentBytes, bytes);
   }
@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.search;
+
+import java.io.IOException;
+
+import org.apache.lucene.util.Bits;
+
+/**
+ * {@link BulkScorer} that computes scores by batches using
+ * {@link Scorer#nextDocsAndScores} and then replays each batch into the
+ * collector. Scoring and collection then run as two tight loops over arrays
+ * rather than going through the {@link Scorable} on every document.
+ * <p>
+ * The {@link Scorable} that is passed to the collector only exposes the doc ID
+ * and score of the current hit, so this bulk scorer should only be used when
+ * the collector is not expected to introspect sub scorers, ie. with
+ * {@link ScoreMode#TOP_SCORES}. Calls to
+ * {@link Scorable#setMinCompetitiveScore(float)} are forwarded to the wrapped
+ * scorer and take effect on the next batch.
+ */
+final class BatchScoringBulkScorer extends BulkScorer {
+
+  private final Scorer scorer;
+  private final DocIdSetIterator iterator;
+  private final DocAndScoreBuffer buffer = new DocAndScoreBuffer();
+  private final BatchScorable scorable = new BatchScorable();
+  private final Weight.DefaultBulkScorer fallback;
+
+  BatchScoringBulkScorer(Scorer scorer) {
+    if (scorer.twoPhaseIterator() != null) {
+      throw new IllegalArgumentException("Scorers that expose a two-phase iterator can't be scored by batches");
+    }
+    this.scorer = scorer;
+    this.iterator = scorer.iterator();
+    this.fallback = new Weight.DefaultBulkScorer(scorer);
+  }
+
+  @Override
+  public int score(LeafCollector collector, Bits acceptDocs, int min, int max) throws IOException {
+    collector.setScorer(scorable);
+    if (collector.competitiveIterator() != null) {
+      // the collector can skip non-competitive documents, which requires
+      // intersecting iterators doc by doc
+      return fallback.score(collector, acceptDocs, min, max);
+    }
+
+    final DocAndScoreBuffer buffer = this.buffer;
+    final BatchScorable scorable = this.scorable;
+    int doc = iterator.docID();
+    if (doc < min) {
+      doc = iterator.advance(min);
+    }
+    while (doc < max) {
+      scorer.nextDocsAndScores(max, acceptDocs, buffer);
+      final int[] docs = buffer.docs;
+      final float[] scores = buffer.scores;
+      for (int i = 0, size = buffer.size; i < size; ++i) {
+        scorable.doc = docs[i];
+        scorable.score = scores[i];
+        collector.collect(docs[i]);
+      }
+      doc = iterator.docID();
+    }
+    return doc;
+  }
+
+  @Override
+  public long cost() {
+    return iterator.cost();
+  }
+
+  private class BatchScorable extends Scorable {
+    int doc = -1;
+    float score;
+
+    @Override
+    public int docID() {
+      return doc;
+    }
+
+    @Override
+    public float score() {
+      return score;
+    }
+
+    @Override
+    public void setMinCompetitiveScore(float minScore) throws IOException {
+      scorer.setMinCompetitiveScore(minScore);
+    }
+  }
+}
@@ -112,7 +112,8 @@ final class BooleanScorer extends BulkScorer {
 
   }
 
-  final Bucket[] buckets = new Bucket[SIZE];
+  // null if matches can be replayed as a DocIdStream, see DocIdStreamView
+  final Bucket[] buckets;
   // This is basically an inlined FixedBitSet... seems to help with bound checks
   final long[] matching = new long[SET_SIZE];
 
@@ -136,14 +137,49 @@ final class BooleanScorer extends BulkScorer {
       final int i = doc & MASK;
       final int idx = i >>> 6;
       matching[idx] |= 1L << i;
-      final Bucket bucket = buckets[i];
-      bucket.freq++;
-      bucket.score += scorer.score();
+      if (buckets != null) {
+        final Bucket bucket = buckets[i];
+        bucket.freq++;
+        bucket.score += scorer.score();
+      }
     }
   }
 
   final OrCollector orCollector = new OrCollector();
 
+  /** Exposes the matches of the current window as a {@link DocIdStream}. */
+  final class DocIdStreamView extends DocIdStream {
+
+    int base;
+
+    @Override
+    public void forEach(DocIdConsumer consumer) throws IOException {
+      final ScoreAndDoc scoreAndDoc = BooleanScorer.this.scoreAndDoc;
+      long[] matching = BooleanScorer.this.matching;
+      for (int idx = 0; idx < matching.length; idx++) {
+        long bits = matching[idx];
+        while (bits != 0L) {
+          int ntz = Long.numberOfTrailingZeros(bits);
+          int doc = base | idx << 6 | ntz;
+          scoreAndDoc.doc = doc;
+          consumer.accept(doc);
+          bits ^= 1L << ntz;
+        }
+      }
+    }
+
+    @Override
+    public int count() throws IOException {
+      int count = 0;
+      for (long bits : matching) {
+        count += Long.bitCount(bits);
+      }
+      return count;
+    }
+  }
+
+  final DocIdStreamView docIdStreamView = new DocIdStreamView();
+
   BooleanScorer(BooleanWeight weight, Collection<BulkScorer> scorers, int minShouldMatch, boolean needsScores) {
     if (minShouldMatch < 1 || minShouldMatch > scorers.size()) {
       throw new IllegalArgumentException("minShouldMatch should be within 1..num_scorers. Got " + minShouldMatch);
@@ -151,8 +187,15 @@ final class BooleanScorer extends BulkScorer {
     if (scorers.size() <= 1) {
       throw new IllegalArgumentException("This scorer can only be used with two scorers or more, got " + scorers.size());
     }
-    for (int i = 0; i < buckets.length; i++) {
-      buckets[i] = new Bucket();
+    if (needsScores == false && minShouldMatch == 1) {
+      // every doc that is set in the bit set is a match, and scores are not needed
+      // so we don't need buckets and can replay matches as a DocIdStream
+      buckets = null;
+    } else {
+      buckets = new Bucket[SIZE];
+      for (int i = 0; i < buckets.length; i++) {
+        buckets[i] = new Bucket();
+      }
     }
     this.leads = new BulkScorerAndDoc[scorers.size()];
     this.head = new HeadPriorityQueue(scorers.size() - minShouldMatch + 1);
@@ -211,7 +254,12 @@ final class BooleanScorer extends BulkScorer {
       scorer.score(orCollector, acceptDocs, min, max);
     }
 
-    scoreMatches(collector, base);
+    if (buckets == null) {
+      docIdStreamView.base = base;
+      collector.collect(docIdStreamView);
+    } else {
+      scoreMatches(collector, base);
+    }
     Arrays.fill(matching, 0L);
   }
 
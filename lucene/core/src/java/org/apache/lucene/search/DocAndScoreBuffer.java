@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.search;
+
+import org.apache.lucene.util.ArrayUtil;
+
+/**
+ * Wrapper around parallel arrays storing doc IDs and their corresponding
+ * scores, filled by {@link Scorer#nextDocsAndScores}.
+ *
+ * @lucene.internal
+ */
+public final class DocAndScoreBuffer {
+
+  private static final int[] EMPTY_DOCS = new int[0];
+  private static final float[] EMPTY_SCORES = new float[0];
+
+  /** Doc IDs, only the first {@link #size} entries are valid. */
+  public int[] docs = EMPTY_DOCS;
+  /** Scores, only the first {@link #size} entries are valid. */
+  public float[] scores = EMPTY_SCORES;
+  /** Number of valid entries in {@link #docs} and {@link #scores}. */
+  public int size;
+
+  /** Sole constructor. */
+  public DocAndScoreBuffer() {}
+
+  /**
+   * Make sure that {@link #docs} and {@link #scores} can hold at least
+   * {@code minSize} entries. Their content is not preserved.
+   */
+  public void growNoCopy(int minSize) {
+    if (docs.length < minSize) {
+      docs = new int[ArrayUtil.oversize(minSize, Integer.BYTES)];
+      scores = new float[docs.length];
+    }
+  }
+}
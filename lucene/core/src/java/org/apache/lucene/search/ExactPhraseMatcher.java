@@ -22,6 +22,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.lucene.index.PostingsEnum;
+import org.apache.lucene.search.similarities.Similarity.SimScorer;
 
 final class ExactPhraseMatcher extends PhraseMatcher {
 
@@ -38,8 +39,9 @@ final class ExactPhraseMatcher extends PhraseMatcher {
 
   private final PostingsAndPosition[] postings;
 
-  ExactPhraseMatcher(PhraseQuery.PostingsAndFreq[] postings, float matchCost) {
-    super(approximation(postings), matchCost);
+  ExactPhraseMatcher(PhraseQuery.PostingsAndFreq[] postings, ScoreMode scoreMode, SimScorer scorer, float matchCost) {
+    // the freq of an exact phrase is bounded by the min freq of its terms
+    super(approximation(postings, scoreMode, scorer, false), matchCost);
 
     List<PostingsAndPosition> postingsAndPositions = new ArrayList<>();
     for(PhraseQuery.PostingsAndFreq posting : postings) {
@@ -48,14 +50,6 @@ final class ExactPhraseMatcher extends PhraseMatcher {
     this.postings = postingsAndPositions.toArray(new PostingsAndPosition[postingsAndPositions.size()]);
   }
 
-  private static DocIdSetIterator approximation(PhraseQuery.PostingsAndFreq[] postings) {
-    List<DocIdSetIterator> iterators = new ArrayList<>();
-    for (PhraseQuery.PostingsAndFreq posting : postings) {
-      iterators.add(posting.postings);
-    }
-    return ConjunctionDISI.intersectIterators(iterators);
-  }
-
   @Override
   float maxFreq() {
     int minFreq = postings[0].freq;
@@ -19,14 +19,20 @@ package org.apache.lucene.search;
 
 
 import java.io.IOException;
+import java.util.Arrays;
 
 import org.apache.lucene.index.BinaryDocValues;
 import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.DocValuesSkipper;
+import org.apache.lucene.index.FieldInfo;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.PointValues;
 import org.apache.lucene.index.SortedDocValues;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.BytesRefBuilder;
+import org.apache.lucene.util.DocIdSetBuilder;
+import org.apache.lucene.util.NumericUtils;
 
 /**
  * Expert: a FieldComparator compares hits so as to determine their
@@ -136,29 +142,370 @@ public abstract class FieldComparator<T> {
     }
   }
 
+  /**
+   * Informs the comparator that the sort is done on this single field.
+   * This is useful to enable some optimizations for skipping non-competitive documents.
+   */
+  public void setSingleSort() {
+  }
+
 
   /**
-   * Base FieldComparator class for numeric types
+   * Base FieldComparator class for numeric types.
+   * <p>
+   * When created with {@code canUsePoints=true}, this comparator assumes that the
+   * field has also been indexed with points that hold the same values as the doc
+   * values, and uses these points in order to only visit competitive documents
+   * once the queue is full and the hits threshold has been reached. On segments
+   * that have no points for the field, comparators whose doc values compare like
+   * longs fall back to the {@link DocValuesSkipper} of the field, if any, in order
+   * to skip over intervals of documents whose values are not competitive.
    */
   public static abstract class NumericComparator<T extends Number> extends SimpleFieldComparator<T> {
     protected final T missingValue;
     protected final String field;
+    protected final boolean reverse;
     protected NumericDocValues currentReaderValues;
-    
+
+    // the following fields are only used to skip over non-competitive documents
+    private final boolean canUsePoints;
+    private final int bytesCount; // how many bytes are used to encode this number
+    private final byte[] minValueAsBytes;
+    private final byte[] maxValueAsBytes;
+    private boolean singleSort; // whether this comparator is the only sort
+    private boolean hasTopValue; // whether a top value has been set (for searchAfter)
+    private boolean queueFull;
+    private boolean hitsThresholdReached;
+    // per-segment state
+    private boolean enableSkipping;
+    private PointValues pointValues;
+    private DocValuesSkipper skipper;
+    private long minCompetitiveValue, maxCompetitiveValue; // only used with a skipper
+    private int maxDoc;
+    private int maxDocVisited;
+    private int updateCounter;
+    private DocIdSetIterator competitiveIterator;
+    private long iteratorCost;
+
     public NumericComparator(String field, T missingValue) {
+      this(field, missingValue, false, 0, false);
+    }
+
+    /**
+     * Creates a new comparator. When {@code canUsePoints} is true, points of
+     * {@code bytesCount} bytes in a single dimension are expected to be indexed
+     * under the same {@code field} name, with the same values as doc values.
+     */
+    protected NumericComparator(String field, T missingValue, boolean reverse, int bytesCount, boolean canUsePoints) {
       this.field = field;
       this.missingValue = missingValue;
+      this.reverse = reverse;
+      this.canUsePoints = canUsePoints;
+      this.bytesCount = bytesCount;
+      this.minValueAsBytes = canUsePoints ? new byte[bytesCount] : null;
+      this.maxValueAsBytes = canUsePoints ? new byte[bytesCount] : null;
+    }
+
+    @Override
+    public void setSingleSort() {
+      singleSort = true;
+    }
+
+    @Override
+    public void setTopValue(T value) {
+      hasTopValue = true;
+    }
+
+    @Override
+    public void setBottom(int slot) throws IOException {
+      queueFull = true; // if we are setting bottom, it means that we have collected enough hits
+      updateCompetitiveIterator(); // update an iterator if we set a new bottom
+    }
+
+    @Override
+    public void copy(int slot, int doc) throws IOException {
+      maxDocVisited = doc;
+    }
+
+    @Override
+    public void setHitsThresholdReached() throws IOException {
+      hitsThresholdReached = true;
+      updateCompetitiveIterator();
     }
 
     @Override
     protected void doSetNextReader(LeafReaderContext context) throws IOException {
       currentReaderValues = getNumericDocValues(context, field);
+      enableSkipping = false;
+      pointValues = null;
+      skipper = null;
+      competitiveIterator = null;
+      maxDocVisited = -1;
+      updateCounter = 0;
+      if (canUsePoints) {
+        pointValues = context.reader().getPointValues(field);
+        if (pointValues != null) {
+          FieldInfo info = context.reader().getFieldInfos().fieldInfo(field);
+          if (info == null || info.getPointDataDimensionCount() == 0) {
+            throw new IllegalStateException("Field " + field + " doesn't index points according to FieldInfos yet returns non-null PointValues");
+          } else if (info.getPointDataDimensionCount() > 1) {
+            throw new IllegalArgumentException("Field " + field + " is indexed with multiple dimensions, sorting is not supported");
+          } else if (info.getPointNumBytes() != bytesCount) {
+            throw new IllegalArgumentException("Field " + field + " is indexed with " + info.getPointNumBytes() +
+                " bytes per dimension, but " + this + " expected " + bytesCount);
+          }
+          enableSkipping = true;
+        } else {
+          skipper = getDocValuesSkipper(context);
+          enableSkipping = skipper != null;
+        }
+        if (enableSkipping) {
+          maxDoc = context.reader().maxDoc();
+          competitiveIterator = DocIdSetIterator.all(maxDoc);
+          iteratorCost = maxDoc;
+          // the queue may already be full from previous segments
+          updateCompetitiveIterator();
+        }
+      }
+    }
+
+    /**
+     * Returns the {@link DocValuesSkipper} of the sort field if its values
+     * compare like the longs returned by {@link #getNumericDocValues}, or
+     * {@code null} otherwise. The default implementation returns {@code null}.
+     */
+    protected DocValuesSkipper getDocValuesSkipper(LeafReaderContext context) throws IOException {
+      return null;
+    }
+
+    /**
+     * Decodes a value encoded by {@link #encodeBottom} or {@link #encodeTop} into
+     * a long that compares like doc values. Only called when a
+     * {@link #getDocValuesSkipper skipper} is used. The default implementation
+     * decodes values that have been encoded with
+     * {@link NumericUtils#intToSortableBytes} or {@link NumericUtils#longToSortableBytes},
+     * depending on the number of bytes per value, which is how int and long
+     * doc values compare. Comparators whose doc values are encoded differently,
+     * such as floats and doubles, must override this method if they return a
+     * skipper.
+     */
+    protected long sortableBytesToDocValue(byte[] packedValue) {
+      switch (bytesCount) {
+        case Integer.BYTES:
+          return NumericUtils.sortableBytesToInt(packedValue, 0);
+        case Long.BYTES:
+          return NumericUtils.sortableBytesToLong(packedValue, 0);
+        default:
+          throw new IllegalStateException("Cannot decode values of " + bytesCount + " bytes, " + this + " must override sortableBytesToDocValue");
+      }
     }
     
     /** Retrieves the NumericDocValues for the field in this segment */
     protected NumericDocValues getNumericDocValues(LeafReaderContext context, String field) throws IOException {
       return DocValues.getNumeric(context.reader(), field);
     }
+
+    @Override
+    public DocIdSetIterator competitiveIterator() {
+      if (enableSkipping == false) {
+        return null;
+      }
+      return new DocIdSetIterator() {
+        private int docID = -1;
+
+        @Override
+        public int nextDoc() throws IOException {
+          return advance(docID + 1);
+        }
+
+        @Override
+        public int docID() {
+          return docID;
+        }
+
+        @Override
+        public long cost() {
+          return competitiveIterator.cost();
+        }
+
+        @Override
+        public int advance(int target) throws IOException {
+          return docID = competitiveIterator.advance(target);
+        }
+      };
+    }
+
+    /**
+     * Encodes the bottom value of the queue into {@code packedValue} using the
+     * same encoding as points. Only called when skipping is enabled.
+     */
+    protected void encodeBottom(byte[] packedValue) {
+      throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Encodes the top value into {@code packedValue} using the same encoding
+     * as points. Only called when skipping is enabled and a top value is set.
+     */
+    protected void encodeTop(byte[] packedValue) {
+      throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Returns whether documents that have no value, and thus no point, may be
+     * competitive given the current bottom of the queue. Only called when
+     * skipping is enabled.
+     */
+    protected boolean isMissingValueCompetitive() {
+      throw new UnsupportedOperationException();
+    }
+
+    // update its iterator to include possibly only docs that are "stronger" than the current bottom entry
+    private void updateCompetitiveIterator() throws IOException {
+      if (enableSkipping == false || hitsThresholdReached == false || queueFull == false) return;
+      // if some documents have missing points, check that missing values prohibits optimization
+      final int docCount = pointValues != null ? pointValues.getDocCount() : skipper.docCount();
+      if ((docCount < maxDoc) && isMissingValueCompetitive()) {
+        return; // we can't filter out documents, as documents with missing values are competitive
+      }
+
+      if (pointValues != null) {
+        updateCounter++;
+        if (updateCounter > 256 && (updateCounter & 0x1f) != 0x1f) { // Start sampling if we get called too much
+          return;
+        }
+      }
+
+      // with an ascending sort, the bottom is an upper bound of competitive values
+      // and the top is a lower bound, and the opposite with a descending sort
+      final byte[] maxValue;
+      final byte[] minValue;
+      if (reverse == false) {
+        encodeBottom(maxValueAsBytes);
+        maxValue = maxValueAsBytes;
+        if (hasTopValue) {
+          encodeTop(minValueAsBytes);
+          minValue = minValueAsBytes;
+        } else {
+          minValue = null;
+        }
+      } else {
+        encodeBottom(minValueAsBytes);
+        minValue = minValueAsBytes;
+        if (hasTopValue) {
+          encodeTop(maxValueAsBytes);
+          maxValue = maxValueAsBytes;
+        } else {
+          maxValue = null;
+        }
+      }
+      // when sorting on a single field, documents that have the same value as
+      // the bottom are not competitive since ties are broken by doc id. This
+      // doesn't apply to the top value since documents that compare equal to the
+      // top may still come after the last returned document.
+      final boolean strictMax = singleSort && reverse == false;
+      final boolean strictMin = singleSort && reverse;
+
+      if (skipper != null) {
+        // updating bounds is cheap, the iterator reads them whenever it needs to skip
+        minCompetitiveValue = minValue == null ? Long.MIN_VALUE : sortableBytesToDocValue(minValue);
+        maxCompetitiveValue = maxValue == null ? Long.MAX_VALUE : sortableBytesToDocValue(maxValue);
+        if (competitiveIterator instanceof NumericComparator<?>.SkipperCompetitiveIterator == false) {
+          competitiveIterator = new SkipperCompetitiveIterator();
+        }
+        return;
+      }
+
+      DocIdSetBuilder result = new DocIdSetBuilder(maxDoc);
+      PointValues.IntersectVisitor visitor = new PointValues.IntersectVisitor() {
+        DocIdSetBuilder.BulkAdder adder;
+
+        @Override
+        public void grow(int count) {
+          adder = result.grow(count);
+        }
+
+        @Override
+        public void visit(int docID) {
+          if (docID <= maxDocVisited) {
+            return; // Already visited or skipped
+          }
+          adder.add(docID);
+        }
+
+        @Override
+        public void visit(int docID, byte[] packedValue) {
+          if (docID <= maxDocVisited) {
+            return; // already visited or skipped
+          }
+          if (maxValue != null) {
+            int cmp = Arrays.compareUnsigned(packedValue, 0, bytesCount, maxValue, 0, bytesCount);
+            if (cmp > 0 || (strictMax && cmp == 0)) return;
+          }
+          if (minValue != null) {
+            int cmp = Arrays.compareUnsigned(packedValue, 0, bytesCount, minValue, 0, bytesCount);
+            if (cmp < 0 || (strictMin && cmp == 0)) return;
+          }
+          adder.add(docID); // doc is competitive
+        }
+
+        @Override
+        public PointValues.Relation compare(byte[] minPackedValue, byte[] maxPackedValue) {
+          if (maxValue != null) {
+            int cmp = Arrays.compareUnsigned(minPackedValue, 0, bytesCount, maxValue, 0, bytesCount);
+            if (cmp > 0 || (strictMax && cmp == 0)) return PointValues.Relation.CELL_OUTSIDE_QUERY;
+          }
+          if (minValue != null) {
+            int cmp = Arrays.compareUnsigned(maxPackedValue, 0, bytesCount, minValue, 0, bytesCount);
+            if (cmp < 0 || (strictMin && cmp == 0)) return PointValues.Relation.CELL_OUTSIDE_QUERY;
+          }
+          if ((maxValue == null || Arrays.compareUnsigned(maxPackedValue, 0, bytesCount, maxValue, 0, bytesCount) < 0) &&
+              (minValue == null || Arrays.compareUnsigned(minPackedValue, 0, bytesCount, minValue, 0, bytesCount) > 0)) {
+            return PointValues.Relation.CELL_INSIDE_QUERY;
+          }
+          return PointValues.Relation.CELL_CROSSES_QUERY;
+        }
+      };
+      final long threshold = iteratorCost >>> 3;
+      long estimatedNumberOfMatches = pointValues.estimatePointCount(visitor); // runs in O(log(numPoints))
+      if (estimatedNumberOfMatches >= threshold) {
+        // the new range is not selective enough to be worth materializing, it doesn't reduce number of docs at least 8x
+        return;
+      }
+      pointValues.intersect(visitor);
+      competitiveIterator = result.build().iterator();
+      iteratorCost = competitiveIterator.cost();
+    }
+
+    // skips over intervals of documents whose values are not competitive, documents without values are skipped too
+    private class SkipperCompetitiveIterator extends DocIdSetIterator {
+      private int doc = -1;
+
+      @Override
+      public int docID() {
+        return doc;
+      }
+
+      @Override
+      public int nextDoc() throws IOException {
+        return advance(doc + 1);
+      }
+
+      @Override
+      public int advance(int target) throws IOException {
+        if (target >= maxDoc) {
+          return doc = NO_MORE_DOCS;
+        }
+        skipper.advance(target);
+        skipper.advance(minCompetitiveValue, maxCompetitiveValue);
+        return doc = Math.max(target, skipper.minDocID(0));
+      }
+
+      @Override
+      public long cost() {
+        return maxDoc;
+      }
+    }
   }
 
   /** Parses field's values as double (using {@link
@@ -173,7 +520,18 @@ public abstract class FieldComparator<T> {
      * When a document has no value for the field, {@code missingValue} is substituted.
      */
     public DoubleComparator(int numHits, String field, Double missingValue) {
-      super(field, missingValue != null ? missingValue : 0.0);
+      this(numHits, field, missingValue, false, false);
+    }
+
+    /**
+     * Creates a new comparator based on {@link Double#compare} for {@code numHits}.
+     * When a document has no value for the field, {@code missingValue} is substituted.
+     * If {@code canUsePoints} is true, the field must also be indexed with points
+     * that hold the same values as doc values, which are then used to skip over
+     * non-competitive documents.
+     */
+    public DoubleComparator(int numHits, String field, Double missingValue, boolean reverse, boolean canUsePoints) {
+      super(field, missingValue != null ? missingValue : 0.0, reverse, Double.BYTES, canUsePoints);
       values = new double[numHits];
     }
 
@@ -198,15 +556,18 @@ public abstract class FieldComparator<T> {
     @Override
     public void copy(int slot, int doc) throws IOException {
       values[slot] = getValueForDoc(doc);
+      super.copy(slot, doc);
     }
     
     @Override
-    public void setBottom(final int bottom) {
+    public void setBottom(final int bottom) throws IOException {
       this.bottom = values[bottom];
+      super.setBottom(bottom);
     }
 
     @Override
     public void setTopValue(Double value) {
+      super.setTopValue(value);
       topValue = value;
     }
 
@@ -219,6 +580,24 @@ public abstract class FieldComparator<T> {
     public int compareTop(int doc) throws IOException {
       return Double.compare(topValue, getValueForDoc(doc));
     }
+
+    @Override
+    protected boolean isMissingValueCompetitive() {
+      int result = Double.compare(missingValue, bottom);
+      // in reverse (desc) sort missingValue is competitive when it's greater or equal to bottom,
+      // in asc sort missingValue is competitive when it's smaller or equal to bottom
+      return reverse ? (result >= 0) : (result <= 0);
+    }
+
+    @Override
+    protected void encodeBottom(byte[] packedValue) {
+      NumericUtils.longToSortableBytes(NumericUtils.doubleToSortableLong(bottom), packedValue, 0);
+    }
+
+    @Override
+    protected void encodeTop(byte[] packedValue) {
+      NumericUtils.longToSortableBytes(NumericUtils.doubleToSortableLong(topValue), packedValue, 0);
+    }
   }
 
   /** Parses field's values as float (using {@link
@@ -233,7 +612,18 @@ public abstract class FieldComparator<T> {
      * When a document has no value for the field, {@code missingValue} is substituted. 
      */
     public FloatComparator(int numHits, String field, Float missingValue) {
-      super(field, missingValue != null ? missingValue : 0.0f);
+      this(numHits, field, missingValue, false, false);
+    }
+
+    /**
+     * Creates a new comparator based on {@link Float#compare} for {@code numHits}.
+     * When a document has no value for the field, {@code missingValue} is substituted.
+     * If {@code canUsePoints} is true, the field must also be indexed with points
+     * that hold the same values as doc values, which are then used to skip over
+     * non-competitive documents.
+     */
+    public FloatComparator(int numHits, String field, Float missingValue, boolean reverse, boolean canUsePoints) {
+      super(field, missingValue != null ? missingValue : 0.0f, reverse, Float.BYTES, canUsePoints);
       values = new float[numHits];
     }
     
@@ -258,15 +648,18 @@ public abstract class FieldComparator<T> {
     @Override
     public void copy(int slot, int doc) throws IOException {
       values[slot] = getValueForDoc(doc);
+      super.copy(slot, doc);
     }
     
     @Override
-    public void setBottom(final int bottom) {
+    public void setBottom(final int bottom) throws IOException {
       this.bottom = values[bottom];
+      super.setBottom(bottom);
     }
 
     @Override
     public void setTopValue(Float value) {
+      super.setTopValue(value);
       topValue = value;
     }
 
@@ -279,6 +672,24 @@ public abstract class FieldComparator<T> {
     public int compareTop(int doc) throws IOException {
       return Float.compare(topValue, getValueForDoc(doc));
     }
+
+    @Override
+    protected boolean isMissingValueCompetitive() {
+      int result = Float.compare(missingValue, bottom);
+      // in reverse (desc) sort missingValue is competitive when it's greater or equal to bottom,
+      // in asc sort missingValue is competitive when it's smaller or equal to bottom
+      return reverse ? (result >= 0) : (result <= 0);
+    }
+
+    @Override
+    protected void encodeBottom(byte[] packedValue) {
+      NumericUtils.intToSortableBytes(NumericUtils.floatToSortableInt(bottom), packedValue, 0);
+    }
+
+    @Override
+    protected void encodeTop(byte[] packedValue) {
+      NumericUtils.intToSortableBytes(NumericUtils.floatToSortableInt(topValue), packedValue, 0);
+    }
   }
 
   /** Parses field's values as int (using {@link
@@ -293,7 +704,18 @@ public abstract class FieldComparator<T> {
      * When a document has no value for the field, {@code missingValue} is substituted. 
      */
     public IntComparator(int numHits, String field, Integer missingValue) {
-      super(field, missingValue != null ? missingValue : 0);
+      this(numHits, field, missingValue, false, false);
+    }
+
+    /**
+     * Creates a new comparator based on {@link Integer#compare} for {@code numHits}.
+     * When a document has no value for the field, {@code missingValue} is substituted.
+     * If {@code canUsePoints} is true, the field must also be indexed with points
+     * that hold the same values as doc values, which are then used to skip over
+     * non-competitive documents.
+     */
+    public IntComparator(int numHits, String field, Integer missingValue, boolean reverse, boolean canUsePoints) {
+      super(field, missingValue != null ? missingValue : 0, reverse, Integer.BYTES, canUsePoints);
       //System.out.println("IntComparator.init");
       //new Throwable().printStackTrace(System.out);
       values = new int[numHits];
@@ -320,15 +742,18 @@ public abstract class FieldComparator<T> {
     @Override
     public void copy(int slot, int doc) throws IOException {
       values[slot] = getValueForDoc(doc);
+      super.copy(slot, doc);
     }
     
     @Override
-    public void setBottom(final int bottom) {
+    public void setBottom(final int bottom) throws IOException {
       this.bottom = values[bottom];
+      super.setBottom(bottom);
     }
 
     @Override
     public void setTopValue(Integer value) {
+      super.setTopValue(value);
       topValue = value;
     }
 
@@ -341,6 +766,29 @@ public abstract class FieldComparator<T> {
     public int compareTop(int doc) throws IOException {
       return Integer.compare(topValue, getValueForDoc(doc));
     }
+
+    @Override
+    protected boolean isMissingValueCompetitive() {
+      int result = Integer.compare(missingValue, bottom);
+      // in reverse (desc) sort missingValue is competitive when it's greater or equal to bottom,
+      // in asc sort missingValue is competitive when it's smaller or equal to bottom
+      return reverse ? (result >= 0) : (result <= 0);
+    }
+
+    @Override
+    protected void encodeBottom(byte[] packedValue) {
+      NumericUtils.intToSortableBytes(bottom, packedValue, 0);
+    }
+
+    @Override
+    protected void encodeTop(byte[] packedValue) {
+      NumericUtils.intToSortableBytes(topValue, packedValue, 0);
+    }
+
+    @Override
+    protected DocValuesSkipper getDocValuesSkipper(LeafReaderContext context) throws IOException {
+      return context.reader().getDocValuesSkipper(field);
+    }
   }
 
   /** Parses field's values as long (using {@link
@@ -355,7 +803,18 @@ public abstract class FieldComparator<T> {
      * When a document has no value for the field, {@code missingValue} is substituted. 
      */
     public LongComparator(int numHits, String field, Long missingValue) {
-      super(field, missingValue != null ? missingValue : 0L);
+      this(numHits, field, missingValue, false, false);
+    }
+
+    /**
+     * Creates a new comparator based on {@link Long#compare} for {@code numHits}.
+     * When a document has no value for the field, {@code missingValue} is substituted.
+     * If {@code canUsePoints} is true, the field must also be indexed with points
+     * that hold the same values as doc values, which are then used to skip over
+     * non-competitive documents.
+     */
+    public LongComparator(int numHits, String field, Long missingValue, boolean reverse, boolean canUsePoints) {
+      super(field, missingValue != null ? missingValue : 0L, reverse, Long.BYTES, canUsePoints);
       values = new long[numHits];
     }
 
@@ -380,15 +839,18 @@ public abstract class FieldComparator<T> {
     @Override
     public void copy(int slot, int doc) throws IOException {
       values[slot] = getValueForDoc(doc);
+      super.copy(slot, doc);
     }
     
     @Override
-    public void setBottom(final int bottom) {
+    public void setBottom(final int bottom) throws IOException {
       this.bottom = values[bottom];
+      super.setBottom(bottom);
     }
 
     @Override
     public void setTopValue(Long value) {
+      super.setTopValue(value);
       topValue = value;
     }
 
@@ -401,6 +863,29 @@ public abstract class FieldComparator<T> {
     public int compareTop(int doc) throws IOException {
       return Long.compare(topValue, getValueForDoc(doc));
     }
+
+    @Override
+    protected boolean isMissingValueCompetitive() {
+      int result = Long.compare(missingValue, bottom);
+      // in reverse (desc) sort missingValue is competitive when it's greater or equal to bottom,
+      // in asc sort missingValue is competitive when it's smaller or equal to bottom
+      return reverse ? (result >= 0) : (result <= 0);
+    }
+
+    @Override
+    protected void encodeBottom(byte[] packedValue) {
+      NumericUtils.longToSortableBytes(bottom, packedValue, 0);
+    }
+
+    @Override
+    protected void encodeTop(byte[] packedValue) {
+      NumericUtils.longToSortableBytes(topValue, packedValue, 0);
+    }
+
+    @Override
+    protected DocValuesSkipper getDocValuesSkipper(LeafReaderContext context) throws IOException {
+      return context.reader().getDocValuesSkipper(field);
+    }
   }
 
   /** Sorts by descending relevance.  NOTE: if you are
@@ -129,6 +129,8 @@ public class IndexSearcher {
   private QueryCache queryCache = DEFAULT_QUERY_CACHE;
   private QueryCachingPolicy queryCachingPolicy = DEFAULT_CACHING_POLICY;
 
+  private boolean reorderLeaves;
+
   /**
    * Expert: returns a default Similarity instance.
    * In general, this method is only called to initialize searchers and writers.
@@ -305,6 +307,21 @@ public class IndexSearcher {
    */
   public static LeafSlice[] slices (List<LeafReaderContext> leaves, int maxDocsPerSlice,
                                     int maxSegmentsPerSlice) {
+    return slices(leaves, maxDocsPerSlice, maxSegmentsPerSlice, false);
+  }
+
+  /**
+   * Static method to segregate LeafReaderContexts amongst multiple slices.
+   * If {@code allowSegmentPartitions} is {@code true}, segments that have more
+   * than {@code maxDocsPerSlice} documents are split into ranges of doc IDs
+   * that have at most {@code maxDocsPerSlice} documents each, so that a single
+   * large segment may be searched by several threads concurrently.
+   */
+  public static LeafSlice[] slices (List<LeafReaderContext> leaves, int maxDocsPerSlice,
+                                    int maxSegmentsPerSlice, boolean allowSegmentPartitions) {
+    if (maxDocsPerSlice <= 0) {
+      throw new IllegalArgumentException("maxDocsPerSlice must be > 0, got " + maxDocsPerSlice);
+    }
     // Make a copy so we can sort:
     List<LeafReaderContext> sortedLeaves = new ArrayList<>(leaves);
 
@@ -312,13 +329,26 @@ public class IndexSearcher {
     Collections.sort(sortedLeaves,
         Collections.reverseOrder(Comparator.comparingInt(l -> l.reader().maxDoc())));
 
+    final List<LeafSlice> partitionedSlices = new ArrayList<>();
     final List<List<LeafReaderContext>> groupedLeaves = new ArrayList<>();
     long docSum = 0;
     List<LeafReaderContext> group = null;
     for (LeafReaderContext ctx : sortedLeaves) {
-      if (ctx.reader().maxDoc() > maxDocsPerSlice) {
+      final int maxDoc = ctx.reader().maxDoc();
+      if (maxDoc > maxDocsPerSlice) {
         assert group == null;
-        groupedLeaves.add(Collections.singletonList(ctx));
+        if (allowSegmentPartitions) {
+          // split the segment into ranges of doc IDs of about the same size
+          final int numPartitions = (maxDoc + maxDocsPerSlice - 1) / maxDocsPerSlice;
+          for (int i = 0; i < numPartitions; ++i) {
+            final int minDocId = (int) ((long) maxDoc * i / numPartitions);
+            final int maxDocId = (int) ((long) maxDoc * (i + 1) / numPartitions);
+            partitionedSlices.add(new LeafSlice(new LeafReaderContextPartition[] {
+                LeafReaderContextPartition.createFromAndTo(ctx, minDocId, maxDocId) }));
+          }
+        } else {
+          groupedLeaves.add(Collections.singletonList(ctx));
+        }
       } else {
         if (group == null) {
           group = new ArrayList<>();
@@ -337,8 +367,12 @@ public class IndexSearcher {
       }
     }
 
-    LeafSlice[] slices = new LeafSlice[groupedLeaves.size()];
+    LeafSlice[] slices = new LeafSlice[partitionedSlices.size() + groupedLeaves.size()];
     int upto = 0;
+    for (LeafSlice slice : partitionedSlices) {
+      slices[upto] = slice;
+      ++upto;
+    }
     for (List<LeafReaderContext> currentLeaf : groupedLeaves) {
       slices[upto] = new LeafSlice(currentLeaf);
       ++upto;
@@ -347,6 +381,120 @@ public class IndexSearcher {
     return slices;
   }
 
+  /**
+   * Static method to create slices that have about the same estimated cost
+   * for the given {@link Weight}. The cost of a segment is the
+   * {@link ScorerSupplier#cost() cost} of its {@link ScorerSupplier}, and
+   * segments whose cost is greater than the average cost of a slice are
+   * split into ranges of doc IDs of at least {@code minDocsPerPartition}
+   * documents, assuming that matches are uniformly distributed across doc IDs.
+   * Segments and partitions are then greedily assigned to the slice that has
+   * the lowest cost so far. A slice never contains two partitions of the same
+   * segment.
+   * <p>
+   * NOTE: Computing costs requires to pull a {@link ScorerSupplier} for every
+   * segment, which may be costly for some queries.
+   *
+   * @param weight the weight whose cost should be balanced across slices
+   * @param leaves the leaves to segregate
+   * @param numSlices the maximum number of slices to return, typically the
+   *        number of threads that may search concurrently
+   * @param minDocsPerPartition the minimum number of documents of a partition
+   *        of a segment
+   * @lucene.experimental
+   */
+  public static LeafSlice[] costBalancedSlices(Weight weight, List<LeafReaderContext> leaves,
+      int numSlices, int minDocsPerPartition) throws IOException {
+    if (numSlices <= 0) {
+      throw new IllegalArgumentException("numSlices must be > 0, got " + numSlices);
+    }
+    if (minDocsPerPartition <= 0) {
+      throw new IllegalArgumentException("minDocsPerPartition must be > 0, got " + minDocsPerPartition);
+    }
+
+    final long[] costs = new long[leaves.size()];
+    long totalCost = 0;
+    for (int i = 0; i < leaves.size(); ++i) {
+      final ScorerSupplier scorerSupplier = weight.scorerSupplier(leaves.get(i));
+      costs[i] = scorerSupplier == null ? 0 : scorerSupplier.cost();
+      totalCost += costs[i];
+    }
+    final long targetCost = Math.max(1, (totalCost + numSlices - 1) / numSlices);
+
+    // a partition of a segment along with its estimated cost
+    class Unit {
+      final int leafOrd;
+      final LeafReaderContextPartition partition;
+      final long cost;
+
+      Unit(int leafOrd, LeafReaderContextPartition partition, long cost) {
+        this.leafOrd = leafOrd;
+        this.partition = partition;
+        this.cost = cost;
+      }
+    }
+
+    final List<Unit> units = new ArrayList<>();
+    for (int i = 0; i < leaves.size(); ++i) {
+      final LeafReaderContext ctx = leaves.get(i);
+      final int maxDoc = ctx.reader().maxDoc();
+      long numPartitions = (costs[i] + targetCost - 1) / targetCost;
+      numPartitions = Math.min(numPartitions, maxDoc / minDocsPerPartition);
+      numPartitions = Math.min(numPartitions, numSlices);
+      if (numPartitions <= 1) {
+        units.add(new Unit(i, LeafReaderContextPartition.createForEntireSegment(ctx), costs[i]));
+      } else {
+        for (int p = 0; p < numPartitions; ++p) {
+          final int minDocId = (int) ((long) maxDoc * p / numPartitions);
+          final int maxDocId = (int) ((long) maxDoc * (p + 1) / numPartitions);
+          units.add(new Unit(i, LeafReaderContextPartition.createFromAndTo(ctx, minDocId, maxDocId), costs[i] / numPartitions));
+        }
+      }
+    }
+
+    // assign the most costly units first to the slice that has the lowest cost
+    units.sort(Comparator.<Unit>comparingLong(u -> u.cost).reversed());
+    final long[] sliceCosts = new long[Math.min(numSlices, units.size())];
+    final List<List<Unit>> sliceUnits = new ArrayList<>();
+    for (int i = 0; i < sliceCosts.length; ++i) {
+      sliceUnits.add(new ArrayList<>());
+    }
+    for (Unit unit : units) {
+      int best = -1;
+      for (int i = 0; i < sliceCosts.length; ++i) {
+        if (best != -1 && sliceCosts[i] >= sliceCosts[best]) {
+          continue;
+        }
+        boolean hasSameLeaf = false;
+        for (Unit other : sliceUnits.get(i)) {
+          if (other.leafOrd == unit.leafOrd) {
+            hasSameLeaf = true;
+            break;
+          }
+        }
+        if (hasSameLeaf == false) {
+          best = i;
+        }
+      }
+      // there are at most numSlices partitions per segment so there is always a candidate
+      assert best != -1;
+      sliceCosts[best] += unit.cost;
+      sliceUnits.get(best).add(unit);
+    }
+
+    final List<LeafSlice> slices = new ArrayList<>();
+    for (List<Unit> slice : sliceUnits) {
+      if (slice.isEmpty() == false) {
+        final LeafReaderContextPartition[] partitions = new LeafReaderContextPartition[slice.size()];
+        for (int i = 0; i < partitions.length; ++i) {
+          partitions[i] = slice.get(i).partition;
+        }
+        slices.add(new LeafSlice(partitions));
+      }
+    }
+    return slices.toArray(new LeafSlice[0]);
+  }
+
   /** Return the {@link IndexReader} this searches. */
   public IndexReader getIndexReader() {
     return reader;
@@ -390,6 +538,32 @@ public class IndexSearcher {
     return similarity;
   }
 
+  /**
+   * Expert: Set whether searches that are sorted by a numeric field may
+   * collect leaves in a different order than the order of the index. When
+   * enabled, leaves that are sorted by the leading sort field, see
+   * {@link org.apache.lucene.index.IndexWriterConfig#setIndexSort}, and whose best value is the most
+   * competitive are collected first so that more leaves or ranges of
+   * documents may be skipped, for instance when sorting by decreasing
+   * timestamp on an index that is sorted by increasing timestamp. This only
+   * applies to {@link TopFieldCollector}s that don't need to count hits
+   * accurately. The default is {@code false}.
+   * @lucene.experimental
+   */
+  public void setReorderLeaves(boolean reorderLeaves) {
+    this.reorderLeaves = reorderLeaves;
+  }
+
+  /**
+   * Returns whether sorted searches may collect leaves in a different order
+   * than the order of the index.
+   * @see #setReorderLeaves(boolean)
+   * @lucene.experimental
+   */
+  public boolean getReorderLeaves() {
+    return reorderLeaves;
+  }
+
   /**
    * Count how many documents match the given query.
    */
@@ -465,24 +639,32 @@ public class IndexSearcher {
 
     final int cappedNumHits = Math.min(numHits, limit);
 
-    final CollectorManager<TopScoreDocCollector, TopDocs> manager = new CollectorManager<TopScoreDocCollector, TopDocs>() {
+    final CollectorManager<TopScoreDocCollector, TopDocs> manager;
+    if (executor == null || leafSlices.length <= 1) {
+      manager = new CollectorManager<TopScoreDocCollector, TopDocs>() {
 
-      @Override
-      public TopScoreDocCollector newCollector() throws IOException {
-        return TopScoreDocCollector.create(cappedNumHits, after, TOTAL_HITS_THRESHOLD);
-      }
+        @Override
+        public TopScoreDocCollector newCollector() throws IOException {
+          return TopScoreDocCollector.create(cappedNumHits, after, TOTAL_HITS_THRESHOLD);
+        }
 
-      @Override
-      public TopDocs reduce(Collection<TopScoreDocCollector> collectors) throws IOException {
-        final TopDocs[] topDocs = new TopDocs[collectors.size()];
-        int i = 0;
-        for (TopScoreDocCollector collector : collectors) {
-          topDocs[i++] = collector.topDocs();
+        @Override
+        public TopDocs reduce(Collection<TopScoreDocCollector> collectors) throws IOException {
+          final TopDocs[] topDocs = new TopDocs[collectors.size()];
+          int i = 0;
+          for (TopScoreDocCollector collector : collectors) {
+            topDocs[i++] = collector.topDocs();
+          }
+          return TopDocs.merge(0, cappedNumHits, topDocs);
         }
-        return TopDocs.merge(0, cappedNumHits, topDocs);
-      }
 
-    };
+      };
+    } else {
+      // slices share the hit count and the minimum competitive score so that
+      // each of them can skip non-competitive hits as soon as any other slice
+      // has found enough good hits
+      manager = TopScoreDocCollector.createSharedManager(cappedNumHits, after, TOTAL_HITS_THRESHOLD);
+    }
 
     return search(query, manager);
   }
@@ -508,7 +690,7 @@ public class IndexSearcher {
   public void search(Query query, Collector results)
     throws IOException {
     query = rewrite(query);
-    search(leafContexts, createWeight(query, results.scoreMode(), 1), results);
+    search(collectionOrder(leafContexts, results), createWeight(query, results.scoreMode(), 1), results);
   }
 
   /** Search implementation with arbitrary sorting, plus
@@ -593,25 +775,30 @@ public class IndexSearcher {
     final int cappedNumHits = Math.min(numHits, limit);
     final Sort rewrittenSort = sort.rewrite(this);
 
-    final CollectorManager<TopFieldCollector, TopFieldDocs> manager = new CollectorManager<TopFieldCollector, TopFieldDocs>() {
+    final CollectorManager<TopFieldCollector, TopFieldDocs> manager;
+    if (executor == null || leafSlices.length <= 1) {
+      manager = new CollectorManager<TopFieldCollector, TopFieldDocs>() {
 
-      @Override
-      public TopFieldCollector newCollector() throws IOException {
-        // TODO: don't pay the price for accurate hit counts by default
-        return TopFieldCollector.create(rewrittenSort, cappedNumHits, after, TOTAL_HITS_THRESHOLD);
-      }
+        @Override
+        public TopFieldCollector newCollector() throws IOException {
+          // TODO: don't pay the price for accurate hit counts by default
+          return TopFieldCollector.create(rewrittenSort, cappedNumHits, after, TOTAL_HITS_THRESHOLD);
+        }
 
-      @Override
-      public TopFieldDocs reduce(Collection<TopFieldCollector> collectors) throws IOException {
-        final TopFieldDocs[] topDocs = new TopFieldDocs[collectors.size()];
-        int i = 0;
-        for (TopFieldCollector collector : collectors) {
-          topDocs[i++] = collector.topDocs();
+        @Override
+        public TopFieldDocs reduce(Collection<TopFieldCollector> collectors) throws IOException {
+          final TopFieldDocs[] topDocs = new TopFieldDocs[collectors.size()];
+          int i = 0;
+          for (TopFieldCollector collector : collectors) {
+            topDocs[i++] = collector.topDocs();
+          }
+          return TopDocs.merge(rewrittenSort, 0, cappedNumHits, topDocs);
         }
-        return TopDocs.merge(rewrittenSort, 0, cappedNumHits, topDocs);
-      }
 
-    };
+      };
+    } else {
+      manager = TopFieldCollector.createSharedManager(rewrittenSort, cappedNumHits, after, TOTAL_HITS_THRESHOLD);
+    }
 
     TopFieldDocs topDocs = search(query, manager);
     if (doDocScores) {
@@ -630,43 +817,44 @@ public class IndexSearcher {
   * @lucene.experimental
   */
   public <C extends Collector, T> T search(Query query, CollectorManager<C, T> collectorManager) throws IOException {
-    if (executor == null || leafSlices.length <= 1) {
+    if (executor == null || leafSlices.length == 0) {
       final C collector = collectorManager.newCollector();
       search(query, collector);
       return collectorManager.reduce(Collections.singletonList(collector));
     } else {
-      final List<C> collectors = new ArrayList<>(leafSlices.length);
-      ScoreMode scoreMode = null;
-      for (int i = 0; i < leafSlices.length; ++i) {
+      final C firstCollector = collectorManager.newCollector();
+      final ScoreMode scoreMode = firstCollector.scoreMode();
+      query = rewrite(query);
+      final Weight weight = createWeight(query, scoreMode, 1);
+      final LeafSlice[] slices = slices(weight);
+      if (slices.length <= 1) {
+        search(collectionOrder(leafContexts, firstCollector), weight, firstCollector);
+        return collectorManager.reduce(Collections.singletonList(firstCollector));
+      }
+
+      final List<C> collectors = new ArrayList<>(slices.length);
+      collectors.add(firstCollector);
+      for (int i = 1; i < slices.length; ++i) {
         final C collector = collectorManager.newCollector();
         collectors.add(collector);
-        if (scoreMode == null) {
-          scoreMode = collector.scoreMode();
-        } else if (scoreMode != collector.scoreMode()) {
+        if (scoreMode != collector.scoreMode()) {
           throw new IllegalStateException("CollectorManager does not always produce collectors with the same score mode");
         }
       }
-      if (scoreMode == null) {
-        // no segments
-        scoreMode = ScoreMode.COMPLETE;
-      }
-      query = rewrite(query);
-      final Weight weight = createWeight(query, scoreMode, 1);
-      final List<Future<C>> topDocsFutures = new ArrayList<>(leafSlices.length);
-      for (int i = 0; i < leafSlices.length - 1; ++i) {
-        final LeafReaderContext[] leaves = leafSlices[i].leaves;
+      final List<Future<C>> topDocsFutures = new ArrayList<>(slices.length);
+      for (int i = 0; i < slices.length - 1; ++i) {
+        final LeafSlice slice = slices[i];
         final C collector = collectors.get(i);
         FutureTask<C> task = new FutureTask<>(() -> {
-          search(Arrays.asList(leaves), weight, collector);
+          search(slice, weight, collector);
           return collector;
         });
         executor.execute(task);
         topDocsFutures.add(task);
       }
-      final LeafReaderContext[] leaves = leafSlices[leafSlices.length - 1].leaves;
-      final C collector = collectors.get(leafSlices.length - 1);
+      final C collector = collectors.get(slices.length - 1);
       // execute the last on the caller thread
-      search(Arrays.asList(leaves), weight, collector);
+      search(slices[slices.length - 1], weight, collector);
       topDocsFutures.add(CompletableFuture.completedFuture(collector));
       final List<C> collectedCollectors = new ArrayList<>();
       for (Future<C> future : topDocsFutures) {
@@ -682,6 +870,36 @@ public class IndexSearcher {
     }
   }
 
+  /**
+   * Expert: Returns the slices to use in order to run the given {@link Weight}
+   * concurrently. This is only called if an {@link Executor} was passed to the
+   * constructor. The default implementation returns the slices that have been
+   * computed by {@link #slices(List)} when this searcher was created, this may
+   * be overridden in order to plan slices depending on the query, for instance
+   * with {@link #costBalancedSlices}.
+   * @lucene.experimental
+   */
+  protected LeafSlice[] slices(Weight weight) throws IOException {
+    return leafSlices;
+  }
+
+  private void search(LeafSlice slice, Weight weight, Collector collector) throws IOException {
+    if (slice.hasPartialLeaves) {
+      search(slice.partitions, weight, collector);
+    } else {
+      search(collectionOrder(Arrays.asList(slice.leaves), collector), weight, collector);
+    }
+  }
+
+  // Sorted top hits may be collected faster if the leaves that are the most
+  // likely to contain competitive hits are collected first
+  private List<LeafReaderContext> collectionOrder(List<LeafReaderContext> leaves, Collector collector) throws IOException {
+    if (reorderLeaves && collector instanceof TopFieldCollector) {
+      return ((TopFieldCollector) collector).sortLeaves(leaves);
+    }
+    return leaves;
+  }
+
   /**
    * Lower-level search API.
    * 
@@ -728,6 +946,46 @@ public class IndexSearcher {
     }
   }
 
+  /**
+   * Lower-level search API, similar to {@link #search(List, Weight, Collector)}
+   * but on partitions of leaves. Only the documents whose ID is in the range of
+   * a partition are collected. Partitions must not contain several partitions
+   * of the same leaf.
+   *
+   * @param partitions
+   *          the partitions of the searchers leaves to execute the searches on
+   * @param weight
+   *          to match documents
+   * @param collector
+   *          to receive hits
+   * @throws TooManyClauses If a query would exceed
+   *         {@link IndexSearcher#getMaxClauseCount()} clauses.
+   * @lucene.experimental
+   */
+  protected void search(LeafReaderContextPartition[] partitions, Weight weight, Collector collector)
+      throws IOException {
+    for (LeafReaderContextPartition partition : partitions) { // search each partition
+      final LeafReaderContext ctx = partition.ctx;
+      final LeafCollector leafCollector;
+      try {
+        leafCollector = collector.getLeafCollector(ctx);
+      } catch (CollectionTerminatedException e) {
+        // there is no doc of interest in this reader context
+        // continue with the following partition
+        continue;
+      }
+      BulkScorer scorer = weight.bulkScorer(ctx);
+      if (scorer != null) {
+        try {
+          scorer.score(leafCollector, ctx.reader().getLiveDocs(), partition.minDocId, partition.maxDocId);
+        } catch (CollectionTerminatedException e) {
+          // collection was terminated prematurely
+          // continue with the following partition
+        }
+      }
+    }
+  }
+
   /** Expert: called to re-write queries into primitive queries.
    * @throws TooManyClauses If a query would exceed
    *         {@link IndexSearcher#getMaxClauseCount()} clauses.
@@ -847,10 +1105,88 @@ public class IndexSearcher {
      *
      *  @lucene.experimental */
     public final LeafReaderContext[] leaves;
+
+    /** The partitions of leaves that make up this slice, sorted by doc ID.
+     *
+     *  @lucene.experimental */
+    public final LeafReaderContextPartition[] partitions;
+
+    // whether some partitions only cover a subset of the documents of their leaf
+    private final boolean hasPartialLeaves;
     
     public LeafSlice(List<LeafReaderContext> leavesList) {
       Collections.sort(leavesList, Comparator.comparingInt(l -> l.docBase));
       this.leaves = leavesList.toArray(new LeafReaderContext[0]);
+      this.partitions = new LeafReaderContextPartition[leaves.length];
+      for (int i = 0; i < leaves.length; ++i) {
+        partitions[i] = LeafReaderContextPartition.createForEntireSegment(leaves[i]);
+      }
+      this.hasPartialLeaves = false;
+    }
+
+    /** Create a slice out of partitions of leaves. Partitions must belong to
+     *  different leaves.
+     *
+     *  @lucene.experimental */
+    public LeafSlice(LeafReaderContextPartition[] partitions) {
+      this.partitions = partitions.clone();
+      Arrays.sort(this.partitions, Comparator.comparingInt(p -> p.ctx.docBase));
+      this.leaves = new LeafReaderContext[this.partitions.length];
+      boolean hasPartialLeaves = false;
+      for (int i = 0; i < this.partitions.length; ++i) {
+        final LeafReaderContextPartition partition = this.partitions[i];
+        if (i > 0 && partition.ctx == this.partitions[i - 1].ctx) {
+          throw new IllegalArgumentException("A slice may not contain several partitions of the same leaf");
+        }
+        leaves[i] = partition.ctx;
+        if (partition.minDocId != 0 || partition.maxDocId < partition.ctx.reader().maxDoc()) {
+          hasPartialLeaves = true;
+        }
+      }
+      this.hasPartialLeaves = hasPartialLeaves;
+    }
+  }
+
+  /**
+   * A range of doc IDs of a {@link LeafReaderContext}, which allows to search
+   * a single large segment with several threads.
+   *
+   * @lucene.experimental
+   */
+  public static final class LeafReaderContextPartition {
+
+    /** The leaf that this partition belongs to. */
+    public final LeafReaderContext ctx;
+    /** The first doc ID of this partition, inclusive. */
+    public final int minDocId;
+    /** The last doc ID of this partition, exclusive. */
+    public final int maxDocId;
+
+    private LeafReaderContextPartition(LeafReaderContext ctx, int minDocId, int maxDocId) {
+      if (minDocId < 0 || minDocId > maxDocId) {
+        throw new IllegalArgumentException("Illegal range of doc IDs: [" + minDocId + ", " + maxDocId + ")");
+      }
+      if (maxDocId > ctx.reader().maxDoc()) {
+        throw new IllegalArgumentException("maxDocId is greater than maxDoc: " + maxDocId + " > " + ctx.reader().maxDoc());
+      }
+      this.ctx = ctx;
+      this.minDocId = minDocId;
+      this.maxDocId = maxDocId;
+    }
+
+    /** Create a partition that covers all documents of the given leaf. */
+    public static LeafReaderContextPartition createForEntireSegment(LeafReaderContext ctx) {
+      return new LeafReaderContextPartition(ctx, 0, ctx.reader().maxDoc());
+    }
+
+    /** Create a partition that covers documents whose ID is in {@code [minDocId, maxDocId)}. */
+    public static LeafReaderContextPartition createFromAndTo(LeafReaderContext ctx, int minDocId, int maxDocId) {
+      return new LeafReaderContextPartition(ctx, minDocId, maxDocId);
+    }
+
+    @Override
+    public String toString() {
+      return "LeafReaderContextPartition(ord=" + ctx.ord + ", docs=[" + minDocId + ", " + maxDocId + "))";
     }
   }
 
@@ -18,17 +18,19 @@ package org.apache.lucene.search;
 
 
 import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.ConcurrentModificationException;
+import java.util.Deque;
 import java.util.IdentityHashMap;
-import java.util.Iterator;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Predicate;
 
@@ -41,10 +43,10 @@ import org.apache.lucene.util.Accountable;
 import org.apache.lucene.util.Accountables;
 import org.apache.lucene.util.BitDocIdSet;
 import org.apache.lucene.util.FixedBitSet;
+import org.apache.lucene.util.RamUsageEstimator;
 import org.apache.lucene.util.RoaringDocIdSet;
 
 import static org.apache.lucene.util.RamUsageEstimator.HASHTABLE_RAM_BYTES_PER_ENTRY;
-import static org.apache.lucene.util.RamUsageEstimator.LINKED_HASHTABLE_RAM_BYTES_PER_ENTRY;
 import static org.apache.lucene.util.RamUsageEstimator.QUERY_DEFAULT_RAM_BYTES_USED;
 
 /**
@@ -52,7 +54,13 @@ import static org.apache.lucene.util.RamUsageEstimator.QUERY_DEFAULT_RAM_BYTES_U
  * eviction policy in order to remain under a given maximum size and number of
  * bytes used.
  *
- * This class is thread-safe.
+ * This class is thread-safe. Lookups do not take any lock: cache entries are
+ * stored in concurrent per-segment partitions and lookups only flag the
+ * queries that they hit. Queries are evicted with the second-chance (CLOCK)
+ * approximation of LRU: queries are visited in the order in which they were
+ * cached, and queries that have been hit since they were last visited are
+ * moved to the back of the queue instead of being evicted. Adding entries to
+ * the cache and evicting entries is serialized through a lock.
  *
  * Note that query eviction runs in linear time with the total number of
  * segments that have cache entries so this cache works best with
@@ -80,35 +88,45 @@ import static org.apache.lucene.util.RamUsageEstimator.QUERY_DEFAULT_RAM_BYTES_U
  * or per-query-class statistics, it is possible to override various callbacks:
  * {@link #onHit}, {@link #onMiss},
  * {@link #onQueryCache}, {@link #onQueryEviction},
- * {@link #onDocIdSetCache}, {@link #onDocIdSetEviction} and {@link #onClear}.
+ * {@link #onDocIdSetCache}, {@link #onDocIdSetEviction}, {@link #onDocIdSetRelease}
+ * and {@link #onClear}.
  * It is better to not perform heavy computations in these methods though since
- * they are called synchronously and under a lock.
+ * they are called synchronously. All callbacks but {@link #onHit} and
+ * {@link #onMiss} are called under a lock, {@link #onHit} and {@link #onMiss}
+ * may be called concurrently from multiple threads.
  *
  * @see QueryCachingPolicy
  * @lucene.experimental
  */
 public class LRUQueryCache implements QueryCache, Accountable {
 
+  // RAM usage of the entry that tracks whether a query has been used, and of its slot in the eviction queue
+  private static final long QUERY_ENTRY_RAM_BYTES_USED =
+      RamUsageEstimator.shallowSizeOfInstance(QueryEntry.class) + RamUsageEstimator.NUM_BYTES_OBJECT_REF;
+
   private final int maxSize;
   private final long maxRamBytesUsed;
   private final Predicate<LeafReaderContext> leavesToCache;
   // maps queries that are contained in the cache to a singleton so that this
-  // cache does not store several copies of the same query
-  private final Map<Query, Query> uniqueQueries;
-  // The contract between this set and the per-leaf caches is that per-leaf caches
+  // cache does not store several copies of the same query, along with
+  // whether the query has been used recently.
+  // The contract between this map and the per-leaf caches is that per-leaf caches
   // are only allowed to store sub-sets of the queries that are contained in
-  // mostRecentlyUsedQueries. This is why write operations are performed under a lock
-  private final Set<Query> mostRecentlyUsedQueries;
+  // uniqueQueries. This is why write operations are performed under a lock
+  private final Map<Query, QueryEntry> uniqueQueries;
   private final Map<IndexReader.CacheKey, LeafCache> cache;
   private final ReentrantLock lock;
+  // entries of uniqueQueries, in the order in which they will be considered for eviction
+  private final Deque<QueryEntry> evictionQueue;
 
   // these variables are volatile so that we do not need to sync reads
   // but increments need to be performed under the lock
   private volatile long ramBytesUsed;
-  private volatile long hitCount;
-  private volatile long missCount;
   private volatile long cacheCount;
   private volatile long cacheSize;
+  // lookups don't take the lock
+  private final LongAdder hitCount;
+  private final LongAdder missCount;
 
   /**
    * Expert: Create a new instance that will cache at most <code>maxSize</code>
@@ -120,11 +138,14 @@ public class LRUQueryCache implements QueryCache, Accountable {
     this.maxSize = maxSize;
     this.maxRamBytesUsed = maxRamBytesUsed;
     this.leavesToCache = leavesToCache;
-    uniqueQueries = new LinkedHashMap<>(16, 0.75f, true);
-    mostRecentlyUsedQueries = uniqueQueries.keySet();
-    cache = new IdentityHashMap<>();
+    uniqueQueries = new ConcurrentHashMap<>();
+    // CacheKey doesn't override equals/hashCode so this map has identity semantics
+    cache = new ConcurrentHashMap<>();
     lock = new ReentrantLock();
+    evictionQueue = new ArrayDeque<>();
     ramBytesUsed = 0;
+    hitCount = new LongAdder();
+    missCount = new LongAdder();
   }
 
   /**
@@ -170,23 +191,23 @@ public class LRUQueryCache implements QueryCache, Accountable {
    * Expert: callback when there is a cache hit on a given query.
    * Implementing this method is typically useful in order to compute more
    * fine-grained statistics about the query cache.
+   * This method may be called concurrently from multiple threads.
    * @see #onMiss
    * @lucene.experimental
    */
   protected void onHit(Object readerCoreKey, Query query) {
-    assert lock.isHeldByCurrentThread();
-    hitCount += 1;
+    hitCount.increment();
   }
 
   /**
    * Expert: callback when there is a cache miss on a given query.
+   * This method may be called concurrently from multiple threads.
    * @see #onHit
    * @lucene.experimental
    */
   protected void onMiss(Object readerCoreKey, Query query) {
-    assert lock.isHeldByCurrentThread();
     assert query != null;
-    missCount += 1;
+    missCount.increment();
   }
 
   /**
@@ -247,10 +268,26 @@ public class LRUQueryCache implements QueryCache, Accountable {
     cacheSize = 0;
   }
 
-  /** Whether evictions are required. */
-  boolean requiresEviction() {
+  /**
+   * Expert: callback when this cache stops referencing a {@link DocIdSet} that
+   * has been created by {@link #cacheImpl}, either because it has been
+   * evicted, because it was not added since another thread cached the same
+   * query concurrently, or because the cache has been cleared. Searches that
+   * started before the set was released may still be using it.
+   * @lucene.experimental
+   */
+  protected void onDocIdSetRelease(Object readerCoreKey, DocIdSet set) {
+    assert lock.isHeldByCurrentThread();
+  }
+
+  /**
+   * Expert: whether queries need to be evicted in order to stay under the
+   * limits of this cache.
+   * @lucene.experimental
+   */
+  protected boolean requiresEviction() {
     assert lock.isHeldByCurrentThread();
-    final int size = mostRecentlyUsedQueries.size();
+    final int size = uniqueQueries.size();
     if (size == 0) {
       return false;
     } else {
@@ -259,7 +296,6 @@ public class LRUQueryCache implements QueryCache, Accountable {
   }
 
   DocIdSet get(Query key, LeafReaderContext context, IndexReader.CacheHelper cacheHelper) {
-    assert lock.isHeldByCurrentThread();
     assert key instanceof BoostQuery == false;
     assert key instanceof ConstantScoreQuery == false;
     final IndexReader.CacheKey readerKey = cacheHelper.getKey();
@@ -268,16 +304,21 @@ public class LRUQueryCache implements QueryCache, Accountable {
       onMiss(readerKey, key);
       return null;
     }
-    // this get call moves the query to the most-recently-used position
-    final Query singleton = uniqueQueries.get(key);
-    if (singleton == null) {
+    final QueryEntry entry = uniqueQueries.get(key);
+    if (entry == null) {
       onMiss(readerKey, key);
       return null;
     }
+    final Query singleton = entry.query;
     final DocIdSet cached = leafCache.get(singleton);
     if (cached == null) {
       onMiss(readerKey, singleton);
     } else {
+      // give the query a second chance on eviction, only write if needed to
+      // avoid contention on entries of popular queries
+      if (entry.referenced == false) {
+        entry.referenced = true;
+      }
       onHit(readerKey, singleton);
     }
     return cached;
@@ -286,14 +327,17 @@ public class LRUQueryCache implements QueryCache, Accountable {
   void putIfAbsent(Query query, LeafReaderContext context, DocIdSet set, IndexReader.CacheHelper cacheHelper) {
     assert query instanceof BoostQuery == false;
     assert query instanceof ConstantScoreQuery == false;
-    // under a lock to make sure that mostRecentlyUsedQueries and cache remain sync'ed
+    // under a lock to make sure that uniqueQueries and cache remain sync'ed
     lock.lock();
     try {
-      Query singleton = uniqueQueries.putIfAbsent(query, query);
-      if (singleton == null) {
-        onQueryCache(query, LINKED_HASHTABLE_RAM_BYTES_PER_ENTRY + QUERY_DEFAULT_RAM_BYTES_USED);
+      QueryEntry newEntry = null;
+      QueryEntry entry = uniqueQueries.get(query);
+      if (entry == null) {
+        entry = newEntry = new QueryEntry(query);
+        uniqueQueries.put(query, entry);
+        onQueryCache(query, HASHTABLE_RAM_BYTES_PER_ENTRY + QUERY_ENTRY_RAM_BYTES_USED + QUERY_DEFAULT_RAM_BYTES_USED);
       } else {
-        query = singleton;
+        query = entry.query;
       }
       final IndexReader.CacheKey key = cacheHelper.getKey();
       LeafCache leafCache = cache.get(key);
@@ -307,6 +351,12 @@ public class LRUQueryCache implements QueryCache, Accountable {
       }
       leafCache.putIfAbsent(query, set);
       evictIfNecessary();
+      if (newEntry != null) {
+        // only enqueue the new entry after making room for it, so that it
+        // doesn't get evicted before older entries that got a second chance
+        evictionQueue.add(newEntry);
+        evictIfNecessary();
+      }
     } finally {
       lock.unlock();
     }
@@ -314,24 +364,30 @@ public class LRUQueryCache implements QueryCache, Accountable {
 
   void evictIfNecessary() {
     assert lock.isHeldByCurrentThread();
-    // under a lock to make sure that mostRecentlyUsedQueries and cache keep sync'ed
-    if (requiresEviction()) {
-
-      Iterator<Query> iterator = mostRecentlyUsedQueries.iterator();
-      do {
-        final Query query = iterator.next();
-        final int size = mostRecentlyUsedQueries.size();
-        iterator.remove();
-        if (size == mostRecentlyUsedQueries.size()) {
-          // size did not decrease, because the hash of the query changed since it has been
-          // put into the cache
-          throw new ConcurrentModificationException("Removal from the cache failed! This " +
-              "is probably due to a query which has been modified after having been put into " +
-              " the cache or a badly implemented clone(). Query class: [" + query.getClass() +
-              "], query: [" + query + "]");
-        }
-        onEviction(query);
-      } while (iterator.hasNext() && requiresEviction());
+    // under a lock to make sure that uniqueQueries and cache keep sync'ed
+    // bound the number of second chances in case concurrent lookups keep flagging entries
+    int secondChances = evictionQueue.size();
+    while (requiresEviction()) {
+      final QueryEntry entry = evictionQueue.poll();
+      if (entry == null) {
+        // only the entry that is being added is left
+        break;
+      }
+      if (entry.referenced && secondChances-- > 0) {
+        entry.referenced = false;
+        evictionQueue.add(entry);
+        continue;
+      }
+      final Query query = entry.query;
+      if (uniqueQueries.remove(query, entry) == false) {
+        // the entry could not be found, because the hash of the query changed since it has been
+        // put into the cache
+        throw new ConcurrentModificationException("Removal from the cache failed! This " +
+            "is probably due to a query which has been modified after having been put into " +
+            " the cache or a badly implemented clone(). Query class: [" + query.getClass() +
+            "], query: [" + query + "]");
+      }
+      onEviction(query);
     }
   }
 
@@ -347,6 +403,7 @@ public class LRUQueryCache implements QueryCache, Accountable {
         final int numEntries = leafCache.cache.size();
         if (numEntries > 0) {
           onDocIdSetEviction(coreKey, numEntries, leafCache.ramBytesUsed);
+          leafCache.release();
         } else {
           assert numEntries == 0;
           assert leafCache.ramBytesUsed == 0;
@@ -363,9 +420,10 @@ public class LRUQueryCache implements QueryCache, Accountable {
   public void clearQuery(Query query) {
     lock.lock();
     try {
-      final Query singleton = uniqueQueries.remove(query);
-      if (singleton != null) {
-        onEviction(singleton);
+      final QueryEntry entry = uniqueQueries.remove(query);
+      if (entry != null) {
+        evictionQueue.remove(entry);
+        onEviction(entry.query);
       }
     } finally {
       lock.unlock();
@@ -374,7 +432,7 @@ public class LRUQueryCache implements QueryCache, Accountable {
 
   private void onEviction(Query singleton) {
     assert lock.isHeldByCurrentThread();
-    onQueryEviction(singleton, LINKED_HASHTABLE_RAM_BYTES_PER_ENTRY + QUERY_DEFAULT_RAM_BYTES_USED);
+    onQueryEviction(singleton, HASHTABLE_RAM_BYTES_PER_ENTRY + QUERY_ENTRY_RAM_BYTES_USED + QUERY_DEFAULT_RAM_BYTES_USED);
     for (LeafCache leafCache : cache.values()) {
       leafCache.remove(singleton);
     }
@@ -386,10 +444,14 @@ public class LRUQueryCache implements QueryCache, Accountable {
   public void clear() {
     lock.lock();
     try {
+      final List<LeafCache> leafCaches = new ArrayList<>(cache.values());
       cache.clear();
-      // Note that this also clears the uniqueQueries map since mostRecentlyUsedQueries is the uniqueQueries.keySet view:
-      mostRecentlyUsedQueries.clear();
+      uniqueQueries.clear();
+      evictionQueue.clear();
       onClear();
+      for (LeafCache leafCache : leafCaches) {
+        leafCache.release();
+      }
     } finally {
       lock.unlock();
     }
@@ -400,21 +462,31 @@ public class LRUQueryCache implements QueryCache, Accountable {
     lock.lock();
     try {
       if (requiresEviction()) {
-        throw new AssertionError("requires evictions: size=" + mostRecentlyUsedQueries.size()
+        throw new AssertionError("requires evictions: size=" + uniqueQueries.size()
             + ", maxSize=" + maxSize + ", ramBytesUsed=" + ramBytesUsed() + ", maxRamBytesUsed=" + maxRamBytesUsed);
       }
+      if (evictionQueue.size() != uniqueQueries.size()) {
+        throw new AssertionError("evictionQueue size mismatch : " + evictionQueue.size() + " != " + uniqueQueries.size());
+      }
+      Set<Query> singletons = Collections.newSetFromMap(new IdentityHashMap<>());
+      for (QueryEntry entry : evictionQueue) {
+        if (uniqueQueries.get(entry.query) != entry) {
+          throw new AssertionError("evictionQueue contains an entry that is not cached: " + entry.query);
+        }
+        singletons.add(entry.query);
+      }
       for (LeafCache leafCache : cache.values()) {
         Set<Query> keys = Collections.newSetFromMap(new IdentityHashMap<>());
         keys.addAll(leafCache.cache.keySet());
-        keys.removeAll(mostRecentlyUsedQueries);
+        keys.removeAll(singletons);
         if (!keys.isEmpty()) {
           throw new AssertionError("One leaf cache contains more keys than the top-level cache: " + keys);
         }
       }
       long recomputedRamBytesUsed =
             HASHTABLE_RAM_BYTES_PER_ENTRY * cache.size()
-          + LINKED_HASHTABLE_RAM_BYTES_PER_ENTRY * uniqueQueries.size();
-      recomputedRamBytesUsed += mostRecentlyUsedQueries.size() * QUERY_DEFAULT_RAM_BYTES_USED;
+          + (HASHTABLE_RAM_BYTES_PER_ENTRY + QUERY_ENTRY_RAM_BYTES_USED) * uniqueQueries.size();
+      recomputedRamBytesUsed += uniqueQueries.size() * QUERY_DEFAULT_RAM_BYTES_USED;
       for (LeafCache leafCache : cache.values()) {
         recomputedRamBytesUsed += HASHTABLE_RAM_BYTES_PER_ENTRY * leafCache.cache.size();
         for (DocIdSet set : leafCache.cache.values()) {
@@ -438,11 +510,21 @@ public class LRUQueryCache implements QueryCache, Accountable {
   }
 
   // pkg-private for testing
-  // return the list of cached queries in LRU order
+  // return the list of cached queries in the order in which they would be evicted
   List<Query> cachedQueries() {
     lock.lock();
     try {
-      return new ArrayList<>(mostRecentlyUsedQueries);
+      final List<Query> queries = new ArrayList<>();
+      final List<Query> referencedQueries = new ArrayList<>();
+      for (QueryEntry entry : evictionQueue) {
+        if (entry.referenced) {
+          referencedQueries.add(entry.query);
+        } else {
+          queries.add(entry.query);
+        }
+      }
+      queries.addAll(referencedQueries);
+      return queries;
     } finally {
       lock.unlock();
     }
@@ -543,7 +625,7 @@ public class LRUQueryCache implements QueryCache, Accountable {
    * @see #getMissCount()
    */
   public final long getHitCount() {
-    return hitCount;
+    return hitCount.sum();
   }
 
   /**
@@ -554,7 +636,7 @@ public class LRUQueryCache implements QueryCache, Accountable {
    * @see #getHitCount()
    */
   public final long getMissCount() {
-    return missCount;
+    return missCount.sum();
   }
 
   /**
@@ -594,16 +676,30 @@ public class LRUQueryCache implements QueryCache, Accountable {
     return getCacheCount() - getCacheSize();
   }
 
-  // this class is not thread-safe, everything but ramBytesUsed needs to be called under a lock
+  // a cached query and whether it has been used since it was last considered for eviction
+  private static class QueryEntry {
+
+    final Query query;
+    // set by lookups without synchronization, cleared under the lock
+    volatile boolean referenced;
+
+    QueryEntry(Query query) {
+      this.query = query;
+    }
+  }
+
+  // the per-segment partition of the cache: get may be called concurrently,
+  // but everything else needs to be called under the lock
   private class LeafCache implements Accountable {
 
     private final Object key;
+    // keys are singletons from uniqueQueries
     private final Map<Query, DocIdSet> cache;
     private volatile long ramBytesUsed;
 
     LeafCache(Object key) {
       this.key = key;
-      cache = new IdentityHashMap<>();
+      cache = new ConcurrentHashMap<>();
       ramBytesUsed = 0;
     }
 
@@ -629,6 +725,8 @@ public class LRUQueryCache implements QueryCache, Accountable {
       if (cache.putIfAbsent(query, set) == null) {
         // the set was actually put
         onDocIdSetCache(HASHTABLE_RAM_BYTES_PER_ENTRY + set.ramBytesUsed());
+      } else {
+        LRUQueryCache.this.onDocIdSetRelease(key, set);
       }
     }
 
@@ -638,6 +736,15 @@ public class LRUQueryCache implements QueryCache, Accountable {
       DocIdSet removed = cache.remove(query);
       if (removed != null) {
         onDocIdSetEviction(HASHTABLE_RAM_BYTES_PER_ENTRY + removed.ramBytesUsed());
+        LRUQueryCache.this.onDocIdSetRelease(key, removed);
+      }
+    }
+
+    // notify that all sets of this leaf cache are no longer referenced, once
+    // this leaf cache has been removed from the cache
+    void release() {
+      for (DocIdSet set : cache.values()) {
+        LRUQueryCache.this.onDocIdSetRelease(key, set);
       }
     }
 
@@ -707,7 +814,7 @@ public class LRUQueryCache implements QueryCache, Accountable {
       }
 
       // Short-circuit: Check whether this segment is eligible for caching
-      // before we take a lock because of #get
+      // before we look up the cache
       if (shouldCache(context) == false) {
         return in.scorerSupplier(context);
       }
@@ -718,17 +825,7 @@ public class LRUQueryCache implements QueryCache, Accountable {
         return in.scorerSupplier(context);
       }
 
-      // If the lock is already busy, prefer using the uncached version than waiting
-      if (lock.tryLock() == false) {
-        return in.scorerSupplier(context);
-      }
-
-      DocIdSet docIdSet;
-      try {
-        docIdSet = get(in.getQuery(), context, cacheHelper);
-      } finally {
-        lock.unlock();
-      }
+      DocIdSet docIdSet = get(in.getQuery(), context, cacheHelper);
 
       if (docIdSet == null) {
         if (policy.shouldCache(in.getQuery())) {
@@ -788,7 +885,7 @@ public class LRUQueryCache implements QueryCache, Accountable {
       }
 
       // Short-circuit: Check whether this segment is eligible for caching
-      // before we take a lock because of #get
+      // before we look up the cache
       if (shouldCache(context) == false) {
         return in.bulkScorer(context);
       }
@@ -799,17 +896,7 @@ public class LRUQueryCache implements QueryCache, Accountable {
         return in.bulkScorer(context);
       }
 
-      // If the lock is already busy, prefer using the uncached version than waiting
-      if (lock.tryLock() == false) {
-        return in.bulkScorer(context);
-      }
-
-      DocIdSet docIdSet;
-      try {
-        docIdSet = get(in.getQuery(), context, cacheHelper);
-      } finally {
-        lock.unlock();
-      }
+      DocIdSet docIdSet = get(in.getQuery(), context, cacheHelper);
 
       if (docIdSet == null) {
         if (policy.shouldCache(in.getQuery())) {
@@ -93,4 +93,31 @@ public interface LeafCollector {
    */
   void collect(int doc) throws IOException;
 
+  /**
+   * Bulk-collect doc IDs. This is called instead of {@link #collect(int)} by
+   * {@link BulkScorer}s that can produce batches of matches, typically when
+   * scores are not needed. Scorers may still call {@link #collect(int)} on
+   * matches, so implementations must keep supporting it.
+   * <p>Note: The {@link Scorable#docID()} of the scorer passed to
+   * {@link #setScorer} is only guaranteed to be up-to-date if the stream is
+   * consumed via {@link DocIdStream#forEach}.
+   * <p>The default implementation calls {@link #collect(int)} on every doc ID
+   * of the stream.
+   */
+  default void collect(DocIdStream stream) throws IOException {
+    stream.forEach(this::collect);
+  }
+
+  /**
+   * Optionally returns an iterator over competitive documents.
+   *
+   * Collectors should delegate this method to their comparators if
+   * their comparators provide the skipping functionality over non-competitive docs.
+   *
+   * The default is to return {@code null} which is interpreted as the collector doesn't provide any competitive iterator.
+   */
+  default DocIdSetIterator competitiveIterator() throws IOException {
+    return null;
+  }
+
 }
@@ -17,11 +17,13 @@
 package org.apache.lucene.search;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Objects;
 
 import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.index.NumericDocValues;
 import org.apache.lucene.search.similarities.Similarity.SimScorer;
+import org.apache.lucene.util.ArrayUtil;
 
 /**
  * {@link SimScorer} on a specific {@link LeafReader}.
@@ -30,6 +32,7 @@ public final class LeafSimScorer {
 
   private final SimScorer scorer;
   private final NumericDocValues norms;
+  private long[] normValues = new long[0];
 
   /**
    * Sole constructor: Score documents of {@code reader} with {@code scorer}.
@@ -61,6 +64,28 @@ public final class LeafSimScorer {
     return scorer.score(freq, getNormValue(doc));
   }
 
+  /** Score a batch of documents: {@code scores[i]} is set to the score of
+   *  {@code docs[i]} assuming a term document frequency of {@code freqs[i]}.
+   *  {@code scores} may be the same array as {@code freqs}. Doc IDs must be
+   *  increasing within a batch and across calls.
+   *  @see SimScorer#score(float[], long[], float[], int) */
+  public void score(int[] docs, float[] freqs, float[] scores, int size) throws IOException {
+    if (normValues.length < size) {
+      normValues = new long[ArrayUtil.oversize(size, Long.BYTES)];
+    }
+    final long[] normValues = this.normValues;
+    if (norms != null) {
+      for (int i = 0; i < size; ++i) {
+        boolean found = norms.advanceExact(docs[i]);
+        assert found;
+        normValues[i] = norms.longValue();
+      }
+    } else {
+      Arrays.fill(normValues, 0, size, 1L); // default norm
+    }
+    scorer.score(freqs, normValues, scores, size);
+  }
+
   /** Explain the score for the provided document assuming the given term document frequency.
    *  This method must be called on non-decreasing sequences of doc ids.
    *  @see SimScorer#explain(Explanation, long) */
@@ -58,10 +58,21 @@ public final class MatchAllDocsQuery extends Query {
             ScoreAndDoc scorer = new ScoreAndDoc();
             scorer.score = score;
             collector.setScorer(scorer);
-            for (int doc = min; doc < max; ++doc) {
-              scorer.doc = doc;
-              if (acceptDocs == null || acceptDocs.get(doc)) {
-                collector.collect(doc);
+            final DocIdSetIterator competitiveIterator = collector.competitiveIterator();
+            if (competitiveIterator == null) {
+              for (int doc = min; doc < max; ++doc) {
+                scorer.doc = doc;
+                if (acceptDocs == null || acceptDocs.get(doc)) {
+                  collector.collect(doc);
+                }
+              }
+            } else {
+              // the collector may skip non-competitive documents
+              for (int doc = competitiveIterator.advance(min); doc < max; doc = competitiveIterator.nextDoc()) {
+                scorer.doc = doc;
+                if (acceptDocs == null || acceptDocs.get(doc)) {
+                  collector.collect(doc);
+                }
               }
             }
             return max == maxDoc ? DocIdSetIterator.NO_MORE_DOCS : max;
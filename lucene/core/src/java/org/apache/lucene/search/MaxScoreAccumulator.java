@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.search;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * Maintains the maximum score and its corresponding document id concurrently.
+ * Collectors that run on different slices of the same search publish the
+ * minimum competitive score of their local queue here, and read back the
+ * maximum of these values in order to skip non-competitive hits sooner.
+ */
+final class MaxScoreAccumulator {
+  // we use 2^10-1 to check the remainder with a bitwise operation
+  static final int DEFAULT_INTERVAL = 0x3ff;
+
+  // scores are always positive
+  final LongAccumulator acc = new LongAccumulator(MaxScoreAccumulator::maxEncode, Long.MIN_VALUE);
+
+  // non-final and visible for tests
+  long modInterval;
+
+  MaxScoreAccumulator() {
+    this.modInterval = DEFAULT_INTERVAL;
+  }
+
+  /**
+   * Return the max encoded DocAndScore in a way that is consistent with {@link DocAndScore#compareTo}.
+   */
+  private static long maxEncode(long v1, long v2) {
+    float score1 = Float.intBitsToFloat((int) (v1 >> 32));
+    float score2 = Float.intBitsToFloat((int) (v2 >> 32));
+    int cmp = Float.compare(score1, score2);
+    if (cmp == 0) {
+      // tie-break on the minimum doc id
+      return (int) v1 < (int) v2 ? v1 : v2;
+    } else if (cmp > 0) {
+      return v1;
+    }
+    return v2;
+  }
+
+  void accumulate(int docID, float score) {
+    assert docID >= 0 && score >= 0;
+    long encode = (((long) Float.floatToIntBits(score)) << 32) | docID;
+    acc.accumulate(encode);
+  }
+
+  DocAndScore get() {
+    long value = acc.get();
+    if (value == Long.MIN_VALUE) {
+      return null;
+    }
+    float score = Float.intBitsToFloat((int) (value >> 32));
+    int docID = (int) value;
+    return new DocAndScore(docID, score);
+  }
+
+  static class DocAndScore implements Comparable<DocAndScore> {
+    final int docID;
+    final float score;
+
+    DocAndScore(int docID, float score) {
+      this.docID = docID;
+      this.score = score;
+    }
+
+    @Override
+    public int compareTo(DocAndScore o) {
+      int cmp = Float.compare(score, o.score);
+      if (cmp == 0) {
+        // tie-break on the minimum doc id
+        // For a given minimum competitive score, we want to know the first
+        // document where this score occurred, hence the reverse order here.
+        // Documents whose id is less than this doc id are competitive if their
+        // score is greater than or equal to this score, while documents with a
+        // greater doc id need a strictly greater score since we tie-break on
+        // doc ID.
+        return Integer.compare(o.docID, docID);
+      }
+      return cmp;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+      DocAndScore result = (DocAndScore) o;
+      return docID == result.docID &&
+          Float.compare(result.score, score) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(docID, score);
+    }
+
+    @Override
+    public String toString() {
+      return "DocAndScore{" +
+          "docID=" + docID +
+          ", score=" + score +
+          '}';
+    }
+  }
+}
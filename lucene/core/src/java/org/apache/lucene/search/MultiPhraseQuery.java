@@ -26,11 +26,13 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 
+import org.apache.lucene.index.ImpactsEnum;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexReaderContext;
 import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.PostingsEnum;
+import org.apache.lucene.index.SlowImpactsEnum;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.index.TermState;
 import org.apache.lucene.index.TermStates;
@@ -271,6 +273,7 @@ public class MultiPhraseQuery extends Query {
         final TermsEnum termsEnum = fieldTerms.iterator();
         float totalMatchCost = 0;
 
+        final int flags = exposeOffsets ? PostingsEnum.ALL : PostingsEnum.POSITIONS;
         for (int pos=0; pos<postingsFreqs.length; pos++) {
           Term[] terms = termArrays[pos];
           List<PostingsEnum> postings = new ArrayList<>();
@@ -279,7 +282,8 @@ public class MultiPhraseQuery extends Query {
             TermState termState = termStates.get(term).get(context);
             if (termState != null) {
               termsEnum.seekExact(term.bytes(), termState);
-              postings.add(termsEnum.postings(null, exposeOffsets ? PostingsEnum.ALL : PostingsEnum.POSITIONS));
+              // impacts are only useful if there is no union to merge them
+              postings.add(scoreMode == ScoreMode.TOP_SCORES && terms.length == 1 ? termsEnum.impacts(flags) : termsEnum.postings(null, flags));
               totalMatchCost += PhraseQuery.termPositionsCost(termsEnum);
             }
           }
@@ -295,16 +299,25 @@ public class MultiPhraseQuery extends Query {
             postingsEnum = exposeOffsets ? new UnionFullPostingsEnum(postings) : new UnionPostingsEnum(postings);
           }
 
-          postingsFreqs[pos] = new PhraseQuery.PostingsAndFreq(postingsEnum, positions[pos], terms);
+          ImpactsEnum impactsEnum = null;
+          if (scoreMode == ScoreMode.TOP_SCORES) {
+            if (postingsEnum instanceof ImpactsEnum) {
+              impactsEnum = (ImpactsEnum) postingsEnum;
+            } else {
+              impactsEnum = new SlowImpactsEnum(postingsEnum);
+            }
+          }
+
+          postingsFreqs[pos] = new PhraseQuery.PostingsAndFreq(postingsEnum, impactsEnum, positions[pos], terms);
         }
 
         // sort by increasing docFreq order
         if (slop == 0) {
           ArrayUtil.timSort(postingsFreqs);
-          return new ExactPhraseMatcher(postingsFreqs, totalMatchCost);
+          return new ExactPhraseMatcher(postingsFreqs, scoreMode, stats, totalMatchCost);
         }
         else {
-          return new SloppyPhraseMatcher(postingsFreqs, slop, totalMatchCost, exposeOffsets);
+          return new SloppyPhraseMatcher(postingsFreqs, slop, scoreMode, stats, totalMatchCost, exposeOffsets);
         }
 
       }
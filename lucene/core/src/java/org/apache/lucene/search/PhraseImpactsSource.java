@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.search;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.lucene.index.Impact;
+import org.apache.lucene.index.Impacts;
+import org.apache.lucene.index.ImpactsEnum;
+import org.apache.lucene.index.ImpactsSource;
+
+/**
+ * {@link ImpactsSource} that merges the impacts of the terms of a phrase in
+ * order to compute upper bounds of the phrase frequency. The frequency of an
+ * exact phrase can't be greater than the minimum frequency of its terms, while
+ * the frequency of a sloppy phrase can't be greater than the sum of the
+ * frequencies of its terms.
+ */
+final class PhraseImpactsSource implements ImpactsSource {
+
+  private static final List<Impact> MAX_IMPACTS = Collections.singletonList(new Impact(Integer.MAX_VALUE, 1L));
+
+  private final ImpactsEnum[] impactsEnums;
+  private final boolean sumFreqs;
+
+  PhraseImpactsSource(ImpactsEnum[] impactsEnums, boolean sumFreqs) {
+    this.impactsEnums = impactsEnums;
+    this.sumFreqs = sumFreqs;
+  }
+
+  @Override
+  public void advanceShallow(int target) throws IOException {
+    for (ImpactsEnum impactsEnum : impactsEnums) {
+      impactsEnum.advanceShallow(target);
+    }
+  }
+
+  @Override
+  public Impacts getImpacts() throws IOException {
+    final Impacts[] impacts = new Impacts[impactsEnums.length];
+    // Use the impacts that have the lower next boundary as a lead.
+    // It will decide on the number of levels and the block boundaries.
+    Impacts tmpLead = null;
+    for (int i = 0; i < impactsEnums.length; ++i) {
+      impacts[i] = impactsEnums[i].getImpacts();
+      if (tmpLead == null || impacts[i].getDocIdUpTo(0) < tmpLead.getDocIdUpTo(0)) {
+        tmpLead = impacts[i];
+      }
+    }
+    final Impacts lead = tmpLead;
+    return new Impacts() {
+
+      @Override
+      public int numLevels() {
+        return lead.numLevels();
+      }
+
+      @Override
+      public int getDocIdUpTo(int level) {
+        return lead.getDocIdUpTo(level);
+      }
+
+      @Override
+      public List<Impact> getImpacts(int level) {
+        final int docIdUpTo = getDocIdUpTo(level);
+        final List<List<Impact>> toMerge = new ArrayList<>(impacts.length);
+        for (int i = 0; i < impacts.length; ++i) {
+          final int subLevel = getLevel(impacts[i], docIdUpTo);
+          if (subLevel == -1) {
+            // these impacts don't cover all doc IDs up to docIdUpTo
+            if (sumFreqs) {
+              return MAX_IMPACTS;
+            }
+            // the minimum over the other terms is still an upper bound
+          } else {
+            toMerge.add(impacts[i].getImpacts(subLevel));
+          }
+        }
+        assert toMerge.isEmpty() == false; // the lead always covers docIdUpTo
+        if (toMerge.size() == 1) {
+          return toMerge.get(0);
+        }
+        final List<Impact> merged = merge(toMerge, sumFreqs);
+        // an empty list means that no document may contain all terms, but
+        // impacts of one term are always a valid upper bound
+        return merged.isEmpty() ? toMerge.get(0) : merged;
+      }
+    };
+  }
+
+  /**
+   * Return the minimum level whose impacts are valid up to {@code docIdUpTo},
+   * or {@code -1} if there is no such level.
+   */
+  private static int getLevel(Impacts impacts, int docIdUpTo) {
+    for (int level = 0, numLevels = impacts.numLevels(); level < numLevels; ++level) {
+      if (impacts.getDocIdUpTo(level) >= docIdUpTo) {
+        return level;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Merge lists of impacts, which are sorted by increasing freq and increasing
+   * unsigned norm, into a single list of impacts whose freq is the minimum or
+   * the sum of the freqs that each list allows for a given norm.
+   */
+  static List<Impact> merge(List<List<Impact>> toMerge, boolean sumFreqs) {
+    final int[] upTo = new int[toMerge.size()];
+    final List<Impact> merged = new ArrayList<>();
+    while (true) {
+      // find the next norm
+      long norm = 0;
+      boolean found = false;
+      for (int i = 0; i < upTo.length; ++i) {
+        final List<Impact> impacts = toMerge.get(i);
+        if (upTo[i] < impacts.size()) {
+          final long n = impacts.get(upTo[i]).norm;
+          if (found == false || Long.compareUnsigned(n, norm) < 0) {
+            norm = n;
+            found = true;
+          }
+        }
+      }
+      if (found == false) {
+        break;
+      }
+
+      // compute the max freq of documents that have this norm
+      long freq = sumFreqs ? 0 : Integer.MAX_VALUE;
+      for (int i = 0; i < upTo.length; ++i) {
+        final List<Impact> impacts = toMerge.get(i);
+        while (upTo[i] < impacts.size() && Long.compareUnsigned(impacts.get(upTo[i]).norm, norm) <= 0) {
+          upTo[i]++;
+        }
+        final int subFreq = upTo[i] == 0 ? 0 : impacts.get(upTo[i] - 1).freq;
+        freq = sumFreqs ? freq + subFreq : Math.min(freq, subFreq);
+      }
+      freq = Math.min(freq, Integer.MAX_VALUE);
+
+      // only keep impacts that are not dominated by the previous one
+      if (freq > 0 && (merged.isEmpty() || freq > merged.get(merged.size() - 1).freq)) {
+        merged.add(new Impact((int) freq, norm));
+      }
+    }
+    return merged;
+  }
+}
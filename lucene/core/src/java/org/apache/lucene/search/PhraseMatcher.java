@@ -18,6 +18,11 @@
 package org.apache.lucene.search;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.lucene.index.ImpactsEnum;
+import org.apache.lucene.search.similarities.Similarity.SimScorer;
 
 /**
  * Base class for exact and sloppy phrase matching
@@ -29,14 +34,39 @@ import java.io.IOException;
 abstract class PhraseMatcher {
 
   protected final DocIdSetIterator approximation;
+  // same as approximation if it can skip non-competitive blocks, null otherwise
+  final ImpactsDISI impactsApproximation;
   private final float matchCost;
 
   PhraseMatcher(DocIdSetIterator approximation, float matchCost) {
     assert TwoPhaseIterator.unwrap(approximation) == null;
     this.approximation = approximation;
+    this.impactsApproximation = approximation instanceof ImpactsDISI ? (ImpactsDISI) approximation : null;
     this.matchCost = matchCost;
   }
 
+  /**
+   * Return the intersection of the given postings. If top scores are
+   * requested, then it is wrapped into an {@link ImpactsDISI} that computes
+   * upper bounds of the phrase frequency from the impacts of the terms, with
+   * {@code sumFreqs} telling whether the frequency of the phrase is bounded by
+   * the sum or by the minimum of the frequencies of its terms.
+   */
+  static DocIdSetIterator approximation(PhraseQuery.PostingsAndFreq[] postings, ScoreMode scoreMode,
+      SimScorer scorer, boolean sumFreqs) {
+    final List<DocIdSetIterator> iterators = new ArrayList<>();
+    final ImpactsEnum[] impacts = new ImpactsEnum[postings.length];
+    for (int i = 0; i < postings.length; ++i) {
+      iterators.add(postings[i].postings);
+      impacts[i] = postings[i].impacts;
+    }
+    final DocIdSetIterator approximation = ConjunctionDISI.intersectIterators(iterators);
+    if (scoreMode == ScoreMode.TOP_SCORES) {
+      return new ImpactsDISI(approximation, new PhraseImpactsSource(impacts, sumFreqs), scorer);
+    }
+    return approximation;
+  }
+
   /**
    * An upper bound on the number of possible matches on this document
    */
@@ -85,11 +85,24 @@ class PhraseScorer extends Scorer {
   @Override
   public void setMinCompetitiveScore(float minScore) {
     this.minCompetitiveScore = minScore;
+    if (matcher.impactsApproximation != null) {
+      matcher.impactsApproximation.setMinCompetitiveScore(minScore);
+    }
+  }
+
+  @Override
+  public int advanceShallow(int target) throws IOException {
+    if (matcher.impactsApproximation != null) {
+      return matcher.impactsApproximation.advanceShallow(target);
+    }
+    return super.advanceShallow(target);
   }
 
   @Override
   public float getMaxScore(int upTo) throws IOException {
-    // TODO: merge impacts of all clauses to get better score upper bounds
+    if (matcher.impactsApproximation != null) {
+      return matcher.impactsApproximation.getMaxScore(upTo);
+    }
     return simScorer.getSimScorer().score(Integer.MAX_VALUE, 1L);
   }
 
@@ -20,6 +20,8 @@ package org.apache.lucene.search;
 import java.io.IOException;
 import java.util.Objects;
 
+import org.apache.lucene.util.Bits;
+
 /**
  * Expert: Common scoring functionality for different types of queries.
  *
@@ -111,4 +113,40 @@ public abstract class Scorer extends Scorable {
    * included and {@code upTo} included.
    */
   public abstract float getMaxScore(int upTo) throws IOException;
+
+  /**
+   * Fill {@code buffer} with the next batch of matching doc IDs and their
+   * scores, starting with the current doc ID included. Only doc IDs that are
+   * less than {@code upTo} and, if {@code acceptDocs} is not null, that are
+   * live in {@code acceptDocs} are added to the buffer. When this method
+   * returns, this scorer is positioned on the first doc ID that has not been
+   * added to the batch, so that the next call returns the next batch.
+   * <p>
+   * This scorer must be positioned on a doc ID and must not expose a
+   * {@link #twoPhaseIterator() two-phase iterator}. The buffer may be empty
+   * if all visited documents were filtered out by {@code acceptDocs}, but
+   * this method always moves this scorer forward if its current doc ID is
+   * less than {@code upTo}.
+   * <p>
+   * The default implementation collects batches of 64 documents and calls
+   * {@link #score()} on them one by one, scorers that can compute scores in
+   * bulk should override it.
+   *
+   * @lucene.experimental
+   */
+  public void nextDocsAndScores(int upTo, Bits acceptDocs, DocAndScoreBuffer buffer) throws IOException {
+    assert twoPhaseIterator() == null;
+    final int batchSize = 64;
+    buffer.growNoCopy(batchSize);
+    final DocIdSetIterator iterator = iterator();
+    int size = 0;
+    for (int doc = docID(); doc < upTo && size < batchSize; doc = iterator.nextDoc()) {
+      if (acceptDocs == null || acceptDocs.get(doc)) {
+        buffer.docs[size] = doc;
+        buffer.scores[size] = score();
+        ++size;
+      }
+    }
+    buffer.size = size;
+  }
 }
@@ -24,9 +24,9 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
-import java.util.List;
 
 import org.apache.lucene.index.Term;
+import org.apache.lucene.search.similarities.Similarity.SimScorer;
 import org.apache.lucene.util.FixedBitSet;
 
 /**
@@ -72,8 +72,10 @@ final class SloppyPhraseMatcher extends PhraseMatcher {
   private boolean positioned;
   private int matchLength;
 
-  SloppyPhraseMatcher(PhraseQuery.PostingsAndFreq[] postings, int slop, float matchCost, boolean captureLeadMatch) {
-    super(approximation(postings), matchCost);
+  SloppyPhraseMatcher(PhraseQuery.PostingsAndFreq[] postings, int slop, ScoreMode scoreMode, SimScorer scorer,
+      float matchCost, boolean captureLeadMatch) {
+    // the freq of a sloppy phrase is bounded by the sum of the freqs of its terms, see maxFreq()
+    super(approximation(postings, scoreMode, scorer, true), matchCost);
     this.slop = slop;
     this.numPostings = postings.length;
     this.captureLeadMatch = captureLeadMatch;
@@ -84,14 +86,6 @@ final class SloppyPhraseMatcher extends PhraseMatcher {
     }
   }
 
-  private static DocIdSetIterator approximation(PhraseQuery.PostingsAndFreq[] postings) {
-    List<DocIdSetIterator> iterators = new ArrayList<>();
-    for (PhraseQuery.PostingsAndFreq posting : postings) {
-      iterators.add(posting.postings);
-    }
-    return ConjunctionDISI.intersectIterators(iterators);
-  }
-
   @Override
   float maxFreq() throws IOException {
     // every term position in each postings list can be at the head of at most
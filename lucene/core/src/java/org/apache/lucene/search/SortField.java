@@ -98,6 +98,9 @@ public class SortField {
   // Used for 'sortMissingFirst/Last'
   protected Object missingValue = null;
 
+  // Indicates if numeric sort should be optimized with Points index. Set to true, if the field was indexed both with doc values and points.
+  private boolean canUsePoints = false;
+
   /** Creates a sort by terms in the given field with the type of term
    * values explicitly given.
    * @param field  Name of field to sort by.  Can be <code>null</code> if
@@ -144,6 +147,26 @@ public class SortField {
     return missingValue;
   }
 
+  /**
+   * For numeric sort fields, setting this field, indicates that
+   * the same numeric data has been indexed with two fields: doc values and points and
+   * that these fields have the same name.
+   * This allows to use sort optimization and skip non-competitive documents.
+   * For {@link Type#INT} and {@link Type#LONG} sorts, segments that don't have
+   * points for the field use the {@link org.apache.lucene.index.DocValuesSkipper}
+   * of the doc values instead, if available, so that this may also be set on
+   * fields that are only indexed with doc values. With a
+   * {@link SortedNumericSortField}, points must hold all values of the field.
+   */
+  public void setCanUsePoints() {
+    this.canUsePoints = true;
+  }
+
+  /** Returns whether sorting may use points that hold the same values as doc values to skip non-competitive documents. */
+  public boolean getCanUsePoints() {
+    return canUsePoints;
+  }
+
   /** Set the value to use for documents that don't have a value. */
   public void setMissingValue(Object missingValue) {
     if (type == Type.STRING || type == Type.STRING_VAL) {
@@ -302,6 +325,7 @@ public class SortField {
       && other.reverse == this.reverse
       && Objects.equals(this.comparatorSource, other.comparatorSource)
       && Objects.equals(this.missingValue, other.missingValue)
+      && other.canUsePoints == this.canUsePoints
     );
   }
 
@@ -310,7 +334,7 @@ public class SortField {
    *  implement hashCode (unless a singleton is always used). */
   @Override
   public int hashCode() {
-    return Objects.hash(field, type, reverse, comparatorSource, missingValue);
+    return Objects.hash(field, type, reverse, comparatorSource, missingValue, canUsePoints);
   }
 
   private Comparator<BytesRef> bytesComparator = Comparator.naturalOrder();
@@ -345,16 +369,16 @@ public class SortField {
       return new FieldComparator.DocComparator(numHits);
 
     case INT:
-      return new FieldComparator.IntComparator(numHits, field, (Integer) missingValue);
+      return new FieldComparator.IntComparator(numHits, field, (Integer) missingValue, reverse, canUsePoints);
 
     case FLOAT:
-      return new FieldComparator.FloatComparator(numHits, field, (Float) missingValue);
+      return new FieldComparator.FloatComparator(numHits, field, (Float) missingValue, reverse, canUsePoints);
 
     case LONG:
-      return new FieldComparator.LongComparator(numHits, field, (Long) missingValue);
+      return new FieldComparator.LongComparator(numHits, field, (Long) missingValue, reverse, canUsePoints);
 
     case DOUBLE:
-      return new FieldComparator.DoubleComparator(numHits, field, (Double) missingValue);
+      return new FieldComparator.DoubleComparator(numHits, field, (Double) missingValue, reverse, canUsePoints);
 
     case CUSTOM:
       assert comparatorSource != null;
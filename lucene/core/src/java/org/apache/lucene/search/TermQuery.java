@@ -112,6 +112,19 @@ public class TermQuery extends Query {
       }
     }
 
+    @Override
+    public BulkScorer bulkScorer(LeafReaderContext context) throws IOException {
+      if (scoreMode != ScoreMode.TOP_SCORES) {
+        return super.bulkScorer(context);
+      }
+      final Scorer scorer = scorer(context);
+      if (scorer == null) {
+        return null;
+      }
+      // only top hits are needed, so we can compute scores by batches
+      return new BatchScoringBulkScorer(scorer);
+    }
+
     @Override
     public boolean isCacheable(LeafReaderContext ctx) {
       return true;
@@ -22,10 +22,14 @@ import java.io.IOException;
 import org.apache.lucene.index.ImpactsEnum;
 import org.apache.lucene.index.PostingsEnum;
 import org.apache.lucene.index.SlowImpactsEnum;
+import org.apache.lucene.util.Bits;
 
 /** Expert: A <code>Scorer</code> for documents matching a <code>Term</code>.
  */
 final class TermScorer extends Scorer {
+  /** Number of documents scored at once by {@link #nextDocsAndScores}. */
+  private static final int BATCH_SIZE = 128;
+
   private final PostingsEnum postingsEnum;
   private final ImpactsEnum impactsEnum;
   private final DocIdSetIterator iterator;
@@ -75,6 +79,24 @@ final class TermScorer extends Scorer {
     return docScorer.score(postingsEnum.docID(), postingsEnum.freq());
   }
 
+  @Override
+  public void nextDocsAndScores(int upTo, Bits acceptDocs, DocAndScoreBuffer buffer) throws IOException {
+    buffer.growNoCopy(BATCH_SIZE);
+    final int[] docs = buffer.docs;
+    // frequencies are stored in the scores array, and then replaced with scores in place
+    final float[] freqs = buffer.scores;
+    int size = 0;
+    for (int doc = postingsEnum.docID(); doc < upTo && size < BATCH_SIZE; doc = iterator.nextDoc()) {
+      if (acceptDocs == null || acceptDocs.get(doc)) {
+        docs[size] = doc;
+        freqs[size] = postingsEnum.freq();
+        ++size;
+      }
+    }
+    buffer.size = size;
+    docScorer.score(docs, freqs, freqs, size);
+  }
+
   @Override
   public int advanceShallow(int target) throws IOException {
     return impactsDisi.advanceShallow(target);
@@ -18,14 +18,20 @@ package org.apache.lucene.search;
 
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Objects;
 
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
 import org.apache.lucene.index.ReaderUtil;
 import org.apache.lucene.search.FieldValueHitQueue.Entry;
+import org.apache.lucene.search.MaxScoreAccumulator.DocAndScore;
 import org.apache.lucene.search.TotalHits.Relation;
 
 /**
@@ -44,13 +50,21 @@ public abstract class TopFieldCollector extends TopDocsCollector<Entry> {
   // always compare lower than a real hit; this would
   // save having to check queueFull on each insert
 
-  private static abstract class MultiComparatorLeafCollector implements LeafCollector {
+  private abstract class MultiComparatorLeafCollector implements LeafCollector {
 
     final LeafFieldComparator comparator;
     final int reverseMul;
+    final LeafFieldComparator[] comparators;
+    final int[] reverseMuls;
+    final int minCompetitiveDoc;
+    final int maxDoc;
     Scorable scorer;
+    // whether the comparator exposed an iterator that may skip non-competitive docs on this leaf
+    boolean canSkipNonCompetitiveDocs;
+    // whether the comparator has been notified that the hits threshold is reached
+    boolean hitsThresholdReached;
 
-    MultiComparatorLeafCollector(LeafFieldComparator[] comparators, int[] reverseMul) {
+    MultiComparatorLeafCollector(LeafFieldComparator[] comparators, int[] reverseMul, int minCompetitiveDoc, int maxDoc) {
       if (comparators.length == 1) {
         this.reverseMul = reverseMul[0];
         this.comparator = comparators[0];
@@ -58,6 +72,10 @@ public abstract class TopFieldCollector extends TopDocsCollector<Entry> {
         this.reverseMul = 1;
         this.comparator = new MultiLeafFieldComparator(comparators, reverseMul);
       }
+      this.comparators = comparators;
+      this.reverseMuls = reverseMul;
+      this.minCompetitiveDoc = minCompetitiveDoc;
+      this.maxDoc = maxDoc;
     }
 
     @Override
@@ -65,6 +83,57 @@ public abstract class TopFieldCollector extends TopDocsCollector<Entry> {
       comparator.setScorer(scorer);
       this.scorer = scorer;
     }
+
+    @Override
+    public DocIdSetIterator competitiveIterator() throws IOException {
+      DocIdSetIterator iterator = comparator.competitiveIterator();
+      if (iterator != null) {
+        canSkipNonCompetitiveDocs = true;
+        if (hitsThresholdChecker.isThresholdReached()) {
+          // the comparator may already skip documents, so the hit count is a lower bound
+          totalHitsRelation = Relation.GREATER_THAN_OR_EQUAL_TO;
+        }
+      }
+      if (minCompetitiveDoc > 0) {
+        // documents before minCompetitiveDoc have a leading sort value that is worse than the bottom
+        totalHitsRelation = Relation.GREATER_THAN_OR_EQUAL_TO;
+        final DocIdSetIterator range = DocIdSetIterator.range(minCompetitiveDoc, maxDoc);
+        iterator = iterator == null ? range : ConjunctionDISI.intersectIterators(Arrays.asList(range, iterator));
+      }
+      return iterator;
+    }
+
+    // Notifies the comparator the first time the hits threshold is reached so
+    // that it can start skipping non-competitive documents
+    void checkHitsThreshold() throws IOException {
+      if (hitsThresholdReached == false && hitsThresholdChecker.isThresholdReached()) {
+        hitsThresholdReached = true;
+        comparator.setHitsThresholdReached();
+        if (canSkipNonCompetitiveDocs) {
+          totalHitsRelation = Relation.GREATER_THAN_OR_EQUAL_TO;
+        }
+      }
+    }
+
+    // Whether the given doc is not competitive with the bottom of the queue. Ties
+    // are broken by doc ID since leaves are not necessarily collected in order,
+    // see TopFieldCollector#sortLeaves.
+    boolean isNonCompetitive(int doc) throws IOException {
+      final int cmp = reverseMul * comparator.compareBottom(doc);
+      return cmp < 0 || (cmp == 0 && docBase + doc > bottom.doc);
+    }
+
+    // Compares the first prefixLength sort values of the given doc with the
+    // bottom of the queue, a negative value means that the doc is worse.
+    int comparePrefixToBottom(int doc, int prefixLength) throws IOException {
+      for (int i = 0; i < prefixLength; ++i) {
+        final int cmp = reverseMuls[i] * comparators[i].compareBottom(doc);
+        if (cmp != 0) {
+          return cmp;
+        }
+      }
+      return 0;
+    }
   }
 
   static boolean canEarlyTerminate(Sort searchSort, Sort indexSort) {
@@ -91,6 +160,59 @@ public abstract class TopFieldCollector extends TopDocsCollector<Entry> {
     }
   }
 
+  /**
+   * Return the number of leading fields that {@code searchSort} and
+   * {@code indexSort} have in common. Documents of a segment that is sorted
+   * by {@code indexSort} are visited in the order of these fields, so a
+   * document whose values for these fields compare worse than the bottom of
+   * the queue means that no following document can be competitive.
+   */
+  static int commonPrefixLength(Sort searchSort, Sort indexSort) {
+    if (indexSort == null) {
+      return 0;
+    }
+    final SortField[] fields1 = searchSort.getSort();
+    final SortField[] fields2 = indexSort.getSort();
+    int i = 0;
+    while (i < fields1.length && i < fields2.length && fields1[i].equals(fields2[i])) {
+      ++i;
+    }
+    return i;
+  }
+
+  /**
+   * Return how documents of a segment that is sorted by {@code indexSort}
+   * are ordered by {@code searchField}: {@code 1} if documents are visited
+   * from the most to the least competitive value, {@code -1} if they are
+   * visited from the least to the most competitive value, typically when
+   * sorting in reverse order of the index sort, and {@code 0} if the order is
+   * unknown. Only numeric fields are supported.
+   */
+  static int leadingFieldOrder(SortField searchField, Sort indexSort) {
+    if (indexSort == null) {
+      return 0;
+    }
+    final SortField indexField = indexSort.getSort()[0];
+    if (searchField.getClass() != SortField.class || indexField.getClass() != SortField.class) {
+      return 0;
+    }
+    switch (searchField.getType()) {
+      case INT:
+      case LONG:
+      case FLOAT:
+      case DOUBLE:
+        break;
+      default:
+        return 0;
+    }
+    if (searchField.getType() != indexField.getType()
+        || searchField.getField().equals(indexField.getField()) == false
+        || Objects.equals(searchField.getMissingValue(), indexField.getMissingValue()) == false) {
+      return 0;
+    }
+    return searchField.getReverse() == indexField.getReverse() ? 1 : -1;
+  }
+
   /*
    * Implements a TopFieldCollector over one SortField criteria, with tracking
    * document scores and maxScore.
@@ -100,8 +222,9 @@ public abstract class TopFieldCollector extends TopDocsCollector<Entry> {
     final Sort sort;
     final FieldValueHitQueue<Entry> queue;
 
-    public SimpleFieldCollector(Sort sort, FieldValueHitQueue<Entry> queue, int numHits, int totalHitsThreshold) {
-      super(queue, numHits, totalHitsThreshold, sort.needsScores());
+    public SimpleFieldCollector(Sort sort, FieldValueHitQueue<Entry> queue, int numHits,
+                                HitsThresholdChecker hitsThresholdChecker, MaxScoreAccumulator minScoreAcc) {
+      super(queue, numHits, hitsThresholdChecker, sort.needsScores(), minScoreAcc);
       this.sort = sort;
       this.queue = queue;
     }
@@ -109,32 +232,46 @@ public abstract class TopFieldCollector extends TopDocsCollector<Entry> {
     @Override
     public LeafCollector getLeafCollector(LeafReaderContext context) throws IOException {
       docBase = context.docBase;
+      final Sort indexSort = context.reader().getMetaData().getSort();
+      final int minCompetitiveDoc = minCompetitiveDoc(context, indexSort);
 
       final LeafFieldComparator[] comparators = queue.getComparators(context);
       final int[] reverseMul = queue.getReverseMul();
-      final Sort indexSort = context.reader().getMetaData().getSort();
       final boolean canEarlyTerminate = canEarlyTerminate(sort, indexSort);
+      final int prefixLength = canEarlyTerminate ? 0 : commonPrefixLength(sort, indexSort);
 
-      return new MultiComparatorLeafCollector(comparators, reverseMul) {
+      return new MultiComparatorLeafCollector(comparators, reverseMul, minCompetitiveDoc, context.reader().maxDoc()) {
 
         boolean collectedAllCompetitiveHits = false;
 
         @Override
         public void setScorer(Scorable scorer) throws IOException {
           super.setScorer(scorer);
+          minCompetitiveScore = 0f;
           updateMinCompetitiveScore(scorer);
+          if (minScoreAcc != null) {
+            updateGlobalMinCompetitiveScore(scorer);
+          }
         }
 
         @Override
         public void collect(int doc) throws IOException {
           ++totalHits;
+          hitsThresholdChecker.incrementHitCount();
+
+          if (minScoreAcc != null && (totalHits & minScoreAcc.modInterval) == 0) {
+            updateGlobalMinCompetitiveScore(scorer);
+          }
+          checkHitsThreshold();
+
           if (queueFull) {
-            if (collectedAllCompetitiveHits || reverseMul * comparator.compareBottom(doc) <= 0) {
-              // since docs are visited in doc Id order, if compare is 0, it means
-              // this document is largest than anything else in the queue, and
-              // therefore not competitive.
-              if (canEarlyTerminate) {
-                if (totalHits > totalHitsThreshold) {
+            if (collectedAllCompetitiveHits || isNonCompetitive(doc)) {
+              // if the index sort starts with some of the sort fields and this
+              // document is worse than the bottom on these fields alone, then
+              // no following document of this segment can be competitive
+              if (collectedAllCompetitiveHits || canEarlyTerminate
+                  || (prefixLength > 0 && comparePrefixToBottom(doc, prefixLength) < 0)) {
+                if (hitsThresholdChecker.isThresholdReached()) {
                   totalHitsRelation = Relation.GREATER_THAN_OR_EQUAL_TO;
                   throw new CollectionTerminatedException();
                 } else {
@@ -181,15 +318,13 @@ public abstract class TopFieldCollector extends TopDocsCollector<Entry> {
     int collectedHits;
     final FieldValueHitQueue<Entry> queue;
     final FieldDoc after;
-    final int totalHitsThreshold;
 
     public PagingFieldCollector(Sort sort, FieldValueHitQueue<Entry> queue, FieldDoc after, int numHits,
-                                int totalHitsThreshold) {
-      super(queue, numHits, totalHitsThreshold, sort.needsScores());
+                                HitsThresholdChecker hitsThresholdChecker, MaxScoreAccumulator minScoreAcc) {
+      super(queue, numHits, hitsThresholdChecker, sort.needsScores(), minScoreAcc);
       this.sort = sort;
       this.queue = queue;
       this.after = after;
-      this.totalHitsThreshold = totalHitsThreshold;
 
       FieldComparator<?>[] comparators = queue.comparators;
       // Tell all comparators their top value:
@@ -205,15 +340,22 @@ public abstract class TopFieldCollector extends TopDocsCollector<Entry> {
       docBase = context.docBase;
       final int afterDoc = after.doc - docBase;
       final Sort indexSort = context.reader().getMetaData().getSort();
+      final int minCompetitiveDoc = minCompetitiveDoc(context, indexSort);
       final boolean canEarlyTerminate = canEarlyTerminate(sort, indexSort);
-      return new MultiComparatorLeafCollector(queue.getComparators(context), queue.getReverseMul()) {
+      final int prefixLength = canEarlyTerminate ? 0 : commonPrefixLength(sort, indexSort);
+      return new MultiComparatorLeafCollector(queue.getComparators(context), queue.getReverseMul(),
+          minCompetitiveDoc, context.reader().maxDoc()) {
 
         boolean collectedAllCompetitiveHits = false;
 
         @Override
         public void setScorer(Scorable scorer) throws IOException {
           super.setScorer(scorer);
+          minCompetitiveScore = 0f;
           updateMinCompetitiveScore(scorer);
+          if (minScoreAcc != null) {
+            updateGlobalMinCompetitiveScore(scorer);
+          }
         }
 
         @Override
@@ -221,16 +363,20 @@ public abstract class TopFieldCollector extends TopDocsCollector<Entry> {
           //System.out.println("  collect doc=" + doc);
 
           totalHits++;
+          hitsThresholdChecker.incrementHitCount();
+
+          if (minScoreAcc != null && (totalHits & minScoreAcc.modInterval) == 0) {
+            updateGlobalMinCompetitiveScore(scorer);
+          }
+          checkHitsThreshold();
 
           if (queueFull) {
             // Fastmatch: return if this hit is no better than
             // the worst hit currently in the queue:
-            if (collectedAllCompetitiveHits || reverseMul * comparator.compareBottom(doc) <= 0) {
-              // since docs are visited in doc Id order, if compare is 0, it means
-              // this document is largest than anything else in the queue, and
-              // therefore not competitive.
-              if (canEarlyTerminate) {
-                if (totalHits > totalHitsThreshold) {
+            if (collectedAllCompetitiveHits || isNonCompetitive(doc)) {
+              if (collectedAllCompetitiveHits || canEarlyTerminate
+                  || (prefixLength > 0 && comparePrefixToBottom(doc, prefixLength) < 0)) {
+                if (hitsThresholdChecker.isThresholdReached()) {
                   totalHitsRelation = Relation.GREATER_THAN_OR_EQUAL_TO;
                   throw new CollectionTerminatedException();
                 } else {
@@ -282,7 +428,7 @@ public abstract class TopFieldCollector extends TopDocsCollector<Entry> {
   private static final ScoreDoc[] EMPTY_SCOREDOCS = new ScoreDoc[0];
 
   final int numHits;
-  final int totalHitsThreshold;
+  final HitsThresholdChecker hitsThresholdChecker;
   final FieldComparator.RelevanceComparator firstComparator;
   final boolean canSetMinScore;
   final int numComparators;
@@ -291,23 +437,40 @@ public abstract class TopFieldCollector extends TopDocsCollector<Entry> {
   int docBase;
   final boolean needsScores;
   final ScoreMode scoreMode;
+  final SortField leadingSortField;
+  final FieldComparator<Object> leadingComparator;
+  final int leadingReverseMul;
+
+  // shared by all collectors of the same search, or null when collection runs on a single thread
+  final MaxScoreAccumulator minScoreAcc;
+  float minCompetitiveScore;
 
   // Declaring the constructor private prevents extending this class by anyone
   // else. Note that the class cannot be final since it's extended by the
   // internal versions. If someone will define a constructor with any other
   // visibility, then anyone will be able to extend the class, which is not what
   // we want.
-  private TopFieldCollector(FieldValueHitQueue<Entry> pq, int numHits, int totalHitsThreshold, boolean needsScores) {
+  private TopFieldCollector(FieldValueHitQueue<Entry> pq, int numHits,
+                            HitsThresholdChecker hitsThresholdChecker, boolean needsScores,
+                            MaxScoreAccumulator minScoreAcc) {
     super(pq);
     this.needsScores = needsScores;
     this.numHits = numHits;
-    this.totalHitsThreshold = totalHitsThreshold;
+    this.hitsThresholdChecker = hitsThresholdChecker;
     this.numComparators = pq.getComparators().length;
     FieldComparator<?> fieldComparator = pq.getComparators()[0];
+    if (numComparators == 1) {
+      fieldComparator.setSingleSort();
+    }
     int reverseMul = pq.reverseMul[0];
+    @SuppressWarnings("unchecked")
+    final FieldComparator<Object> leadingComparator = (FieldComparator<Object>) fieldComparator;
+    this.leadingSortField = pq.getFields()[0];
+    this.leadingComparator = leadingComparator;
+    this.leadingReverseMul = reverseMul;
     if (fieldComparator.getClass().equals(FieldComparator.RelevanceComparator.class)
           && reverseMul == 1 // if the natural sort is preserved (sort by descending relevance)
-          && totalHitsThreshold != Integer.MAX_VALUE) {
+          && hitsThresholdChecker.getHitsThreshold() != Integer.MAX_VALUE) {
       firstComparator = (FieldComparator.RelevanceComparator) fieldComparator;
       scoreMode = ScoreMode.TOP_SCORES;
       canSetMinScore = true;
@@ -316,6 +479,7 @@ public abstract class TopFieldCollector extends TopDocsCollector<Entry> {
       scoreMode = needsScores ? ScoreMode.COMPLETE : ScoreMode.COMPLETE_NO_SCORES;
       canSetMinScore = false;
     }
+    this.minScoreAcc = minScoreAcc;
   }
 
   @Override
@@ -323,12 +487,36 @@ public abstract class TopFieldCollector extends TopDocsCollector<Entry> {
     return scoreMode;
   }
 
+  protected void updateGlobalMinCompetitiveScore(Scorable scorer) throws IOException {
+    assert minScoreAcc != null;
+    if (canSetMinScore
+          && hitsThresholdChecker.isThresholdReached()) {
+      // we can start checking the global maximum score even
+      // if the local queue is not full because the threshold
+      // is reached.
+      DocAndScore maxMinScore = minScoreAcc.get();
+      if (maxMinScore != null && maxMinScore.score > minCompetitiveScore) {
+        scorer.setMinCompetitiveScore(maxMinScore.score);
+        minCompetitiveScore = maxMinScore.score;
+        totalHitsRelation = TotalHits.Relation.GREATER_THAN_OR_EQUAL_TO;
+      }
+    }
+  }
+
   protected void updateMinCompetitiveScore(Scorable scorer) throws IOException {
-    if (canSetMinScore && totalHits > totalHitsThreshold && queueFull) {
+    if (canSetMinScore
+          && queueFull
+          && hitsThresholdChecker.isThresholdReached()) {
       assert bottom != null && firstComparator != null;
       float minScore = firstComparator.value(bottom.slot);
-      scorer.setMinCompetitiveScore(minScore);
-      totalHitsRelation = TotalHits.Relation.GREATER_THAN_OR_EQUAL_TO;
+      if (minScore > minCompetitiveScore) {
+        scorer.setMinCompetitiveScore(minScore);
+        minCompetitiveScore = minScore;
+        totalHitsRelation = TotalHits.Relation.GREATER_THAN_OR_EQUAL_TO;
+        if (minScoreAcc != null) {
+          minScoreAcc.accumulate(bottom.doc, minScore);
+        }
+      }
     }
   }
 
@@ -384,6 +572,14 @@ public abstract class TopFieldCollector extends TopDocsCollector<Entry> {
    */
   public static TopFieldCollector create(Sort sort, int numHits, FieldDoc after,
       int totalHitsThreshold) {
+    return create(sort, numHits, after, HitsThresholdChecker.create(totalHitsThreshold), null);
+  }
+
+  /**
+   * Same as above with additional parameters to allow passing in the threshold checker and the max score accumulator.
+   */
+  static TopFieldCollector create(Sort sort, int numHits, FieldDoc after,
+                                         HitsThresholdChecker hitsThresholdChecker, MaxScoreAccumulator minScoreAcc) {
 
     if (sort.fields.length == 0) {
       throw new IllegalArgumentException("Sort must contain at least one field");
@@ -393,14 +589,14 @@ public abstract class TopFieldCollector extends TopDocsCollector<Entry> {
       throw new IllegalArgumentException("numHits must be > 0; please use TotalHitCountCollector if you just need the total hit count");
     }
 
-    if (totalHitsThreshold < 0) {
-      throw new IllegalArgumentException("totalHitsThreshold must be >= 0, got " + totalHitsThreshold);
+    if (hitsThresholdChecker == null) {
+      throw new IllegalArgumentException("hitsThresholdChecker should not be null");
     }
 
     FieldValueHitQueue<Entry> queue = FieldValueHitQueue.create(sort.fields, numHits);
 
     if (after == null) {
-      return new SimpleFieldCollector(sort, queue, numHits, totalHitsThreshold);
+      return new SimpleFieldCollector(sort, queue, numHits, hitsThresholdChecker, minScoreAcc);
     } else {
       if (after.fields == null) {
         throw new IllegalArgumentException("after.fields wasn't set; you must pass fillFields=true for the previous search");
@@ -410,10 +606,41 @@ public abstract class TopFieldCollector extends TopDocsCollector<Entry> {
         throw new IllegalArgumentException("after.fields has " + after.fields.length + " values but sort has " + sort.getSort().length);
       }
 
-      return new PagingFieldCollector(sort, queue, after, numHits, totalHitsThreshold);
+      return new PagingFieldCollector(sort, queue, after, numHits, hitsThresholdChecker, minScoreAcc);
     }
   }
 
+  /**
+   * Create a CollectorManager which uses a shared hit counter to maintain number of hits
+   * and a shared {@link MaxScoreAccumulator} to propagate the minimum score across segments if
+   * the primary sort is by relevancy. The returned collectors should be used for a single
+   * search, typically through {@link IndexSearcher#search(Query, CollectorManager)}.
+   */
+  public static CollectorManager<TopFieldCollector, TopFieldDocs> createSharedManager(Sort sort, int numHits, FieldDoc after,
+                                                                                        int totalHitsThreshold) {
+    return new CollectorManager<TopFieldCollector, TopFieldDocs>() {
+
+      private final HitsThresholdChecker hitsThresholdChecker = HitsThresholdChecker.createShared(totalHitsThreshold);
+      private final MaxScoreAccumulator minScoreAcc = new MaxScoreAccumulator();
+
+      @Override
+      public TopFieldCollector newCollector() throws IOException {
+        return create(sort, numHits, after, hitsThresholdChecker, minScoreAcc);
+      }
+
+      @Override
+      public TopFieldDocs reduce(Collection<TopFieldCollector> collectors) throws IOException {
+        final TopFieldDocs[] topDocs = new TopFieldDocs[collectors.size()];
+        int i = 0;
+        for (TopFieldCollector collector : collectors) {
+          topDocs[i++] = collector.topDocs();
+        }
+        return TopDocs.merge(sort, 0, numHits, topDocs);
+      }
+
+    };
+  }
+
   /**
    * Populate {@link ScoreDoc#score scores} of the given {@code topDocs}.
    * @param topDocs   the top docs to populate
@@ -453,6 +680,134 @@ public abstract class TopFieldCollector extends TopDocsCollector<Entry> {
     }
   }
 
+  /**
+   * Return the first doc ID of the given leaf that may be competitive, based
+   * on how the leaf is sorted and on the leading sort value of the bottom of
+   * the queue. When the index sort is the reverse of the leading sort field,
+   * documents whose value is worse than the bottom form a prefix of the leaf
+   * that is found with a binary search.
+   * @throws CollectionTerminatedException if no document of the leaf may be competitive
+   */
+  final int minCompetitiveDoc(LeafReaderContext context, Sort indexSort) throws IOException {
+    final LeafReader reader = context.reader();
+    final int maxDoc = reader.maxDoc();
+    if (queueFull == false || hitsThresholdChecker.isThresholdReached() == false || maxDoc == 0) {
+      return 0;
+    }
+    final int order = leadingFieldOrder(leadingSortField, indexSort);
+    if (order == 0) {
+      return 0;
+    }
+    final Object bottomValue = leadingComparator.value(bottom.slot);
+    final LeadingValues values = new LeadingValues(reader);
+    final int minCompetitiveDoc;
+    if (order > 0) {
+      // the first doc has the most competitive value
+      minCompetitiveDoc = compareLeadingValueToBottom(values, 0, bottomValue) < 0 ? maxDoc : 0;
+    } else {
+      // the last doc has the most competitive value, find the last doc that is
+      // worse than the bottom by moving forward with decreasing steps, which
+      // only needs to go back after probing a competitive doc
+      int lastWorseDoc = -1;
+      for (int step = Integer.highestOneBit(maxDoc); step > 0; step >>>= 1) {
+        final int doc = lastWorseDoc + step;
+        if (doc < maxDoc && compareLeadingValueToBottom(values, doc, bottomValue) < 0) {
+          lastWorseDoc = doc;
+        }
+      }
+      minCompetitiveDoc = lastWorseDoc + 1;
+    }
+    if (minCompetitiveDoc == maxDoc) {
+      totalHitsRelation = Relation.GREATER_THAN_OR_EQUAL_TO;
+      throw new CollectionTerminatedException();
+    }
+    return minCompetitiveDoc;
+  }
+
+  // Compares the leading sort value of the given doc with the bottom, a negative value means that the doc is worse.
+  private int compareLeadingValueToBottom(LeadingValues values, int doc, Object bottomValue) throws IOException {
+    return leadingReverseMul * leadingComparator.compareValues(bottomValue, values.get(doc));
+  }
+
+  // Reads leading sort values of a leaf, as they would be returned by FieldComparator#value. Doc values
+  // are pulled once per leaf, and only pulled again when going back since docs are not necessarily
+  // visited in order.
+  private final class LeadingValues {
+
+    private final LeafReader reader;
+    private NumericDocValues values;
+
+    LeadingValues(LeafReader reader) {
+      this.reader = reader;
+    }
+
+    Object get(int doc) throws IOException {
+      if (values == null || doc < values.docID()) {
+        values = DocValues.getNumeric(reader, leadingSortField.getField());
+      }
+      final Object missingValue = leadingSortField.getMissingValue();
+      final boolean exists = values.advanceExact(doc);
+      final long value = exists ? values.longValue() : 0L;
+      switch (leadingSortField.getType()) {
+        case INT:
+          return exists ? Integer.valueOf((int) value) : missingValue == null ? Integer.valueOf(0) : missingValue;
+        case LONG:
+          return exists ? Long.valueOf(value) : missingValue == null ? Long.valueOf(0L) : missingValue;
+        case FLOAT:
+          return exists ? Float.valueOf(Float.intBitsToFloat((int) value)) : missingValue == null ? Float.valueOf(0f) : missingValue;
+        case DOUBLE:
+          return exists ? Double.valueOf(Double.longBitsToDouble(value)) : missingValue == null ? Double.valueOf(0d) : missingValue;
+        default:
+          throw new AssertionError();
+      }
+    }
+  }
+
+  /**
+   * Reorder the given leaves so that the leaves whose most competitive value
+   * of the leading sort field is the best are collected first. This allows
+   * more leaves or ranges of documents to be skipped when the index sort is
+   * the reverse of the leading sort field, for instance when sorting by
+   * decreasing timestamp on an index that is sorted by increasing timestamp.
+   * Leaves that are not sorted by the leading sort field are collected first
+   * since they can't be skipped anyway. Nothing is reordered if total hits
+   * need to be counted accurately.
+   * @see IndexSearcher#setReorderLeaves(boolean)
+   */
+  List<LeafReaderContext> sortLeaves(List<LeafReaderContext> leaves) throws IOException {
+    if (leaves.size() <= 1 || hitsThresholdChecker.getHitsThreshold() == Integer.MAX_VALUE) {
+      return leaves;
+    }
+    final Object[] bestValues = new Object[leaves.size()];
+    boolean reorder = false;
+    for (int i = 0; i < leaves.size(); ++i) {
+      final LeafReader reader = leaves.get(i).reader();
+      final int order = leadingFieldOrder(leadingSortField, reader.getMetaData().getSort());
+      if (order != 0 && reader.maxDoc() > 0) {
+        bestValues[i] = new LeadingValues(reader).get(order > 0 ? 0 : reader.maxDoc() - 1);
+        reorder = true;
+      }
+    }
+    if (reorder == false) {
+      return leaves;
+    }
+    final List<Integer> ords = new ArrayList<>(leaves.size());
+    for (int i = 0; i < leaves.size(); ++i) {
+      ords.add(i);
+    }
+    ords.sort((i, j) -> {
+      if (bestValues[i] == null || bestValues[j] == null) {
+        return Boolean.compare(bestValues[i] != null, bestValues[j] != null);
+      }
+      return leadingReverseMul * leadingComparator.compareValues(bestValues[i], bestValues[j]);
+    });
+    final List<LeafReaderContext> sorted = new ArrayList<>(leaves.size());
+    for (int ord : ords) {
+      sorted.add(leaves.get(ord));
+    }
+    return sorted;
+  }
+
   final void add(int slot, int doc) {
     bottom = pq.add(new Entry(slot, docBase + doc));
     queueFull = totalHits == numHits;
@@ -18,8 +18,10 @@ package org.apache.lucene.search;
 
 
 import java.io.IOException;
+import java.util.Collection;
 
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.MaxScoreAccumulator.DocAndScore;
 
 /**
  * A {@link Collector} implementation that collects the top-scoring hits,
@@ -48,19 +50,24 @@ public abstract class TopScoreDocCollector extends TopDocsCollector<ScoreDoc> {
 
   private static class SimpleTopScoreDocCollector extends TopScoreDocCollector {
 
-    SimpleTopScoreDocCollector(int numHits, int totalHitsThreshold) {
-      super(numHits, totalHitsThreshold);
+    SimpleTopScoreDocCollector(int numHits, HitsThresholdChecker hitsThresholdChecker,
+                               MaxScoreAccumulator minScoreAcc) {
+      super(numHits, hitsThresholdChecker, minScoreAcc);
     }
 
     @Override
     public LeafCollector getLeafCollector(LeafReaderContext context) throws IOException {
-      final int docBase = context.docBase;
+      docBase = context.docBase;
       return new ScorerLeafCollector() {
 
         @Override
         public void setScorer(Scorable scorer) throws IOException {
           super.setScorer(scorer);
+          minCompetitiveScore = 0f;
           updateMinCompetitiveScore(scorer);
+          if (minScoreAcc != null) {
+            updateGlobalMinCompetitiveScore(scorer);
+          }
         }
 
         @Override
@@ -71,8 +78,14 @@ public abstract class TopScoreDocCollector extends TopDocsCollector<ScoreDoc> {
           assert score >= 0; // NOTE: false for NaN
 
           totalHits++;
+          hitsThresholdChecker.incrementHitCount();
+
+          if (minScoreAcc != null && (totalHits & minScoreAcc.modInterval) == 0) {
+            updateGlobalMinCompetitiveScore(scorer);
+          }
+
           if (score <= pqTop.score) {
-            if (totalHitsRelation == TotalHits.Relation.EQUAL_TO && totalHits > totalHitsThreshold) {
+            if (totalHitsRelation == TotalHits.Relation.EQUAL_TO) {
               // we just reached totalHitsThreshold, we can start setting the min
               // competitive score now
               updateMinCompetitiveScore(scorer);
@@ -97,8 +110,9 @@ public abstract class TopScoreDocCollector extends TopDocsCollector<ScoreDoc> {
     private final ScoreDoc after;
     private int collectedHits;
 
-    PagingTopScoreDocCollector(int numHits, ScoreDoc after, int totalHitsThreshold) {
-      super(numHits, totalHitsThreshold);
+    PagingTopScoreDocCollector(int numHits, ScoreDoc after, HitsThresholdChecker hitsThresholdChecker,
+                               MaxScoreAccumulator minScoreAcc) {
+      super(numHits, hitsThresholdChecker, minScoreAcc);
       this.after = after;
       this.collectedHits = 0;
     }
@@ -118,10 +132,21 @@ public abstract class TopScoreDocCollector extends TopDocsCollector<ScoreDoc> {
 
     @Override
     public LeafCollector getLeafCollector(LeafReaderContext context) throws IOException {
-      final int docBase = context.docBase;
+      docBase = context.docBase;
       final int afterDoc = after.doc - context.docBase;
 
       return new ScorerLeafCollector() {
+
+        @Override
+        public void setScorer(Scorable scorer) throws IOException {
+          super.setScorer(scorer);
+          minCompetitiveScore = 0f;
+          updateMinCompetitiveScore(scorer);
+          if (minScoreAcc != null) {
+            updateGlobalMinCompetitiveScore(scorer);
+          }
+        }
+
         @Override
         public void collect(int doc) throws IOException {
           float score = scorer.score();
@@ -130,10 +155,15 @@ public abstract class TopScoreDocCollector extends TopDocsCollector<ScoreDoc> {
           assert score >= 0; // NOTE: false for NaN
 
           totalHits++;
+          hitsThresholdChecker.incrementHitCount();
+
+          if (minScoreAcc != null && (totalHits & minScoreAcc.modInterval) == 0) {
+            updateGlobalMinCompetitiveScore(scorer);
+          }
 
           if (score > after.score || (score == after.score && doc <= afterDoc)) {
             // hit was collected on a previous page
-            if (totalHitsRelation == TotalHits.Relation.EQUAL_TO && totalHits > totalHitsThreshold) {
+            if (totalHitsRelation == TotalHits.Relation.EQUAL_TO) {
               // we just reached totalHitsThreshold, we can start setting the min
               // competitive score now
               updateMinCompetitiveScore(scorer);
@@ -191,32 +221,75 @@ public abstract class TopScoreDocCollector extends TopDocsCollector<ScoreDoc> {
    * objects.
    */
   public static TopScoreDocCollector create(int numHits, ScoreDoc after, int totalHitsThreshold) {
+    return create(numHits, after, HitsThresholdChecker.create(totalHitsThreshold), null);
+  }
+
+  static TopScoreDocCollector create(int numHits, ScoreDoc after, HitsThresholdChecker hitsThresholdChecker,
+                                     MaxScoreAccumulator minScoreAcc) {
 
     if (numHits <= 0) {
       throw new IllegalArgumentException("numHits must be > 0; please use TotalHitCountCollector if you just need the total hit count");
     }
 
-    if (totalHitsThreshold < 0) {
-      throw new IllegalArgumentException("totalHitsThreshold must be >= 0, got " + totalHitsThreshold);
+    if (hitsThresholdChecker == null) {
+      throw new IllegalArgumentException("hitsThresholdChecker must be non null");
     }
 
     if (after == null) {
-      return new SimpleTopScoreDocCollector(numHits, totalHitsThreshold);
+      return new SimpleTopScoreDocCollector(numHits, hitsThresholdChecker, minScoreAcc);
     } else {
-      return new PagingTopScoreDocCollector(numHits, after, totalHitsThreshold);
+      return new PagingTopScoreDocCollector(numHits, after, hitsThresholdChecker, minScoreAcc);
     }
   }
 
-  final int totalHitsThreshold;
+  /**
+   * Create a CollectorManager which uses a shared hit counter to maintain number of hits
+   * and a shared {@link MaxScoreAccumulator} to propagate the minimum score across segments
+   * that are collected by different threads. The returned collectors should be used
+   * for a single search, typically through {@link IndexSearcher#search(Query, CollectorManager)}.
+   */
+  public static CollectorManager<TopScoreDocCollector, TopDocs> createSharedManager(int numHits, ScoreDoc after,
+                                                                                      int totalHitsThreshold) {
+    return new CollectorManager<TopScoreDocCollector, TopDocs>() {
+
+      private final HitsThresholdChecker hitsThresholdChecker = HitsThresholdChecker.createShared(totalHitsThreshold);
+      private final MaxScoreAccumulator minScoreAcc = new MaxScoreAccumulator();
+
+      @Override
+      public TopScoreDocCollector newCollector() throws IOException {
+        return TopScoreDocCollector.create(numHits, after, hitsThresholdChecker, minScoreAcc);
+      }
+
+      @Override
+      public TopDocs reduce(Collection<TopScoreDocCollector> collectors) throws IOException {
+        final TopDocs[] topDocs = new TopDocs[collectors.size()];
+        int i = 0;
+        for (TopScoreDocCollector collector : collectors) {
+          topDocs[i++] = collector.topDocs();
+        }
+        return TopDocs.merge(0, numHits, topDocs);
+      }
+
+    };
+  }
+
+  int docBase;
   ScoreDoc pqTop;
+  final HitsThresholdChecker hitsThresholdChecker;
+  final MaxScoreAccumulator minScoreAcc;
+  float minCompetitiveScore;
 
   // prevents instantiation
-  TopScoreDocCollector(int numHits, int totalHitsThreshold) {
+  TopScoreDocCollector(int numHits, HitsThresholdChecker hitsThresholdChecker,
+                       MaxScoreAccumulator minScoreAcc) {
     super(new HitQueue(numHits, true));
-    this.totalHitsThreshold = totalHitsThreshold;
+    assert hitsThresholdChecker != null;
+
     // HitQueue implements getSentinelObject to return a ScoreDoc, so we know
     // that at this point top() is already initialized.
     pqTop = pq.top();
+    this.hitsThresholdChecker = hitsThresholdChecker;
+    this.minScoreAcc = minScoreAcc;
   }
 
   @Override
@@ -230,17 +303,44 @@ public abstract class TopScoreDocCollector extends TopDocsCollector<ScoreDoc> {
 
   @Override
   public ScoreMode scoreMode() {
-    return totalHitsThreshold == Integer.MAX_VALUE ? ScoreMode.COMPLETE : ScoreMode.TOP_SCORES;
+    return hitsThresholdChecker.scoreMode();
+  }
+
+  protected void updateGlobalMinCompetitiveScore(Scorable scorer) throws IOException {
+    assert minScoreAcc != null;
+    DocAndScore maxMinScore = minScoreAcc.get();
+    if (maxMinScore != null) {
+      // since we tie-break on doc id and collect in doc id order we can require
+      // the next float if the global minimum score is set on a document id that is
+      // smaller than the ids in the current leaf
+      float score = docBase > maxMinScore.docID ? Math.nextUp(maxMinScore.score) : maxMinScore.score;
+      if (score > minCompetitiveScore) {
+        assert hitsThresholdChecker.isThresholdReached();
+        scorer.setMinCompetitiveScore(score);
+        minCompetitiveScore = score;
+        totalHitsRelation = TotalHits.Relation.GREATER_THAN_OR_EQUAL_TO;
+      }
+    }
   }
 
   protected void updateMinCompetitiveScore(Scorable scorer) throws IOException {
-    if (totalHits > totalHitsThreshold
+    if (hitsThresholdChecker.isThresholdReached()
           && pqTop != null
           && pqTop.score != Float.NEGATIVE_INFINITY) { // -Infinity is the score of sentinels
       // since we tie-break on doc id and collect in doc id order, we can require
       // the next float
-      scorer.setMinCompetitiveScore(Math.nextUp(pqTop.score));
-      totalHitsRelation = TotalHits.Relation.GREATER_THAN_OR_EQUAL_TO;
+      float localMinScore = Math.nextUp(pqTop.score);
+      if (localMinScore > minCompetitiveScore) {
+        scorer.setMinCompetitiveScore(localMinScore);
+        totalHitsRelation = TotalHits.Relation.GREATER_THAN_OR_EQUAL_TO;
+        minCompetitiveScore = localMinScore;
+        if (minScoreAcc != null) {
+          // we don't use the next float but we register the document
+          // id so that other leaves can require it if they are after
+          // the current maximum
+          minScoreAcc.accumulate(pqTop.doc, pqTop.score);
+        }
+      }
     }
   }
 }
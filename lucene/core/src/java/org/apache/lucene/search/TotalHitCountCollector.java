@@ -16,6 +16,7 @@
  */
 package org.apache.lucene.search;
 
+import java.io.IOException;
 
 /**
  * Just counts the total number of hits.
@@ -34,6 +35,11 @@ public class TotalHitCountCollector extends SimpleCollector {
     totalHits++;
   }
 
+  @Override
+  public void collect(DocIdStream stream) throws IOException {
+    totalHits += stream.count();
+  }
+
   @Override
   public ScoreMode scoreMode() {
     return ScoreMode.COMPLETE_NO_SCORES;
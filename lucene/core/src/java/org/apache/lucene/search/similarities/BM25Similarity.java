@@ -225,6 +225,17 @@ public class BM25Similarity extends Similarity {
       return weight * (float) (freq / (freq + norm));
     }
 
+    @Override
+    public void score(float[] freqs, long[] norms, float[] scores, int size) {
+      final float[] cache = this.cache;
+      final float weight = this.weight;
+      for (int i = 0; i < size; ++i) {
+        final float freq = freqs[i];
+        final double norm = cache[((byte) norms[i]) & 0xFF];
+        scores[i] = weight * (float) (freq / (freq + norm));
+      }
+    }
+
     @Override
     public Explanation explain(Explanation freq, long encodedNorm) {
       List<Explanation> subs = new ArrayList<>(explainConstantFactors());
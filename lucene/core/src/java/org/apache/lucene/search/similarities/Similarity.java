@@ -171,6 +171,23 @@ public abstract class Similarity {
      */
     public abstract float score(float freq, long norm);
 
+    /**
+     * Score a batch of documents: {@code scores[i]} is set to the score of a
+     * document whose frequency is {@code freqs[i]} and whose norm is
+     * {@code norms[i]}, for every {@code i} in {@code [0, size)}.
+     * {@code scores} may be the same array as {@code freqs}.
+     * <p>
+     * The default implementation calls {@link #score(float, long)} on every
+     * entry. Sub classes may override it in order to compute scores in a
+     * tight loop, but must return the same scores as
+     * {@link #score(float, long)}.
+     */
+    public void score(float[] freqs, long[] norms, float[] scores, int size) {
+      for (int i = 0; i < size; ++i) {
+        scores[i] = score(freqs[i], norms[i]);
+      }
+    }
+
     /**
      * Explain the score for a single document
      * @param freq Explanation of how the sloppy term frequency was computed
@@ -136,7 +136,11 @@ public class SpanScorer extends Scorer {
 
   @Override
   public float getMaxScore(int upTo) throws IOException {
-    return Float.POSITIVE_INFINITY;
+    if (docScorer == null) {
+      return Float.POSITIVE_INFINITY;
+    }
+    // scores are non-decreasing with freq and non-increasing with the norm
+    return docScorer.getSimScorer().score(Float.MAX_VALUE, 1L);
   }
 
   /** Returns the intermediate "sloppy freq" adjusted for edit distance
@@ -17,6 +17,7 @@
 package org.apache.lucene.store;
 
 import java.io.EOFException;
+import java.io.IOException;
 import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
@@ -95,6 +96,20 @@ public final class ByteBuffersDataInput extends DataInput implements Accountable
     }
   }
 
+  @Override
+  public long readLong() throws IOException {
+    final int blockIndex = blockIndex(pos);
+    final int blockOffset = blockOffset(pos);
+    if (blockIndex < blocks.length && blockOffset + Long.BYTES <= blocks[blockIndex].limit()) {
+      final long v = blocks[blockIndex].getLong(blockOffset);
+      pos += Long.BYTES;
+      return v;
+    } else {
+      // crosses a block boundary or reads past the end
+      return super.readLong();
+    }
+  }
+
   /**
    * Reads exactly {@code len} bytes into the given buffer. The buffer must have
    * enough remaining limit.
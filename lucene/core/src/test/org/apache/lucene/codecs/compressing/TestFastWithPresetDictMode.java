@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.codecs.compressing;
+
+
+import java.io.IOException;
+
+import org.apache.lucene.store.ByteArrayDataInput;
+import org.apache.lucene.store.ByteArrayDataOutput;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.TestUtil;
+
+public class TestFastWithPresetDictMode extends AbstractTestCompressionMode {
+
+  @Override
+  public void setUp() throws Exception {
+    super.setUp();
+    mode = CompressionMode.FAST_WITH_PRESET_DICT;
+  }
+
+  public void testLZ4CompressWithDictionary() throws IOException {
+    final int iterations = atLeast(10);
+    for (int i = 0; i < iterations; ++i) {
+      // incompressible on its own, but mostly a copy of the dictionary
+      final byte[] dict = randomArray(TestUtil.nextInt(random(), 1, 2048), 255);
+      final int len = TestUtil.nextInt(random(), 1, dict.length);
+      final byte[] bytes = new byte[dict.length + len];
+      System.arraycopy(dict, 0, bytes, 0, dict.length);
+      System.arraycopy(dict, random().nextInt(dict.length - len + 1), bytes, dict.length, len);
+      if (random().nextBoolean()) {
+        bytes[dict.length + random().nextInt(len)] ^= 1;
+      }
+
+      final byte[] compressed = new byte[len * 2 + 16];
+      ByteArrayDataOutput out = new ByteArrayDataOutput(compressed);
+      LZ4.compressWithDictionary(bytes, 0, dict.length, len, out, new LZ4.HashTable());
+      if (len > 64) {
+        assertTrue(out.getPosition() + " " + len, out.getPosition() < len / 2);
+      }
+
+      final byte[] restored = new byte[dict.length + len + 7];
+      System.arraycopy(dict, 0, restored, 0, dict.length);
+      final int end = LZ4.decompress(new ByteArrayDataInput(compressed, 0, out.getPosition()), dict.length + len, restored, dict.length);
+      assertEquals(dict.length + len, end);
+      assertArrayEquals(ArrayUtil.copyOfSubArray(bytes, dict.length, dict.length + len),
+          ArrayUtil.copyOfSubArray(restored, dict.length, dict.length + len));
+    }
+  }
+}
@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.codecs.compressing;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+
+import org.apache.lucene.analysis.MockAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field.Store;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.CodecReader;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.LuceneTestCase;
+import org.apache.lucene.util.TestUtil;
+
+public class TestStoredFieldsChunkCache extends LuceneTestCase {
+
+  private static String[] indexDocs(Directory dir) throws IOException {
+    IndexWriterConfig iwc = new IndexWriterConfig(new MockAnalyzer(random()))
+        .setCodec(TestUtil.getDefaultCodec());
+    final String[] values = new String[atLeast(300)];
+    try (IndexWriter w = new IndexWriter(dir, iwc)) {
+      for (int i = 0; i < values.length; ++i) {
+        if (i == values.length / 2) {
+          // large enough to be sliced
+          values[i] = TestUtil.randomSimpleString(random(), 100_000, 120_000);
+        } else {
+          values[i] = TestUtil.randomSimpleString(random(), 100, 1000);
+        }
+        Document doc = new Document();
+        doc.add(new StringField("id", Integer.toString(i), Store.YES));
+        doc.add(new StoredField("value", values[i]));
+        w.addDocument(doc);
+      }
+      w.forceMerge(1);
+    }
+    return values;
+  }
+
+  private static StoredFieldsChunkCache getChunkCache(DirectoryReader reader) {
+    assertEquals(1, reader.leaves().size());
+    CodecReader leaf = (CodecReader) reader.leaves().get(0).reader();
+    return ((CompressingStoredFieldsReader) leaf.getFieldsReader()).getChunkCache();
+  }
+
+  private static void assertDocs(String[] values, DirectoryReader reader, int docID) throws IOException {
+    Document doc = reader.document(docID);
+    assertEquals(Integer.toString(docID), doc.get("id"));
+    assertEquals(values[docID], doc.get("value"));
+  }
+
+  public void testDisabledByDefault() throws IOException {
+    try (Directory dir = newDirectory()) {
+      indexDocs(dir);
+      try (DirectoryReader reader = DirectoryReader.open(dir)) {
+        assertNull(getChunkCache(reader));
+      }
+    }
+  }
+
+  public void testHitsAndMisses() throws IOException {
+    try (Directory dir = newDirectory()) {
+      final String[] values = indexDocs(dir);
+      Map<String, String> readerAttributes = Collections.singletonMap(CompressingStoredFieldsFormat.CHUNK_CACHE_SIZE_KEY, "" + (1 << 30));
+      try (DirectoryReader reader = DirectoryReader.open(dir, readerAttributes)) {
+        StoredFieldsChunkCache cache = getChunkCache(reader);
+        assertNotNull(cache);
+        CodecReader leaf = (CodecReader) reader.leaves().get(0).reader();
+        // clones share the same cache
+        assertSame(cache, ((CompressingStoredFieldsReader) leaf.getFieldsReader().clone()).getChunkCache());
+        // but merge instances don't use it
+        assertNull(((CompressingStoredFieldsReader) leaf.getFieldsReader().getMergeInstance()).getChunkCache());
+
+        for (int i = 0; i < values.length; ++i) {
+          assertDocs(values, reader, i);
+        }
+        assertEquals(0, cache.getHitCount());
+        final long numCachedChunks = cache.getCacheSize();
+        assertTrue(numCachedChunks > 1);
+        assertEquals(numCachedChunks, cache.getCacheCount());
+        assertEquals(0, cache.getEvictionCount());
+        assertTrue(cache.ramBytesUsed() > 0);
+
+        for (int i = values.length - 1; i >= 0; --i) {
+          assertDocs(values, reader, i);
+        }
+        assertTrue(cache.getHitCount() >= numCachedChunks - 1);
+        assertEquals(numCachedChunks, cache.getCacheSize());
+        assertEquals(0, cache.getEvictionCount());
+
+        for (int iter = 0; iter < 100; ++iter) {
+          assertDocs(values, reader, random().nextInt(values.length));
+        }
+        assertEquals(numCachedChunks, cache.getCacheSize());
+      }
+    }
+  }
+
+  public void testEviction() throws IOException {
+    try (Directory dir = newDirectory()) {
+      final String[] values = indexDocs(dir);
+      final long maxRamBytesUsed = 64 * 1024;
+      Map<String, String> readerAttributes = Collections.singletonMap(CompressingStoredFieldsFormat.CHUNK_CACHE_SIZE_KEY, "" + maxRamBytesUsed);
+      try (DirectoryReader reader = DirectoryReader.open(dir, readerAttributes)) {
+        StoredFieldsChunkCache cache = getChunkCache(reader);
+        assertEquals(maxRamBytesUsed, cache.getMaxRamBytesUsed());
+        for (int iter = 0; iter < 3; ++iter) {
+          for (int i = 0; i < values.length; ++i) {
+            assertDocs(values, reader, i);
+            assertTrue(cache.ramBytesUsed() <= maxRamBytesUsed + StoredFieldsChunkCache.BASE_RAM_BYTES_USED);
+          }
+        }
+        assertTrue(cache.getEvictionCount() > 0);
+        assertEquals(cache.getCacheCount() - cache.getEvictionCount(), cache.getCacheSize());
+      }
+    }
+  }
+
+  public void testInvalidCacheSize() throws IOException {
+    try (Directory dir = newDirectory()) {
+      indexDocs(dir);
+      IllegalArgumentException e = expectThrows(IllegalArgumentException.class, () ->
+          DirectoryReader.open(dir, Collections.singletonMap(CompressingStoredFieldsFormat.CHUNK_CACHE_SIZE_KEY, "-1")));
+      assertEquals("Invalid value for compressing.stored_fields.chunk_cache_bytes expected a non-negative number of bytes but was: -1", e.getMessage());
+      e = expectThrows(IllegalArgumentException.class, () ->
+          DirectoryReader.open(dir, Collections.singletonMap(CompressingStoredFieldsFormat.CHUNK_CACHE_SIZE_KEY, "foo")));
+      assertEquals("Invalid value for compressing.stored_fields.chunk_cache_bytes expected a number of bytes but was: foo", e.getMessage());
+    }
+  }
+}
@@ -49,6 +49,7 @@ import org.apache.lucene.store.IndexInput;
 import org.apache.lucene.store.IndexOutput;
 import org.apache.lucene.store.MMapDirectory;
 import org.apache.lucene.store.SimpleFSDirectory;
+import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.TestUtil;
 
 /**
@@ -258,6 +259,54 @@ public class TestBlockPostingsFormat extends BasePostingsFormatTestCase {
     }
   }
   
+  public void testLazyFSTLoading() throws IOException {
+    try (Directory d = newDirectory()) {
+      try (IndexWriter w = new IndexWriter(d, new IndexWriterConfig(new MockAnalyzer(random())))) {
+        for (int i = 0; i < 50; i++) {
+          Document doc = new Document();
+          doc.add(newStringField("id", "" + i, Field.Store.NO));
+          doc.add(newStringField("field", Character.toString((char) (97 + i)), Field.Store.NO));
+          w.addDocument(doc);
+        }
+        w.forceMerge(1);
+      }
+
+      try (DirectoryReader r = DirectoryReader.open(d)) {
+        assertEquals(1, r.leaves().size());
+        FieldReader field = (FieldReader) r.leaves().get(0).reader().terms("field");
+        FieldReader id = (FieldReader) r.leaves().get(0).reader().terms("id");
+        assertFalse(id.isFstLoaded());
+        assertFalse(field.isFstLoaded());
+        final long ramBytesUsed = field.ramBytesUsed();
+
+        // statistics don't need the terms index
+        assertEquals(50, field.getDocCount());
+        assertEquals(50, field.size());
+        assertFalse(field.isFstLoaded());
+
+        assertTrue(field.iterator().seekExact(new BytesRef("b")));
+        assertTrue(field.isFstLoaded());
+        assertFalse(id.isFstLoaded());
+        if (field.isFstOffHeap() == false) {
+          assertTrue(field.ramBytesUsed() > ramBytesUsed);
+        }
+      }
+
+      try (DirectoryReader r = DirectoryReader.open(d, Collections.singletonMap(BlockTreeTermsReader.FST_LAZY_KEY, "false"))) {
+        assertEquals(1, r.leaves().size());
+        FieldReader field = (FieldReader) r.leaves().get(0).reader().terms("field");
+        FieldReader id = (FieldReader) r.leaves().get(0).reader().terms("id");
+        assertTrue(id.isFstLoaded());
+        assertTrue(field.isFstLoaded());
+      }
+
+      IllegalArgumentException invalid = expectThrows(IllegalArgumentException.class, () -> {
+        DirectoryReader.open(d, Collections.singletonMap(BlockTreeTermsReader.FST_LAZY_KEY, "invalid"));
+      });
+      assertEquals("Invalid value for blocktree.terms.fst_lazy expected one of: [true, false] but was: invalid", invalid.getMessage());
+    }
+  }
+
   /** Make sure the final sub-block(s) are not skipped. */
   public void testFinalBlock() throws Exception {
     Directory d = newDirectory();
@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.codecs.lucene84;
+
+
+import static org.apache.lucene.codecs.lucene84.ForUtil.BLOCK_SIZE;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.LuceneTestCase;
+import org.apache.lucene.util.packed.PackedInts;
+
+import com.carrotsearch.randomizedtesting.generators.RandomNumbers;
+
+public class TestForUtil extends LuceneTestCase {
+
+  public void testEncodeDecode() throws IOException {
+    final int iterations = RandomNumbers.randomIntBetween(random(), 50, 1000);
+    final long[] values = new long[iterations * BLOCK_SIZE];
+    for (int i = 0; i < iterations; ++i) {
+      // make sure that every number of bits per value gets tested
+      final int bpv = i <= 32 ? i : random().nextInt(33);
+      if (bpv == 0) {
+        final long value = RandomNumbers.randomIntBetween(random(), 0, Integer.MAX_VALUE);
+        Arrays.fill(values, i * BLOCK_SIZE, (i + 1) * BLOCK_SIZE, value);
+      } else {
+        for (int j = 0; j < BLOCK_SIZE; ++j) {
+          values[i * BLOCK_SIZE + j] = RandomNumbers.randomLongBetween(random(), 0, PackedInts.maxValue(bpv));
+        }
+      }
+    }
+
+    final Directory d = new ByteBuffersDirectory();
+    final long endPointer;
+
+    {
+      // encode
+      IndexOutput out = d.createOutput("test.bin", IOContext.DEFAULT);
+      final ForUtil forUtil = new ForUtil();
+      for (int i = 0; i < iterations; ++i) {
+        forUtil.writeBlock(ArrayUtil.copyOfSubArray(values, i * BLOCK_SIZE, (i + 1) * BLOCK_SIZE), out);
+      }
+      endPointer = out.getFilePointer();
+      out.close();
+    }
+
+    {
+      // decode
+      IndexInput in = d.openInput("test.bin", IOContext.READONCE);
+      final ForUtil forUtil = new ForUtil();
+      for (int i = 0; i < iterations; ++i) {
+        if (random().nextInt(5) == 0) {
+          forUtil.skipBlock(in);
+          continue;
+        }
+        final long[] restored = new long[BLOCK_SIZE];
+        forUtil.readBlock(in, restored);
+        assertArrayEquals(ArrayUtil.copyOfSubArray(values, i * BLOCK_SIZE, (i + 1) * BLOCK_SIZE), restored);
+      }
+      assertEquals(endPointer, in.getFilePointer());
+      in.close();
+    }
+
+    d.close();
+  }
+
+  public void testEncodeDecodeDeltas() throws IOException {
+    final int iterations = RandomNumbers.randomIntBetween(random(), 50, 1000);
+    final long[] deltas = new long[iterations * BLOCK_SIZE];
+    for (int i = 0; i < iterations; ++i) {
+      // keep the sum of all deltas of a block below 2^31, like doc IDs
+      final int bpv = i <= 24 ? i : random().nextInt(25);
+      if (bpv == 0) {
+        final long value = RandomNumbers.randomIntBetween(random(), 1, 1 << 20);
+        Arrays.fill(deltas, i * BLOCK_SIZE, (i + 1) * BLOCK_SIZE, value);
+      } else {
+        for (int j = 0; j < BLOCK_SIZE; ++j) {
+          deltas[i * BLOCK_SIZE + j] = RandomNumbers.randomLongBetween(random(), 1, PackedInts.maxValue(bpv));
+        }
+      }
+    }
+
+    final Directory d = new ByteBuffersDirectory();
+    final long endPointer;
+
+    {
+      // encode
+      IndexOutput out = d.createOutput("test.bin", IOContext.DEFAULT);
+      final ForUtil forUtil = new ForUtil();
+      for (int i = 0; i < iterations; ++i) {
+        forUtil.writeBlock(ArrayUtil.copyOfSubArray(deltas, i * BLOCK_SIZE, (i + 1) * BLOCK_SIZE), out);
+      }
+      endPointer = out.getFilePointer();
+      out.close();
+    }
+
+    {
+      // decode
+      IndexInput in = d.openInput("test.bin", IOContext.READONCE);
+      final ForUtil forUtil = new ForUtil();
+      for (int i = 0; i < iterations; ++i) {
+        final long base = random().nextInt(1 << 20);
+        final long[] expected = new long[BLOCK_SIZE];
+        long sum = base;
+        for (int j = 0; j < BLOCK_SIZE; ++j) {
+          sum += deltas[i * BLOCK_SIZE + j];
+          expected[j] = sum;
+        }
+        final long[] restored = new long[BLOCK_SIZE];
+        forUtil.readBlockAndPrefixSum(in, base, restored);
+        assertArrayEquals(expected, restored);
+      }
+      assertEquals(endPointer, in.getFilePointer());
+      in.close();
+    }
+
+    d.close();
+  }
+
+}
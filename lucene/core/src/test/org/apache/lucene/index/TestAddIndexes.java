@@ -21,12 +21,17 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.nio.file.NoSuchFileException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.lucene.analysis.MockAnalyzer;
 import org.apache.lucene.codecs.Codec;
 import org.apache.lucene.codecs.FilterCodec;
 import org.apache.lucene.codecs.PostingsFormat;
+import org.apache.lucene.codecs.StoredFieldsReader;
 import org.apache.lucene.codecs.asserting.AssertingCodec;
 import org.apache.lucene.codecs.memory.DirectPostingsFormat;
 import org.apache.lucene.document.Document;
@@ -38,9 +43,11 @@ import org.apache.lucene.document.StringField;
 import org.apache.lucene.document.TextField;
 import org.apache.lucene.index.IndexWriterConfig.OpenMode;
 import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.PhraseQuery;
 import org.apache.lucene.search.Sort;
 import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.store.AlreadyClosedException;
 import org.apache.lucene.store.BaseDirectoryWrapper;
 import org.apache.lucene.store.ByteBuffersDirectory;
@@ -50,6 +57,7 @@ import org.apache.lucene.store.MockDirectoryWrapper;
 
 import org.apache.lucene.util.IOUtils;
 import org.apache.lucene.util.LuceneTestCase;
+import org.apache.lucene.util.NamedThreadFactory;
 import org.apache.lucene.util.TestUtil;
 
 public class TestAddIndexes extends LuceneTestCase {
@@ -1443,8 +1451,12 @@ public class TestAddIndexes extends LuceneTestCase {
     assertEquals(wrappedReader.numDocs(), writer.getDocStats().numDocs);
     assertEquals(maxDoc, writer.getDocStats().maxDoc);
     writer.commit();
-    SegmentCommitInfo commitInfo = writer.listOfSegmentCommitInfos().get(0);
-    assertEquals(maxDoc-wrappedReader.numDocs(), commitInfo.getSoftDelCount());
+    // the merge policy may have grouped readers into several segments
+    int softDelCount = 0;
+    for (SegmentCommitInfo commitInfo : writer.listOfSegmentCommitInfos()) {
+      softDelCount += commitInfo.getSoftDelCount();
+    }
+    assertEquals(maxDoc-wrappedReader.numDocs(), softDelCount);
     writer.close();
     Directory dir3 = newDirectory();
     iwc1 = newIndexWriterConfig(new MockAnalyzer(random())).setSoftDeletesField("soft_delete");
@@ -1459,4 +1471,199 @@ public class TestAddIndexes extends LuceneTestCase {
     assertEquals(wrappedReader.numDocs(), writer.getDocStats().maxDoc);
     IOUtils.close(reader, writer, dir3, dir2, dir1);
   }
+
+  public void testAddIndexesReadersConcurrently() throws Exception {
+    final int numReaders = TestUtil.nextInt(random(), 5, 20);
+    final int maxMergeAtOnce = TestUtil.nextInt(random(), 2, 4);
+    List<Directory> dirs = new ArrayList<>();
+    List<DirectoryReader> readers = new ArrayList<>();
+    List<CodecReader> codecReaders = new ArrayList<>();
+    int numDocs = 0;
+    for (int i = 0; i < numReaders; ++i) {
+      Directory dir = newDirectory();
+      IndexWriter w = new IndexWriter(dir, newIndexWriterConfig(new MockAnalyzer(random())));
+      final int numSegmentDocs = TestUtil.nextInt(random(), 1, 50);
+      for (int j = 0; j < numSegmentDocs; ++j) {
+        Document doc = new Document();
+        doc.add(new StringField("id", i + "_" + j, Field.Store.YES));
+        doc.add(new NumericDocValuesField("dv", j));
+        doc.add(new IntPoint("point", j));
+        w.addDocument(doc);
+      }
+      w.forceMerge(1);
+      w.close();
+      DirectoryReader reader = DirectoryReader.open(dir);
+      dirs.add(dir);
+      readers.add(reader);
+      codecReaders.add((CodecReader) getOnlyLeafReader(reader));
+      numDocs += numSegmentDocs;
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(TestUtil.nextInt(random(), 1, 4), new NamedThreadFactory("TestAddIndexes"));
+    ConcurrentMergeScheduler cms = new ConcurrentMergeScheduler();
+    cms.setIntraMergeExecutor(executor);
+    TieredMergePolicy tmp = new TieredMergePolicy();
+    tmp.setMaxMergeAtOnce(maxMergeAtOnce);
+    // no natural merges
+    tmp.setSegmentsPerTier(numReaders);
+    Directory dest = newDirectory();
+    IndexWriter w = new IndexWriter(dest, newIndexWriterConfig(new MockAnalyzer(random()))
+        .setMergeScheduler(cms)
+        .setMergePolicy(tmp));
+    w.addIndexes(codecReaders.toArray(new CodecReader[0]));
+    assertEquals(numDocs, w.getDocStats().numDocs);
+    final int expectedSegments = (numReaders + maxMergeAtOnce - 1) / maxMergeAtOnce;
+    assertEquals(expectedSegments, w.getSegmentCount());
+    w.close();
+
+    DirectoryReader reader = DirectoryReader.open(dest);
+    assertEquals(numDocs, reader.numDocs());
+    assertEquals(expectedSegments, reader.leaves().size());
+    IndexSearcher searcher = newSearcher(reader);
+    for (int i = 0; i < numReaders; ++i) {
+      assertEquals(1, searcher.count(new TermQuery(new Term("id", i + "_0"))));
+    }
+    // documents are in the order of the readers, across segments too
+    int lastReader = 0;
+    for (LeafReaderContext ctx : reader.leaves()) {
+      for (int doc = 0; doc < ctx.reader().maxDoc(); ++doc) {
+        String id = ctx.reader().document(doc).get("id");
+        int readerIndex = Integer.parseInt(id.substring(0, id.indexOf('_')));
+        assertTrue(readerIndex >= lastReader);
+        lastReader = readerIndex;
+      }
+    }
+    reader.close();
+
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+    IOUtils.close(readers);
+    IOUtils.close(dirs);
+    dest.close();
+  }
+
+  public void testAddIndexesMergePolicyMustReturnAllReaders() throws Exception {
+    Directory src = newDirectory();
+    RandomIndexWriter w = new RandomIndexWriter(random(), src);
+    w.addDocument(new Document());
+    DirectoryReader reader = w.getReader();
+    w.close();
+    CodecReader codecReader = (CodecReader) getOnlyLeafReader(reader);
+
+    MergePolicy dropAll = new FilterMergePolicy(newMergePolicy()) {
+      @Override
+      public List<List<CodecReader>> findAddIndexesMerges(List<CodecReader> readers, MergeContext mergeContext) {
+        return Collections.emptyList();
+      }
+    };
+    Directory dest = newDirectory();
+    IndexWriter w2 = new IndexWriter(dest, newIndexWriterConfig(new MockAnalyzer(random())).setMergePolicy(dropAll));
+    expectThrows(IllegalStateException.class, () -> w2.addIndexes(codecReader));
+    assertEquals(0, w2.getDocStats().numDocs);
+    w2.close();
+
+    IOUtils.close(reader, src, dest);
+  }
+
+  public void testAddIndexesReadersFailureAddsNothing() throws Exception {
+    final int numReaders = TestUtil.nextInt(random(), 2, 5);
+    final int failingReader = random().nextInt(numReaders - 1) + 1;
+    List<Directory> dirs = new ArrayList<>();
+    List<DirectoryReader> readers = new ArrayList<>();
+    CodecReader[] codecReaders = new CodecReader[numReaders];
+    for (int i = 0; i < numReaders; ++i) {
+      Directory dir = newDirectory();
+      IndexWriter w = new IndexWriter(dir, newIndexWriterConfig(new MockAnalyzer(random())));
+      for (int j = 0; j < 10; ++j) {
+        Document doc = new Document();
+        doc.add(new StringField("id", i + "_" + j, Field.Store.YES));
+        w.addDocument(doc);
+      }
+      w.forceMerge(1);
+      w.close();
+      DirectoryReader reader = DirectoryReader.open(dir);
+      dirs.add(dir);
+      readers.add(reader);
+      codecReaders[i] = (CodecReader) getOnlyLeafReader(reader);
+    }
+    codecReaders[failingReader] = new FilterCodecReader(codecReaders[failingReader]) {
+      @Override
+      public StoredFieldsReader getFieldsReader() {
+        return new StoredFieldsReader() {
+          @Override
+          public void visitDocument(int docID, StoredFieldVisitor visitor) throws IOException {
+            throw new IOException("fake stored fields failure");
+          }
+
+          @Override
+          public StoredFieldsReader clone() {
+            return this;
+          }
+
+          @Override
+          public void checkIntegrity() throws IOException {
+            throw new IOException("fake stored fields failure");
+          }
+
+          @Override
+          public void close() {}
+
+          @Override
+          public long ramBytesUsed() {
+            return 0;
+          }
+        };
+      }
+
+      @Override
+      public CacheHelper getCoreCacheHelper() {
+        return null;
+      }
+
+      @Override
+      public CacheHelper getReaderCacheHelper() {
+        return null;
+      }
+    };
+
+    // one merge per reader
+    MergePolicy mp = new FilterMergePolicy(newMergePolicy()) {
+      @Override
+      public List<List<CodecReader>> findAddIndexesMerges(List<CodecReader> readers, MergeContext mergeContext) {
+        List<List<CodecReader>> merges = new ArrayList<>();
+        for (CodecReader reader : readers) {
+          merges.add(Collections.singletonList(reader));
+        }
+        return merges;
+      }
+    };
+    ExecutorService executor = Executors.newFixedThreadPool(TestUtil.nextInt(random(), 1, 4), new NamedThreadFactory("TestAddIndexes"));
+    ConcurrentMergeScheduler cms = new ConcurrentMergeScheduler();
+    if (random().nextBoolean()) {
+      cms.setIntraMergeExecutor(executor);
+    }
+    Directory dest = newDirectory();
+    IndexWriter w = new IndexWriter(dest, newIndexWriterConfig(new MockAnalyzer(random()))
+        .setMergeScheduler(cms)
+        .setMergePolicy(mp));
+    IOException e = expectThrows(IOException.class, () -> w.addIndexes(codecReaders));
+    assertEquals("fake stored fields failure", e.getMessage());
+    // readers of merges that completed have not been added either
+    assertEquals(0, w.getDocStats().maxDoc);
+    assertEquals(0, w.getSegmentCount());
+    assertNull(w.getTragicException());
+    w.commit();
+    w.close();
+
+    try (DirectoryReader reader = DirectoryReader.open(dest)) {
+      assertEquals(0, reader.maxDoc());
+    }
+
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+    IOUtils.close(readers);
+    IOUtils.close(dirs);
+    // MockDirectoryWrapper checks that new files have been deleted
+    dest.close();
+  }
 }
@@ -19,20 +19,29 @@ package org.apache.lucene.index;
 
 import java.io.IOException;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.lucene.analysis.MockAnalyzer;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
+import org.apache.lucene.document.FieldType;
+import org.apache.lucene.document.IntPoint;
+import org.apache.lucene.document.NumericDocValuesField;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.document.TextField;
 import org.apache.lucene.index.IndexWriterConfig.OpenMode;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
 import org.apache.lucene.store.AlreadyClosedException;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.MockDirectoryWrapper;
 import org.apache.lucene.util.LuceneTestCase;
+import org.apache.lucene.util.NamedThreadFactory;
 import org.apache.lucene.util.TestUtil;
 
 public class TestConcurrentMergeScheduler extends LuceneTestCase {
@@ -624,6 +633,71 @@ public class TestConcurrentMergeScheduler extends LuceneTestCase {
     assertTrue(cms.getAutoIOThrottle());
   }
 
+  public void testLoadSignalAdjustsIORate() throws Exception {
+    ConcurrentMergeScheduler cms = new ConcurrentMergeScheduler();
+    cms.setMaxMergesAndThreads(6, 4);
+    double initialMBPerSec = cms.getIORateLimitMBPerSec();
+    AtomicReference<Double> load = new AtomicReference<>(2.0);
+    cms.setLoadSignal(load::get);
+    assertEquals(initialMBPerSec / 2, cms.getIORateLimitMBPerSec(), 0.0);
+
+    load.set(0.5);
+    cms.updateMergeThreads();
+    assertEquals(initialMBPerSec * 2, cms.getIORateLimitMBPerSec(), 0.0);
+
+    // never goes below the floor
+    load.set(1000.0);
+    cms.updateMergeThreads();
+    assertEquals(5.0, cms.getIORateLimitMBPerSec(), 0.0);
+
+    cms.setLoadSignal(null);
+    assertEquals(initialMBPerSec, cms.getIORateLimitMBPerSec(), 0.0);
+
+    // invalid samples are ignored
+    load.set(2.0);
+    cms.setLoadSignal(load::get);
+    assertEquals(initialMBPerSec / 2, cms.getIORateLimitMBPerSec(), 0.0);
+    load.set(-1.0);
+    cms.updateMergeThreads();
+    assertEquals(initialMBPerSec / 2, cms.getIORateLimitMBPerSec(), 0.0);
+    load.set(Double.NaN);
+    cms.updateMergeThreads();
+    assertEquals(initialMBPerSec / 2, cms.getIORateLimitMBPerSec(), 0.0);
+  }
+
+  public void testLoadSignalSampledByMergeThreads() throws Exception {
+    Directory dir = newDirectory();
+    AtomicInteger sampleCount = new AtomicInteger();
+    ConcurrentMergeScheduler cms = new ConcurrentMergeScheduler();
+    cms.setMaxMergesAndThreads(6, 2);
+    // heavily loaded system: a single merge thread at a time
+    cms.setLoadSignal(() -> {
+      sampleCount.incrementAndGet();
+      return 4.0;
+    });
+    int samplesBeforeIndexing = sampleCount.get();
+    IndexWriterConfig iwc = newIndexWriterConfig(new MockAnalyzer(random()))
+        .setMaxBufferedDocs(5)
+        .setMergeScheduler(cms);
+    LogDocMergePolicy mp = new LogDocMergePolicy();
+    mp.setMergeFactor(2);
+    iwc.setMergePolicy(mp);
+    IndexWriter w = new IndexWriter(dir, iwc);
+    final int numDocs = atLeast(100);
+    for (int i = 0; i < numDocs; ++i) {
+      Document doc = new Document();
+      doc.add(newStringField("id", Integer.toString(i), Field.Store.NO));
+      w.addDocument(doc);
+    }
+    w.forceMerge(1);
+    assertTrue(sampleCount.get() > samplesBeforeIndexing);
+    try (DirectoryReader reader = DirectoryReader.open(w)) {
+      assertEquals(numDocs, reader.numDocs());
+    }
+    w.close();
+    dir.close();
+  }
+
   public void testNonSpinningDefaults() throws Exception {
     ConcurrentMergeScheduler cms = new ConcurrentMergeScheduler();
     cms.setDefaultMaxMergesAndThreads(false);
@@ -670,4 +744,64 @@ public class TestConcurrentMergeScheduler extends LuceneTestCase {
 
     assertFalse(failed.get());
   }
+
+  public void testIntraMergeExecutor() throws Exception {
+    Directory directory = newDirectory();
+    ExecutorService executor = Executors.newFixedThreadPool(2, new NamedThreadFactory("TestIntraMergeExecutor"));
+    AtomicInteger numTasks = new AtomicInteger();
+    ConcurrentMergeScheduler cms = new ConcurrentMergeScheduler();
+    cms.setIntraMergeExecutor(task -> {
+      numTasks.incrementAndGet();
+      executor.execute(task);
+    });
+    // make sure threads of the executor may be paused too
+    cms.setForceMergeMBPerSec(TestUtil.nextInt(random(), 20, 100));
+    LogDocMergePolicy mp = new LogDocMergePolicy();
+    mp.setMergeFactor(1000);
+    IndexWriterConfig iwc = newIndexWriterConfig(new MockAnalyzer(random()))
+        .setMaxBufferedDocs(TestUtil.nextInt(random(), 10, 50))
+        .setMergeScheduler(cms)
+        .setMergePolicy(mp);
+    if (random().nextBoolean()) {
+      iwc.setIndexSort(new Sort(new SortField("ndv", SortField.Type.LONG)));
+    }
+    IndexWriter writer = new IndexWriter(directory, iwc);
+
+    FieldType vectorsType = new FieldType(TextField.TYPE_NOT_STORED);
+    vectorsType.setStoreTermVectors(true);
+    final int numDocs = atLeast(500);
+    for (int i = 0; i < numDocs; i++) {
+      Document doc = new Document();
+      doc.add(new StringField("id", Integer.toString(i), Field.Store.YES));
+      doc.add(new Field("body", "value " + i, vectorsType));
+      doc.add(new NumericDocValuesField("ndv", i));
+      doc.add(new IntPoint("point", i));
+      writer.addDocument(doc);
+      if (i % 10 == 9) {
+        writer.deleteDocuments(new Term("id", Integer.toString(i)));
+      }
+    }
+    writer.forceMerge(1);
+    writer.close();
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+    assertTrue(numTasks.get() > 0);
+
+    IndexReader reader = DirectoryReader.open(directory);
+    assertEquals(1, reader.leaves().size());
+    // Verify that we did not lose any deletes...
+    assertEquals(numDocs - numDocs / 10, reader.maxDoc());
+    LeafReader leafReader = reader.leaves().get(0).reader();
+    NumericDocValues ndv = leafReader.getNumericDocValues("ndv");
+    for (int doc = 0; doc < leafReader.maxDoc(); doc++) {
+      int id = Integer.parseInt(leafReader.document(doc).get("id"));
+      assertTrue(id % 10 != 9);
+      assertEquals(doc, ndv.nextDoc());
+      assertEquals(id, ndv.longValue());
+      assertEquals(2, leafReader.getTermVector(doc, "body").size());
+    }
+    assertEquals(leafReader.maxDoc(), leafReader.getPointValues("point").size());
+    reader.close();
+    directory.close();
+  }
 }
@@ -222,7 +222,7 @@ public class TestDoc extends LuceneTestCase {
 
     SegmentMerger merger = new SegmentMerger(Arrays.<CodecReader>asList(r1, r2),
                                              si, InfoStream.getDefault(), trackingDir,
-                                             new FieldInfos.FieldNumbers(null), context);
+                                             new FieldInfos.FieldNumbers(null), context, null);
 
     MergeState mergeState = merger.merge();
     r1.close();
@@ -95,6 +95,29 @@ public class TestDocValuesFieldUpdates extends LuceneTestCase {
     assertEquals(DocIdSetIterator.NO_MORE_DOCS, iterator.nextDoc());
   }
 
+  public void testFinishDropsOverriddenUpdates() {
+    NumericDocValuesFieldUpdates updates = new NumericDocValuesFieldUpdates(0, "test", 3);
+    updates.add(2, 1);
+    updates.add(0, 1);
+    updates.add(2, 2);
+    updates.reset(0);
+    updates.add(1, 3);
+    updates.add(2, 4);
+    assertEquals(6, updates.size());
+    updates.finish();
+    assertEquals(3, updates.size());
+    NumericDocValuesFieldUpdates.Iterator iterator = updates.iterator();
+    assertEquals(0, iterator.nextDoc());
+    assertFalse(iterator.hasValue());
+    assertEquals(1, iterator.nextDoc());
+    assertTrue(iterator.hasValue());
+    assertEquals(3, iterator.longValue());
+    assertEquals(2, iterator.nextDoc());
+    assertTrue(iterator.hasValue());
+    assertEquals(4, iterator.longValue());
+    assertEquals(DocIdSetIterator.NO_MORE_DOCS, iterator.nextDoc());
+  }
+
   public void testUpdatesAndResetRandom() {
     NumericDocValuesFieldUpdates updates = new NumericDocValuesFieldUpdates(0, "test", 10);
     int numUpdates = 10 + random().nextInt(100);
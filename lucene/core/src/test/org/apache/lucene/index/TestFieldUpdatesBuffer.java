@@ -24,6 +24,7 @@ import java.util.List;
 
 import com.carrotsearch.randomizedtesting.generators.RandomPicks;
 import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefBuilder;
 import org.apache.lucene.util.Counter;
 import org.apache.lucene.util.LuceneTestCase;
 import org.apache.lucene.util.TestUtil;
@@ -257,4 +258,41 @@ public class TestFieldUpdatesBuffer extends LuceneTestCase {
     assertEquals(0, buffer.getMinNumeric());
     assertEquals(0, buffer.getMaxNumeric());
   }
+
+  public void testSortedUpdates() throws IOException {
+    List<DocValuesUpdate.NumericDocValuesUpdate> updates = new ArrayList<>();
+    int numUpdates = 1 + random().nextInt(1000);
+    DocValuesUpdate.NumericDocValuesUpdate randomUpdate = getRandomUpdate(false);
+    updates.add(randomUpdate);
+    FieldUpdatesBuffer buffer = new FieldUpdatesBuffer(Counter.newCounter(), randomUpdate, randomUpdate.docIDUpto);
+    for (int i = 0; i < numUpdates; i++) {
+      randomUpdate = getRandomUpdate(false);
+      updates.add(randomUpdate);
+      if (randomUpdate.hasValue) {
+        buffer.addUpdate(randomUpdate.term, randomUpdate.getValue(), randomUpdate.docIDUpto);
+      } else {
+        buffer.addNoValue(randomUpdate.term, randomUpdate.docIDUpto);
+      }
+    }
+    assertEquals(updates.size(), buffer.numUpdates());
+
+    int from = random().nextBoolean() ? 0 : random().nextInt(updates.size());
+    int to = random().nextBoolean() ? updates.size() : TestUtil.nextInt(random(), from, updates.size());
+    Integer[] expected = new Integer[to - from];
+    for (int i = 0; i < expected.length; i++) {
+      expected[i] = from + i;
+    }
+    // stable sort: equal terms keep insertion order
+    Arrays.sort(expected, (i, j) -> updates.get(i).term.compareTo(updates.get(j).term));
+    int[] sorted = buffer.sortedUpdates(from, to);
+    assertEquals(expected.length, sorted.length);
+    BytesRefBuilder spare = new BytesRefBuilder();
+    for (int i = 0; i < sorted.length; i++) {
+      assertEquals(expected[i].intValue(), sorted[i]);
+      DocValuesUpdate.NumericDocValuesUpdate update = updates.get(sorted[i]);
+      assertEquals(update.term.field, buffer.termField(sorted[i]));
+      assertEquals(update.term.bytes, buffer.termValue(spare, sorted[i]));
+      assertEquals(update.docIDUpto, buffer.docUpTo(sorted[i]));
+    }
+  }
 }
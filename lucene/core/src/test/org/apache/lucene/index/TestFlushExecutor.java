@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.index;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.lucene.analysis.MockAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.FieldType;
+import org.apache.lucene.document.IntPoint;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.SortedDocValuesField;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.MockDirectoryWrapper;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.LuceneTestCase;
+import org.apache.lucene.util.NamedThreadFactory;
+import org.apache.lucene.util.TestUtil;
+
+public class TestFlushExecutor extends LuceneTestCase {
+
+  private static Document randomDocument(Random random, int id) {
+    Document doc = new Document();
+    FieldType vectorsType = new FieldType(TextField.TYPE_NOT_STORED);
+    vectorsType.setStoreTermVectors(true);
+    vectorsType.setStoreTermVectorPositions(true);
+    doc.add(new Field("body", TestUtil.randomSimpleString(random) + " " + TestUtil.randomSimpleString(random), vectorsType));
+    doc.add(new StoredField("id", id));
+    doc.add(new NumericDocValuesField("ndv", random.nextInt(100)));
+    doc.add(new SortedDocValuesField("sdv", new BytesRef(TestUtil.randomSimpleString(random))));
+    doc.add(new IntPoint("point", random.nextInt()));
+    return doc;
+  }
+
+  private void doTestSameIndex(boolean indexSort) throws Exception {
+    final int numDocs = atLeast(300);
+    final long seed = random().nextLong();
+    final int maxBufferedDocs = TestUtil.nextInt(random(), 10, 100);
+    ExecutorService executor = Executors.newFixedThreadPool(2, new NamedThreadFactory("TestFlushExecutor"));
+    try (Directory serialDir = newDirectory(); Directory concurrentDir = newDirectory()) {
+      for (Directory dir : new Directory[] { serialDir, concurrentDir }) {
+        IndexWriterConfig iwc = new IndexWriterConfig(new MockAnalyzer(random()))
+            .setMaxBufferedDocs(maxBufferedDocs)
+            .setMergePolicy(NoMergePolicy.INSTANCE);
+        if (indexSort) {
+          iwc.setIndexSort(new Sort(new SortField("ndv", SortField.Type.LONG)));
+        }
+        if (dir == concurrentDir) {
+          iwc.setFlushExecutor(executor);
+        }
+        try (IndexWriter w = new IndexWriter(dir, iwc)) {
+          // same documents in both indices
+          Random random = new Random(seed);
+          for (int i = 0; i < numDocs; ++i) {
+            w.addDocument(randomDocument(random, i));
+          }
+          w.commit();
+        }
+      }
+      try (DirectoryReader serialReader = DirectoryReader.open(serialDir);
+          DirectoryReader concurrentReader = DirectoryReader.open(concurrentDir)) {
+        assertEquals(serialReader.leaves().size(), concurrentReader.leaves().size());
+        assertReaderEquals("serial vs. concurrent flush", serialReader, concurrentReader);
+      }
+    } finally {
+      executor.shutdown();
+      assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+    }
+  }
+
+  public void testSameIndex() throws Exception {
+    doTestSameIndex(false);
+  }
+
+  public void testSameIndexWithIndexSort() throws Exception {
+    doTestSameIndex(true);
+  }
+
+  public void testRejectedExecution() throws Exception {
+    Directory dir = newDirectory();
+    IndexWriterConfig iwc = new IndexWriterConfig(new MockAnalyzer(random()))
+        .setFlushExecutor(task -> { throw new RejectedExecutionException(); });
+    IndexWriter w = new IndexWriter(dir, iwc);
+    final int numDocs = atLeast(10);
+    for (int i = 0; i < numDocs; ++i) {
+      w.addDocument(randomDocument(random(), i));
+    }
+    w.commit();
+    try (DirectoryReader reader = DirectoryReader.open(w)) {
+      assertEquals(numDocs, reader.numDocs());
+    }
+    w.close();
+    dir.close();
+  }
+
+  public void testExceptionInConcurrentTask() throws Exception {
+    MockDirectoryWrapper dir = newMockDirectory();
+    dir.failOn(new MockDirectoryWrapper.Failure() {
+      @Override
+      public void eval(MockDirectoryWrapper dir) throws IOException {
+        for (StackTraceElement e : new Exception().getStackTrace()) {
+          if (DefaultIndexingChain.class.getName().equals(e.getClassName()) && "writePoints".equals(e.getMethodName())) {
+            throw new IOException("now failing on purpose");
+          }
+        }
+      }
+    });
+    ExecutorService executor = Executors.newFixedThreadPool(2, new NamedThreadFactory("TestFlushExecutor"));
+    try {
+      IndexWriterConfig iwc = new IndexWriterConfig(new MockAnalyzer(random()))
+          .setFlushExecutor(executor);
+      IndexWriter w = new IndexWriter(dir, iwc);
+      w.addDocument(randomDocument(random(), 0));
+      IOException e = expectThrows(IOException.class, w::commit);
+      assertEquals("now failing on purpose", e.getMessage());
+      // the exception is aborting
+      assertFalse(w.isOpen());
+      assertSame(e, w.getTragicException());
+    } finally {
+      executor.shutdown();
+      assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+    }
+    // other tasks have been waited for so all files are closed
+    dir.close();
+  }
+}
@@ -22,6 +22,7 @@ import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Set;
 
 import com.carrotsearch.randomizedtesting.generators.RandomPicks;
@@ -101,4 +102,37 @@ public class TestFrozenBufferedUpdates extends LuceneTestCase {
       }
     }
   }
+
+  public void testTermDocsIteratorPrimaryKeys() throws IOException {
+    try (Directory dir = newDirectory()) {
+      IndexWriterConfig iwc = newIndexWriterConfig().setMergePolicy(newLogMergePolicy());
+      final int numDocs = atLeast(100);
+      try (IndexWriter writer = new IndexWriter(dir, iwc)) {
+        for (int i = 0; i < numDocs; i++) {
+          Document doc = new Document();
+          // only even ids exist
+          doc.add(new StringField("id", String.format(Locale.ROOT, "%05d", 2 * i), Field.Store.NO));
+          writer.addDocument(doc);
+        }
+        writer.forceMerge(1);
+      }
+      try (DirectoryReader reader = DirectoryReader.open(dir)) {
+        assertEquals(1, reader.leaves().size());
+        TermDocsIterator iterator = new TermDocsIterator(reader.leaves().get(0).reader(), true);
+        for (int id = 0; id < 2 * numDocs + 10; id++) {
+          // look up existing and missing ids, possibly several times in a row
+          for (int i = random().nextInt(3); i >= 0; --i) {
+            DocIdSetIterator docIdSetIterator = iterator.nextTerm("id", new BytesRef(String.format(Locale.ROOT, "%05d", id)));
+            if (id % 2 == 0 && id < 2 * numDocs) {
+              assertNotNull(docIdSetIterator);
+              assertEquals(id / 2, docIdSetIterator.nextDoc());
+              assertEquals(DocIdSetIterator.NO_MORE_DOCS, docIdSetIterator.nextDoc());
+            } else {
+              assertNull(docIdSetIterator);
+            }
+          }
+        }
+      }
+    }
+  }
 }
@@ -75,6 +75,10 @@ public class TestIndexWriterConfig extends LuceneTestCase {
     assertEquals(InfoStream.getDefault(), conf.getInfoStream());
     assertEquals(IndexWriterConfig.DEFAULT_USE_COMPOUND_FILE_SYSTEM, conf.getUseCompoundFile());
     assertTrue(conf.isCheckPendingFlushOnUpdate());
+    assertNull(conf.getFlushExecutor());
+    assertEquals(IndexWriterConfig.DEFAULT_MAX_FULL_FLUSH_MERGE_WAIT_MILLIS, conf.getMaxFullFlushMergeWaitMillis());
+    assertFalse(conf.getRecordIndexingStats());
+    assertEquals(IndexingBufferAllocator.Direct.class, conf.getIndexingBufferAllocator().getClass());
     // Sanity check - validate that all getters are covered.
     Set<String> getters = new HashSet<>();
     getters.add("getAnalyzer");
@@ -258,6 +262,10 @@ public class TestIndexWriterConfig extends LuceneTestCase {
     expectThrows(IllegalArgumentException.class, () -> {
       conf.setRAMPerThreadHardLimitMB(0);
     });
+
+    expectThrows(IllegalArgumentException.class, () -> {
+      conf.setIndexingBufferAllocator(null);
+    });
     
     // Test MergePolicy
     assertEquals(TieredMergePolicy.class, conf.getMergePolicy().getClass());
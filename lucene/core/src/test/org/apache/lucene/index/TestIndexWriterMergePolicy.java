@@ -18,6 +18,9 @@ package org.apache.lucene.index;
 
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
 
 import org.apache.lucene.analysis.MockAnalyzer;
 import org.apache.lucene.document.Document;
@@ -293,4 +296,144 @@ public class TestIndexWriterMergePolicy extends LuceneTestCase {
     
     // TODO: Add more checks for other non-double setters!
   }
+
+  /** Merges all segments that are not already being merged on full flushes. */
+  private static class MergeOnFullFlushPolicy extends FilterMergePolicy {
+
+    MergeOnFullFlushPolicy() {
+      super(NoMergePolicy.INSTANCE);
+    }
+
+    @Override
+    public MergeSpecification findFullFlushMerges(MergeTrigger mergeTrigger, SegmentInfos segmentInfos, MergeContext mergeContext) {
+      List<SegmentCommitInfo> segments = new ArrayList<>();
+      for (SegmentCommitInfo info : segmentInfos) {
+        if (mergeContext.getMergingSegments().contains(info) == false) {
+          segments.add(info);
+        }
+      }
+      if (segments.size() <= 1) {
+        return null;
+      }
+      MergeSpecification spec = new MergeSpecification();
+      spec.add(newMerge(segments));
+      return spec;
+    }
+
+    OneMerge newMerge(List<SegmentCommitInfo> segments) {
+      return new OneMerge(segments);
+    }
+  }
+
+  public void testMergeOnGetReader() throws IOException {
+    Directory dir = newDirectory();
+    IndexWriter writer = new IndexWriter(dir, newIndexWriterConfig(new MockAnalyzer(random()))
+                                                .setMaxBufferedDocs(2)
+                                                .setMergePolicy(new MergeOnFullFlushPolicy())
+                                                .setMaxFullFlushMergeWaitMillis(Long.MAX_VALUE / 1000000));
+    for (int i = 0; i < 11; i++) {
+      addDoc(writer);
+    }
+    DirectoryReader reader = DirectoryReader.open(writer);
+    assertEquals(1, reader.leaves().size());
+    assertEquals(11, reader.numDocs());
+
+    for (int i = 0; i < 7; i++) {
+      addDoc(writer);
+    }
+    DirectoryReader newReader = DirectoryReader.openIfChanged(reader);
+    assertNotNull(newReader);
+    reader.close();
+    reader = newReader;
+    assertEquals(1, reader.leaves().size());
+    assertEquals(18, reader.numDocs());
+    reader.close();
+
+    writer.close();
+    dir.close();
+  }
+
+  public void testMergeOnCommit() throws IOException {
+    Directory dir = newDirectory();
+    IndexWriter writer = new IndexWriter(dir, newIndexWriterConfig(new MockAnalyzer(random()))
+                                                .setMaxBufferedDocs(2)
+                                                .setMergePolicy(new MergeOnFullFlushPolicy())
+                                                .setMaxFullFlushMergeWaitMillis(Long.MAX_VALUE / 1000000));
+    for (int i = 0; i < 11; i++) {
+      addDoc(writer);
+    }
+    writer.commit();
+    SegmentInfos infos = SegmentInfos.readLatestCommit(dir);
+    assertEquals(1, infos.size());
+    assertEquals(11, infos.totalMaxDoc());
+
+    writer.close();
+    dir.close();
+  }
+
+  public void testFullFlushMergeTimesOut() throws IOException {
+    final CountDownLatch mergeLatch = new CountDownLatch(1);
+    ConcurrentMergeScheduler cms = new ConcurrentMergeScheduler() {
+      @Override
+      protected void doMerge(IndexWriter writer, MergePolicy.OneMerge merge) throws IOException {
+        try {
+          mergeLatch.await();
+        } catch (InterruptedException e) {
+          throw new AssertionError(e);
+        }
+        super.doMerge(writer, merge);
+      }
+    };
+    Directory dir = newDirectory();
+    IndexWriter writer = new IndexWriter(dir, newIndexWriterConfig(new MockAnalyzer(random()))
+                                                .setMaxBufferedDocs(2)
+                                                .setMergeScheduler(cms)
+                                                .setMergePolicy(new MergeOnFullFlushPolicy())
+                                                .setMaxFullFlushMergeWaitMillis(10));
+    for (int i = 0; i < 11; i++) {
+      addDoc(writer);
+    }
+    // the merge can't complete in time, the reader exposes flushed segments
+    DirectoryReader reader = DirectoryReader.open(writer);
+    assertTrue(reader.leaves().size() > 1);
+    assertEquals(11, reader.numDocs());
+    reader.close();
+
+    mergeLatch.countDown();
+    writer.close();
+    dir.close();
+  }
+
+  public void testFullFlushMergeFailsWithSerialMergeScheduler() throws IOException {
+    Directory dir = newDirectory();
+    IndexWriter writer = new IndexWriter(dir, newIndexWriterConfig(new MockAnalyzer(random()))
+                                                .setMaxBufferedDocs(2)
+                                                .setMergeScheduler(new SerialMergeScheduler())
+                                                .setMergePolicy(new MergeOnFullFlushPolicy() {
+                                                  @Override
+                                                  OneMerge newMerge(List<SegmentCommitInfo> segments) {
+                                                    return new OneMerge(segments) {
+                                                      @Override
+                                                      public CodecReader wrapForMerge(CodecReader reader) throws IOException {
+                                                        throw new IOException("fake merge failure");
+                                                      }
+                                                    };
+                                                  }
+                                                })
+                                                .setMaxFullFlushMergeWaitMillis(Long.MAX_VALUE / 1000000));
+    for (int i = 0; i < 11; i++) {
+      addDoc(writer);
+    }
+    // the merge runs on the calling thread, its failure closes the writer
+    IOException e;
+    if (random().nextBoolean()) {
+      e = expectThrows(IOException.class, writer::commit);
+    } else {
+      e = expectThrows(IOException.class, () -> DirectoryReader.open(writer));
+    }
+    assertEquals("fake merge failure", e.getMessage());
+    assertSame(e, writer.getTragicException());
+    assertFalse(writer.isOpen());
+    dir.close();
+  }
 }
@@ -0,0 +1,217 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.index;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.lucene.analysis.MockAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.FieldType;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.ByteBlockPool;
+import org.apache.lucene.util.Counter;
+import org.apache.lucene.util.IntBlockPool;
+import org.apache.lucene.util.LuceneTestCase;
+import org.apache.lucene.util.TestUtil;
+
+public class TestIndexingBufferAllocator extends LuceneTestCase {
+
+  private static final int INT_BLOCK_BYTES = IntBlockPool.INT_BLOCK_SIZE * Integer.BYTES;
+
+  public void testDirect() {
+    IndexingBufferAllocator allocator = new IndexingBufferAllocator.Direct();
+    Counter counter = Counter.newCounter();
+    ByteBlockPool.Allocator byteAllocator = allocator.newByteBlockAllocator(counter);
+    IntBlockPool.Allocator intAllocator = allocator.newIntBlockAllocator(counter);
+    byte[][] byteBlocks = new byte[][] { byteAllocator.getByteBlock(), byteAllocator.getByteBlock() };
+    int[][] intBlocks = new int[][] { intAllocator.getIntBlock() };
+    assertEquals(ByteBlockPool.BYTE_BLOCK_SIZE, byteBlocks[0].length);
+    assertEquals(IntBlockPool.INT_BLOCK_SIZE, intBlocks[0].length);
+    assertEquals(2 * ByteBlockPool.BYTE_BLOCK_SIZE + INT_BLOCK_BYTES, counter.get());
+
+    byteAllocator.recycleByteBlocks(byteBlocks, 0, byteBlocks.length);
+    intAllocator.recycleIntBlocks(intBlocks, 0, intBlocks.length);
+    assertEquals(0, counter.get());
+    assertEquals(0, allocator.ramBytesUsed());
+  }
+
+  public void testRecyclingByteBlocks() {
+    IndexingBufferAllocator allocator = new IndexingBufferAllocator.Recycling(2 * ByteBlockPool.BYTE_BLOCK_SIZE);
+    Counter counter = Counter.newCounter();
+    ByteBlockPool.Allocator byteAllocator = allocator.newByteBlockAllocator(counter);
+    byte[][] blocks = new byte[3][];
+    for (int i = 0; i < blocks.length; ++i) {
+      blocks[i] = byteAllocator.getByteBlock();
+      blocks[i][random().nextInt(blocks[i].length)] = 42;
+    }
+    assertEquals(3 * ByteBlockPool.BYTE_BLOCK_SIZE, counter.get());
+    assertEquals(0, allocator.ramBytesUsed());
+
+    byteAllocator.recycleByteBlocks(blocks, 0, blocks.length);
+    assertEquals(0, counter.get());
+    // only 2 blocks are retained
+    assertEquals(2 * ByteBlockPool.BYTE_BLOCK_SIZE, allocator.ramBytesUsed());
+    for (byte[] block : blocks) {
+      assertNull(block);
+    }
+
+    // blocks are reused by other allocators and zero-filled
+    Counter other = Counter.newCounter();
+    byte[] block = allocator.newByteBlockAllocator(other).getByteBlock();
+    for (byte b : block) {
+      assertEquals(0, b);
+    }
+    assertEquals(ByteBlockPool.BYTE_BLOCK_SIZE, other.get());
+    assertEquals(ByteBlockPool.BYTE_BLOCK_SIZE, allocator.ramBytesUsed());
+  }
+
+  public void testRecyclingIntBlocks() {
+    IndexingBufferAllocator allocator = new IndexingBufferAllocator.Recycling(INT_BLOCK_BYTES);
+    Counter counter = Counter.newCounter();
+    IntBlockPool.Allocator intAllocator = allocator.newIntBlockAllocator(counter);
+    int[][] blocks = new int[2][];
+    for (int i = 0; i < blocks.length; ++i) {
+      blocks[i] = intAllocator.getIntBlock();
+      blocks[i][random().nextInt(blocks[i].length)] = 42;
+    }
+    assertEquals(2 * INT_BLOCK_BYTES, counter.get());
+
+    intAllocator.recycleIntBlocks(blocks, 0, blocks.length);
+    assertEquals(0, counter.get());
+    assertEquals(INT_BLOCK_BYTES, allocator.ramBytesUsed());
+
+    int[] block = intAllocator.getIntBlock();
+    for (int i : block) {
+      assertEquals(0, i);
+    }
+    assertEquals(INT_BLOCK_BYTES, counter.get());
+    assertEquals(0, allocator.ramBytesUsed());
+  }
+
+  public void testRecyclingNothing() {
+    IndexingBufferAllocator allocator = new IndexingBufferAllocator.Recycling(0);
+    Counter counter = Counter.newCounter();
+    ByteBlockPool.Allocator byteAllocator = allocator.newByteBlockAllocator(counter);
+    byte[][] blocks = new byte[][] { byteAllocator.getByteBlock() };
+    byteAllocator.recycleByteBlocks(blocks, 0, 1);
+    assertEquals(0, counter.get());
+    assertEquals(0, allocator.ramBytesUsed());
+
+    expectThrows(IllegalArgumentException.class, () -> new IndexingBufferAllocator.Recycling(-1));
+  }
+
+  public void testCustomAllocator() throws Exception {
+    AtomicInteger byteBlocks = new AtomicInteger();
+    AtomicInteger intBlocks = new AtomicInteger();
+    IndexingBufferAllocator direct = new IndexingBufferAllocator.Direct();
+    IndexingBufferAllocator allocator = new IndexingBufferAllocator() {
+      @Override
+      public ByteBlockPool.Allocator newByteBlockAllocator(Counter bytesUsed) {
+        ByteBlockPool.Allocator in = direct.newByteBlockAllocator(bytesUsed);
+        return new ByteBlockPool.Allocator(in.blockSize) {
+          @Override
+          public byte[] getByteBlock() {
+            byteBlocks.incrementAndGet();
+            return in.getByteBlock();
+          }
+
+          @Override
+          public void recycleByteBlocks(byte[][] blocks, int start, int end) {
+            byteBlocks.addAndGet(start - end);
+            in.recycleByteBlocks(blocks, start, end);
+          }
+        };
+      }
+
+      @Override
+      public IntBlockPool.Allocator newIntBlockAllocator(Counter bytesUsed) {
+        IntBlockPool.Allocator in = direct.newIntBlockAllocator(bytesUsed);
+        return new IntBlockPool.Allocator(in.blockSize) {
+          @Override
+          public int[] getIntBlock() {
+            intBlocks.incrementAndGet();
+            return in.getIntBlock();
+          }
+
+          @Override
+          public void recycleIntBlocks(int[][] blocks, int start, int end) {
+            intBlocks.addAndGet(start - end);
+            in.recycleIntBlocks(blocks, start, end);
+          }
+        };
+      }
+    };
+
+    Directory dir = newDirectory();
+    IndexWriterConfig iwc = newIndexWriterConfig(new MockAnalyzer(random()))
+        .setIndexingBufferAllocator(allocator);
+    IndexWriter w = new IndexWriter(dir, iwc);
+    FieldType vectorsType = new FieldType(TextField.TYPE_NOT_STORED);
+    vectorsType.setStoreTermVectors(true);
+    Document doc = new Document();
+    doc.add(new Field("body", "foo bar", vectorsType));
+    w.addDocument(doc);
+    assertTrue(byteBlocks.get() > 0);
+    assertTrue(intBlocks.get() > 0);
+    w.flush();
+    // all blocks have been given back once the segment is flushed
+    assertEquals(0, byteBlocks.get());
+    assertEquals(0, intBlocks.get());
+    w.close();
+    dir.close();
+  }
+
+  public void testIndexWithRecycling() throws Exception {
+    Directory dir = newDirectory();
+    IndexingBufferAllocator allocator = new IndexingBufferAllocator.Recycling(TestUtil.nextInt(random(), 1, 16) * 1024L * 1024L);
+    IndexWriterConfig iwc = newIndexWriterConfig(new MockAnalyzer(random()))
+        .setIndexingBufferAllocator(allocator)
+        .setMaxBufferedDocs(TestUtil.nextInt(random(), 10, 100));
+    IndexWriter w = new IndexWriter(dir, iwc);
+    FieldType vectorsType = new FieldType(TextField.TYPE_NOT_STORED);
+    vectorsType.setStoreTermVectors(true);
+    vectorsType.setStoreTermVectorPositions(random().nextBoolean());
+    final int numDocs = atLeast(500);
+    int numFoo = 0;
+    for (int i = 0; i < numDocs; ++i) {
+      Document doc = new Document();
+      final boolean foo = random().nextBoolean();
+      if (foo) {
+        numFoo++;
+      }
+      doc.add(new Field("body", (foo ? "foo " : "bar ") + TestUtil.randomSimpleString(random()), vectorsType));
+      w.addDocument(doc);
+    }
+    w.flush();
+    // flushed blocks have been retained and are accounted for
+    assertTrue(allocator.ramBytesUsed() > 0);
+    assertEquals(allocator.ramBytesUsed(), w.docWriter.flushControl.getRetainedIndexingBufferBytes());
+    assertTrue(w.ramBytesUsed() >= allocator.ramBytesUsed());
+
+    try (DirectoryReader reader = DirectoryReader.open(w)) {
+      IndexSearcher searcher = newSearcher(reader);
+      assertEquals(numFoo, searcher.count(new TermQuery(new Term("body", "foo"))));
+      assertEquals(numDocs - numFoo, searcher.count(new TermQuery(new Term("body", "bar"))));
+    }
+    w.close();
+    dir.close();
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.index;
+
+import java.io.IOException;
+
+import org.apache.lucene.analysis.MockAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field.Store;
+import org.apache.lucene.document.IntPoint;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexingStats.Stage;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.LuceneTestCase;
+
+public class TestIndexingStats extends LuceneTestCase {
+
+  private static Document newDoc(int i) {
+    Document doc = new Document();
+    doc.add(new TextField("body", "foo bar baz", Store.NO));
+    doc.add(new StoredField("id", i));
+    doc.add(new NumericDocValuesField("dv", i));
+    doc.add(new IntPoint("point", i));
+    return doc;
+  }
+
+  private static int indexDocs(IndexWriter w, int numDocs) throws IOException {
+    for (int i = 0; i < numDocs; ++i) {
+      w.addDocument(newDoc(i));
+      if (random().nextInt(20) == 0) {
+        w.flush();
+      }
+    }
+    w.commit();
+    try (DirectoryReader reader = DirectoryReader.open(w)) {
+      return reader.leaves().size();
+    }
+  }
+
+  public void testDocumentStages() throws IOException {
+    Directory dir = newDirectory();
+    IndexWriterConfig iwc = new IndexWriterConfig(new MockAnalyzer(random()))
+        .setMergePolicy(NoMergePolicy.INSTANCE)
+        .setRecordIndexingStats(true);
+    IndexWriter w = new IndexWriter(dir, iwc);
+    final int numDocs = atLeast(100);
+    final int numSegments = indexDocs(w, numDocs);
+    IndexingStats stats = w.getIndexingStats();
+
+    for (Stage stage : new Stage[] { Stage.ANALYSIS, Stage.INVERSION }) {
+      assertEquals(numDocs, stats.getDocs(stage));
+      assertEquals(3L * numDocs, stats.getCount(stage));
+    }
+    assertTrue(stats.getBytes(Stage.INVERSION) > 0);
+    for (Stage stage : new Stage[] { Stage.STORED_FIELDS, Stage.DOC_VALUES, Stage.POINTS }) {
+      assertEquals(numDocs, stats.getDocs(stage));
+      assertEquals(numDocs, stats.getCount(stage));
+    }
+    for (Stage stage : new Stage[] { Stage.FLUSH_NORMS, Stage.FLUSH_DOC_VALUES, Stage.FLUSH_POINTS,
+        Stage.FLUSH_STORED_FIELDS, Stage.FLUSH_POSTINGS, Stage.FLUSH }) {
+      assertEquals(numDocs, stats.getDocs(stage));
+    }
+    // no index sort
+    assertEquals(0, stats.getDocs(Stage.FLUSH_SORT));
+    assertEquals(0, stats.getNanos(Stage.FLUSH_SORT));
+
+    assertEquals(numSegments, stats.getCount(Stage.FLUSH));
+    assertTrue(stats.getNanos(Stage.FLUSH) > 0);
+    assertTrue(stats.getBytes(Stage.FLUSH) > 0);
+
+    w.close();
+    dir.close();
+  }
+
+  public void testFlushStagesOnly() throws IOException {
+    Directory dir = newDirectory();
+    IndexWriterConfig iwc = new IndexWriterConfig(new MockAnalyzer(random()))
+        .setMergePolicy(NoMergePolicy.INSTANCE)
+        .setIndexSort(new Sort(new SortField("dv", SortField.Type.LONG)));
+    IndexWriter w = new IndexWriter(dir, iwc);
+    final int numDocs = atLeast(100);
+    final int numSegments = indexDocs(w, numDocs);
+    IndexingStats stats = w.getIndexingStats();
+
+    for (Stage stage : new Stage[] { Stage.ANALYSIS, Stage.INVERSION, Stage.STORED_FIELDS, Stage.DOC_VALUES, Stage.POINTS }) {
+      assertEquals(0, stats.getNanos(stage));
+      assertEquals(0, stats.getDocs(stage));
+      assertEquals(0, stats.getCount(stage));
+      assertEquals(0, stats.getBytes(stage));
+    }
+    for (Stage stage : new Stage[] { Stage.FLUSH_SORT, Stage.FLUSH_NORMS, Stage.FLUSH_DOC_VALUES, Stage.FLUSH_POINTS,
+        Stage.FLUSH_STORED_FIELDS, Stage.FLUSH_POSTINGS, Stage.FLUSH }) {
+      assertEquals(numDocs, stats.getDocs(stage));
+    }
+    assertEquals(numSegments, stats.getCount(Stage.FLUSH));
+
+    w.close();
+    dir.close();
+  }
+}
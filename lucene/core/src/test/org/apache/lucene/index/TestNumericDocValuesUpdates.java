@@ -1578,6 +1578,69 @@ public class TestNumericDocValuesUpdates extends LuceneTestCase {
     dir.close();
   }
   
+  public void testUpdatesOrderAcrossFields() throws Exception {
+    Directory dir = newDirectory();
+    IndexWriterConfig conf = newIndexWriterConfig(new MockAnalyzer(random()));
+    IndexWriter writer = new IndexWriter(dir, conf);
+
+    Document doc = new Document();
+    doc.add(new StringField("a", "t1", Store.NO));
+    doc.add(new StringField("b", "t1", Store.NO));
+    doc.add(new NumericDocValuesField("f", 1L));
+    writer.addDocument(doc);
+    // terms are resolved in sorted order, but the last update must still win
+    writer.updateNumericDocValue(new Term("b", "t1"), "f", 2L);
+    writer.updateNumericDocValue(new Term("a", "t1"), "f", 3L);
+    writer.updateNumericDocValue(new Term("b", "t1"), "f", 4L);
+    writer.updateNumericDocValue(new Term("a", "t1"), "f", 5L);
+    writer.close();
+
+    DirectoryReader reader = DirectoryReader.open(dir);
+    NumericDocValues dvs = reader.leaves().get(0).reader().getNumericDocValues("f");
+    assertEquals(0, dvs.nextDoc());
+    assertEquals(5, dvs.longValue());
+    reader.close();
+
+    dir.close();
+  }
+
+  public void testUpdatesOrderWithManyMatches() throws Exception {
+    Directory dir = newDirectory();
+    IndexWriterConfig conf = newIndexWriterConfig(new MockAnalyzer(random()));
+    IndexWriter writer = new IndexWriter(dir, conf);
+
+    // more matches than FrozenBufferedUpdates buffers at once
+    final int numDocs = 20000;
+    for (int i = 0; i < numDocs; i++) {
+      Document doc = new Document();
+      doc.add(new StringField("all", "x", Store.NO));
+      doc.add(new StringField("group", "g" + (i % 3), Store.NO));
+      doc.add(new NumericDocValuesField("id", i));
+      doc.add(new NumericDocValuesField("f", 0L));
+      writer.addDocument(doc);
+    }
+    writer.forceMerge(1);
+    // terms are resolved in sorted order, but the last update must still win
+    writer.updateNumericDocValue(new Term("group", "g2"), "f", 1L);
+    writer.updateNumericDocValue(new Term("all", "x"), "f", 2L);
+    writer.updateNumericDocValue(new Term("group", "g0"), "f", 3L);
+    writer.close();
+
+    DirectoryReader reader = DirectoryReader.open(dir);
+    assertEquals(1, reader.leaves().size());
+    LeafReader leaf = reader.leaves().get(0).reader();
+    NumericDocValues ids = leaf.getNumericDocValues("id");
+    NumericDocValues dvs = leaf.getNumericDocValues("f");
+    for (int doc = 0; doc < numDocs; doc++) {
+      assertEquals(doc, ids.nextDoc());
+      assertEquals(doc, dvs.nextDoc());
+      assertEquals(ids.longValue() % 3 == 0 ? 3 : 2, dvs.longValue());
+    }
+    reader.close();
+
+    dir.close();
+  }
+
   public void testUpdatesOrder() throws Exception {
     Directory dir = newDirectory();
     IndexWriterConfig conf = newIndexWriterConfig(new MockAnalyzer(random()));
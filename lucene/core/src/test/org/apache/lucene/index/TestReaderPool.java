@@ -162,6 +162,52 @@ public class TestReaderPool extends LuceneTestCase {
     IOUtils.close(pool, reader, directory);
   }
 
+  public void testCompactDVUpdates() throws IOException {
+    Directory directory = newDirectory();
+    FieldInfos.FieldNumbers fieldNumbers = buildIndex(directory);
+    StandardDirectoryReader reader = (StandardDirectoryReader) DirectoryReader.open(directory);
+    SegmentInfos segmentInfos = reader.segmentInfos.clone();
+    ReaderPool pool = new ReaderPool(directory, directory, segmentInfos, fieldNumbers, () -> 2l,
+        new NullInfoStream(), null, null, Collections.emptyMap());
+    pool.enableReaderPooling();
+    SegmentCommitInfo commitInfo = RandomPicks.randomFrom(random(), segmentInfos.asList());
+    ReadersAndUpdates readersAndUpdates = pool.get(commitInfo, true);
+    int maxDoc = commitInfo.info.maxDoc();
+    // packets may be added out of delGen order
+    for (long delGen : new long[] {0, 2, 1, 3}) {
+      NumericDocValuesFieldUpdates number = new NumericDocValuesFieldUpdates(delGen, "number", maxDoc);
+      for (int i = 0; i < 10; i++) {
+        number.add(0, 1000 + delGen);
+      }
+      number.finish();
+      readersAndUpdates.addDVUpdate(number);
+    }
+    assertEquals(4, readersAndUpdates.getNumDVUpdates());
+    long ramBytesUsed = readersAndUpdates.ramBytesUsed.get();
+    // merges still reference the pending packets
+    readersAndUpdates.setIsMerging();
+    assertEquals(0, readersAndUpdates.compactDVUpdates(2));
+    assertEquals(4, readersAndUpdates.getNumDVUpdates());
+    assertEquals(ramBytesUsed, readersAndUpdates.ramBytesUsed.get());
+    readersAndUpdates.dropMergingUpdates();
+    long bytesFreed = readersAndUpdates.compactDVUpdates(2);
+    // the packet of delGen=3 must not be compacted since it is not complete yet
+    assertEquals(2, readersAndUpdates.getNumDVUpdates());
+    assertEquals(ramBytesUsed - bytesFreed, readersAndUpdates.ramBytesUsed.get());
+    assertEquals(0, readersAndUpdates.compactDVUpdates(2));
+
+    assertTrue(pool.writeAllDocValuesUpdates());
+    assertEquals(1, readersAndUpdates.getNumDVUpdates());
+    SegmentReader updatedReader = readersAndUpdates.getReadOnlyClone(IOContext.READ);
+    NumericDocValues number = updatedReader.getNumericDocValues("number");
+    assertEquals(0, number.advance(0));
+    assertEquals(1002l, number.longValue());
+    readersAndUpdates.release(updatedReader);
+    readersAndUpdates.dropChanges();
+    assertFalse(pool.release(readersAndUpdates, false));
+    IOUtils.close(pool, reader, directory);
+  }
+
   public void testDeletes() throws IOException {
     Directory directory = newDirectory();
     FieldInfos.FieldNumbers fieldNumbers = buildIndex(directory);
@@ -19,7 +19,9 @@ package org.apache.lucene.index;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
@@ -27,9 +29,15 @@ import java.util.concurrent.TimeUnit;
 
 
 import org.apache.lucene.document.Document;
+import org.apache.lucene.search.Explanation;
 import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.IndexSearcher.LeafReaderContextPartition;
+import org.apache.lucene.search.IndexSearcher.LeafSlice;
 import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.Query;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.ScorerSupplier;
+import org.apache.lucene.search.Weight;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.util.Bits;
 import org.apache.lucene.util.IOUtils;
@@ -96,6 +104,11 @@ public class TestSegmentToThreadMapping extends LuceneTestCase {
         return null;
       }
 
+      @Override
+      public DocValuesSkipper getDocValuesSkipper(String field) {
+        return null;
+      }
+
       @Override
       public NumericDocValues getNormValues(String field) {
         return null;
@@ -265,4 +278,127 @@ public class TestSegmentToThreadMapping extends LuceneTestCase {
 
     assertTrue(resultSlices.length > 0);
   }
+
+  public void testSegmentPartitions() {
+    LeafReader largeSegmentReader = dummyIndexReader(600_000);
+    LeafReader firstSmallSegmentReader = dummyIndexReader(10_000);
+    LeafReader secondSmallSegmentReader = dummyIndexReader(10_000);
+    List<LeafReaderContext> leafReaderContexts = new ArrayList<>();
+
+    leafReaderContexts.add(new LeafReaderContext(largeSegmentReader));
+    leafReaderContexts.add(new LeafReaderContext(firstSmallSegmentReader));
+    leafReaderContexts.add(new LeafReaderContext(secondSmallSegmentReader));
+
+    LeafSlice[] resultSlices = IndexSearcher.slices(leafReaderContexts, 250_000, 5, false);
+    assertEquals(2, resultSlices.length);
+    assertEquals(1, resultSlices[0].partitions.length);
+    assertEquals(0, resultSlices[0].partitions[0].minDocId);
+    assertEquals(600_000, resultSlices[0].partitions[0].maxDocId);
+
+    resultSlices = IndexSearcher.slices(leafReaderContexts, 250_000, 5, true);
+    assertEquals(4, resultSlices.length);
+    for (int i = 0; i < 3; ++i) {
+      assertEquals(1, resultSlices[i].leaves.length);
+      assertEquals(1, resultSlices[i].partitions.length);
+      LeafReaderContextPartition partition = resultSlices[i].partitions[0];
+      assertSame(leafReaderContexts.get(0), partition.ctx);
+      assertEquals(i * 200_000, partition.minDocId);
+      assertEquals((i + 1) * 200_000, partition.maxDocId);
+    }
+    assertEquals(2, resultSlices[3].leaves.length);
+  }
+
+  public void testCostBalancedSlices() throws IOException {
+    List<LeafReaderContext> leafReaderContexts = new ArrayList<>();
+    Map<LeafReaderContext, Long> costs = new IdentityHashMap<>();
+    // a large segment with few matches
+    LeafReaderContext largeSegment = new LeafReaderContext(dummyIndexReader(1_000_000));
+    leafReaderContexts.add(largeSegment);
+    costs.put(largeSegment, 1_000L);
+    // a medium segment with many matches
+    LeafReaderContext mediumSegment = new LeafReaderContext(dummyIndexReader(300_000));
+    leafReaderContexts.add(mediumSegment);
+    costs.put(mediumSegment, 300_000L);
+    // small segments
+    for (int i = 0; i < 5; ++i) {
+      LeafReaderContext smallSegment = new LeafReaderContext(dummyIndexReader(10_000));
+      leafReaderContexts.add(smallSegment);
+      costs.put(smallSegment, 10_000L);
+    }
+
+    Weight weight = new Weight(new MatchAllDocsQuery()) {
+      @Override
+      public ScorerSupplier scorerSupplier(LeafReaderContext context) {
+        return new ScorerSupplier() {
+          @Override
+          public Scorer get(long leadCost) {
+            throw new UnsupportedOperationException();
+          }
+
+          @Override
+          public long cost() {
+            return costs.get(context);
+          }
+        };
+      }
+
+      @Override
+      public Explanation explain(LeafReaderContext context, int doc) {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public Scorer scorer(LeafReaderContext context) {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public boolean isCacheable(LeafReaderContext ctx) {
+        return false;
+      }
+    };
+
+    LeafSlice[] resultSlices = IndexSearcher.costBalancedSlices(weight, leafReaderContexts, 4, 1000);
+    assertEquals(4, resultSlices.length);
+
+    long totalCost = 0;
+    long maxSliceCost = 0;
+    int numMediumPartitions = 0;
+    int numLargePartitions = 0;
+    int numDocs = 0;
+    for (LeafSlice slice : resultSlices) {
+      long sliceCost = 0;
+      for (LeafReaderContextPartition partition : slice.partitions) {
+        int maxDoc = partition.ctx.reader().maxDoc();
+        sliceCost += costs.get(partition.ctx) * (partition.maxDocId - partition.minDocId) / maxDoc;
+        numDocs += partition.maxDocId - partition.minDocId;
+        if (partition.ctx == mediumSegment) {
+          numMediumPartitions++;
+        } else if (partition.ctx == largeSegment) {
+          numLargePartitions++;
+        }
+      }
+      totalCost += sliceCost;
+      maxSliceCost = Math.max(maxSliceCost, sliceCost);
+    }
+    // all documents are covered exactly once
+    assertEquals(1_000_000 + 300_000 + 5 * 10_000, numDocs);
+    // the medium segment holds most matches so it gets split across slices, not the large one
+    assertEquals(1, numLargePartitions);
+    assertTrue(numMediumPartitions > 1);
+    // slices are balanced
+    assertTrue(maxSliceCost + " vs " + totalCost, maxSliceCost <= totalCost / 4 + 20_000);
+  }
+
+  public void testIllegalSlices() {
+    LeafReaderContext ctx = new LeafReaderContext(dummyIndexReader(100));
+    expectThrows(IllegalArgumentException.class,
+        () -> LeafReaderContextPartition.createFromAndTo(ctx, 50, 10));
+    expectThrows(IllegalArgumentException.class,
+        () -> LeafReaderContextPartition.createFromAndTo(ctx, 0, 101));
+    expectThrows(IllegalArgumentException.class,
+        () -> new LeafSlice(new LeafReaderContextPartition[] {
+            LeafReaderContextPartition.createFromAndTo(ctx, 0, 50),
+            LeafReaderContextPartition.createFromAndTo(ctx, 50, 100)}));
+  }
 }
@@ -0,0 +1,213 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.index;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.lucene.analysis.MockAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.DoubleDocValuesField;
+import org.apache.lucene.document.FloatDocValuesField;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.SortedDocValuesField;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.LuceneTestCase;
+import org.apache.lucene.util.TestUtil;
+
+public class TestSorter extends LuceneTestCase {
+
+  private static Sorter.SortableDocComparator newComparator(long[] values, boolean reverse) {
+    final int reverseMul = reverse ? -1 : 1;
+    return new Sorter.SortableDocComparator() {
+      @Override
+      public int compare(int docID1, int docID2) {
+        return reverseMul * Long.compare(values[docID1], values[docID2]);
+      }
+
+      @Override
+      long sortableKey(int docID) {
+        final long key = values[docID] ^ Long.MIN_VALUE;
+        return reverse ? ~key : key;
+      }
+    };
+  }
+
+  public void testRadixSortMatchesComparator() {
+    final int iters = atLeast(10);
+    for (int iter = 0; iter < iters; ++iter) {
+      final int maxDoc = TestUtil.nextInt(random(), 1, 10000);
+      final Sorter.SortableDocComparator[] comparators = new Sorter.SortableDocComparator[TestUtil.nextInt(random(), 1, 3)];
+      for (int i = 0; i < comparators.length; ++i) {
+        final long[] values = new long[maxDoc];
+        final long min = random().nextLong();
+        final long range = random().nextBoolean() ? TestUtil.nextLong(random(), 0, 100) : Long.MAX_VALUE;
+        for (int doc = 0; doc < maxDoc; ++doc) {
+          values[doc] = range == Long.MAX_VALUE ? random().nextLong() : min + TestUtil.nextLong(random(), 0, range);
+        }
+        comparators[i] = newComparator(values, random().nextBoolean());
+      }
+
+      final Integer[] expected = new Integer[maxDoc];
+      for (int doc = 0; doc < maxDoc; ++doc) {
+        expected[doc] = doc;
+      }
+      Arrays.sort(expected, (doc1, doc2) -> {
+        for (Sorter.DocComparator comparator : comparators) {
+          final int cmp = comparator.compare(doc1, doc2);
+          if (cmp != 0) {
+            return cmp;
+          }
+        }
+        return Integer.compare(doc1, doc2);
+      });
+
+      final int[] actual = Sorter.radixSort(maxDoc, comparators);
+      for (int i = 0; i < maxDoc; ++i) {
+        assertEquals(expected[i].intValue(), actual[i]);
+      }
+    }
+  }
+
+  public void testSortLargeSegment() throws IOException {
+    final int maxDoc = Sorter.RADIX_SORT_THRESHOLD + random().nextInt(10000);
+    final long[] values = new long[maxDoc];
+    for (int doc = 0; doc < maxDoc; ++doc) {
+      values[doc] = random().nextInt(100);
+    }
+    final Sorter sorter = new Sorter(new Sort(new SortField("foo", SortField.Type.LONG)));
+    final Sorter.DocMap docMap = sorter.sort(maxDoc, new Sorter.DocComparator[] { newComparator(values, false) });
+    assertNotNull(docMap);
+    assertTrue(Sorter.isConsistent(docMap));
+    for (int i = 1; i < maxDoc; ++i) {
+      final int prev = docMap.newToOld(i - 1);
+      final int doc = docMap.newToOld(i);
+      assertTrue(values[prev] < values[doc] || (values[prev] == values[doc] && prev < doc));
+    }
+
+    // already sorted
+    Arrays.sort(values);
+    assertNull(sorter.sort(maxDoc, new Sorter.DocComparator[] { newComparator(values, false) }));
+  }
+
+  private static final float[] FLOATS = { Float.NEGATIVE_INFINITY, -1f, -0f, 0f, Float.MIN_VALUE, 1f, Float.POSITIVE_INFINITY, Float.NaN };
+  private static final double[] DOUBLES = { Double.NEGATIVE_INFINITY, -1d, -0d, 0d, Double.MIN_VALUE, 1d, Double.POSITIVE_INFINITY, Double.NaN };
+
+  public void testRadixSortMatchesTimSortOnRealComparators() throws IOException {
+    try (Directory dir = newDirectory()) {
+      final int numDocs = Sorter.RADIX_SORT_THRESHOLD + random().nextInt(2000);
+      // few distinct values so that there are lots of ties
+      final int numStrings = TestUtil.nextInt(random(), 1, 50);
+      try (IndexWriter w = new IndexWriter(dir, newIndexWriterConfig(new MockAnalyzer(random())))) {
+        for (int i = 0; i < numDocs; ++i) {
+          Document doc = new Document();
+          if (random().nextInt(10) != 0) {
+            doc.add(new SortedDocValuesField("string", new BytesRef(Integer.toString(random().nextInt(numStrings)))));
+          }
+          if (random().nextInt(10) != 0) {
+            doc.add(new NumericDocValuesField("int", TestUtil.nextInt(random(), -5, 5)));
+          }
+          if (random().nextInt(10) != 0) {
+            doc.add(new NumericDocValuesField("long", random().nextBoolean() ? random().nextLong() : TestUtil.nextLong(random(), -5, 5)));
+          }
+          if (random().nextInt(10) != 0) {
+            doc.add(new FloatDocValuesField("float", FLOATS[random().nextInt(FLOATS.length)]));
+          }
+          if (random().nextInt(10) != 0) {
+            doc.add(new DoubleDocValuesField("double", DOUBLES[random().nextInt(DOUBLES.length)]));
+          }
+          w.addDocument(doc);
+        }
+        w.forceMerge(1);
+      }
+
+      try (DirectoryReader reader = DirectoryReader.open(dir)) {
+        final LeafReader leafReader = getOnlyLeafReader(reader);
+        assertEquals(numDocs, leafReader.maxDoc());
+        final int iters = atLeast(10);
+        for (int iter = 0; iter < iters; ++iter) {
+          final Sort sort = randomSort();
+          final Sorter sorter = new Sorter(sort);
+          final SortField[] fields = sort.getSort();
+          final Sorter.DocComparator[] comparators = new Sorter.DocComparator[fields.length];
+          for (int i = 0; i < fields.length; ++i) {
+            comparators[i] = Sorter.getDocComparator(leafReader, fields[i]);
+            assertTrue(comparators[i] instanceof Sorter.SortableDocComparator);
+          }
+
+          final Sorter.DocMap radixDocMap = sorter.sort(numDocs, comparators);
+          final Sorter.DocMap timSortDocMap = Sorter.sort(numDocs, new Sorter.DocComparator() {
+            @Override
+            public int compare(int docID1, int docID2) {
+              for (Sorter.DocComparator comparator : comparators) {
+                final int cmp = comparator.compare(docID1, docID2);
+                if (cmp != 0) {
+                  return cmp;
+                }
+              }
+              return Integer.compare(docID1, docID2);
+            }
+          });
+          if (timSortDocMap == null) {
+            assertNull(sort.toString(), radixDocMap);
+          } else {
+            assertNotNull(sort.toString(), radixDocMap);
+            for (int i = 0; i < numDocs; ++i) {
+              assertEquals(sort.toString(), timSortDocMap.newToOld(i), radixDocMap.newToOld(i));
+              assertEquals(sort.toString(), timSortDocMap.oldToNew(i), radixDocMap.oldToNew(i));
+            }
+          }
+        }
+      }
+    }
+  }
+
+  private static Sort randomSort() {
+    final List<SortField> fields = new ArrayList<>();
+    final SortField string = new SortField("string", SortField.Type.STRING, random().nextBoolean());
+    string.setMissingValue(random().nextBoolean() ? SortField.STRING_FIRST : SortField.STRING_LAST);
+    fields.add(string);
+    final SortField intField = new SortField("int", SortField.Type.INT, random().nextBoolean());
+    if (random().nextBoolean()) {
+      intField.setMissingValue(random().nextBoolean() ? Integer.MIN_VALUE : Integer.MAX_VALUE);
+    }
+    fields.add(intField);
+    final SortField longField = new SortField("long", SortField.Type.LONG, random().nextBoolean());
+    if (random().nextBoolean()) {
+      longField.setMissingValue(random().nextBoolean() ? Long.MIN_VALUE : Long.MAX_VALUE);
+    }
+    fields.add(longField);
+    final SortField floatField = new SortField("float", SortField.Type.FLOAT, random().nextBoolean());
+    if (random().nextBoolean()) {
+      floatField.setMissingValue(FLOATS[random().nextInt(FLOATS.length)]);
+    }
+    fields.add(floatField);
+    final SortField doubleField = new SortField("double", SortField.Type.DOUBLE, random().nextBoolean());
+    if (random().nextBoolean()) {
+      doubleField.setMissingValue(DOUBLES[random().nextInt(DOUBLES.length)]);
+    }
+    fields.add(doubleField);
+    Collections.shuffle(fields, random());
+    return new Sort(fields.subList(0, TestUtil.nextInt(random(), 1, fields.size())).toArray(new SortField[0]));
+  }
+}
@@ -32,6 +32,7 @@ import org.apache.lucene.search.BooleanClause.Occur;
 import org.apache.lucene.search.Weight.DefaultBulkScorer;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.FixedBitSet;
 import org.apache.lucene.util.LuceneTestCase;
 import org.apache.lucene.util.TestUtil;
 
@@ -283,4 +284,77 @@ public class TestBooleanScorer extends LuceneTestCase {
     w.close();
     dir.close();
   }
+
+  public void testDocIdStream() throws IOException {
+    Directory dir = newDirectory();
+    RandomIndexWriter w = new RandomIndexWriter(random(), dir);
+    final int numDocs = atLeast(5000);
+    for (int i = 0; i < numDocs; ++i) {
+      Document doc = new Document();
+      for (String value : Arrays.asList("foo", "bar", "baz")) {
+        if (random().nextInt(3) == 0) {
+          doc.add(new StringField("field", value, Store.NO));
+        }
+      }
+      w.addDocument(doc);
+    }
+    if (random().nextBoolean()) {
+      w.deleteDocuments(new Term("field", "baz"));
+    }
+    IndexReader reader = w.getReader();
+    w.close();
+    IndexSearcher searcher = new IndexSearcher(reader);
+    searcher.setQueryCache(null); // we need to access the BooleanWeight
+
+    Query query = new BooleanQuery.Builder()
+      .add(new TermQuery(new Term("field", "foo")), Occur.SHOULD)
+      .add(new TermQuery(new Term("field", "bar")), Occur.SHOULD)
+      .build();
+
+    for (LeafReaderContext ctx : reader.leaves()) {
+      BooleanWeight weight = (BooleanWeight) searcher.createWeight(query, ScoreMode.COMPLETE_NO_SCORES, 1);
+      BulkScorer scorer = weight.optionalBulkScorer(ctx);
+      if (scorer == null) {
+        continue;
+      }
+      assertTrue(scorer instanceof BooleanScorer);
+
+      // doc IDs must be the same whether the stream is iterated or counted
+      final FixedBitSet streamed = new FixedBitSet(ctx.reader().maxDoc());
+      final int[] counts = new int[2];
+      scorer.score(new LeafCollector() {
+        @Override
+        public void setScorer(Scorable scorer) throws IOException {}
+
+        @Override
+        public void collect(int doc) throws IOException {
+          streamed.set(doc);
+        }
+
+        @Override
+        public void collect(DocIdStream stream) throws IOException {
+          counts[0]++;
+          stream.forEach(this::collect);
+        }
+      }, ctx.reader().getLiveDocs());
+      assertTrue(counts[0] > 0);
+
+      Scorer expected = weight.scorer(ctx);
+      FixedBitSet expectedDocs = new FixedBitSet(ctx.reader().maxDoc());
+      Bits liveDocs = ctx.reader().getLiveDocs();
+      for (int doc = expected.iterator().nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = expected.iterator().nextDoc()) {
+        if (liveDocs == null || liveDocs.get(doc)) {
+          expectedDocs.set(doc);
+        }
+      }
+      assertEquals(expectedDocs, streamed);
+
+      TotalHitCountCollector countCollector = new TotalHitCountCollector();
+      weight.optionalBulkScorer(ctx).score(countCollector.getLeafCollector(ctx), liveDocs);
+      assertEquals(expectedDocs.cardinality(), countCollector.getTotalHits());
+    }
+
+    reader.close();
+    dir.close();
+  }
 }
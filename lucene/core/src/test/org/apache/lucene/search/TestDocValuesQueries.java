@@ -92,6 +92,56 @@ public class TestDocValuesQueries extends LuceneTestCase {
     }
   }
 
+  public void testDuelPointRangeNumericRangeQueryWithSkipper() throws IOException {
+    final int iters = atLeast(3);
+    for (int iter = 0; iter < iters; ++iter) {
+      Directory dir = newDirectory();
+      // the default codec records skip data for numeric doc values
+      RandomIndexWriter iw = new RandomIndexWriter(random(), dir, newIndexWriterConfig().setCodec(TestUtil.getDefaultCodec()));
+      final boolean sortedNumeric = random().nextBoolean();
+      final int numDocs = atLeast(20000);
+      for (int i = 0; i < numDocs; ++i) {
+        Document doc = new Document();
+        if (random().nextInt(10) != 0) {
+          // values that are correlated with doc IDs, so that intervals of documents can be skipped
+          final long value = i + random().nextInt(100);
+          if (sortedNumeric) {
+            final long value2 = value + random().nextInt(10);
+            doc.add(new SortedNumericDocValuesField("dv", value));
+            doc.add(new SortedNumericDocValuesField("dv", value2));
+            doc.add(new LongPoint("idx", value2));
+          } else {
+            doc.add(new NumericDocValuesField("dv", value));
+          }
+          doc.add(new LongPoint("idx", value));
+        }
+        iw.addDocument(doc);
+      }
+      if (random().nextBoolean()) {
+        iw.forceMerge(1);
+      }
+      final IndexReader reader = iw.getReader();
+      final IndexSearcher searcher = newSearcher(reader, false);
+      iw.close();
+
+      for (int i = 0; i < 20; ++i) {
+        final long min = random().nextInt(10) == 0 ? Long.MIN_VALUE : TestUtil.nextLong(random(), -100, numDocs + 100);
+        final long max = random().nextInt(10) == 0 ? Long.MAX_VALUE : TestUtil.nextLong(random(), min, numDocs + 100);
+        final Query q1 = LongPoint.newRangeQuery("idx", min, max);
+        final Query q2;
+        if (sortedNumeric) {
+          q2 = SortedNumericDocValuesField.newSlowRangeQuery("dv", min, max);
+        } else {
+          q2 = NumericDocValuesField.newSlowRangeQuery("dv", min, max);
+        }
+        assertSameMatches(searcher, q1, q2, false);
+      }
+
+      reader.close();
+      dir.close();
+    }
+  }
+
   private void doTestDuelPointRangeSortedRangeQuery(boolean sortedSet, int maxValuesPerDoc) throws IOException {
     final int iters = atLeast(10);
     for (int iter = 0; iter < iters; ++iter) {
@@ -0,0 +1,487 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.search;
+
+import java.io.IOException;
+
+import com.carrotsearch.randomizedtesting.generators.RandomPicks;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.FloatDocValuesField;
+import org.apache.lucene.document.FloatPoint;
+import org.apache.lucene.document.IntPoint;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.LuceneTestCase;
+import org.apache.lucene.util.TestUtil;
+
+public class TestFieldSortOptimizationSkipping extends LuceneTestCase {
+
+  public void testLongSortOptimization() throws IOException {
+    final Directory dir = newDirectory();
+    final IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig());
+    final int numDocs = atLeast(10000);
+    for (int i = 0; i < numDocs; ++i) {
+      final Document doc = new Document();
+      doc.add(new NumericDocValuesField("my_field", i));
+      doc.add(new LongPoint("my_field", i));
+      writer.addDocument(doc);
+      if (i == 7000) writer.flush(); // two segments
+    }
+    final IndexReader reader = DirectoryReader.open(writer);
+    IndexSearcher searcher = new IndexSearcher(reader);
+    final SortField sortField = new SortField("my_field", SortField.Type.LONG);
+    sortField.setCanUsePoints();
+    final Sort sort = new Sort(sortField);
+    final int numHits = 3;
+    final int totalHitsThreshold = 3;
+
+    { // simple sort
+      final TopFieldCollector collector = TopFieldCollector.create(sort, numHits, null, totalHitsThreshold);
+      searcher.search(new MatchAllDocsQuery(), collector);
+      TopDocs topDocs = collector.topDocs();
+      assertEquals(topDocs.scoreDocs.length, numHits);
+      for (int i = 0; i < numHits; i++) {
+        FieldDoc fieldDoc = (FieldDoc) topDocs.scoreDocs[i];
+        assertEquals(i, ((Long) fieldDoc.fields[0]).intValue());
+      }
+      assertTrue(collector.isEarlyTerminated());
+      assertTrue(topDocs.totalHits.value < numDocs);
+    }
+
+    { // paging sort with after
+      long afterValue = 2;
+      FieldDoc after = new FieldDoc(2, Float.NaN, new Long[] {afterValue});
+      final TopFieldCollector collector = TopFieldCollector.create(sort, numHits, after, totalHitsThreshold);
+      searcher.search(new MatchAllDocsQuery(), collector);
+      TopDocs topDocs = collector.topDocs();
+      assertEquals(topDocs.scoreDocs.length, numHits);
+      for (int i = 0; i < numHits; i++) {
+        FieldDoc fieldDoc = (FieldDoc) topDocs.scoreDocs[i];
+        assertEquals(afterValue + 1 + i, fieldDoc.fields[0]);
+      }
+      assertTrue(collector.isEarlyTerminated());
+      assertTrue(topDocs.totalHits.value < numDocs);
+    }
+
+    { // test that if there is the secondary sort on _score, scores are filled correctly
+      final TopFieldCollector collector = TopFieldCollector.create(new Sort(sortField, FIELD_SCORE), numHits, null, totalHitsThreshold);
+      searcher.search(new MatchAllDocsQuery(), collector);
+      TopDocs topDocs = collector.topDocs();
+      assertEquals(topDocs.scoreDocs.length, numHits);
+      for (int i = 0; i < numHits; i++) {
+        FieldDoc fieldDoc = (FieldDoc) topDocs.scoreDocs[i];
+        assertEquals(i, ((Long) fieldDoc.fields[0]).intValue());
+        float score = (float) fieldDoc.fields[1];
+        assertEquals(1.0, score, 0.001);
+      }
+      assertTrue(collector.isEarlyTerminated());
+      assertTrue(topDocs.totalHits.value < numDocs);
+    }
+
+    { // test that if numeric field is a secondary sort, no optimization is run
+      final TopFieldCollector collector = TopFieldCollector.create(new Sort(FIELD_SCORE, sortField), numHits, null, totalHitsThreshold);
+      searcher.search(new MatchAllDocsQuery(), collector);
+      TopDocs topDocs = collector.topDocs();
+      assertEquals(topDocs.scoreDocs.length, numHits);
+      assertEquals(topDocs.totalHits.value, numDocs); // assert that all documents were collected => optimization was not run
+    }
+
+    writer.close();
+    reader.close();
+    dir.close();
+  }
+
+  private static final SortField FIELD_SCORE = SortField.FIELD_SCORE;
+
+  /**
+   * test that fields that are only indexed with doc values can skip non-competitive
+   * documents with the doc values skipper
+   */
+  public void testLongSortOptimizationWithDocValuesSkipper() throws IOException {
+    final Directory dir = newDirectory();
+    final IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig().setCodec(TestUtil.getDefaultCodec()));
+    final int numDocs = atLeast(20000);
+    for (int i = 0; i < numDocs; ++i) {
+      final Document doc = new Document();
+      doc.add(new NumericDocValuesField("my_field", i));
+      writer.addDocument(doc);
+    }
+    writer.forceMerge(1);
+    final IndexReader reader = DirectoryReader.open(writer);
+    IndexSearcher searcher = new IndexSearcher(reader);
+    final SortField sortField = new SortField("my_field", SortField.Type.LONG);
+    sortField.setCanUsePoints();
+    final Sort sort = new Sort(sortField);
+    final int numHits = 3;
+    final int totalHitsThreshold = 3;
+
+    final TopFieldCollector collector = TopFieldCollector.create(sort, numHits, null, totalHitsThreshold);
+    searcher.search(new MatchAllDocsQuery(), collector);
+    TopDocs topDocs = collector.topDocs();
+    assertEquals(topDocs.scoreDocs.length, numHits);
+    for (int i = 0; i < numHits; i++) {
+      FieldDoc fieldDoc = (FieldDoc) topDocs.scoreDocs[i];
+      assertEquals(i, ((Long) fieldDoc.fields[0]).intValue());
+    }
+    assertTrue(collector.isEarlyTerminated());
+    assertTrue(topDocs.totalHits.value < numDocs);
+
+    writer.close();
+    reader.close();
+    dir.close();
+  }
+
+  /**
+   * test that even if a field is not indexed with points, optimized sort still works as expected,
+   * although no optimization will be run
+   */
+  public void testLongSortOptimizationOnFieldNotIndexedWithPoints() throws IOException {
+    final Directory dir = newDirectory();
+    final IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig());
+    final int numDocs = atLeast(100);
+    // my_field is not indexed with points
+    for (int i = 0; i < numDocs; ++i) {
+      final Document doc = new Document();
+      doc.add(new NumericDocValuesField("my_field", i));
+      writer.addDocument(doc);
+    }
+    final IndexReader reader = DirectoryReader.open(writer);
+    IndexSearcher searcher = new IndexSearcher(reader);
+    final SortField sortField = new SortField("my_field", SortField.Type.LONG);
+    sortField.setCanUsePoints();
+    final Sort sort = new Sort(sortField);
+    final int numHits = 3;
+    final int totalHitsThreshold = 3;
+
+    final TopFieldCollector collector = TopFieldCollector.create(sort, numHits, null, totalHitsThreshold);
+    searcher.search(new MatchAllDocsQuery(), collector);
+    TopDocs topDocs = collector.topDocs();
+    assertEquals(topDocs.scoreDocs.length, numHits);  // sort still works and returns expected number of docs
+    for (int i = 0; i < numHits; i++) {
+      FieldDoc fieldDoc = (FieldDoc) topDocs.scoreDocs[i];
+      assertEquals(i, ((Long) fieldDoc.fields[0]).intValue()); // returns expected values
+    }
+    assertEquals(topDocs.totalHits.value, numDocs); // assert that all documents were collected => optimization was not run
+
+    writer.close();
+    reader.close();
+    dir.close();
+  }
+
+  public void testSortOptimizationWithMissingValues() throws IOException {
+    final Directory dir = newDirectory();
+    final IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig());
+    final int numDocs = atLeast(10000);
+    // one segment, where every tenth document is missing a value
+    for (int i = 0; i < numDocs; ++i) {
+      final Document doc = new Document();
+      if ((i % 10) != 0) {
+        doc.add(new NumericDocValuesField("my_field", i));
+        doc.add(new LongPoint("my_field", i));
+      }
+      writer.addDocument(doc);
+    }
+    writer.forceMerge(1);
+    final IndexReader reader = DirectoryReader.open(writer);
+    IndexSearcher searcher = new IndexSearcher(reader);
+    final int numHits = 3;
+    final int totalHitsThreshold = 3;
+
+    { // test that optimization is not run when missing value setting of SortField is competitive
+      final SortField sortField = new SortField("my_field", SortField.Type.LONG);
+      sortField.setMissingValue(0L); // set a competitive missing value
+      sortField.setCanUsePoints();
+      final Sort sort = new Sort(sortField);
+      final TopFieldCollector collector = TopFieldCollector.create(sort, numHits, null, totalHitsThreshold);
+      searcher.search(new MatchAllDocsQuery(), collector);
+      TopDocs topDocs = collector.topDocs();
+      assertEquals(topDocs.scoreDocs.length, numHits);
+      assertEquals(topDocs.totalHits.value, numDocs); // assert that all documents were collected => optimization was not run
+    }
+    { // test that optimization is run when missing value setting of SortField is NOT competitive
+      final SortField sortField = new SortField("my_field", SortField.Type.LONG);
+      sortField.setMissingValue(100L); // set a NON competitive missing value
+      sortField.setCanUsePoints();
+      final Sort sort = new Sort(sortField);
+      final TopFieldCollector collector = TopFieldCollector.create(sort, numHits, null, totalHitsThreshold);
+      searcher.search(new MatchAllDocsQuery(), collector);
+      TopDocs topDocs = collector.topDocs();
+      assertEquals(topDocs.scoreDocs.length, numHits);
+      assertTrue(topDocs.totalHits.value < numDocs); // assert that some docs were skipped => optimization was run
+    }
+
+    writer.close();
+    reader.close();
+    dir.close();
+  }
+
+  public void testSortOptimizationEqualValues() throws IOException {
+    final Directory dir = newDirectory();
+    final IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig());
+    final int numDocs = atLeast(10000);
+    for (int i = 1; i <= numDocs; ++i) {
+      final Document doc = new Document();
+      doc.add(new NumericDocValuesField("my_field1", 100)); // all docs have the same value of my_field1
+      doc.add(new IntPoint("my_field1", 100));
+      doc.add(new NumericDocValuesField("my_field2", numDocs - i)); // diff values for the field my_field2
+      writer.addDocument(doc);
+      if (i == 7000) writer.flush(); // two segments
+    }
+    final IndexReader reader = DirectoryReader.open(writer);
+    IndexSearcher searcher = new IndexSearcher(reader);
+    final int numHits = 3;
+    final int totalHitsThreshold = 3;
+
+    { // test that sorting on a single field with equal values uses the optimization
+      final SortField sortField = new SortField("my_field1", SortField.Type.INT);
+      sortField.setCanUsePoints();
+      final Sort sort = new Sort(sortField);
+      final TopFieldCollector collector = TopFieldCollector.create(sort, numHits, null, totalHitsThreshold);
+      searcher.search(new MatchAllDocsQuery(), collector);
+      TopDocs topDocs = collector.topDocs();
+      assertEquals(topDocs.scoreDocs.length, numHits);
+      for (int i = 0; i < numHits; i++) {
+        FieldDoc fieldDoc = (FieldDoc) topDocs.scoreDocs[i];
+        assertEquals(100, fieldDoc.fields[0]);
+      }
+      assertTrue(topDocs.totalHits.value < numDocs); // assert that some docs were skipped => optimization was run
+    }
+
+    { // test that sorting on a single field with equal values and after parameter uses the optimization
+      final int afterValue = 100;
+      final int afterDocID = 10 + random().nextInt(1000);
+      FieldDoc after = new FieldDoc(afterDocID, Float.NaN, new Integer[] {afterValue});
+      final SortField sortField = new SortField("my_field1", SortField.Type.INT);
+      sortField.setCanUsePoints();
+      final Sort sort = new Sort(sortField);
+      final TopFieldCollector collector = TopFieldCollector.create(sort, numHits, after, totalHitsThreshold);
+      searcher.search(new MatchAllDocsQuery(), collector);
+      TopDocs topDocs = collector.topDocs();
+      assertEquals(topDocs.scoreDocs.length, numHits);
+      for (int i = 0; i < numHits; i++) {
+        FieldDoc fieldDoc = (FieldDoc) topDocs.scoreDocs[i];
+        assertEquals(100, fieldDoc.fields[0]);
+        assertTrue(fieldDoc.doc > afterDocID);
+      }
+    }
+
+    { // test that sorting on main field with equal values + another field for tie breaks doesn't use optimization
+      final SortField sortField1 = new SortField("my_field1", SortField.Type.INT);
+      sortField1.setCanUsePoints();
+      final SortField sortField2 = new SortField("my_field2", SortField.Type.INT);
+      final Sort sort = new Sort(sortField1, sortField2);
+      final TopFieldCollector collector = TopFieldCollector.create(sort, numHits, null, totalHitsThreshold);
+      searcher.search(new MatchAllDocsQuery(), collector);
+      TopDocs topDocs = collector.topDocs();
+      assertEquals(topDocs.scoreDocs.length, numHits);
+      for (int i = 0; i < numHits; i++) {
+        FieldDoc fieldDoc = (FieldDoc) topDocs.scoreDocs[i];
+        assertEquals(100, fieldDoc.fields[0]); // sort on 1st field as expected
+        assertEquals(i, fieldDoc.fields[1]); // sort on 2nd field as expected
+      }
+      assertEquals(topDocs.scoreDocs.length, numHits);
+      assertEquals(topDocs.totalHits.value, numDocs); // assert that all documents were collected => optimization was not run
+    }
+
+    writer.close();
+    reader.close();
+    dir.close();
+  }
+
+  public void testFloatSortOptimization() throws IOException {
+    final Directory dir = newDirectory();
+    final IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig());
+    final int numDocs = atLeast(10000);
+    for (int i = 0; i < numDocs; ++i) {
+      final Document doc = new Document();
+      float f = 1f * i;
+      doc.add(new FloatDocValuesField("my_field", f));
+      doc.add(new FloatPoint("my_field", f));
+      writer.addDocument(doc);
+    }
+    final IndexReader reader = DirectoryReader.open(writer);
+    IndexSearcher searcher = new IndexSearcher(reader);
+    final SortField sortField = new SortField("my_field", SortField.Type.FLOAT);
+    sortField.setCanUsePoints();
+    final Sort sort = new Sort(sortField);
+    final int numHits = 3;
+    final int totalHitsThreshold = 3;
+
+    final TopFieldCollector collector = TopFieldCollector.create(sort, numHits, null, totalHitsThreshold);
+    searcher.search(new MatchAllDocsQuery(), collector);
+    TopDocs topDocs = collector.topDocs();
+    assertEquals(topDocs.scoreDocs.length, numHits);
+    for (int i = 0; i < numHits; i++) {
+      FieldDoc fieldDoc = (FieldDoc) topDocs.scoreDocs[i];
+      assertEquals(1f * i, fieldDoc.fields[0]);
+    }
+    assertTrue(topDocs.totalHits.value < numDocs);
+
+    writer.close();
+    reader.close();
+    dir.close();
+  }
+
+  public void testRandomLong() throws IOException {
+    doTestRandomLong(true);
+  }
+
+  public void testRandomLongWithoutPoints() throws IOException {
+    doTestRandomLong(false);
+  }
+
+  private void doTestRandomLong(boolean indexPoints) throws IOException {
+    final Directory dir = newDirectory();
+    final IndexWriter writer = new IndexWriter(dir, newIndexWriterConfig());
+    final int numDocs = atLeast(indexPoints ? 1000 : 10000);
+    final int maxValue = random().nextBoolean() ? 10 : 100000;
+    // values that are correlated with doc IDs give the doc values skipper a chance to skip
+    final boolean correlated = indexPoints == false && random().nextBoolean();
+    for (int i = 0; i < numDocs; ++i) {
+      final Document doc = new Document();
+      if (random().nextInt(20) != 0) {
+        long value = correlated ? (long) i * maxValue / numDocs : random().nextInt(maxValue);
+        doc.add(new NumericDocValuesField("my_field", value));
+        if (indexPoints) {
+          doc.add(new LongPoint("my_field", value));
+        }
+      }
+      writer.addDocument(doc);
+      if (random().nextInt(indexPoints ? 200 : 5000) == 0) {
+        writer.flush();
+      }
+    }
+    final IndexReader reader = DirectoryReader.open(writer);
+    writer.close();
+    IndexSearcher searcher = newSearcher(reader);
+
+    for (int iter = 0; iter < 20; ++iter) {
+      final boolean reverse = random().nextBoolean();
+      final Long missingValue = random().nextBoolean() ? null : (long) random().nextInt(maxValue);
+      final SortField expectedSortField = new SortField("my_field", SortField.Type.LONG, reverse);
+      expectedSortField.setMissingValue(missingValue);
+      final SortField sortField = new SortField("my_field", SortField.Type.LONG, reverse);
+      sortField.setMissingValue(missingValue);
+      sortField.setCanUsePoints();
+      final int numHits = TestUtil.nextInt(random(), 1, 20);
+      final int totalHitsThreshold = TestUtil.nextInt(random(), 0, 50);
+
+      final Sort expectedSort = random().nextBoolean()
+          ? new Sort(expectedSortField)
+          : new Sort(expectedSortField, SortField.FIELD_DOC);
+      final Sort sort = expectedSort.getSort().length == 1
+          ? new Sort(sortField)
+          : new Sort(sortField, SortField.FIELD_DOC);
+
+      FieldDoc after = null;
+      if (random().nextBoolean()) {
+        TopFieldDocs page = searcher.search(new MatchAllDocsQuery(), TestUtil.nextInt(random(), 1, 50), expectedSort);
+        if (page.scoreDocs.length > 0) {
+          after = (FieldDoc) page.scoreDocs[page.scoreDocs.length - 1];
+        }
+      }
+
+      TopFieldCollector expectedCollector = TopFieldCollector.create(expectedSort, numHits, after, Integer.MAX_VALUE);
+      searcher.search(new MatchAllDocsQuery(), expectedCollector);
+      TopFieldDocs expected = expectedCollector.topDocs();
+
+      TopFieldCollector actualCollector = TopFieldCollector.create(sort, numHits, after, totalHitsThreshold);
+      searcher.search(new MatchAllDocsQuery(), actualCollector);
+      TopFieldDocs actual = actualCollector.topDocs();
+
+      assertEquals(expected.scoreDocs.length, actual.scoreDocs.length);
+      for (int i = 0; i < expected.scoreDocs.length; ++i) {
+        FieldDoc expectedDoc = (FieldDoc) expected.scoreDocs[i];
+        FieldDoc actualDoc = (FieldDoc) actual.scoreDocs[i];
+        assertEquals(expectedDoc.doc, actualDoc.doc);
+        assertEquals(expectedDoc.fields[0], actualDoc.fields[0]);
+      }
+      if (actual.totalHits.relation == TotalHits.Relation.EQUAL_TO) {
+        assertEquals(expected.totalHits.value, actual.totalHits.value);
+      } else {
+        assertTrue(actual.totalHits.value <= expected.totalHits.value);
+      }
+    }
+
+    reader.close();
+    dir.close();
+  }
+
+  public void testRandomSortedNumeric() throws IOException {
+    final Directory dir = newDirectory();
+    final IndexWriter writer = new IndexWriter(dir, newIndexWriterConfig());
+    final int numDocs = atLeast(1000);
+    final int maxValue = random().nextBoolean() ? 10 : 100000;
+    for (int i = 0; i < numDocs; ++i) {
+      final Document doc = new Document();
+      // points hold all values of the document, whichever the selector
+      final int numValues = random().nextInt(20) == 0 ? 0 : TestUtil.nextInt(random(), 1, 3);
+      for (int j = 0; j < numValues; ++j) {
+        long value = random().nextInt(maxValue);
+        doc.add(new SortedNumericDocValuesField("my_field", value));
+        doc.add(new LongPoint("my_field", value));
+      }
+      writer.addDocument(doc);
+      if (random().nextInt(200) == 0) {
+        writer.flush();
+      }
+    }
+    final IndexReader reader = DirectoryReader.open(writer);
+    writer.close();
+    IndexSearcher searcher = newSearcher(reader);
+
+    for (int iter = 0; iter < 20; ++iter) {
+      final boolean reverse = random().nextBoolean();
+      final SortedNumericSelector.Type selector = RandomPicks.randomFrom(random(), SortedNumericSelector.Type.values());
+      final Long missingValue = random().nextBoolean() ? null : (long) random().nextInt(maxValue);
+      final SortField expectedSortField = new SortedNumericSortField("my_field", SortField.Type.LONG, reverse, selector);
+      expectedSortField.setMissingValue(missingValue);
+      final SortField sortField = new SortedNumericSortField("my_field", SortField.Type.LONG, reverse, selector);
+      sortField.setMissingValue(missingValue);
+      sortField.setCanUsePoints();
+      final int numHits = TestUtil.nextInt(random(), 1, 20);
+      final int totalHitsThreshold = TestUtil.nextInt(random(), 0, 50);
+
+      TopFieldCollector expectedCollector = TopFieldCollector.create(new Sort(expectedSortField), numHits, null, Integer.MAX_VALUE);
+      searcher.search(new MatchAllDocsQuery(), expectedCollector);
+      TopFieldDocs expected = expectedCollector.topDocs();
+
+      TopFieldCollector actualCollector = TopFieldCollector.create(new Sort(sortField), numHits, null, totalHitsThreshold);
+      searcher.search(new MatchAllDocsQuery(), actualCollector);
+      TopFieldDocs actual = actualCollector.topDocs();
+
+      assertEquals(expected.scoreDocs.length, actual.scoreDocs.length);
+      for (int i = 0; i < expected.scoreDocs.length; ++i) {
+        FieldDoc expectedDoc = (FieldDoc) expected.scoreDocs[i];
+        FieldDoc actualDoc = (FieldDoc) actual.scoreDocs[i];
+        assertEquals(expectedDoc.doc, actualDoc.doc);
+        assertEquals(expectedDoc.fields[0], actualDoc.fields[0]);
+      }
+      assertTrue(actual.totalHits.value <= expected.totalHits.value);
+    }
+
+    reader.close();
+    dir.close();
+  }
+}
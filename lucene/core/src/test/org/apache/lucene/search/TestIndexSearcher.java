@@ -30,6 +30,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field.Store;
 import org.apache.lucene.document.Field;
+import org.apache.lucene.document.NumericDocValuesField;
 import org.apache.lucene.document.SortedDocValuesField;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.index.IndexReader;
@@ -265,4 +266,73 @@ public class TestIndexSearcher extends LuceneTestCase {
       assertEquals(leaves.size() - 1, numExecutions.get());
     }
   }
+
+  public void testIntraSegmentConcurrency() throws Exception {
+    Directory dir = newDirectory();
+    RandomIndexWriter w = new RandomIndexWriter(random(), dir);
+    final int numDocs = atLeast(500);
+    for (int i = 0; i < numDocs; ++i) {
+      Document doc = new Document();
+      doc.add(new StringField("color", random().nextBoolean() ? "red" : "blue", Store.NO));
+      doc.add(new StringField("size", Integer.toString(random().nextInt(5)), Store.NO));
+      doc.add(new NumericDocValuesField("price", random().nextInt(100)));
+      w.addDocument(doc);
+    }
+    if (random().nextBoolean()) {
+      w.forceMerge(1);
+    }
+    IndexReader r = w.getReader();
+    w.close();
+
+    ExecutorService service = new ThreadPoolExecutor(4, 4, 0L, TimeUnit.MILLISECONDS,
+                                   new LinkedBlockingQueue<Runnable>(),
+                                   new NamedThreadFactory("TestIndexSearcher"));
+    final int maxDocsPerSlice = TestUtil.nextInt(random(), 10, 200);
+    IndexSearcher partitioningSearcher = new IndexSearcher(r, service) {
+      @Override
+      protected LeafSlice[] slices(List<LeafReaderContext> leaves) {
+        return slices(leaves, maxDocsPerSlice, 5, true);
+      }
+    };
+    final int numSlices = TestUtil.nextInt(random(), 2, 8);
+    IndexSearcher costBalancingSearcher = new IndexSearcher(r, service) {
+      @Override
+      protected LeafSlice[] slices(Weight weight) throws IOException {
+        return costBalancedSlices(weight, leafContexts, numSlices, 10);
+      }
+    };
+    IndexSearcher searcher = new IndexSearcher(r);
+    for (IndexSearcher s : Arrays.asList(partitioningSearcher, costBalancingSearcher)) {
+      s.setQueryCache(null);
+    }
+    searcher.setQueryCache(null);
+
+    List<Query> queries = Arrays.asList(
+        new MatchAllDocsQuery(),
+        new TermQuery(new Term("color", "red")),
+        new BooleanQuery.Builder()
+            .add(new TermQuery(new Term("color", "blue")), Occur.SHOULD)
+            .add(new TermQuery(new Term("size", "3")), Occur.SHOULD)
+            .build(),
+        new BooleanQuery.Builder()
+            .add(new TermQuery(new Term("color", "blue")), Occur.MUST)
+            .add(new TermQuery(new Term("size", "1")), Occur.FILTER)
+            .build());
+    Sort sort = new Sort(new SortField("price", SortField.Type.INT), SortField.FIELD_DOC);
+    for (Query query : queries) {
+      final int expectedCount = searcher.count(query);
+      final TopDocs expectedTopDocs = searcher.search(query, 10);
+      final TopFieldDocs expectedSortedTopDocs = searcher.search(query, 10, sort);
+      final TopDocs expectedAllHits = searcher.search(query, numDocs);
+      for (IndexSearcher s : Arrays.asList(partitioningSearcher, costBalancingSearcher)) {
+        assertEquals(expectedCount, s.count(query));
+        CheckHits.checkEqual(query, expectedTopDocs.scoreDocs, s.search(query, 10).scoreDocs);
+        CheckHits.checkEqual(query, expectedSortedTopDocs.scoreDocs, s.search(query, 10, sort).scoreDocs);
+        CheckHits.checkEqual(query, expectedAllHits.scoreDocs, s.search(query, numDocs).scoreDocs);
+      }
+    }
+
+    service.shutdown();
+    IOUtils.close(r, dir);
+  }
 }
@@ -29,6 +29,7 @@ import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -232,12 +233,17 @@ public class TestLRUQueryCache extends LuceneTestCase {
     searcher.search(new ConstantScoreQuery(blue), 1);
     assertEquals(Arrays.asList(red, blue), queryCache.cachedQueries());
 
+    // blue has been hit since it was cached, so green would be evicted first
     searcher.search(new ConstantScoreQuery(green), 1);
-    assertEquals(Arrays.asList(blue, green), queryCache.cachedQueries());
+    assertEquals(Arrays.asList(green, blue), queryCache.cachedQueries());
 
     searcher.setQueryCachingPolicy(NEVER_CACHE);
     searcher.search(new ConstantScoreQuery(red), 1);
-    assertEquals(Arrays.asList(blue, green), queryCache.cachedQueries());
+    assertEquals(Arrays.asList(green, blue), queryCache.cachedQueries());
+
+    searcher.setQueryCachingPolicy(ALWAYS_CACHE);
+    searcher.search(new ConstantScoreQuery(red), 1);
+    assertEquals(Arrays.asList(blue, red), queryCache.cachedQueries());
 
     reader.close();
     w.close();
@@ -1691,4 +1697,68 @@ public class TestLRUQueryCache extends LuceneTestCase {
     t.start();
     t.join();
   }
+
+  public void testLookupsDoNotWaitForConcurrentCaching() throws Exception {
+    Directory dir = newDirectory();
+    IndexWriter w = new IndexWriter(dir, newIndexWriterConfig());
+    for (String color : Arrays.asList("red", "blue")) {
+      Document doc = new Document();
+      doc.add(new StringField("color", color, Store.NO));
+      w.addDocument(doc);
+    }
+    DirectoryReader reader = DirectoryReader.open(w);
+    w.close();
+
+    final AtomicBoolean blockCaching = new AtomicBoolean(false);
+    final CountDownLatch cachingStarted = new CountDownLatch(1);
+    final CountDownLatch resumeCaching = new CountDownLatch(1);
+    final LRUQueryCache queryCache = new LRUQueryCache(10, 1000000, context -> true) {
+      @Override
+      protected void onDocIdSetCache(Object readerCoreKey, long ramBytesUsed) {
+        super.onDocIdSetCache(readerCoreKey, ramBytesUsed);
+        if (blockCaching.get()) {
+          // hold the lock until the main thread is done with lookups
+          cachingStarted.countDown();
+          try {
+            resumeCaching.await();
+          } catch (InterruptedException e) {
+            throw new AssertionError(e);
+          }
+        }
+      }
+    };
+    final IndexSearcher searcher = new IndexSearcher(reader);
+    searcher.setQueryCache(queryCache);
+    searcher.setQueryCachingPolicy(ALWAYS_CACHE);
+
+    final ConstantScoreQuery red = new ConstantScoreQuery(new TermQuery(new Term("color", "red")));
+    final ConstantScoreQuery blue = new ConstantScoreQuery(new TermQuery(new Term("color", "blue")));
+    assertEquals(1, searcher.search(red, 1).totalHits.value);
+
+    blockCaching.set(true);
+    AtomicReference<Throwable> error = new AtomicReference<>();
+    Thread thread = new Thread(() -> {
+      try {
+        searcher.search(blue, 1);
+      } catch (Throwable t) {
+        error.set(t);
+      }
+    });
+    thread.start();
+    cachingStarted.await();
+
+    // the lock is held by the caching thread, but lookups can still use the cache
+    final long hitCount = queryCache.getHitCount();
+    assertEquals(1, searcher.search(red, 1).totalHits.value);
+    assertEquals(hitCount + reader.leaves().size(), queryCache.getHitCount());
+
+    resumeCaching.countDown();
+    thread.join();
+    assertNull(error.get());
+    assertEquals(new HashSet<>(Arrays.asList(red.getQuery(), blue.getQuery())), new HashSet<>(queryCache.cachedQueries()));
+    queryCache.assertConsistent();
+
+    reader.close();
+    dir.close();
+  }
 }
@@ -37,6 +37,7 @@ import org.apache.lucene.document.Field;
 import org.apache.lucene.document.TextField;
 import org.apache.lucene.document.Field.Store;
 import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.Impact;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig.OpenMode;
@@ -761,4 +762,53 @@ public class TestPhraseQuery extends LuceneTestCase {
     r.close();
     dir.close();
   }
+
+  public void testMergeImpacts() {
+    List<List<Impact>> impacts = Arrays.asList(
+        Arrays.asList(new Impact(2, 10), new Impact(5, 20)),
+        Arrays.asList(new Impact(3, 5), new Impact(4, 20)));
+    // exact phrases: min of the freqs
+    assertEquals(Arrays.asList(new Impact(2, 10), new Impact(4, 20)),
+        PhraseImpactsSource.merge(impacts, false));
+    // sloppy phrases: sum of the freqs
+    assertEquals(Arrays.asList(new Impact(3, 5), new Impact(5, 10), new Impact(9, 20)),
+        PhraseImpactsSource.merge(impacts, true));
+  }
+
+  public void testRandomTopScores() throws IOException {
+    Directory dir = newDirectory();
+    IndexWriter w = new IndexWriter(dir, newIndexWriterConfig());
+    final int numDocs = atLeast(2000);
+    for (int i = 0; i < numDocs; ++i) {
+      StringBuilder text = new StringBuilder();
+      int numTokens = TestUtil.nextInt(random(), 1, 20);
+      for (int j = 0; j < numTokens; ++j) {
+        // skewed distribution so that some blocks have high freqs
+        text.append((char) ('a' + random().nextInt(1 + random().nextInt(4)))).append(' ');
+      }
+      Document doc = new Document();
+      doc.add(new TextField("f", text.toString(), Store.NO));
+      w.addDocument(doc);
+    }
+    IndexReader r = DirectoryReader.open(w);
+    w.close();
+    IndexSearcher searcher = newSearcher(r);
+    for (Query query : Arrays.asList(
+        new PhraseQuery("f", "a", "b"),
+        new PhraseQuery("f", "b", "a", "c"),
+        new PhraseQuery(2, "f", "a", "c"),
+        new PhraseQuery(1, "f", "b", "b"),
+        new MultiPhraseQuery.Builder()
+            .add(new Term("f", "a"))
+            .add(new Term[] { new Term("f", "b"), new Term("f", "c") })
+            .build(),
+        new BooleanQuery.Builder()
+            .add(new PhraseQuery("f", "a", "c"), BooleanClause.Occur.SHOULD)
+            .add(new TermQuery(new Term("f", "d")), BooleanClause.Occur.SHOULD)
+            .build())) {
+      CheckHits.checkTopScores(random(), query, searcher);
+    }
+    r.close();
+    dir.close();
+  }
 }
@@ -62,6 +62,10 @@ public class TestSortedNumericSortField extends LuceneTestCase {
     assertFalse(sf.equals(new SortedNumericSortField("b", SortField.Type.LONG)));
     assertFalse(sf.equals(new SortedNumericSortField("a", SortField.Type.LONG, false, SortedNumericSelector.Type.MAX)));
     assertFalse(sf.equals("foo"));
+
+    SortField sf3 = new SortedNumericSortField("a", SortField.Type.LONG);
+    sf3.setCanUsePoints();
+    assertFalse(sf.equals(sf3));
   }
   
   public void testForward() throws Exception {
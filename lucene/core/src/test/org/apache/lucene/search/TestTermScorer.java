@@ -36,8 +36,10 @@ import org.apache.lucene.index.NumericDocValues;
 import org.apache.lucene.index.RandomIndexWriter;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.similarities.BM25Similarity;
 import org.apache.lucene.search.similarities.ClassicSimilarity;
 import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.FixedBitSet;
 import org.apache.lucene.util.LuceneTestCase;
 import org.apache.lucene.util.TestUtil;
 
@@ -256,4 +258,65 @@ public class TestTermScorer extends LuceneTestCase {
     dir.close();
   }
 
+  public void testNextDocsAndScores() throws IOException {
+    Directory dir = newDirectory();
+    IndexWriter w = new IndexWriter(dir, newIndexWriterConfig().setSimilarity(new BM25Similarity()));
+    int numDocs = atLeast(1000);
+    for (int i = 0; i < numDocs; ++i) {
+      Document doc = new Document();
+      if (random().nextInt(3) != 0) {
+        int freq = TestUtil.nextInt(random(), 1, 1 << random().nextInt(4));
+        for (int k = 0; k < freq; ++k) {
+          doc.add(new TextField("foo", "bar", Store.NO));
+        }
+        for (int k = random().nextInt(10); k > 0; --k) {
+          doc.add(new TextField("foo", "baz", Store.NO));
+        }
+      }
+      w.addDocument(doc);
+    }
+    w.forceMerge(1);
+    IndexReader reader = DirectoryReader.open(w);
+    w.close();
+    IndexSearcher searcher = new IndexSearcher(reader);
+    searcher.setSimilarity(new BM25Similarity());
+    LeafReaderContext context = reader.leaves().get(0);
+    Query query = new TermQuery(new Term("foo", "bar"));
+
+    for (ScoreMode scoreMode : new ScoreMode[] { ScoreMode.COMPLETE, ScoreMode.TOP_SCORES }) {
+      Weight weight = searcher.createWeight(searcher.rewrite(query), scoreMode, 1);
+      Scorer expected = weight.scorer(context);
+      Scorer actual = weight.scorer(context);
+      FixedBitSet acceptDocs = new FixedBitSet(reader.maxDoc());
+      for (int i = 0; i < reader.maxDoc(); ++i) {
+        if (random().nextInt(5) != 0) {
+          acceptDocs.set(i);
+        }
+      }
+      int upTo = random().nextBoolean() ? DocIdSetIterator.NO_MORE_DOCS : random().nextInt(reader.maxDoc());
+
+      DocAndScoreBuffer buffer = new DocAndScoreBuffer();
+      for (int doc = actual.iterator().nextDoc(); doc < upTo; doc = actual.docID()) {
+        actual.nextDocsAndScores(upTo, acceptDocs, buffer);
+        assertTrue(actual.docID() > doc);
+        for (int i = 0; i < buffer.size; ++i) {
+          int expectedDoc = expected.iterator().nextDoc();
+          while (acceptDocs.get(expectedDoc) == false) {
+            expectedDoc = expected.iterator().nextDoc();
+          }
+          assertEquals(expectedDoc, buffer.docs[i]);
+          assertEquals(expected.score(), buffer.scores[i], 0f);
+        }
+      }
+      int expectedDoc = expected.iterator().nextDoc();
+      while (expectedDoc < upTo && acceptDocs.get(expectedDoc) == false) {
+        expectedDoc = expected.iterator().nextDoc();
+      }
+      assertTrue(expectedDoc >= upTo);
+    }
+
+    reader.close();
+    dir.close();
+  }
+
 }
@@ -18,17 +18,28 @@ package org.apache.lucene.search;
 
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.NoMergePolicy;
 import org.apache.lucene.index.RandomIndexWriter;
+import org.apache.lucene.index.Term;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.util.LuceneTestCase;
+import org.apache.lucene.util.NamedThreadFactory;
+import org.apache.lucene.util.TestUtil;
 
 public class TestTopDocsCollector extends LuceneTestCase {
 
@@ -322,4 +333,187 @@ public class TestTopDocsCollector extends LuceneTestCase {
     dir.close();
   }
 
+  public void testSharedCountCollectorManager() throws Exception {
+    Query q = new MatchAllDocsQuery();
+    Directory dir = newDirectory();
+    IndexWriter w = new IndexWriter(dir, newIndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE));
+    Document doc = new Document();
+    w.addDocuments(Arrays.asList(doc, doc, doc, doc, doc));
+    w.flush();
+    w.addDocuments(Arrays.asList(doc, doc, doc, doc, doc, doc));
+    w.flush();
+    w.addDocuments(Arrays.asList(doc, doc, doc, doc));
+    w.flush();
+    IndexReader reader = DirectoryReader.open(w);
+    assertEquals(3, reader.leaves().size());
+    w.close();
+
+    for (int totalHitsThreshold = 0; totalHitsThreshold < 20; ++ totalHitsThreshold) {
+      TopScoreDocCollector singleThreadedCollector = TopScoreDocCollector.create(5, null, totalHitsThreshold);
+      // no executor: the shared manager must produce the same results as a single collector
+      IndexSearcher searcher = new IndexSearcher(reader);
+      searcher.search(q, singleThreadedCollector);
+      TopDocs tdc = singleThreadedCollector.topDocs();
+
+      CollectorManager<TopScoreDocCollector, TopDocs> manager =
+          TopScoreDocCollector.createSharedManager(5, null, totalHitsThreshold);
+      TopDocs tdc2 = searcher.search(q, manager);
+
+      assertEquals(tdc.totalHits.value, tdc2.totalHits.value);
+      assertEquals(tdc.totalHits.relation, tdc2.totalHits.relation);
+      CheckHits.checkEqual(q, tdc.scoreDocs, tdc2.scoreDocs);
+    }
+
+    reader.close();
+    dir.close();
+  }
+
+  public void testGlobalScore() throws Exception {
+    Directory dir = newDirectory();
+    IndexWriter w = new IndexWriter(dir, newIndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE));
+    Document doc = new Document();
+    w.addDocuments(Arrays.asList(doc, doc, doc, doc));
+    w.flush();
+    w.addDocuments(Arrays.asList(doc, doc, doc, doc));
+    w.flush();
+    IndexReader reader = DirectoryReader.open(w);
+    assertEquals(2, reader.leaves().size());
+    w.close();
+
+    CollectorManager<TopScoreDocCollector, TopDocs> manager = TopScoreDocCollector.createSharedManager(2, null, 0);
+    // one collector per slice
+    TopScoreDocCollector collector = manager.newCollector();
+    TopScoreDocCollector collector2 = manager.newCollector();
+    assertTrue(collector.minScoreAcc == collector2.minScoreAcc);
+    MaxScoreAccumulator minValueChecker = collector.minScoreAcc;
+    // force the check of the global minimum score on every round
+    minValueChecker.modInterval = 0;
+
+    ScoreAndDoc scorer = new ScoreAndDoc();
+    ScoreAndDoc scorer2 = new ScoreAndDoc();
+
+    LeafCollector leafCollector = collector.getLeafCollector(reader.leaves().get(0));
+    leafCollector.setScorer(scorer);
+    LeafCollector leafCollector2 = collector2.getLeafCollector(reader.leaves().get(1));
+    leafCollector2.setScorer(scorer2);
+
+    scorer.doc = 0;
+    scorer.score = 3;
+    leafCollector.collect(0);
+    assertNull(minValueChecker.get());
+    assertNull(scorer.minCompetitiveScore);
+
+    scorer2.doc = 0;
+    scorer2.score = 6;
+    leafCollector2.collect(0);
+    assertNull(minValueChecker.get());
+    assertNull(scorer2.minCompetitiveScore);
+
+    scorer.doc = 1;
+    scorer.score = 2;
+    leafCollector.collect(1);
+    assertEquals(2f, minValueChecker.get().score, 0f);
+    assertEquals(Math.nextUp(2f), scorer.minCompetitiveScore, 0f);
+    assertNull(scorer2.minCompetitiveScore);
+
+    scorer2.doc = 1;
+    scorer2.score = 9;
+    leafCollector2.collect(1);
+    assertEquals(6f, minValueChecker.get().score, 0f);
+    assertEquals(Math.nextUp(2f), scorer.minCompetitiveScore, 0f);
+    assertEquals(Math.nextUp(6f), scorer2.minCompetitiveScore, 0f);
+
+    scorer2.doc = 2;
+    scorer2.score = 7;
+    leafCollector2.collect(2);
+    assertEquals(7f, minValueChecker.get().score, 0f);
+    assertEquals(Math.nextUp(2f), scorer.minCompetitiveScore, 0f);
+    assertEquals(Math.nextUp(7f), scorer2.minCompetitiveScore, 0f);
+
+    scorer.doc = 2;
+    scorer.score = 1;
+    leafCollector.collect(2);
+    // the first leaf picks up the minimum score of the other leaf, and since
+    // this leaf has smaller doc ids, it doesn't need to use the next float
+    assertEquals(7f, scorer.minCompetitiveScore, 0f);
+
+    TopDocs topDocs = manager.reduce(Arrays.asList(collector, collector2));
+    assertEquals(2, topDocs.scoreDocs.length);
+    assertEquals(9f, topDocs.scoreDocs[0].score, 0f);
+    assertEquals(7f, topDocs.scoreDocs[1].score, 0f);
+    assertEquals(TotalHits.Relation.GREATER_THAN_OR_EQUAL_TO, topDocs.totalHits.relation);
+
+    reader.close();
+    dir.close();
+  }
+
+  public void testConcurrentMinScore() throws Exception {
+    Directory dir = newDirectory();
+    IndexWriter w = new IndexWriter(dir, newIndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE));
+    final int numSegments = TestUtil.nextInt(random(), 2, 8);
+    final String[] values = new String[] { "foo", "bar", "baz" };
+    for (int i = 0; i < numSegments; ++i) {
+      List<Document> docs = new ArrayList<>();
+      final int numDocs = TestUtil.nextInt(random(), 10, 100);
+      for (int j = 0; j < numDocs; ++j) {
+        Document doc = new Document();
+        doc.add(new StringField("f", values[random().nextInt(values.length)], Field.Store.NO));
+        if (random().nextBoolean()) {
+          doc.add(new StringField("f", values[random().nextInt(values.length)], Field.Store.NO));
+        }
+        docs.add(doc);
+      }
+      w.addDocuments(docs);
+      w.flush();
+    }
+    IndexReader reader = DirectoryReader.open(w);
+    w.close();
+
+    ExecutorService service = new ThreadPoolExecutor(4, 4, 0L, TimeUnit.MILLISECONDS,
+        new LinkedBlockingQueue<Runnable>(),
+        new NamedThreadFactory("TestTopDocsCollector"));
+    try {
+      IndexSearcher searcher = new IndexSearcher(reader, service) {
+        @Override
+        protected LeafSlice[] slices(List<LeafReaderContext> leaves) {
+          // one slice per segment to maximize concurrency
+          LeafSlice[] slices = new LeafSlice[leaves.size()];
+          for (int i = 0; i < slices.length; ++i) {
+            slices[i] = new LeafSlice(new ArrayList<>(Arrays.asList(leaves.get(i))));
+          }
+          return slices;
+        }
+      };
+      Query query = new BooleanQuery.Builder()
+          .add(new TermQuery(new Term("f", "foo")), BooleanClause.Occur.SHOULD)
+          .add(new TermQuery(new Term("f", "bar")), BooleanClause.Occur.SHOULD)
+          .build();
+      for (int iter = 0; iter < 10; ++iter) {
+        final int numHits = TestUtil.nextInt(random(), 1, 10);
+        final int totalHitsThreshold = TestUtil.nextInt(random(), 0, 50);
+
+        TopScoreDocCollector collector = TopScoreDocCollector.create(numHits, null, Integer.MAX_VALUE);
+        searcher.search(query, collector);
+        TopDocs expected = collector.topDocs();
+
+        TopDocs actual = searcher.search(query, TopScoreDocCollector.createSharedManager(numHits, null, totalHitsThreshold));
+        assertEquals(expected.scoreDocs.length, actual.scoreDocs.length);
+        for (int i = 0; i < expected.scoreDocs.length; ++i) {
+          // ties may be broken differently, but scores must be the same
+          assertEquals(expected.scoreDocs[i].score, actual.scoreDocs[i].score, 0f);
+        }
+        if (actual.totalHits.relation == TotalHits.Relation.EQUAL_TO) {
+          assertEquals(expected.totalHits.value, actual.totalHits.value);
+        } else {
+          assertTrue(actual.totalHits.value > totalHitsThreshold);
+          assertTrue(actual.totalHits.value <= expected.totalHits.value);
+        }
+      }
+    } finally {
+      TestUtil.shutdownExecutorService(service);
+      reader.close();
+      dir.close();
+    }
+  }
+
 }
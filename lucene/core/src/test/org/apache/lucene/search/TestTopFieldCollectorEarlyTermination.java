@@ -29,10 +29,13 @@ import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field.Store;
 import org.apache.lucene.document.NumericDocValuesField;
 import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.MockRandomMergePolicy;
+import org.apache.lucene.index.NoMergePolicy;
 import org.apache.lucene.index.RandomIndexWriter;
 import org.apache.lucene.index.SerialMergeScheduler;
 import org.apache.lucene.index.Term;
@@ -109,14 +112,29 @@ public class TestTopFieldCollectorEarlyTermination extends LuceneTestCase {
   }
 
   public void testEarlyTermination() throws IOException {
-    doTestEarlyTermination(false);
+    doTestEarlyTermination(sort, false);
   }
 
   public void testEarlyTerminationWhenPaging() throws IOException {
-    doTestEarlyTermination(true);
+    doTestEarlyTermination(sort, true);
   }
 
-  private void doTestEarlyTermination(boolean paging) throws IOException {
+  public void testEarlyTerminationPartialSort() throws IOException {
+    final Sort searchSort = new Sort(new SortField("ndv1", SortField.Type.LONG), new SortField("ndv2", SortField.Type.LONG));
+    doTestEarlyTermination(searchSort, false);
+    doTestEarlyTermination(searchSort, true);
+  }
+
+  public void testEarlyTerminationReverseSort() throws IOException {
+    final Sort searchSort = new Sort(new SortField("ndv1", SortField.Type.LONG, true));
+    doTestEarlyTermination(searchSort, false);
+    doTestEarlyTermination(searchSort, true);
+    final Sort searchSort2 = new Sort(new SortField("ndv1", SortField.Type.LONG, true), new SortField("ndv2", SortField.Type.LONG));
+    doTestEarlyTermination(searchSort2, false);
+    doTestEarlyTermination(searchSort2, true);
+  }
+
+  private void doTestEarlyTermination(Sort searchSort, boolean paging) throws IOException {
     final int iters = atLeast(8);
     for (int i = 0; i < iters; ++i) {
       createRandomIndex(false);
@@ -130,13 +148,13 @@ public class TestTopFieldCollectorEarlyTermination extends LuceneTestCase {
         FieldDoc after;
         if (paging) {
           assert searcher.getIndexReader().numDocs() > 0;
-          TopFieldDocs td = searcher.search(new MatchAllDocsQuery(), 10, sort);
+          TopFieldDocs td = searcher.search(new MatchAllDocsQuery(), 10, searchSort);
           after = (FieldDoc) td.scoreDocs[td.scoreDocs.length - 1];
         } else {
           after = null;
         }
-        final TopFieldCollector collector1 = TopFieldCollector.create(sort, numHits, after, Integer.MAX_VALUE);
-        final TopFieldCollector collector2 = TopFieldCollector.create(sort, numHits, after, 1);
+        final TopFieldCollector collector1 = TopFieldCollector.create(searchSort, numHits, after, Integer.MAX_VALUE);
+        final TopFieldCollector collector2 = TopFieldCollector.create(searchSort, numHits, after, 1);
 
         final Query query;
         if (random().nextBoolean()) {
@@ -150,7 +168,7 @@ public class TestTopFieldCollectorEarlyTermination extends LuceneTestCase {
         TopDocs td2 = collector2.topDocs();
 
         assertFalse(collector1.isEarlyTerminated());
-        if (paging == false && maxSegmentSize > numHits && query instanceof MatchAllDocsQuery) {
+        if (searchSort == sort && paging == false && maxSegmentSize > numHits && query instanceof MatchAllDocsQuery) {
           // Make sure that we sometimes early terminate
           assertTrue(collector2.isEarlyTerminated());
         }
@@ -234,6 +252,118 @@ public class TestTopFieldCollectorEarlyTermination extends LuceneTestCase {
         new Sort(new SortField("c", SortField.Type.LONG), new SortField("b", SortField.Type.STRING))));
   }
 
+  public void testCommonPrefixLength() {
+    assertEquals(0, TopFieldCollector.commonPrefixLength(
+        new Sort(new SortField("a", SortField.Type.LONG)),
+        null));
+
+    assertEquals(1, TopFieldCollector.commonPrefixLength(
+        new Sort(new SortField("a", SortField.Type.LONG), SortField.FIELD_SCORE),
+        new Sort(new SortField("a", SortField.Type.LONG))));
+
+    assertEquals(1, TopFieldCollector.commonPrefixLength(
+        new Sort(new SortField("a", SortField.Type.LONG), new SortField("b", SortField.Type.STRING)),
+        new Sort(new SortField("a", SortField.Type.LONG), new SortField("c", SortField.Type.STRING))));
+
+    assertEquals(2, TopFieldCollector.commonPrefixLength(
+        new Sort(new SortField("a", SortField.Type.LONG), new SortField("b", SortField.Type.STRING)),
+        new Sort(new SortField("a", SortField.Type.LONG), new SortField("b", SortField.Type.STRING))));
+
+    assertEquals(0, TopFieldCollector.commonPrefixLength(
+        new Sort(new SortField("a", SortField.Type.LONG, true), new SortField("b", SortField.Type.STRING)),
+        new Sort(new SortField("a", SortField.Type.LONG), new SortField("b", SortField.Type.STRING))));
+  }
+
+  public void testLeadingFieldOrder() {
+    assertEquals(0, TopFieldCollector.leadingFieldOrder(
+        new SortField("a", SortField.Type.LONG), null));
+
+    assertEquals(1, TopFieldCollector.leadingFieldOrder(
+        new SortField("a", SortField.Type.LONG),
+        new Sort(new SortField("a", SortField.Type.LONG), new SortField("b", SortField.Type.LONG))));
+
+    assertEquals(-1, TopFieldCollector.leadingFieldOrder(
+        new SortField("a", SortField.Type.LONG, true),
+        new Sort(new SortField("a", SortField.Type.LONG))));
+
+    assertEquals(-1, TopFieldCollector.leadingFieldOrder(
+        new SortField("a", SortField.Type.DOUBLE),
+        new Sort(new SortField("a", SortField.Type.DOUBLE, true))));
+
+    assertEquals(0, TopFieldCollector.leadingFieldOrder(
+        new SortField("a", SortField.Type.LONG, true),
+        new Sort(new SortField("b", SortField.Type.LONG))));
+
+    assertEquals(0, TopFieldCollector.leadingFieldOrder(
+        new SortField("a", SortField.Type.STRING, true),
+        new Sort(new SortField("a", SortField.Type.STRING))));
+
+    assertEquals(0, TopFieldCollector.leadingFieldOrder(
+        new SortedNumericSortField("a", SortField.Type.LONG, true),
+        new Sort(new SortedNumericSortField("a", SortField.Type.LONG))));
+
+    SortField withMissingValue = new SortField("a", SortField.Type.LONG, true);
+    withMissingValue.setMissingValue(Long.MIN_VALUE);
+    assertEquals(0, TopFieldCollector.leadingFieldOrder(
+        withMissingValue, new Sort(new SortField("a", SortField.Type.LONG))));
+  }
+
+  public void testReverseSortSkipsLeaves() throws IOException {
+    Directory dir = newDirectory();
+    IndexWriterConfig iwc = newIndexWriterConfig();
+    iwc.setIndexSort(new Sort(new SortField("timestamp", SortField.Type.LONG)));
+    iwc.setMergePolicy(NoMergePolicy.INSTANCE);
+    // only flush on commit
+    iwc.setMaxBufferedDocs(1000);
+    iwc.setRAMBufferSizeMB(IndexWriterConfig.DEFAULT_RAM_BUFFER_SIZE_MB);
+    IndexWriter w = new IndexWriter(dir, iwc);
+    final int numSegments = TestUtil.nextInt(random(), 3, 6);
+    final int docsPerSegment = TestUtil.nextInt(random(), 100, 300);
+    long timestamp = 0;
+    for (int i = 0; i < numSegments; ++i) {
+      for (int j = 0; j < docsPerSegment; ++j) {
+        Document doc = new Document();
+        doc.add(new NumericDocValuesField("timestamp", timestamp++));
+        w.addDocument(doc);
+      }
+      w.commit();
+    }
+    IndexReader reader = DirectoryReader.open(w);
+    w.close();
+    assertEquals(numSegments, reader.leaves().size());
+    IndexSearcher searcher = new IndexSearcher(reader);
+    // leaves are only collected out of order on demand
+    assertFalse(searcher.getReorderLeaves());
+    searcher.setReorderLeaves(true);
+
+    final Sort reverse = new Sort(new SortField("timestamp", SortField.Type.LONG, true));
+    final int numHits = TestUtil.nextInt(random(), 1, docsPerSegment - 1);
+    TopFieldCollector collector = TopFieldCollector.create(reverse, numHits, 1);
+    searcher.search(new MatchAllDocsQuery(), collector);
+    TopDocs topDocs = collector.topDocs();
+    assertTrue(collector.isEarlyTerminated());
+    // only the last segment needs to be collected
+    assertEquals(docsPerSegment, topDocs.totalHits.value);
+    assertEquals(numHits, topDocs.scoreDocs.length);
+    for (int i = 0; i < numHits; ++i) {
+      assertEquals(timestamp - 1 - i, ((FieldDoc) topDocs.scoreDocs[i]).fields[0]);
+      assertEquals(timestamp - 1 - i, topDocs.scoreDocs[i].doc);
+    }
+
+    // when paging, the binary search skips documents that are worse than the bottom
+    collector = TopFieldCollector.create(reverse, numHits, (FieldDoc) topDocs.scoreDocs[numHits - 1], 1);
+    searcher.search(new MatchAllDocsQuery(), collector);
+    TopDocs nextTopDocs = collector.topDocs();
+    assertEquals(Math.min(numHits, timestamp - numHits), nextTopDocs.scoreDocs.length);
+    for (int i = 0; i < nextTopDocs.scoreDocs.length; ++i) {
+      assertEquals(timestamp - 1 - numHits - i, nextTopDocs.scoreDocs[i].doc);
+    }
+    assertTrue(nextTopDocs.totalHits.value < timestamp);
+
+    reader.close();
+    dir.close();
+  }
+
   private static void assertTopDocsEquals(ScoreDoc[] scoreDocs1, ScoreDoc[] scoreDocs2) {
     assertEquals(scoreDocs1.length, scoreDocs2.length);
     for (int i = 0; i < scoreDocs1.length; ++i) {
@@ -22,25 +22,27 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Future;
 
 import org.apache.lucene.facet.sortedset.SortedSetDocValuesFacetCounts;
 import org.apache.lucene.facet.sortedset.SortedSetDocValuesFacetField;
 import org.apache.lucene.facet.sortedset.SortedSetDocValuesReaderState;
 import org.apache.lucene.facet.taxonomy.FastTaxonomyFacetCounts;
 import org.apache.lucene.facet.taxonomy.TaxonomyReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.CollectionTerminatedException;
 import org.apache.lucene.search.Collector;
 import org.apache.lucene.search.CollectorManager;
 import org.apache.lucene.search.FieldDoc;
 import org.apache.lucene.search.FilterCollector;
+import org.apache.lucene.search.FilterLeafCollector;
 import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.LeafCollector;
 import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.MultiCollector;
 import org.apache.lucene.search.MultiCollectorManager;
 import org.apache.lucene.search.Query;
+import org.apache.lucene.search.Scorable;
 import org.apache.lucene.search.ScoreDoc;
 import org.apache.lucene.search.ScoreMode;
 import org.apache.lucene.search.Sort;
@@ -48,7 +50,6 @@ import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.search.TopFieldCollector;
 import org.apache.lucene.search.TopFieldDocs;
 import org.apache.lucene.search.TopScoreDocCollector;
-import org.apache.lucene.util.ThreadInterruptedException;
 
 /**
  * Computes drill down and sideways counts for the provided
@@ -89,9 +90,12 @@ public class DrillSideways {
    */
   protected final FacetsConfig config;
 
-  // These are only used for multi-threaded search
+  // Only used for multi-threaded search, segments are searched concurrently on this executor
   private final ExecutorService executor;
 
+  // The searcher that search(DrillDownQuery, CollectorManager) runs queries on
+  private final IndexSearcher concurrentSearcher;
+
   /**
    * Create a new {@code DrillSideways} instance.
    */
@@ -124,7 +128,8 @@ public class DrillSideways {
    * SortedSetDocValuesFacetField} and others were indexed
    * with {@link FacetField}.
    * <p>
-   * Use this constructor to use the concurrent implementation and/or the CollectorManager
+   * Use this constructor to use the concurrent implementation and/or the CollectorManager.
+   * The executor may be {@code null}, see {@link #search(DrillDownQuery, CollectorManager)}.
    */
   public DrillSideways(IndexSearcher searcher, FacetsConfig config, TaxonomyReader taxoReader,
           SortedSetDocValuesReaderState state, ExecutorService executor) {
@@ -133,6 +138,16 @@ public class DrillSideways {
     this.taxoReader = taxoReader;
     this.state = state;
     this.executor = executor;
+    if (executor != null && searcher.getExecutor() == null) {
+      // search slices of the same reader on the given executor
+      concurrentSearcher = new IndexSearcher(searcher.getTopReaderContext(), executor);
+      concurrentSearcher.setSimilarity(searcher.getSimilarity());
+      concurrentSearcher.setQueryCache(searcher.getQueryCache());
+      concurrentSearcher.setQueryCachingPolicy(searcher.getQueryCachingPolicy());
+      concurrentSearcher.setReorderLeaves(searcher.getReorderLeaves());
+    } else {
+      concurrentSearcher = searcher;
+    }
   }
 
   /**
@@ -362,93 +377,146 @@ public class DrillSideways {
     }
   }
 
-  private static class CallableCollector implements Callable<CallableResult> {
+  /**
+   * Runs a search, using a {@link CollectorManager} to gather and merge search results.
+   * <p>
+   * The base query is evaluated only once per segment and matches are
+   * dispatched to the drill-down and drill-sideways collectors of this
+   * segment. If the {@link IndexSearcher} was created with an executor, then
+   * its slices are searched concurrently on this executor. Otherwise, if an
+   * {@link ExecutorService} was passed to the constructor, slices are searched
+   * concurrently on this executor. Hit collectors that terminate collection
+   * don't prevent facets from being collected.
+   */
+  @SuppressWarnings("unchecked")
+  public <R> ConcurrentDrillSidewaysResult<R> search(final DrillDownQuery query,
+          final CollectorManager<?, R> hitCollectorManager) throws IOException {
 
-    private final int pos;
-    private final IndexSearcher searcher;
-    private final Query query;
-    private final CollectorManager<?, ?> collectorManager;
+    Map<String, Integer> drillDownDims = query.getDims();
 
-    private CallableCollector(int pos, IndexSearcher searcher, Query query, CollectorManager<?, ?> collectorManager) {
-      this.pos = pos;
-      this.searcher = searcher;
-      this.query = query;
-      this.collectorManager = collectorManager;
+    if (drillDownDims.isEmpty()) {
+      // There are no drill-down dims, so there is no
+      // drill-sideways to compute:
+      final Object[] results = searchSegments(query,
+              new MultiCollectorManager(new FacetsCollectorManager(), hitCollectorManager));
+      return new ConcurrentDrillSidewaysResult<>(buildFacetsResult((FacetsCollector) results[0], null, null),
+              null, (R) results[1]);
     }
 
-    @Override
-    public CallableResult call() throws Exception {
-      return new CallableResult(pos, searcher.search(query, collectorManager));
+    Query baseQuery = query.getBaseQuery();
+    if (baseQuery == null) {
+      baseQuery = new MatchAllDocsQuery();
     }
-  }
-
-  private static class CallableResult {
+    Query[] drillDownQueries = query.getDrillDownQueries();
 
-    private final int pos;
-    private final Object result;
+    FacetsCollectorManager drillDownCollectorManager = new FacetsCollectorManager();
+    FacetsCollectorManager[] drillSidewaysCollectorManagers = new FacetsCollectorManager[drillDownDims.size()];
+    for (int i = 0; i < drillSidewaysCollectorManagers.length; i++) {
+      drillSidewaysCollectorManagers[i] = new FacetsCollectorManager();
+    }
 
-    private CallableResult(int pos, Object result) {
-      this.pos = pos;
-      this.result = result;
+    DrillSidewaysQuery dsq =
+            new DrillSidewaysQuery(baseQuery, drillDownCollectorManager, drillSidewaysCollectorManagers,
+                    drillDownQueries, scoreSubDocsAtOnce());
+    // the query is not cacheable, no need for the hack of search(DrillDownQuery, Collector)
+    R collectorResult = searchSegments(dsq, new HitCollectorManager<>(hitCollectorManager));
+
+    // merge the per-segment collectors
+    FacetsCollector drillDownCollector = drillDownCollectorManager.reduce(dsq.managedDrillDownCollectors);
+    FacetsCollector[] drillSidewaysCollectors = new FacetsCollector[drillSidewaysCollectorManagers.length];
+    for (int dim = 0; dim < drillSidewaysCollectors.length; dim++) {
+      List<FacetsCollector> collectors = new ArrayList<>(dsq.managedDrillSidewaysCollectors.size());
+      for (FacetsCollector[] segmentCollectors : dsq.managedDrillSidewaysCollectors) {
+        collectors.add(segmentCollectors[dim]);
+      }
+      drillSidewaysCollectors[dim] = drillSidewaysCollectorManagers[dim].reduce(collectors);
     }
+
+    return new ConcurrentDrillSidewaysResult<>(buildFacetsResult(drillDownCollector, drillSidewaysCollectors,
+            drillDownDims.keySet().toArray(new String[drillDownDims.size()])), null, collectorResult);
   }
 
-  private DrillDownQuery getDrillDownQuery(final DrillDownQuery query, Query[] queries,
-          final String excludedDimension) {
-    final DrillDownQuery ddl = new DrillDownQuery(config, query.getBaseQuery());
-    query.getDims().forEach((dim, pos) -> {
-      if (!dim.equals(excludedDimension))
-        ddl.add(dim, queries[pos]);
-    });
-    return ddl.getDims().size() == queries.length ? null : ddl;
+  /**
+   * Runs the query on the slices of the {@link IndexSearcher}, concurrently
+   * if it has an executor. Otherwise if this instance has an executor, slices
+   * are computed and searched concurrently as if the {@link IndexSearcher}
+   * had been created with this executor.
+   */
+  private <C extends Collector, T> T searchSegments(Query query, CollectorManager<C, T> collectorManager)
+          throws IOException {
+    return concurrentSearcher.search(query, collectorManager);
   }
 
-  /** Runs a search, using a {@link CollectorManager} to gather and merge search results */
-  public <R> ConcurrentDrillSidewaysResult<R> search(final DrillDownQuery query,
-          final CollectorManager<?, R> hitCollectorManager) throws IOException {
+  /**
+   * Creates hit collectors that keep ignoring hits once they terminated
+   * collection, either on a segment or for the rest of a segment, instead of
+   * letting {@link CollectionTerminatedException} propagate. Since the base
+   * query is evaluated once for hits and facets, this would otherwise skip
+   * the collection of facets on this segment.
+   */
+  private static class HitCollectorManager<C extends Collector, R>
+          implements CollectorManager<HitCollectorManager.HitCollector<C>, R> {
+
+    private final CollectorManager<C, R> in;
+
+    HitCollectorManager(CollectorManager<C, R> in) {
+      this.in = in;
+    }
+
+    @Override
+    public HitCollector<C> newCollector() throws IOException {
+      return new HitCollector<>(in.newCollector());
+    }
 
-    final Map<String, Integer> drillDownDims = query.getDims();
-    final List<CallableCollector> callableCollectors = new ArrayList<>(drillDownDims.size() + 1);
-
-    // Add the main DrillDownQuery
-    callableCollectors.add(new CallableCollector(-1, searcher, query,
-            new MultiCollectorManager(new FacetsCollectorManager(), hitCollectorManager)));
-    int i = 0;
-    final Query[] filters = query.getDrillDownQueries();
-    for (String dim : drillDownDims.keySet())
-      callableCollectors.add(new CallableCollector(i++, searcher, getDrillDownQuery(query, filters, dim),
-              new FacetsCollectorManager()));
-
-    final FacetsCollector mainFacetsCollector;
-    final FacetsCollector[] facetsCollectors = new FacetsCollector[drillDownDims.size()];
-    final R collectorResult;
-
-    try {
-      // Run the query pool
-      final List<Future<CallableResult>> futures = executor.invokeAll(callableCollectors);
-
-      // Extract the results
-      final Object[] mainResults = (Object[]) futures.get(0).get().result;
-      mainFacetsCollector = (FacetsCollector) mainResults[0];
-      collectorResult = (R) mainResults[1];
-      for (i = 1; i < futures.size(); i++) {
-        final CallableResult result = futures.get(i).get();
-        facetsCollectors[result.pos] = (FacetsCollector) result.result;
+    @Override
+    public R reduce(Collection<HitCollector<C>> collectors) throws IOException {
+      final List<C> hitCollectors = new ArrayList<>(collectors.size());
+      for (HitCollector<C> collector : collectors) {
+        hitCollectors.add(collector.hitCollector);
       }
-      // Fill the null results with the mainFacetsCollector
-      for (i = 0; i < facetsCollectors.length; i++)
-        if (facetsCollectors[i] == null)
-          facetsCollectors[i] = mainFacetsCollector;
-
-    } catch (InterruptedException e) {
-      throw new ThreadInterruptedException(e);
-    } catch (ExecutionException e) {
-      throw new RuntimeException(e);
+      return in.reduce(hitCollectors);
     }
 
-    // build the facets and return the result
-    return new ConcurrentDrillSidewaysResult<>(buildFacetsResult(mainFacetsCollector, facetsCollectors,
-            drillDownDims.keySet().toArray(new String[drillDownDims.size()])), null, collectorResult);
+    static class HitCollector<C extends Collector> extends FilterCollector {
+
+      final C hitCollector;
+
+      HitCollector(C in) {
+        super(in);
+        this.hitCollector = in;
+      }
+
+      @Override
+      public LeafCollector getLeafCollector(LeafReaderContext context) throws IOException {
+        final LeafCollector leafCollector;
+        try {
+          leafCollector = super.getLeafCollector(context);
+        } catch (CollectionTerminatedException e) {
+          // no hit of interest in this segment, but facets still need to be collected
+          return new LeafCollector() {
+            @Override
+            public void setScorer(Scorable scorer) {}
+
+            @Override
+            public void collect(int doc) {}
+          };
+        }
+        return new FilterLeafCollector(leafCollector) {
+          private boolean terminated;
+
+          @Override
+          public void collect(int doc) throws IOException {
+            if (terminated == false) {
+              try {
+                in.collect(doc);
+              } catch (CollectionTerminatedException e) {
+                terminated = true;
+              }
+            }
+          }
+        };
+      }
+    }
   }
 
   /**
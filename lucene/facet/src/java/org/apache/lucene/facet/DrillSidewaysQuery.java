@@ -17,8 +17,11 @@
 package org.apache.lucene.facet;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.List;
 import java.util.Objects;
 
 import org.apache.lucene.facet.DrillSidewaysScorer.DocsAndCost;
@@ -45,13 +48,43 @@ class DrillSidewaysQuery extends Query {
   final Query baseQuery;
   final Collector drillDownCollector;
   final Collector[] drillSidewaysCollectors;
+  // Only set when collectors are created for every segment, which allows
+  // segments to be searched concurrently:
+  final FacetsCollectorManager drillDownCollectorManager;
+  final FacetsCollectorManager[] drillSidewaysCollectorManagers;
+  final List<FacetsCollector> managedDrillDownCollectors;
+  final List<FacetsCollector[]> managedDrillSidewaysCollectors;
   final Query[] drillDownQueries;
   final boolean scoreSubDocsAtOnce;
 
   DrillSidewaysQuery(Query baseQuery, Collector drillDownCollector, Collector[] drillSidewaysCollectors, Query[] drillDownQueries, boolean scoreSubDocsAtOnce) {
+    this(baseQuery, drillDownCollector, drillSidewaysCollectors, null, null, null, null, drillDownQueries, scoreSubDocsAtOnce);
+  }
+
+  /**
+   * Create a query that creates new drill down and drill sideways collectors
+   * for every segment through the given managers. Collectors that have been
+   * created by a search are available in {@link #managedDrillDownCollectors}
+   * and {@link #managedDrillSidewaysCollectors} once the search is done.
+   */
+  DrillSidewaysQuery(Query baseQuery, FacetsCollectorManager drillDownCollectorManager,
+      FacetsCollectorManager[] drillSidewaysCollectorManagers, Query[] drillDownQueries, boolean scoreSubDocsAtOnce) {
+    this(baseQuery, null, null, Objects.requireNonNull(drillDownCollectorManager), drillSidewaysCollectorManagers,
+        Collections.synchronizedList(new ArrayList<>()), Collections.synchronizedList(new ArrayList<>()),
+        drillDownQueries, scoreSubDocsAtOnce);
+  }
+
+  private DrillSidewaysQuery(Query baseQuery, Collector drillDownCollector, Collector[] drillSidewaysCollectors,
+      FacetsCollectorManager drillDownCollectorManager, FacetsCollectorManager[] drillSidewaysCollectorManagers,
+      List<FacetsCollector> managedDrillDownCollectors, List<FacetsCollector[]> managedDrillSidewaysCollectors,
+      Query[] drillDownQueries, boolean scoreSubDocsAtOnce) {
     this.baseQuery = Objects.requireNonNull(baseQuery);
     this.drillDownCollector = drillDownCollector;
     this.drillSidewaysCollectors = drillSidewaysCollectors;
+    this.drillDownCollectorManager = drillDownCollectorManager;
+    this.drillSidewaysCollectorManagers = drillSidewaysCollectorManagers;
+    this.managedDrillDownCollectors = managedDrillDownCollectors;
+    this.managedDrillSidewaysCollectors = managedDrillSidewaysCollectors;
     this.drillDownQueries = drillDownQueries;
     this.scoreSubDocsAtOnce = scoreSubDocsAtOnce;
   }
@@ -74,7 +107,11 @@ class DrillSidewaysQuery extends Query {
     if (newQuery == baseQuery) {
       return super.rewrite(reader);
     } else {
-      return new DrillSidewaysQuery(newQuery, drillDownCollector, drillSidewaysCollectors, drillDownQueries, scoreSubDocsAtOnce);
+      // share the lists of managed collectors with the rewritten query
+      return new DrillSidewaysQuery(newQuery, drillDownCollector, drillSidewaysCollectors,
+          drillDownCollectorManager, drillSidewaysCollectorManagers,
+          managedDrillDownCollectors, managedDrillSidewaysCollectors,
+          drillDownQueries, scoreSubDocsAtOnce);
     }
   }
 
@@ -105,6 +142,10 @@ class DrillSidewaysQuery extends Query {
 
       @Override
       public boolean isCacheable(LeafReaderContext ctx) {
+        if (drillDownCollectorManager != null) {
+          // caching would skip the creation of per-segment collectors
+          return false;
+        }
         if (baseWeight.isCacheable(ctx) == false)
           return false;
         for (Weight w : drillDowns) {
@@ -118,6 +159,22 @@ class DrillSidewaysQuery extends Query {
       public BulkScorer bulkScorer(LeafReaderContext context) throws IOException {
         Scorer baseScorer = baseWeight.scorer(context);
 
+        Collector drillDownCollector = DrillSidewaysQuery.this.drillDownCollector;
+        Collector[] drillSidewaysCollectors = DrillSidewaysQuery.this.drillSidewaysCollectors;
+        if (drillDownCollectorManager != null) {
+          // Fresh collectors for every segment so that segments may be searched
+          // concurrently, they are merged once the search is done
+          FacetsCollector managedDrillDownCollector = drillDownCollectorManager.newCollector();
+          FacetsCollector[] managedDrillSidewaysCollector = new FacetsCollector[drillSidewaysCollectorManagers.length];
+          for (int dim = 0; dim < managedDrillSidewaysCollector.length; dim++) {
+            managedDrillSidewaysCollector[dim] = drillSidewaysCollectorManagers[dim].newCollector();
+          }
+          managedDrillDownCollectors.add(managedDrillDownCollector);
+          managedDrillSidewaysCollectors.add(managedDrillSidewaysCollector);
+          drillDownCollector = managedDrillDownCollector;
+          drillSidewaysCollectors = managedDrillSidewaysCollector;
+        }
+
         DrillSidewaysScorer.DocsAndCost[] dims = new DrillSidewaysScorer.DocsAndCost[drillDowns.length];
         int nullCount = 0;
         for(int dim=0;dim<dims.length;dim++) {
@@ -169,6 +226,8 @@ class DrillSidewaysQuery extends Query {
     result = prime * result + Objects.hashCode(drillDownCollector);
     result = prime * result + Arrays.hashCode(drillDownQueries);
     result = prime * result + Arrays.hashCode(drillSidewaysCollectors);
+    result = prime * result + Objects.hashCode(drillDownCollectorManager);
+    result = prime * result + Arrays.hashCode(drillSidewaysCollectorManagers);
     return result;
   }
 
@@ -182,6 +241,8 @@ class DrillSidewaysQuery extends Query {
     return Objects.equals(baseQuery, other.baseQuery) &&
            Objects.equals(drillDownCollector, other.drillDownCollector) &&
            Arrays.equals(drillDownQueries, other.drillDownQueries) &&
-           Arrays.equals(drillSidewaysCollectors, other.drillSidewaysCollectors);
+           Arrays.equals(drillSidewaysCollectors, other.drillSidewaysCollectors) &&
+           Objects.equals(drillDownCollectorManager, other.drillDownCollectorManager) &&
+           Arrays.equals(drillSidewaysCollectorManagers, other.drillSidewaysCollectorManagers);
   }
 }
@@ -21,7 +21,6 @@ import java.util.Collection;
 import java.util.Collections;
 
 import org.apache.lucene.index.LeafReaderContext;
-import org.apache.lucene.index.PostingsEnum;
 import org.apache.lucene.search.BulkScorer;
 import org.apache.lucene.search.Collector;
 import org.apache.lucene.search.DocIdSetIterator;
@@ -54,6 +53,8 @@ class DrillSidewaysScorer extends BulkScorer {
 
   private int collectDocID = -1;
   private float collectScore;
+  private final ScoreAndDoc scorable = new ScoreAndDoc();
+  private boolean leafCollectorsInitialized;
 
   DrillSidewaysScorer(LeafReaderContext context, Scorer baseScorer, Collector drillDownCollector,
                       DocsAndCost[] dims, boolean scoreSubDocsAtOnce) {
@@ -71,28 +72,32 @@ class DrillSidewaysScorer extends BulkScorer {
   }
 
   @Override
-  public int score(LeafCollector collector, Bits acceptDocs, int min, int maxDoc) throws IOException {
-    if (min != 0) {
-      throw new IllegalArgumentException("min must be 0, got " + min);
-    }
-    if (maxDoc != Integer.MAX_VALUE) {
-      throw new IllegalArgumentException("maxDoc must be Integer.MAX_VALUE");
-    }
+  public int score(LeafCollector collector, Bits acceptDocs, int min, int max) throws IOException {
+    // the range may be a partition of the segment, see IndexSearcher.LeafReaderContextPartition
+    final int maxDoc = context.reader().maxDoc();
+    max = Math.min(max, maxDoc);
     //if (DEBUG) {
     //  System.out.println("\nscore: reader=" + context.reader());
     //}
     //System.out.println("score r=" + context.reader());
-    ScoreAndDoc scorer = new ScoreAndDoc();
-    collector.setScorer(scorer);
-    if (drillDownCollector != null) {
-      drillDownLeafCollector = drillDownCollector.getLeafCollector(context);
-      drillDownLeafCollector.setScorer(scorer);
-    } else {
-      drillDownLeafCollector = null;
+    collector.setScorer(scorable);
+    if (leafCollectorsInitialized == false) {
+      // the drill down and sideways collectors see this segment once, even
+      // if it is scored in several ranges
+      if (drillDownCollector != null) {
+        drillDownLeafCollector = drillDownCollector.getLeafCollector(context);
+        drillDownLeafCollector.setScorer(scorable);
+      } else {
+        drillDownLeafCollector = null;
+      }
+      for (DocsAndCost dim : dims) {
+        dim.sidewaysLeafCollector = dim.sidewaysCollector.getLeafCollector(context);
+        dim.sidewaysLeafCollector.setScorer(scorable);
+      }
+      leafCollectorsInitialized = true;
     }
-    for (DocsAndCost dim : dims) {
-      dim.sidewaysLeafCollector = dim.sidewaysCollector.getLeafCollector(context);
-      dim.sidewaysLeafCollector.setScorer(scorer);
+    if (min >= max) {
+      return max >= maxDoc ? DocIdSetIterator.NO_MORE_DOCS : max;
     }
 
     // some scorers, eg ReqExlScorer, can hit NPE if cost is called after nextDoc
@@ -110,10 +115,14 @@ class DrillSidewaysScorer extends BulkScorer {
       drillDownAdvancedCost = dims[1].approximation.cost();
     }
 
-    // Position all scorers to their first matching doc:
-    baseIterator.nextDoc();
+    // Position all scorers to their first matching doc in the range:
+    if (baseIterator.docID() < min) {
+      baseIterator.advance(min);
+    }
     for (DocsAndCost dim : dims) {
-      dim.approximation.nextDoc();
+      if (dim.approximation.docID() < min) {
+        dim.approximation.advance(min);
+      }
     }
 
     /*
@@ -128,16 +137,16 @@ class DrillSidewaysScorer extends BulkScorer {
 
     if (scoreSubDocsAtOnce || baseQueryCost < drillDownCost/10) {
       //System.out.println("queryFirst: baseScorer=" + baseScorer + " disis.length=" + disis.length + " bits.length=" + bits.length);
-      doQueryFirstScoring(acceptDocs, collector, dims);
+      doQueryFirstScoring(acceptDocs, collector, dims, max);
     } else if (numDims > 1 && drillDownAdvancedCost < baseQueryCost/10) {
       //System.out.println("drillDownAdvance");
-      doDrillDownAdvanceScoring(acceptDocs, collector, dims);
+      doDrillDownAdvanceScoring(acceptDocs, collector, dims, min, max);
     } else {
       //System.out.println("union");
-      doUnionScoring(acceptDocs, collector, dims);
+      doUnionScoring(acceptDocs, collector, dims, min, max);
     }
 
-    return Integer.MAX_VALUE;
+    return max >= maxDoc ? DocIdSetIterator.NO_MORE_DOCS : max;
   }
 
   /** Used when base query is highly constraining vs the
@@ -145,13 +154,13 @@ class DrillSidewaysScorer extends BulkScorer {
    *  (i.e., like BooleanScorer2, not BooleanScorer).  In
    *  this case we just .next() on base and .advance() on
    *  the dim filters. */ 
-  private void doQueryFirstScoring(Bits acceptDocs, LeafCollector collector, DocsAndCost[] dims) throws IOException {
+  private void doQueryFirstScoring(Bits acceptDocs, LeafCollector collector, DocsAndCost[] dims, int max) throws IOException {
     //if (DEBUG) {
     //  System.out.println("  doQueryFirstScoring");
     //}
     int docID = baseScorer.docID();
 
-    nextDoc: while (docID != PostingsEnum.NO_MORE_DOCS) {
+    nextDoc: while (docID < max) {
       if (acceptDocs != null && acceptDocs.get(docID) == false) {
         docID = baseIterator.nextDoc();
         continue;
@@ -206,8 +215,7 @@ class DrillSidewaysScorer extends BulkScorer {
 
   /** Used when drill downs are highly constraining vs
    *  baseQuery. */
-  private void doDrillDownAdvanceScoring(Bits acceptDocs, LeafCollector collector, DocsAndCost[] dims) throws IOException {
-    final int maxDoc = context.reader().maxDoc();
+  private void doDrillDownAdvanceScoring(Bits acceptDocs, LeafCollector collector, DocsAndCost[] dims, int min, int max) throws IOException {
     final int numDims = dims.length;
 
     //if (DEBUG) {
@@ -222,11 +230,14 @@ class DrillSidewaysScorer extends BulkScorer {
     int[] counts = new int[CHUNK];
 
     docIDs[0] = -1;
-    int nextChunkStart = CHUNK;
+    // chunks are aligned on CHUNK so that docID & MASK is a valid slot
+    int nextChunkStart = (min & ~MASK) + CHUNK;
 
     final FixedBitSet seen = new FixedBitSet(CHUNK);
 
     while (true) {
+      // don't go beyond the end of the range
+      final int windowEnd = Math.min(nextChunkStart, max);
       //if (DEBUG) {
       //  System.out.println("\ncycle nextChunkStart=" + nextChunkStart + " docIds[0]=" + docIDs[0]);
       //}
@@ -237,7 +248,7 @@ class DrillSidewaysScorer extends BulkScorer {
       //}
       DocsAndCost dc = dims[0];
       int docID = dc.approximation.docID();
-      while (docID < nextChunkStart) {
+      while (docID < windowEnd) {
         if (acceptDocs == null || acceptDocs.get(docID)) {
           int slot = docID & MASK;
 
@@ -262,7 +273,7 @@ class DrillSidewaysScorer extends BulkScorer {
       //}
       dc = dims[1];
       docID = dc.approximation.docID();
-      while (docID < nextChunkStart) {
+      while (docID < windowEnd) {
         if (acceptDocs == null || acceptDocs.get(docID)
             && (dc.twoPhase == null || dc.twoPhase.matches())) {
           int slot = docID & MASK;
@@ -338,7 +349,7 @@ class DrillSidewaysScorer extends BulkScorer {
       seen.clear(0, CHUNK);
 
       if (filledCount == 0) {
-        if (nextChunkStart >= maxDoc) {
+        if (nextChunkStart >= max) {
           break;
         }
         nextChunkStart += CHUNK;
@@ -353,7 +364,7 @@ class DrillSidewaysScorer extends BulkScorer {
         //}
         dc = dims[dim];
         docID = dc.approximation.docID();
-        while (docID < nextChunkStart) {
+        while (docID < windowEnd) {
           int slot = docID & MASK;
           if (docIDs[slot] == docID
               && counts[slot] >= dim
@@ -397,7 +408,7 @@ class DrillSidewaysScorer extends BulkScorer {
         }
       }
 
-      if (nextChunkStart >= maxDoc) {
+      if (nextChunkStart >= max) {
         break;
       }
 
@@ -405,12 +416,11 @@ class DrillSidewaysScorer extends BulkScorer {
     }
   }
 
-  private void doUnionScoring(Bits acceptDocs, LeafCollector collector, DocsAndCost[] dims) throws IOException {
+  private void doUnionScoring(Bits acceptDocs, LeafCollector collector, DocsAndCost[] dims, int min, int max) throws IOException {
     //if (DEBUG) {
     //  System.out.println("  doUnionScoring");
     //}
 
-    final int maxDoc = context.reader().maxDoc();
     final int numDims = dims.length;
 
     // TODO: maybe a class like BS, instead of parallel arrays
@@ -426,9 +436,12 @@ class DrillSidewaysScorer extends BulkScorer {
     // BooleanScorer, to the minShouldMatch=N-1 case, but
     // carefully tracking which dimension failed to match
 
-    int nextChunkStart = CHUNK;
+    // chunks are aligned on CHUNK so that docID & MASK is a valid slot
+    int nextChunkStart = (min & ~MASK) + CHUNK;
 
     while (true) {
+      // don't go beyond the end of the range
+      final int windowEnd = Math.min(nextChunkStart, max);
       //if (DEBUG) {
       //  System.out.println("\ncycle nextChunkStart=" + nextChunkStart + " docIds[0]=" + docIDs[0]);
       //}
@@ -437,7 +450,7 @@ class DrillSidewaysScorer extends BulkScorer {
       //if (DEBUG) {
       //  System.out.println("  base docID=" + docID);
       //}
-      while (docID < nextChunkStart) {
+      while (docID < windowEnd) {
         if (acceptDocs == null || acceptDocs.get(docID)) {
           int slot = docID & MASK;
           //if (DEBUG) {
@@ -456,7 +469,7 @@ class DrillSidewaysScorer extends BulkScorer {
       }
 
       if (filledCount == 0) {
-        if (nextChunkStart >= maxDoc) {
+        if (nextChunkStart >= max) {
           break;
         }
         nextChunkStart += CHUNK;
@@ -474,7 +487,7 @@ class DrillSidewaysScorer extends BulkScorer {
         //if (DEBUG) {
         //  System.out.println("    start docID=" + docID);
         //}
-        while (docID < nextChunkStart) {
+        while (docID < windowEnd) {
           int slot = docID & MASK;
           if (docIDs[slot] == docID // this also checks that the doc is not deleted
               && (dc.twoPhase == null || dc.twoPhase.matches())) {
@@ -498,7 +511,7 @@ class DrillSidewaysScorer extends BulkScorer {
         //if (DEBUG) {
         //  System.out.println("    start docID=" + docID);
         //}
-        while (docID < nextChunkStart) {
+        while (docID < windowEnd) {
           int slot = docID & MASK;
           if (docIDs[slot] == docID // also means that the doc is not deleted
               && counts[slot] >= dim
@@ -545,7 +558,7 @@ class DrillSidewaysScorer extends BulkScorer {
         }
       }
 
-      if (nextChunkStart >= maxDoc) {
+      if (nextChunkStart >= max) {
         break;
       }
 
@@ -19,16 +19,20 @@ package org.apache.lucene.facet;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.apache.lucene.analysis.MockAnalyzer;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
+import org.apache.lucene.document.NumericDocValuesField;
 import org.apache.lucene.document.SortedDocValuesField;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.facet.DrillSideways.DrillSidewaysResult;
@@ -46,9 +50,11 @@ import org.apache.lucene.index.Term;
 import org.apache.lucene.search.BooleanClause;
 import org.apache.lucene.search.BooleanClause.Occur;
 import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.CollectorManager;
 import org.apache.lucene.search.ConstantScoreScorer;
 import org.apache.lucene.search.ConstantScoreWeight;
 import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.FieldDoc;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.Query;
@@ -61,6 +67,9 @@ import org.apache.lucene.search.Sort;
 import org.apache.lucene.search.SortField;
 import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopFieldCollector;
+import org.apache.lucene.search.TopFieldDocs;
+import org.apache.lucene.search.TopScoreDocCollector;
 import org.apache.lucene.search.TwoPhaseIterator;
 import org.apache.lucene.search.Weight;
 import org.apache.lucene.store.Directory;
@@ -68,6 +77,7 @@ import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.IOUtils;
 import org.apache.lucene.util.InPlaceMergeSorter;
 import org.apache.lucene.util.InfoStream;
+import org.apache.lucene.util.NamedThreadFactory;
 import org.apache.lucene.util.TestUtil;
 
 public class TestDrillSideways extends FacetTestCase {
@@ -1133,6 +1143,192 @@ public class TestDrillSideways extends FacetTestCase {
     }
   }
 
+  public void testCollectorManager() throws Exception {
+    doTestCollectorManager(false);
+  }
+
+  public void testCollectorManagerWithSegmentPartitions() throws Exception {
+    doTestCollectorManager(true);
+  }
+
+  private void doTestCollectorManager(boolean partitionSegments) throws Exception {
+    Directory dir = newDirectory();
+    Directory taxoDir = newDirectory();
+    DirectoryTaxonomyWriter taxoWriter = new DirectoryTaxonomyWriter(taxoDir, IndexWriterConfig.OpenMode.CREATE);
+    FacetsConfig config = new FacetsConfig();
+    RandomIndexWriter writer = new RandomIndexWriter(random(), dir);
+
+    final String[] dims = { "A", "B", "C" };
+    final int numDocs = atLeast(200);
+    for (int i = 0; i < numDocs; i++) {
+      Document doc = new Document();
+      doc.add(newStringField("content", random().nextBoolean() ? "a" : "b", Field.Store.NO));
+      for (String dim : dims) {
+        if (random().nextInt(10) != 0) {
+          doc.add(new FacetField(dim, "v" + random().nextInt(5)));
+        }
+      }
+      writer.addDocument(config.build(taxoWriter, doc));
+      if (random().nextInt(50) == 0) {
+        writer.commit();
+      }
+    }
+
+    IndexSearcher searcher = newSearcher(writer.getReader());
+    TaxonomyReader taxoReader = new DirectoryTaxonomyReader(taxoWriter);
+    DrillSideways ds = getNewDrillSideways(searcher, config, taxoReader);
+    ExecutorService executor = null;
+    DrillSideways managerDs = ds;
+    if (partitionSegments) {
+      // search ranges of doc IDs of segments concurrently
+      executor = Executors.newFixedThreadPool(2, new NamedThreadFactory("TestDrillSideways"));
+      final int maxDocsPerSlice = TestUtil.nextInt(random(), 1, 100);
+      IndexSearcher partitionedSearcher = new IndexSearcher(searcher.getIndexReader(), executor) {
+        @Override
+        protected LeafSlice[] slices(List<LeafReaderContext> leaves) {
+          return slices(leaves, maxDocsPerSlice, 1, true);
+        }
+      };
+      managerDs = new DrillSideways(partitionedSearcher, config, taxoReader);
+    }
+
+    CollectorManager<TopScoreDocCollector, TopDocs> manager = new CollectorManager<TopScoreDocCollector, TopDocs>() {
+      @Override
+      public TopScoreDocCollector newCollector() throws IOException {
+        return TopScoreDocCollector.create(10, null, Integer.MAX_VALUE);
+      }
+
+      @Override
+      public TopDocs reduce(Collection<TopScoreDocCollector> collectors) throws IOException {
+        TopDocs[] topDocs = new TopDocs[collectors.size()];
+        int i = 0;
+        for (TopScoreDocCollector collector : collectors) {
+          topDocs[i++] = collector.topDocs();
+        }
+        return TopDocs.merge(10, topDocs);
+      }
+    };
+
+    for (int iter = 0; iter < 10; iter++) {
+      DrillDownQuery ddq = new DrillDownQuery(config, new TermQuery(new Term("content", "a")));
+      for (String dim : dims) {
+        int numValues = random().nextInt(3);
+        for (int i = 0; i < numValues; i++) {
+          ddq.add(dim, "v" + random().nextInt(5));
+        }
+      }
+
+      TopScoreDocCollector collector = TopScoreDocCollector.create(10, null, Integer.MAX_VALUE);
+      DrillSidewaysResult expected = ds.search(ddq, collector);
+      TopDocs expectedHits = collector.topDocs();
+      DrillSideways.ConcurrentDrillSidewaysResult<TopDocs> actual = managerDs.search(ddq, manager);
+
+      assertEquals(expectedHits.totalHits, actual.collectorResult.totalHits);
+      assertEquals(expectedHits.scoreDocs.length, actual.collectorResult.scoreDocs.length);
+      for (int i = 0; i < expectedHits.scoreDocs.length; i++) {
+        assertEquals(expectedHits.scoreDocs[i].doc, actual.collectorResult.scoreDocs[i].doc);
+        assertEquals(expectedHits.scoreDocs[i].score, actual.collectorResult.scoreDocs[i].score, 0f);
+      }
+      for (String dim : dims) {
+        assertEquals(String.valueOf(expected.facets.getTopChildren(10, dim)),
+            String.valueOf(actual.facets.getTopChildren(10, dim)));
+      }
+    }
+
+    if (executor != null) {
+      executor.shutdown();
+    }
+    writer.close();
+    IOUtils.close(searcher.getIndexReader(), taxoReader, taxoWriter, dir, taxoDir);
+  }
+
+  public void testCollectorManagerWithTerminatedHitCollection() throws Exception {
+    Directory dir = newDirectory();
+    Directory taxoDir = newDirectory();
+    DirectoryTaxonomyWriter taxoWriter = new DirectoryTaxonomyWriter(taxoDir, IndexWriterConfig.OpenMode.CREATE);
+    FacetsConfig config = new FacetsConfig();
+    final Sort sort = new Sort(new SortField("num", SortField.Type.LONG));
+    IndexWriterConfig iwc = newIndexWriterConfig(new MockAnalyzer(random())).setIndexSort(sort);
+    RandomIndexWriter writer = new RandomIndexWriter(random(), dir, iwc);
+
+    final String[] dims = { "A", "B", "C" };
+    final int numDocs = atLeast(200);
+    for (int i = 0; i < numDocs; i++) {
+      Document doc = new Document();
+      doc.add(newStringField("content", random().nextBoolean() ? "a" : "b", Field.Store.NO));
+      doc.add(new NumericDocValuesField("num", random().nextInt(1000)));
+      for (String dim : dims) {
+        if (random().nextInt(10) != 0) {
+          doc.add(new FacetField(dim, "v" + random().nextInt(5)));
+        }
+      }
+      writer.addDocument(config.build(taxoWriter, doc));
+      if (random().nextInt(50) == 0) {
+        writer.commit();
+      }
+    }
+
+    IndexSearcher searcher = newSearcher(writer.getReader());
+    TaxonomyReader taxoReader = new DirectoryTaxonomyReader(taxoWriter);
+    DrillSideways ds = getNewDrillSideways(searcher, config, taxoReader);
+    ExecutorService executor = null;
+    DrillSideways managerDs = ds;
+    if (random().nextBoolean()) {
+      executor = Executors.newFixedThreadPool(2, new NamedThreadFactory("TestDrillSideways"));
+      managerDs = new DrillSideways(searcher, config, taxoReader, null, executor);
+    }
+
+    // segments are sorted like hits, so hit collectors terminate collection
+    // once they have collected 10 hits
+    CollectorManager<TopFieldCollector, TopFieldDocs> manager = new CollectorManager<TopFieldCollector, TopFieldDocs>() {
+      @Override
+      public TopFieldCollector newCollector() throws IOException {
+        return TopFieldCollector.create(sort, 5, null, 10);
+      }
+
+      @Override
+      public TopFieldDocs reduce(Collection<TopFieldCollector> collectors) throws IOException {
+        TopFieldDocs[] topDocs = new TopFieldDocs[collectors.size()];
+        int i = 0;
+        for (TopFieldCollector collector : collectors) {
+          topDocs[i++] = collector.topDocs();
+        }
+        return TopDocs.merge(sort, 5, topDocs);
+      }
+    };
+
+    for (int iter = 0; iter < 10; iter++) {
+      DrillDownQuery ddq = new DrillDownQuery(config, new TermQuery(new Term("content", "a")));
+      for (String dim : dims) {
+        int numValues = random().nextInt(3);
+        for (int i = 0; i < numValues; i++) {
+          ddq.add(dim, "v" + random().nextInt(5));
+        }
+      }
+
+      TopFieldCollector collector = TopFieldCollector.create(sort, 5, null, Integer.MAX_VALUE);
+      DrillSidewaysResult expected = ds.search(ddq, collector);
+      TopFieldDocs expectedHits = collector.topDocs();
+      DrillSideways.ConcurrentDrillSidewaysResult<TopFieldDocs> actual = managerDs.search(ddq, manager);
+
+      assertEquals(expectedHits.scoreDocs.length, actual.collectorResult.scoreDocs.length);
+      for (int i = 0; i < expectedHits.scoreDocs.length; i++) {
+        assertEquals(((FieldDoc) expectedHits.scoreDocs[i]).fields[0], ((FieldDoc) actual.collectorResult.scoreDocs[i]).fields[0]);
+      }
+      // facets are counted on all matches even though hit collection terminated
+      for (String dim : dims) {
+        assertEquals(String.valueOf(expected.facets.getTopChildren(10, dim)),
+            String.valueOf(actual.facets.getTopChildren(10, dim)));
+      }
+    }
+
+    if (executor != null) {
+      executor.shutdown();
+    }
+    writer.close();
+    IOUtils.close(searcher.getIndexReader(), taxoReader, taxoWriter, dir, taxoDir);
+  }
+
   public void testEmptyIndex() throws Exception {
     // LUCENE-5045: make sure DrillSideways works with an empty index
     Directory dir = newDirectory();
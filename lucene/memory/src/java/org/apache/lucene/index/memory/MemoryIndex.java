@@ -1231,6 +1231,12 @@ public class MemoryIndex {
       }
     }
 
+    @Override
+    public DocValuesSkipper getDocValuesSkipper(String field) {
+      // a single document doesn't need skipping
+      return null;
+    }
+
     @Override
     public PointValues getPointValues(String fieldName) {
       Info info = fields.get(fieldName);
@@ -0,0 +1,287 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.search;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.function.IntFunction;
+
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.RamUsageEstimator;
+
+/**
+ * A {@link DocIdSet} whose doc IDs are stored in a {@link ByteBuffer}, which
+ * is typically allocated outside of the Java heap. Dense sets are stored as a
+ * bit set and sparse sets as a sorted list of doc IDs, whichever is smaller.
+ * {@link #ramBytesUsed()} only includes memory that is used on the heap, the
+ * buffer is reported separately by {@link #offHeapBytesUsed()}.
+ * <p>
+ * Iterators and {@link Bits} that are returned by this set hold a reference
+ * to it, so the buffer may be reused once the set is unreachable.
+ */
+abstract class OffHeapDocIdSet extends DocIdSet {
+
+  private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(OffHeapDocIdSet.class)
+      + RamUsageEstimator.shallowSizeOfInstance(ByteBuffer.class);
+
+  /**
+   * Collect the documents that the given scorer matches into a new set whose
+   * buffer is created with the given allocator.
+   */
+  static OffHeapDocIdSet build(BulkScorer scorer, int maxDoc, IntFunction<ByteBuffer> allocator) throws IOException {
+    final Builder builder = new Builder(maxDoc, allocator);
+    scorer.score(builder, null);
+    return builder.build();
+  }
+
+  // Buffers doc IDs on heap until they would take more space than a bit set,
+  // then switches to a bit set that is allocated with the allocator.
+  private static class Builder implements LeafCollector {
+
+    private final int maxDoc;
+    private final int numWords;
+    private final IntFunction<ByteBuffer> allocator;
+    private int[] docs = new int[16];
+    private int count;
+    private ByteBuffer bitSetBuffer;
+    private LongBuffer words;
+
+    Builder(int maxDoc, IntFunction<ByteBuffer> allocator) {
+      this.maxDoc = maxDoc;
+      this.numWords = (maxDoc + 63) >>> 6;
+      this.allocator = allocator;
+    }
+
+    @Override
+    public void setScorer(Scorable scorer) throws IOException {}
+
+    @Override
+    public void collect(int doc) throws IOException {
+      if (words == null) {
+        if ((long) count * Integer.BYTES == (long) numWords * Long.BYTES) {
+          // a list of doc IDs would now be larger than a bit set
+          upgradeToBitSet();
+          setBit(doc);
+          return;
+        }
+        if (count == docs.length) {
+          docs = ArrayUtil.grow(docs, count + 1);
+        }
+        docs[count++] = doc;
+      } else {
+        setBit(doc);
+      }
+    }
+
+    private void upgradeToBitSet() {
+      bitSetBuffer = allocate(allocator, numWords * Long.BYTES);
+      words = bitSetBuffer.asLongBuffer();
+      for (int i = 0; i < numWords; ++i) {
+        words.put(i, 0L);
+      }
+      final int numDocs = count;
+      count = 0;
+      for (int i = 0; i < numDocs; ++i) {
+        setBit(docs[i]);
+      }
+      docs = null;
+    }
+
+    private void setBit(int doc) {
+      final int wordIndex = doc >>> 6;
+      final long word = words.get(wordIndex);
+      final long mask = 1L << doc;
+      if ((word & mask) == 0) {
+        words.put(wordIndex, word | mask);
+        count++;
+      }
+    }
+
+    OffHeapDocIdSet build() {
+      if (words != null) {
+        return new BitSetDocIdSet(bitSetBuffer, words, maxDoc, count);
+      }
+      final ByteBuffer buffer = allocate(allocator, count * Integer.BYTES);
+      final IntBuffer ints = buffer.asIntBuffer();
+      for (int i = 0; i < count; ++i) {
+        ints.put(i, docs[i]);
+      }
+      return new SortedIntsDocIdSet(buffer, ints, count);
+    }
+  }
+
+  private static ByteBuffer allocate(IntFunction<ByteBuffer> allocator, int numBytes) {
+    final ByteBuffer buffer = allocator.apply(numBytes);
+    if (buffer.capacity() < numBytes) {
+      throw new IllegalStateException("Allocator returned a buffer of " + buffer.capacity() + " bytes, expected at least " + numBytes);
+    }
+    return buffer.order(ByteOrder.nativeOrder());
+  }
+
+  final ByteBuffer buffer;
+
+  OffHeapDocIdSet(ByteBuffer buffer) {
+    this.buffer = buffer;
+  }
+
+  /** Return the number of bytes that are used by the buffer. */
+  final long offHeapBytesUsed() {
+    return buffer.capacity();
+  }
+
+  @Override
+  public long ramBytesUsed() {
+    return BASE_RAM_BYTES_USED;
+  }
+
+  private static final class BitSetDocIdSet extends OffHeapDocIdSet implements Bits {
+
+    private final LongBuffer words;
+    private final int numWords;
+    private final int length;
+    private final int cardinality;
+
+    BitSetDocIdSet(ByteBuffer buffer, LongBuffer words, int length, int cardinality) {
+      super(buffer);
+      this.words = words;
+      this.numWords = (length + 63) >>> 6;
+      this.length = length;
+      this.cardinality = cardinality;
+    }
+
+    @Override
+    public boolean get(int index) {
+      return (words.get(index >>> 6) & (1L << index)) != 0;
+    }
+
+    @Override
+    public int length() {
+      return length;
+    }
+
+    @Override
+    public Bits bits() {
+      return this;
+    }
+
+    @Override
+    public DocIdSetIterator iterator() {
+      return new DocIdSetIterator() {
+
+        int doc = -1;
+
+        @Override
+        public int docID() {
+          return doc;
+        }
+
+        @Override
+        public int nextDoc() {
+          return advance(doc + 1);
+        }
+
+        @Override
+        public int advance(int target) {
+          if (target >= length) {
+            return doc = NO_MORE_DOCS;
+          }
+          int i = target >>> 6;
+          long word = words.get(i) >>> target; // skip all the bits to the right of index
+          if (word != 0) {
+            return doc = target + Long.numberOfTrailingZeros(word);
+          }
+          while (++i < numWords) {
+            word = words.get(i);
+            if (word != 0) {
+              return doc = (i << 6) + Long.numberOfTrailingZeros(word);
+            }
+          }
+          return doc = NO_MORE_DOCS;
+        }
+
+        @Override
+        public long cost() {
+          return cardinality;
+        }
+      };
+    }
+  }
+
+  private static final class SortedIntsDocIdSet extends OffHeapDocIdSet {
+
+    private final IntBuffer docs;
+    private final int length;
+
+    SortedIntsDocIdSet(ByteBuffer buffer, IntBuffer docs, int length) {
+      super(buffer);
+      this.docs = docs;
+      this.length = length;
+    }
+
+    @Override
+    public DocIdSetIterator iterator() {
+      return new DocIdSetIterator() {
+
+        int i = 0;
+        int doc = -1;
+
+        @Override
+        public int docID() {
+          return doc;
+        }
+
+        @Override
+        public int nextDoc() {
+          if (i == length) {
+            return doc = NO_MORE_DOCS;
+          }
+          return doc = docs.get(i++);
+        }
+
+        @Override
+        public int advance(int target) {
+          // exponential search followed by a binary search
+          int bound = 1;
+          while (i + bound < length && docs.get(i + bound) < target) {
+            bound *= 2;
+          }
+          int lo = i + bound / 2;
+          int hi = Math.min(i + bound + 1, length);
+          while (lo < hi) {
+            final int mid = (lo + hi) >>> 1;
+            if (docs.get(mid) < target) {
+              lo = mid + 1;
+            } else {
+              hi = mid;
+            }
+          }
+          i = lo;
+          return nextDoc();
+        }
+
+        @Override
+        public long cost() {
+          return length;
+        }
+      };
+    }
+  }
+}
@@ -0,0 +1,192 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.search;
+
+import java.io.IOException;
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+
+import org.apache.lucene.index.LeafReaderContext;
+
+/**
+ * A {@link LRUQueryCache} that stores cached {@link DocIdSet}s outside of the
+ * Java heap so that large amounts of filters can be cached without putting
+ * pressure on the garbage collector. Like {@link LRUQueryCache}, entries are
+ * keyed by the core cache key of segments.
+ * <p>
+ * Doc IDs are stored in {@link ByteBuffer}s that are created by an allocator,
+ * which defaults to {@link ByteBuffer#allocateDirect(int)}. An allocator that
+ * maps scratch files may be used in order to cache sets on disk. Dense sets
+ * are stored as bit sets while sparse sets are stored as sorted lists of doc
+ * IDs, whichever is smaller.
+ * <p>
+ * Buffers are accounted separately from the heap: {@link #ramBytesUsed()}
+ * is bounded by {@code maxRamBytesUsed} like for {@link LRUQueryCache} while
+ * {@link #getOffHeapBytesUsed()} is bounded by {@code maxOffHeapBytesUsed}.
+ * Buffers of evicted sets are returned to a pool and reused for new sets,
+ * since releasing direct buffers would otherwise have to wait for a garbage
+ * collection. Searches that started before an eviction may still be reading
+ * the evicted set, so its buffer only becomes reusable once the set is
+ * unreachable. The pool keeps up to an eighth of {@code maxOffHeapBytesUsed}
+ * on top of the buffers of cached sets, see {@link #getPooledBytes()}.
+ *
+ * @lucene.experimental
+ */
+public class OffHeapLRUQueryCache extends LRUQueryCache {
+
+  private final long maxOffHeapBytesUsed;
+  private final long maxPooledBytes;
+  private final IntFunction<ByteBuffer> allocator;
+  // bytes of the buffers of sets that have not been released yet
+  private final AtomicLong offHeapBytesUsed = new AtomicLong();
+
+  // buffers of released sets that are still reachable
+  private final ReferenceQueue<OffHeapDocIdSet> releasedSets = new ReferenceQueue<>();
+  private final Set<ReleasedBuffer> pendingBuffers = ConcurrentHashMap.newKeySet();
+  // buffers that may be reused, by capacity, guarded by the map
+  private final TreeMap<Integer, Deque<ByteBuffer>> freeBuffers = new TreeMap<>();
+  // bytes of pending and free buffers
+  private final AtomicLong pooledBytes = new AtomicLong();
+
+  /**
+   * Create a new instance that will cache at most {@code maxSize} queries
+   * with at most {@code maxRamBytesUsed} bytes of heap memory and
+   * {@code maxOffHeapBytesUsed} bytes of buffers, only on leaves that satisfy
+   * {@code leavesToCache}. Buffers are created with the given allocator.
+   */
+  public OffHeapLRUQueryCache(int maxSize, long maxRamBytesUsed, long maxOffHeapBytesUsed,
+      Predicate<LeafReaderContext> leavesToCache, IntFunction<ByteBuffer> allocator) {
+    super(maxSize, maxRamBytesUsed, leavesToCache);
+    if (maxOffHeapBytesUsed < 0) {
+      throw new IllegalArgumentException("maxOffHeapBytesUsed must be >= 0, got " + maxOffHeapBytesUsed);
+    }
+    this.maxOffHeapBytesUsed = maxOffHeapBytesUsed;
+    this.maxPooledBytes = maxOffHeapBytesUsed / 8;
+    this.allocator = allocator;
+  }
+
+  /**
+   * Create a new instance that will cache at most {@code maxSize} queries
+   * with at most {@code maxRamBytesUsed} bytes of heap memory and
+   * {@code maxOffHeapBytesUsed} bytes of direct {@link ByteBuffer}s. Leaves
+   * are selected like in {@link LRUQueryCache#LRUQueryCache(int, long)}.
+   */
+  public OffHeapLRUQueryCache(int maxSize, long maxRamBytesUsed, long maxOffHeapBytesUsed) {
+    super(maxSize, maxRamBytesUsed);
+    if (maxOffHeapBytesUsed < 0) {
+      throw new IllegalArgumentException("maxOffHeapBytesUsed must be >= 0, got " + maxOffHeapBytesUsed);
+    }
+    this.maxOffHeapBytesUsed = maxOffHeapBytesUsed;
+    this.maxPooledBytes = maxOffHeapBytesUsed / 8;
+    this.allocator = ByteBuffer::allocateDirect;
+  }
+
+  /**
+   * Return the number of bytes of the buffers of cached sets, including sets
+   * that are being built.
+   */
+  public long getOffHeapBytesUsed() {
+    return offHeapBytesUsed.get();
+  }
+
+  /**
+   * Return the number of bytes of the buffers of evicted sets that are kept
+   * for reuse.
+   */
+  public long getPooledBytes() {
+    return pooledBytes.get();
+  }
+
+  @Override
+  protected DocIdSet cacheImpl(BulkScorer scorer, int maxDoc) throws IOException {
+    final OffHeapDocIdSet set = OffHeapDocIdSet.build(scorer, maxDoc, this::allocate);
+    offHeapBytesUsed.addAndGet(set.offHeapBytesUsed());
+    return set;
+  }
+
+  @Override
+  protected boolean requiresEviction() {
+    return super.requiresEviction() || offHeapBytesUsed.get() > maxOffHeapBytesUsed;
+  }
+
+  @Override
+  protected void onDocIdSetRelease(Object readerCoreKey, DocIdSet set) {
+    super.onDocIdSetRelease(readerCoreKey, set);
+    final OffHeapDocIdSet offHeapSet = (OffHeapDocIdSet) set;
+    final long numBytes = offHeapSet.offHeapBytesUsed();
+    offHeapBytesUsed.addAndGet(-numBytes);
+    synchronized (freeBuffers) {
+      // prefer recently released buffers over free buffers that have not been reused
+      while (freeBuffers.isEmpty() == false && pooledBytes.get() + numBytes > maxPooledBytes) {
+        takeFreeBuffer(freeBuffers.lastEntry());
+      }
+      if (pooledBytes.get() + numBytes <= maxPooledBytes) {
+        pooledBytes.addAndGet(numBytes);
+        pendingBuffers.add(new ReleasedBuffer(offHeapSet, releasedSets));
+      }
+    }
+  }
+
+  private ByteBuffer allocate(int numBytes) {
+    synchronized (freeBuffers) {
+      for (Reference<? extends OffHeapDocIdSet> ref = releasedSets.poll(); ref != null; ref = releasedSets.poll()) {
+        final ReleasedBuffer released = (ReleasedBuffer) ref;
+        pendingBuffers.remove(released);
+        freeBuffers.computeIfAbsent(released.buffer.capacity(), k -> new ArrayDeque<>()).add(released.buffer);
+      }
+      // don't waste more than half of the buffer
+      final Map.Entry<Integer, Deque<ByteBuffer>> fit = freeBuffers.ceilingEntry(numBytes);
+      if (fit != null && fit.getKey() / 2 <= numBytes) {
+        return takeFreeBuffer(fit);
+      }
+    }
+    return allocator.apply(numBytes);
+  }
+
+  private ByteBuffer takeFreeBuffer(Map.Entry<Integer, Deque<ByteBuffer>> entry) {
+    assert Thread.holdsLock(freeBuffers);
+    final ByteBuffer buffer = entry.getValue().poll();
+    if (entry.getValue().isEmpty()) {
+      freeBuffers.remove(entry.getKey());
+    }
+    pooledBytes.addAndGet(-buffer.capacity());
+    buffer.clear();
+    return buffer;
+  }
+
+  // keeps the buffer of a released set until the set is unreachable
+  private static final class ReleasedBuffer extends PhantomReference<OffHeapDocIdSet> {
+
+    final ByteBuffer buffer;
+
+    ReleasedBuffer(OffHeapDocIdSet set, ReferenceQueue<OffHeapDocIdSet> queue) {
+      super(set, queue);
+      this.buffer = set.buffer;
+    }
+  }
+}
@@ -0,0 +1,199 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.search;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.function.IntFunction;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field.Store;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.RandomIndexWriter;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BitSetIterator;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.FixedBitSet;
+import org.apache.lucene.util.LuceneTestCase;
+import org.apache.lucene.util.TestUtil;
+
+public class TestOffHeapLRUQueryCache extends LuceneTestCase {
+
+  private static IntFunction<ByteBuffer> randomAllocator() {
+    return random().nextBoolean() ? ByteBuffer::allocateDirect : ByteBuffer::allocate;
+  }
+
+  private static OffHeapDocIdSet build(FixedBitSet set) throws IOException {
+    final BulkScorer scorer = new BulkScorer() {
+      @Override
+      public int score(LeafCollector collector, Bits acceptDocs, int min, int max) throws IOException {
+        final DocIdSetIterator it = new BitSetIterator(set, set.cardinality());
+        for (int doc = it.advance(min); doc < max; doc = it.nextDoc()) {
+          collector.collect(doc);
+        }
+        return DocIdSetIterator.NO_MORE_DOCS;
+      }
+
+      @Override
+      public long cost() {
+        return set.cardinality();
+      }
+    };
+    return OffHeapDocIdSet.build(scorer, set.length(), randomAllocator());
+  }
+
+  public void testDocIdSet() throws IOException {
+    final int iters = atLeast(20);
+    for (int iter = 0; iter < iters; ++iter) {
+      final int maxDoc = TestUtil.nextInt(random(), 1, 10000);
+      final FixedBitSet expected = new FixedBitSet(maxDoc);
+      final int numDocs = random().nextBoolean() ? random().nextInt(maxDoc / 50 + 1) : random().nextInt(maxDoc + 1);
+      for (int i = 0; i < numDocs; ++i) {
+        expected.set(random().nextInt(maxDoc));
+      }
+      final OffHeapDocIdSet actual = build(expected);
+
+      // bit sets are only used when they are smaller than lists of doc IDs
+      final Bits bits = actual.bits();
+      if (bits != null) {
+        assertTrue(expected.cardinality() * 32L >= maxDoc);
+        assertEquals(maxDoc, bits.length());
+        for (int i = 0; i < maxDoc; ++i) {
+          assertEquals(expected.get(i), bits.get(i));
+        }
+      }
+      assertTrue(actual.offHeapBytesUsed() <= Math.min(expected.cardinality() * Integer.BYTES, ((maxDoc + 63) / 64) * Long.BYTES));
+
+      // nextDoc
+      DocIdSetIterator it = actual.iterator();
+      assertEquals(expected.cardinality(), it.cost());
+      for (int doc = expected.nextSetBit(0); doc != DocIdSetIterator.NO_MORE_DOCS;
+          doc = doc + 1 >= maxDoc ? DocIdSetIterator.NO_MORE_DOCS : expected.nextSetBit(doc + 1)) {
+        assertEquals(doc, it.nextDoc());
+      }
+      assertEquals(DocIdSetIterator.NO_MORE_DOCS, it.nextDoc());
+
+      // advance
+      it = actual.iterator();
+      int doc = -1;
+      while (doc != DocIdSetIterator.NO_MORE_DOCS) {
+        final int target = doc + 1 + random().nextInt(random().nextBoolean() ? 64 : 1024);
+        final int expectedDoc = target >= maxDoc ? DocIdSetIterator.NO_MORE_DOCS : expected.nextSetBit(target);
+        doc = it.advance(target);
+        assertEquals(expectedDoc, doc);
+        assertEquals(doc, it.docID());
+      }
+    }
+  }
+
+  public void testSearch() throws IOException {
+    Directory dir = newDirectory();
+    RandomIndexWriter w = new RandomIndexWriter(random(), dir);
+    final int numDocs = atLeast(1000);
+    for (int i = 0; i < numDocs; ++i) {
+      Document doc = new Document();
+      doc.add(new StringField("color", random().nextInt(10) == 0 ? "red" : "blue", Store.NO));
+      doc.add(new StringField("size", Integer.toString(random().nextInt(100)), Store.NO));
+      w.addDocument(doc);
+    }
+    IndexReader reader = w.getReader();
+    w.close();
+
+    IndexSearcher uncachedSearcher = newSearcher(reader);
+    uncachedSearcher.setQueryCache(null);
+    IndexSearcher searcher = newSearcher(reader);
+    OffHeapLRUQueryCache cache = new OffHeapLRUQueryCache(1000, 10_000_000, 10_000_000, context -> true, randomAllocator());
+    searcher.setQueryCache(cache);
+    searcher.setQueryCachingPolicy(new QueryCachingPolicy() {
+      @Override
+      public void onUse(Query query) {}
+
+      @Override
+      public boolean shouldCache(Query query) throws IOException {
+        return true;
+      }
+    });
+
+    final int iters = atLeast(10);
+    for (int i = 0; i < iters; ++i) {
+      Query filter = new TermQuery(new Term("size", Integer.toString(random().nextInt(100))));
+      if (random().nextBoolean()) {
+        filter = new TermQuery(new Term("color", random().nextBoolean() ? "red" : "blue"));
+      }
+      Query query = new BooleanQuery.Builder()
+          .add(new TermQuery(new Term("color", random().nextBoolean() ? "red" : "blue")), BooleanClause.Occur.MUST)
+          .add(filter, BooleanClause.Occur.FILTER)
+          .build();
+      assertEquals(uncachedSearcher.count(query), searcher.count(query));
+      assertEquals(uncachedSearcher.search(query, 10).totalHits, searcher.search(query, 10).totalHits);
+    }
+    assertTrue(cache.getCacheCount() > 0);
+    assertTrue(cache.ramBytesUsed() > 0);
+    assertTrue(cache.getOffHeapBytesUsed() > 0);
+
+    cache.clear();
+    assertEquals(0, cache.getOffHeapBytesUsed());
+
+    reader.close();
+    dir.close();
+  }
+
+  public void testOffHeapEviction() throws IOException {
+    Directory dir = newDirectory();
+    RandomIndexWriter w = new RandomIndexWriter(random(), dir);
+    final int numDocs = atLeast(1000);
+    for (int i = 0; i < numDocs; ++i) {
+      Document doc = new Document();
+      doc.add(new StringField("size", Integer.toString(random().nextInt(100)), Store.NO));
+      w.addDocument(doc);
+    }
+    w.forceMerge(1);
+    IndexReader reader = w.getReader();
+    w.close();
+
+    IndexSearcher searcher = newSearcher(reader, false);
+    // room for a few bit sets only
+    final long maxOffHeapBytesUsed = 4 * ((reader.maxDoc() + 63) / 64) * Long.BYTES;
+    OffHeapLRUQueryCache cache = new OffHeapLRUQueryCache(1000, 10_000_000, maxOffHeapBytesUsed, context -> true, randomAllocator());
+    searcher.setQueryCache(cache);
+    searcher.setQueryCachingPolicy(new QueryCachingPolicy() {
+      @Override
+      public void onUse(Query query) {}
+
+      @Override
+      public boolean shouldCache(Query query) throws IOException {
+        return true;
+      }
+    });
+
+    for (int i = 0; i < 100; ++i) {
+      Query filter = new TermQuery(new Term("size", Integer.toString(i)));
+      searcher.search(new ConstantScoreQuery(filter), 1);
+      assertTrue(cache.getOffHeapBytesUsed() <= maxOffHeapBytesUsed);
+      assertTrue(cache.getPooledBytes() <= maxOffHeapBytesUsed / 8);
+    }
+    assertTrue(cache.getEvictionCount() > 0);
+
+    reader.close();
+    assertEquals(0, cache.getCacheSize());
+    assertEquals(0, cache.getOffHeapBytesUsed());
+    assertTrue(cache.getPooledBytes() <= maxOffHeapBytesUsed / 8);
+    dir.close();
+  }
+}
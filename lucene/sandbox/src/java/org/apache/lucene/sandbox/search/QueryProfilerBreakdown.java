@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.sandbox.search;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A record of timings, counts and, optionally, allocated bytes for the
+ * various operations that are performed on a single node of a query tree.
+ */
+public final class QueryProfilerBreakdown {
+
+  private static final QueryProfilerTimingType[] TIMING_TYPES = QueryProfilerTimingType.values();
+
+  /** The accumulated timings for this query node */
+  private final QueryProfilerTimer[] timers;
+
+  /** Sole constructor. */
+  public QueryProfilerBreakdown(boolean trackAllocations) {
+    timers = new QueryProfilerTimer[TIMING_TYPES.length];
+    for (int i = 0; i < timers.length; ++i) {
+      timers[i] = new QueryProfilerTimer(trackAllocations);
+    }
+  }
+
+  /** Return the timer for the given type of operation. */
+  public QueryProfilerTimer getTimer(QueryProfilerTimingType type) {
+    return timers[type.ordinal()];
+  }
+
+  /**
+   * Build a map from operation names to their timings in nanoseconds, along
+   * with their counts under the {@code <name>_count} key and their allocated
+   * bytes under the {@code <name>_allocated_bytes} key if allocations are
+   * tracked.
+   */
+  public Map<String, Long> toBreakdownMap() {
+    final Map<String, Long> map = new LinkedHashMap<>();
+    for (QueryProfilerTimingType type : TIMING_TYPES) {
+      final QueryProfilerTimer timer = timers[type.ordinal()];
+      map.put(type.toString(), timer.getApproximateTiming());
+      map.put(type.toString() + "_count", timer.getCount());
+      final long allocatedBytes = timer.getApproximateAllocatedBytes();
+      if (allocatedBytes != -1) {
+        map.put(type.toString() + "_allocated_bytes", allocatedBytes);
+      }
+    }
+    return Collections.unmodifiableMap(map);
+  }
+
+  /** Return the total time spent in operations on this query node, in nanoseconds. */
+  public long toTotalTime() {
+    long total = 0;
+    for (QueryProfilerTimer timer : timers) {
+      total += timer.getApproximateTiming();
+    }
+    return total;
+  }
+
+  /**
+   * Return the total number of bytes allocated by operations on this query
+   * node, or {@code -1} if allocations are not tracked.
+   */
+  public long toTotalAllocatedBytes() {
+    long total = 0;
+    for (QueryProfilerTimer timer : timers) {
+      final long allocatedBytes = timer.getApproximateAllocatedBytes();
+      if (allocatedBytes == -1) {
+        return -1;
+      }
+      total += allocatedBytes;
+    }
+    return total;
+  }
+}
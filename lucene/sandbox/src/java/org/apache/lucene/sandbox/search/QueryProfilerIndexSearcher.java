@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.sandbox.search;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.Weight;
+
+/**
+ * An {@link IndexSearcher} that records, for every node of the query tree,
+ * how many times and how long operations such as weight creation, scorer
+ * creation, iteration, two-phase confirmation and scoring took, and
+ * optionally how many bytes they allocated.
+ * <p>
+ * Measurements are sampled for methods that are called many times, so the
+ * overhead is low enough to profile a percentage of production requests, by
+ * using this searcher instead of a regular {@link IndexSearcher} for sampled
+ * requests. However profiling disables specialized
+ * {@link org.apache.lucene.search.BulkScorer}s, which may make some queries
+ * like disjunctions run differently. Profiles are only collected on the
+ * calling thread, so this searcher doesn't support searching slices
+ * concurrently.
+ * <p>
+ * Example usage:
+ * <pre class="prettyprint">
+ * QueryProfilerIndexSearcher searcher = new QueryProfilerIndexSearcher(reader);
+ * TopDocs topDocs = searcher.search(query, 10);
+ * List&lt;QueryProfilerResult&gt; results = searcher.getProfileResult();
+ * </pre>
+ *
+ * @lucene.experimental
+ */
+public class QueryProfilerIndexSearcher extends IndexSearcher {
+
+  private final QueryProfilerTree profiler;
+
+  /** Create a new profiling searcher that doesn't track allocations. */
+  public QueryProfilerIndexSearcher(IndexReader reader) {
+    this(reader, false);
+  }
+
+  /**
+   * Create a new profiling searcher. If {@code trackAllocations} is true and
+   * the JVM {@link QueryProfilerTimer#isAllocationTrackingSupported() supports it},
+   * then the number of bytes allocated by profiled operations is reported too.
+   */
+  public QueryProfilerIndexSearcher(IndexReader reader, boolean trackAllocations) {
+    super(reader);
+    this.profiler = new QueryProfilerTree(trackAllocations);
+  }
+
+  @Override
+  public Weight createWeight(Query query, ScoreMode scoreMode, float boost) throws IOException {
+    // createWeight() is called for each query in the tree, so we tell the
+    // profiler about each invocation so that it can build an internal
+    // representation of the query tree
+    final QueryProfilerBreakdown profile = profiler.getProfileBreakdown(query);
+    final QueryProfilerTimer timer = profile.getTimer(QueryProfilerTimingType.CREATE_WEIGHT);
+    timer.start();
+    final Weight weight;
+    try {
+      weight = super.createWeight(query, scoreMode, boost);
+    } finally {
+      timer.stop();
+      profiler.pollLast();
+    }
+    return new QueryProfilerWeight(query, weight, profile);
+  }
+
+  /**
+   * Return the profiles of the queries that have been run by this searcher,
+   * one per top-level query.
+   */
+  public List<QueryProfilerResult> getProfileResult() {
+    return profiler.getTree();
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.sandbox.search;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The profile of a node of a query tree: the type of query, its description
+ * and its timing breakdown, along with the profiles of its children.
+ */
+public final class QueryProfilerResult {
+
+  private final String type;
+  private final String description;
+  private final Map<String, Long> breakdown;
+  private final long totalTime;
+  private final long totalAllocatedBytes;
+  private final List<QueryProfilerResult> children;
+
+  /** Sole constructor. */
+  public QueryProfilerResult(String type, String description, Map<String, Long> breakdown,
+      long totalTime, long totalAllocatedBytes, List<QueryProfilerResult> children) {
+    this.type = Objects.requireNonNull(type);
+    this.description = Objects.requireNonNull(description);
+    this.breakdown = Objects.requireNonNull(breakdown);
+    this.totalTime = totalTime;
+    this.totalAllocatedBytes = totalAllocatedBytes;
+    this.children = Collections.unmodifiableList(Objects.requireNonNull(children));
+  }
+
+  /** Return the type of the query, which is the simple name of its class. */
+  public String getQueryType() {
+    return type;
+  }
+
+  /** Return the {@link Object#toString() description} of the query. */
+  public String getLuceneDescription() {
+    return description;
+  }
+
+  /**
+   * Return the timings, counts and allocated bytes of operations on this
+   * query node, see {@link QueryProfilerBreakdown#toBreakdownMap()}.
+   */
+  public Map<String, Long> getTimeBreakdown() {
+    return breakdown;
+  }
+
+  /**
+   * Return the total time spent on this query node, in nanoseconds. This
+   * includes the time spent in children.
+   */
+  public long getTotalTime() {
+    return totalTime;
+  }
+
+  /**
+   * Return the total number of bytes allocated on this query node, including
+   * children, or {@code -1} if allocations were not tracked.
+   */
+  public long getTotalAllocatedBytes() {
+    return totalAllocatedBytes;
+  }
+
+  /** Return the profiles of the sub queries of this query. */
+  public List<QueryProfilerResult> getProfiledChildren() {
+    return children;
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder sb = new StringBuilder();
+    toString(sb, 0);
+    return sb.toString();
+  }
+
+  private void toString(StringBuilder sb, int depth) {
+    for (int i = 0; i < depth; ++i) {
+      sb.append("  ");
+    }
+    sb.append(String.format(Locale.ROOT, "%s [%s] total=%.3fms", type, description, totalTime / 1_000_000.0));
+    if (totalAllocatedBytes != -1) {
+      sb.append(" allocated=").append(totalAllocatedBytes).append('b');
+    }
+    sb.append(' ').append(breakdown).append('\n');
+    for (QueryProfilerResult child : children) {
+      child.toString(sb, depth + 1);
+    }
+  }
+}
@@ -0,0 +1,217 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.sandbox.search;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Helps measure how much time and, optionally, how much memory is spent
+ * running some methods. The {@link #start()} and {@link #stop()} methods
+ * should typically be called in a try/finally clause with {@link #start()}
+ * being called right before the try block and {@link #stop()} being called
+ * at the beginning of the finally block:
+ * <pre class="prettyprint">
+ *  timer.start();
+ *  try {
+ *    // code to time
+ *  } finally {
+ *    timer.stop();
+ *  }
+ * </pre>
+ * <p>
+ * In order to keep the overhead low on methods that are called millions of
+ * times in tight loops, only a sample of calls are measured once the method
+ * has been called more than 256 times, and measurements are extrapolated to
+ * the calls that were not measured. Counts are always exact.
+ */
+public class QueryProfilerTimer {
+
+  // null if the JVM can't report allocated bytes per thread
+  private static final Object THREAD_MX_BEAN = threadMXBean();
+  private static final MethodHandle THREAD_ALLOCATED_BYTES =
+      threadMXBeanMethod("getThreadAllocatedBytes", MethodType.methodType(long.class, long.class));
+  private static final MethodHandle IS_THREAD_ALLOCATED_MEMORY_ENABLED =
+      threadMXBeanMethod("isThreadAllocatedMemoryEnabled", MethodType.methodType(boolean.class));
+  private static final MethodHandle SET_THREAD_ALLOCATED_MEMORY_ENABLED =
+      threadMXBeanMethod("setThreadAllocatedMemoryEnabled", MethodType.methodType(void.class, boolean.class));
+  private static boolean allocationTrackingEnabled; // guarded by QueryProfilerTimer.class
+
+  private static Object threadMXBean() {
+    try {
+      // we use reflection because this bean is specific to HotSpot-based JVMs
+      final Class<?> beanClass = Class.forName("com.sun.management.ThreadMXBean");
+      final Object bean = Class.forName("java.lang.management.ManagementFactory")
+          .getMethod("getThreadMXBean")
+          .invoke(null);
+      if (beanClass.isInstance(bean) == false
+          || (Boolean) beanClass.getMethod("isThreadAllocatedMemorySupported").invoke(bean) == false) {
+        return null;
+      }
+      return bean;
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      return null;
+    }
+  }
+
+  private static MethodHandle threadMXBeanMethod(String name, MethodType type) {
+    if (THREAD_MX_BEAN == null) {
+      return null;
+    }
+    try {
+      return MethodHandles.publicLookup()
+          .findVirtual(Class.forName("com.sun.management.ThreadMXBean"), name, type)
+          .bindTo(THREAD_MX_BEAN);
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      return null;
+    }
+  }
+
+  /** Return whether the current JVM can report the number of bytes allocated by a thread. */
+  public static boolean isAllocationTrackingSupported() {
+    return THREAD_ALLOCATED_BYTES != null
+        && IS_THREAD_ALLOCATED_MEMORY_ENABLED != null
+        && SET_THREAD_ALLOCATED_MEMORY_ENABLED != null;
+  }
+
+  /** Enable allocation tracking on the JVM if it is supported and not enabled
+   *  yet, and return whether it is enabled. This is only done once a timer
+   *  asks for allocations since it makes all threads of the JVM slower. */
+  private static synchronized boolean enableAllocationTracking() {
+    if (allocationTrackingEnabled == false && isAllocationTrackingSupported()) {
+      try {
+        if ((boolean) IS_THREAD_ALLOCATED_MEMORY_ENABLED.invokeExact() == false) {
+          SET_THREAD_ALLOCATED_MEMORY_ENABLED.invokeExact(true);
+        }
+        allocationTrackingEnabled = true;
+      } catch (UnsupportedOperationException | SecurityException e) {
+        // not allowed to enable it, don't track allocations
+      } catch (Throwable t) {
+        throw new AssertionError(t);
+      }
+    }
+    return allocationTrackingEnabled;
+  }
+
+  private static long currentThreadAllocatedBytes() {
+    try {
+      return (long) THREAD_ALLOCATED_BYTES.invokeExact(Thread.currentThread().getId());
+    } catch (Throwable t) {
+      throw new AssertionError(t);
+    }
+  }
+
+  private final boolean trackAllocations;
+  private boolean doTiming;
+  private long timing, allocatedBytes, count, lastCount, start, startAllocatedBytes;
+
+  /**
+   * Create a new timer. If {@code trackAllocations} is true and the JVM
+   * {@link #isAllocationTrackingSupported() supports it}, then this timer
+   * also records how many bytes are allocated by timed calls, and allocation
+   * tracking gets enabled on the JVM if it wasn't already.
+   */
+  public QueryProfilerTimer(boolean trackAllocations) {
+    this.trackAllocations = trackAllocations && enableAllocationTracking();
+  }
+
+  /** Start timing. */
+  public final void start() {
+    assert start == 0 : "#start call misses a matching #stop call";
+    // We measure the timing of each method call for the first 256
+    // calls, then 1/2 call up to 512 then 1/3 up to 768, etc. with
+    // a maximum interval of 1024, which is reached for 1024*2^8 ~= 262000
+    // This allows to not slow down things too much because of calls
+    // to System.nanoTime() when methods are called millions of time
+    // in tight loops, while still providing useful timings for methods
+    // that are only called a couple times per search execution.
+    doTiming = (count - lastCount) >= Math.min(lastCount >>> 8, 1024);
+    if (doTiming) {
+      if (trackAllocations) {
+        startAllocatedBytes = currentThreadAllocatedBytes();
+      }
+      start = nanoTime();
+    }
+    count++;
+  }
+
+  /** Stop timing. */
+  public final void stop() {
+    if (doTiming) {
+      final long elapsed = Math.max(nanoTime() - start, 1L);
+      // this measurement stands for all calls since the last measured one
+      final long calls = count - lastCount;
+      timing += calls * elapsed;
+      if (trackAllocations) {
+        allocatedBytes += calls * Math.max(currentThreadAllocatedBytes() - startAllocatedBytes, 0L);
+      }
+      lastCount = count;
+      start = 0;
+    }
+  }
+
+  /** Return the number of times that {@link #start()} has been called. */
+  public final long getCount() {
+    if (start != 0) {
+      throw new IllegalStateException("#start call misses a matching #stop call");
+    }
+    return count;
+  }
+
+  /** Return an approximation of the total time spent between consecutive calls of #start and #stop, in nanoseconds. */
+  public final long getApproximateTiming() {
+    if (start != 0) {
+      throw new IllegalStateException("#start call misses a matching #stop call");
+    }
+    // We don't have timings for the last `count-lastCount` method calls
+    // so we assume that they had the same timing as the lastCount first
+    // calls. This approximation is ok since at most 1/256th of method
+    // calls have not been timed.
+    long timing = this.timing;
+    if (count > lastCount) {
+      assert lastCount > 0;
+      timing += (count - lastCount) * timing / lastCount;
+    }
+    return timing;
+  }
+
+  /**
+   * Return an approximation of the number of bytes that have been allocated
+   * between consecutive calls of #start and #stop, or {@code -1} if
+   * allocations are not tracked.
+   */
+  public final long getApproximateAllocatedBytes() {
+    if (start != 0) {
+      throw new IllegalStateException("#start call misses a matching #stop call");
+    }
+    if (trackAllocations == false) {
+      return -1;
+    }
+    long allocatedBytes = this.allocatedBytes;
+    if (count > lastCount) {
+      assert lastCount > 0;
+      allocatedBytes += (count - lastCount) * allocatedBytes / lastCount;
+    }
+    return allocatedBytes;
+  }
+
+  /** Return the current time, in nanoseconds. Can be overridden for testing. */
+  protected long nanoTime() {
+    return System.nanoTime();
+  }
+}
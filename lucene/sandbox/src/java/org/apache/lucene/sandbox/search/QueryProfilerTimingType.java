@@ -0,0 +1,46 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.sandbox.search;
+
+import java.util.Locale;
+
+/** The types of operations that are timed by the query profiler. */
+public enum QueryProfilerTimingType {
+  /** Creation of the {@link org.apache.lucene.search.Weight}, including the weights of sub queries. */
+  CREATE_WEIGHT,
+  /** Creation of {@link org.apache.lucene.search.Scorer}s and {@link org.apache.lucene.search.ScorerSupplier}s. */
+  BUILD_SCORER,
+  /** Calls to {@link org.apache.lucene.search.DocIdSetIterator#nextDoc()}. */
+  NEXT_DOC,
+  /** Calls to {@link org.apache.lucene.search.DocIdSetIterator#advance(int)}. */
+  ADVANCE,
+  /** Calls to {@link org.apache.lucene.search.TwoPhaseIterator#matches()}. */
+  MATCH,
+  /** Calls to {@link org.apache.lucene.search.Scorer#score()}. */
+  SCORE,
+  /** Calls to {@link org.apache.lucene.search.Scorer#advanceShallow(int)}. */
+  SHALLOW_ADVANCE,
+  /** Calls to {@link org.apache.lucene.search.Scorer#getMaxScore(int)}. */
+  COMPUTE_MAX_SCORE,
+  /** Calls to {@link org.apache.lucene.search.Scorer#setMinCompetitiveScore(float)}. */
+  SET_MIN_COMPETITIVE_SCORE;
+
+  @Override
+  public String toString() {
+    return name().toLowerCase(Locale.ROOT);
+  }
+}
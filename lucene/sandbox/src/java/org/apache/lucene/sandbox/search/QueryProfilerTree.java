@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.sandbox.search;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import org.apache.lucene.search.Query;
+
+/**
+ * Builds the tree of {@link QueryProfilerBreakdown}s while weights are being
+ * created: {@link org.apache.lucene.search.IndexSearcher#createWeight} is
+ * called recursively on the nodes of a query tree, so the node that is being
+ * created is a child of the node that is at the top of the stack.
+ */
+final class QueryProfilerTree {
+
+  private final boolean trackAllocations;
+  private final List<QueryProfilerBreakdown> breakdowns = new ArrayList<>();
+  private final List<Query> queries = new ArrayList<>();
+  /** Maps each node to the list of its children. */
+  private final List<List<Integer>> tree = new ArrayList<>();
+  private final List<Integer> roots = new ArrayList<>();
+  private final Deque<Integer> stack = new ArrayDeque<>();
+
+  QueryProfilerTree(boolean trackAllocations) {
+    this.trackAllocations = trackAllocations;
+  }
+
+  /**
+   * Create a new node for the given query, which is a child of the node at
+   * the top of the stack or a new root if the stack is empty, and push it to
+   * the stack. Calls must be followed by a call to {@link #pollLast()} once
+   * the weight has been created.
+   */
+  QueryProfilerBreakdown getProfileBreakdown(Query query) {
+    final int token = queries.size();
+    if (stack.isEmpty()) {
+      roots.add(token);
+    } else {
+      tree.get(stack.peekLast()).add(token);
+    }
+    stack.addLast(token);
+    queries.add(query);
+    tree.add(new ArrayList<>());
+    final QueryProfilerBreakdown breakdown = new QueryProfilerBreakdown(trackAllocations);
+    breakdowns.add(breakdown);
+    return breakdown;
+  }
+
+  /** Remove the last node from the stack. */
+  void pollLast() {
+    stack.pollLast();
+  }
+
+  /** Build the profiles of all root queries. */
+  List<QueryProfilerResult> getTree() {
+    final List<QueryProfilerResult> results = new ArrayList<>(roots.size());
+    for (int root : roots) {
+      results.add(getTree(root));
+    }
+    return results;
+  }
+
+  private QueryProfilerResult getTree(int token) {
+    final Query query = queries.get(token);
+    final QueryProfilerBreakdown breakdown = breakdowns.get(token);
+    final List<QueryProfilerResult> children = new ArrayList<>();
+    for (int child : tree.get(token)) {
+      children.add(getTree(child));
+    }
+    String type = query.getClass().getSimpleName();
+    if (type.isEmpty()) {
+      // anonymous class
+      type = query.getClass().getName();
+    }
+    return new QueryProfilerResult(type, query.toString(), breakdown.toBreakdownMap(),
+        breakdown.toTotalTime(), breakdown.toTotalAllocatedBytes(), children);
+  }
+}
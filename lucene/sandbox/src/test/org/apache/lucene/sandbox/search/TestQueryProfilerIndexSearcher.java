@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.sandbox.search;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field.Store;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.RandomIndexWriter;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TotalHitCountCollector;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.LuceneTestCase;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+
+public class TestQueryProfilerIndexSearcher extends LuceneTestCase {
+
+  private static Directory dir;
+  private static IndexReader reader;
+
+  @BeforeClass
+  public static void setup() throws IOException {
+    dir = newDirectory();
+    RandomIndexWriter w = new RandomIndexWriter(random(), dir);
+    final int numDocs = TEST_NIGHTLY ? atLeast(1000) : atLeast(100);
+    for (int i = 0; i < numDocs; ++i) {
+      Document doc = new Document();
+      if (random().nextBoolean()) {
+        doc.add(new StringField("foo", "bar", Store.NO));
+      }
+      if (random().nextBoolean()) {
+        doc.add(new StringField("foo", "baz", Store.NO));
+      }
+      w.addDocument(doc);
+    }
+    reader = w.getReader();
+    w.close();
+  }
+
+  @AfterClass
+  public static void cleanup() throws IOException {
+    reader.close();
+    dir.close();
+    reader = null;
+    dir = null;
+  }
+
+  public void testBasic() throws IOException {
+    QueryProfilerIndexSearcher searcher = new QueryProfilerIndexSearcher(reader);
+    Query query = new TermQuery(new Term("foo", "bar"));
+    TopDocs topDocs = searcher.search(query, 1);
+    assertEquals(new IndexSearcher(reader).count(query), topDocs.totalHits.value);
+
+    List<QueryProfilerResult> results = searcher.getProfileResult();
+    assertEquals(1, results.size());
+    QueryProfilerResult result = results.get(0);
+    assertEquals("TermQuery", result.getQueryType());
+    assertEquals("foo:bar", result.getLuceneDescription());
+    assertEquals(-1, result.getTotalAllocatedBytes());
+    assertEquals(0, result.getProfiledChildren().size());
+
+    Map<String, Long> breakdown = result.getTimeBreakdown();
+    assertEquals(1L, breakdown.get("create_weight_count").longValue());
+    assertTrue(breakdown.get("create_weight") > 0L);
+    assertTrue(breakdown.get("build_scorer_count") > 0L);
+    assertTrue(breakdown.get("build_scorer") > 0L);
+    assertTrue(breakdown.get("next_doc_count") > 0L);
+    assertTrue(breakdown.get("next_doc") > 0L);
+    assertTrue(breakdown.get("score_count") > 0L);
+    assertTrue(breakdown.get("score") > 0L);
+    assertEquals(0L, breakdown.get("match_count").longValue());
+    assertEquals(0L, breakdown.get("match").longValue());
+    assertFalse(breakdown.containsKey("score_allocated_bytes"));
+    assertTrue(result.getTotalTime() >= breakdown.get("score"));
+  }
+
+  public void testNoScoring() throws IOException {
+    QueryProfilerIndexSearcher searcher = new QueryProfilerIndexSearcher(reader);
+    searcher.setQueryCache(null);
+    Query query = new TermQuery(new Term("foo", "bar"));
+    TotalHitCountCollector collector = new TotalHitCountCollector();
+    searcher.search(query, collector);
+    assertEquals(new IndexSearcher(reader).count(query), collector.getTotalHits());
+
+    QueryProfilerResult result = searcher.getProfileResult().get(0);
+    Map<String, Long> breakdown = result.getTimeBreakdown();
+    assertTrue(breakdown.get("next_doc_count") > 0L);
+    assertEquals(0L, breakdown.get("score_count").longValue());
+  }
+
+  public void testTree() throws IOException {
+    QueryProfilerIndexSearcher searcher = new QueryProfilerIndexSearcher(reader);
+    Query query = new BooleanQuery.Builder()
+        .add(new TermQuery(new Term("foo", "bar")), Occur.MUST)
+        .add(new TermQuery(new Term("foo", "baz")), Occur.SHOULD)
+        .build();
+    searcher.search(query, 10);
+
+    List<QueryProfilerResult> results = searcher.getProfileResult();
+    assertEquals(1, results.size());
+    QueryProfilerResult result = results.get(0);
+    assertEquals("BooleanQuery", result.getQueryType());
+    assertEquals(query.toString(), result.getLuceneDescription());
+    List<QueryProfilerResult> children = result.getProfiledChildren();
+    assertEquals(2, children.size());
+    assertEquals("foo:bar", children.get(0).getLuceneDescription());
+    assertEquals("foo:baz", children.get(1).getLuceneDescription());
+    for (QueryProfilerResult child : children) {
+      assertTrue(result.getTotalTime() >= child.getTotalTime());
+      assertEquals(1L, child.getTimeBreakdown().get("create_weight_count").longValue());
+    }
+    assertTrue(children.get(0).getTimeBreakdown().get("next_doc_count")
+        + children.get(0).getTimeBreakdown().get("advance_count") > 0L);
+
+    // a second search adds a new root
+    searcher.search(new TermQuery(new Term("foo", "baz")), 10);
+    results = searcher.getProfileResult();
+    assertEquals(2, results.size());
+    assertEquals("foo:baz", results.get(1).getLuceneDescription());
+  }
+
+  public void testTrackAllocations() throws IOException {
+    assumeTrue("Allocation tracking is not supported", QueryProfilerTimer.isAllocationTrackingSupported());
+    QueryProfilerIndexSearcher searcher = new QueryProfilerIndexSearcher(reader, true);
+    searcher.search(new TermQuery(new Term("foo", "bar")), 10);
+    QueryProfilerResult result = searcher.getProfileResult().get(0);
+    assertTrue(result.getTotalAllocatedBytes() > 0L);
+    assertTrue(result.getTimeBreakdown().get("build_scorer_allocated_bytes") > 0L);
+    assertTrue(result.getTimeBreakdown().get("score_allocated_bytes") >= 0L);
+  }
+}
@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.lucene.sandbox.search;
+
+import org.apache.lucene.util.LuceneTestCase;
+
+public class TestQueryProfilerTimer extends LuceneTestCase {
+
+  public void testTimingInterval() {
+    final long[] nanoTimeCallCounter = new long[1];
+    QueryProfilerTimer t = new QueryProfilerTimer(false) {
+      long time = 50;
+      @Override
+      protected long nanoTime() {
+        nanoTimeCallCounter[0]++;
+        return time += 1;
+      }
+    };
+    for (int i = 0; i < 100000; ++i) {
+      t.start();
+      t.stop();
+      if (i < 256) {
+        // for the first 256 calls, nanoTime() is called
+        // once for `start` and once for `stop`
+        assertEquals((i + 1) * 2, nanoTimeCallCounter[0]);
+      }
+    }
+    // only called nanoTime() 3356 times, which is significantly less than 100000
+    assertEquals(3356L, nanoTimeCallCounter[0]);
+    assertEquals(100000L, t.getCount());
+  }
+
+  public void testExtrapolate() {
+    QueryProfilerTimer t = new QueryProfilerTimer(false) {
+      long time = 50;
+      @Override
+      protected long nanoTime() {
+        return time += 42;
+      }
+    };
+    for (int i = 1; i < 100000; ++i) {
+      t.start();
+      t.stop();
+      assertEquals(i, t.getCount());
+      // Make sure the cumulated timing is 42 times the number of calls as expected
+      assertEquals(i * 42L, t.getApproximateTiming());
+    }
+    assertEquals(-1L, t.getApproximateAllocatedBytes());
+  }
+
+  public void testMissingStop() {
+    QueryProfilerTimer t = new QueryProfilerTimer(false);
+    t.start();
+    expectThrows(IllegalStateException.class, t::getCount);
+    expectThrows(IllegalStateException.class, t::getApproximateTiming);
+    t.stop();
+    assertEquals(1L, t.getCount());
+  }
+}
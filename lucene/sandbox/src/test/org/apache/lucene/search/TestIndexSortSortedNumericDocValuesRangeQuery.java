@@ -17,6 +17,7 @@
 package org.apache.lucene.search;
 
 import java.io.IOException;
+import java.util.Arrays;
 
 import org.apache.lucene.analysis.MockAnalyzer;
 import org.apache.lucene.document.Document;
@@ -365,7 +366,9 @@ public class TestIndexSortSortedNumericDocValuesRangeQuery extends LuceneTestCas
     Directory dir = newDirectory();
 
     RandomIndexWriter writer = new RandomIndexWriter(random(), dir);
-    writer.addDocument(createDocument("field", 0));
+    // index a non-matching value in the same segment, otherwise the doc values
+    // skip index would tell that all documents match
+    writer.addDocuments(Arrays.asList(createDocument("field", 0), createDocument("field", 10)));
 
     testIndexSortOptimizationDeactivated(writer);
 
@@ -385,7 +388,9 @@ public class TestIndexSortSortedNumericDocValuesRangeQuery extends LuceneTestCas
     iwc.setIndexSort(indexSort);
 
     RandomIndexWriter writer = new RandomIndexWriter(random(), dir, iwc);
-    writer.addDocument(createDocument("field", 0));
+    // index a non-matching value in the same segment, otherwise the doc values
+    // skip index would tell that all documents match
+    writer.addDocuments(Arrays.asList(createDocument("field", 0), createDocument("field", 10)));
 
     testIndexSortOptimizationDeactivated(writer);
 
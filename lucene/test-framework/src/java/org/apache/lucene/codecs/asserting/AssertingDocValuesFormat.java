@@ -24,6 +24,7 @@ import org.apache.lucene.codecs.DocValuesFormat;
 import org.apache.lucene.codecs.DocValuesProducer;
 import org.apache.lucene.index.AssertingLeafReader;
 import org.apache.lucene.index.BinaryDocValues;
+import org.apache.lucene.index.DocValuesSkipper;
 import org.apache.lucene.index.DocValuesType;
 import org.apache.lucene.index.FieldInfo;
 import org.apache.lucene.index.NumericDocValues;
@@ -277,6 +278,16 @@ public class AssertingDocValuesFormat extends DocValuesFormat {
       return new AssertingLeafReader.AssertingSortedNumericDocValues(values, maxDoc);
     }
     
+    @Override
+    public DocValuesSkipper getSkipper(FieldInfo field) throws IOException {
+      if (merging) {
+        AssertingCodec.assertThread("DocValuesProducer", creationThread);
+      }
+      assert field.getDocValuesType() == DocValuesType.NUMERIC || field.getDocValuesType() == DocValuesType.SORTED_NUMERIC;
+      DocValuesSkipper skipper = in.getSkipper(field);
+      return skipper == null ? null : new AssertingLeafReader.AssertingDocValuesSkipper(skipper);
+    }
+
     @Override
     public SortedSetDocValues getSortedSet(FieldInfo field) throws IOException {
       if (merging) {
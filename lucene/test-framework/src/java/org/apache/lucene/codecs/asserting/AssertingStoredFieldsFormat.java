@@ -26,6 +26,7 @@ import org.apache.lucene.index.FieldInfo;
 import org.apache.lucene.index.FieldInfos;
 import org.apache.lucene.index.IndexableField;
 import org.apache.lucene.index.SegmentInfo;
+import org.apache.lucene.index.SegmentReadState;
 import org.apache.lucene.index.StoredFieldVisitor;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.IOContext;
@@ -43,6 +44,11 @@ public class AssertingStoredFieldsFormat extends StoredFieldsFormat {
     return new AssertingStoredFieldsReader(in.fieldsReader(directory, si, fn, context), si.maxDoc(), false);
   }
 
+  @Override
+  public StoredFieldsReader fieldsReader(SegmentReadState state) throws IOException {
+    return new AssertingStoredFieldsReader(in.fieldsReader(state), state.segmentInfo.maxDoc(), false);
+  }
+
   @Override
   public StoredFieldsWriter fieldsWriter(Directory directory, SegmentInfo si, IOContext context) throws IOException {
     return new AssertingStoredFieldsWriter(in.fieldsWriter(directory, si, context));
@@ -1026,6 +1026,110 @@ public class AssertingLeafReader extends FilterLeafReader {
     }
   }
 
+  /** Wraps a DocValuesSkipper but with additional asserts */
+  public static class AssertingDocValuesSkipper extends DocValuesSkipper {
+    private final Thread creationThread = Thread.currentThread();
+    private final DocValuesSkipper in;
+
+    public AssertingDocValuesSkipper(DocValuesSkipper in) {
+      this.in = in;
+      assert in.minDocID(0) == -1;
+      assert in.maxDocID(0) == -1;
+      assert in.docCount() > 0;
+      assert in.minValue() <= in.maxValue();
+    }
+
+    @Override
+    public void advance(int target) throws IOException {
+      assertThread("Doc values skipper", creationThread);
+      assert target >= 0;
+      final int previousMaxDocID = in.maxDocID(0);
+      in.advance(target);
+      if (target <= previousMaxDocID) {
+        assert in.maxDocID(0) == previousMaxDocID;
+      } else if (in.minDocID(0) == DocIdSetIterator.NO_MORE_DOCS) {
+        for (int level = 0; level < in.numLevels(); ++level) {
+          assert in.minDocID(level) == DocIdSetIterator.NO_MORE_DOCS;
+          assert in.maxDocID(level) == DocIdSetIterator.NO_MORE_DOCS;
+        }
+      } else {
+        assert in.maxDocID(0) >= target;
+        assert in.numLevels() > 0;
+        for (int level = 0; level < in.numLevels(); ++level) {
+          assert in.minDocID(level) <= in.maxDocID(level);
+          assert in.minValue(level) <= in.maxValue(level);
+          assert in.minValue(level) >= in.minValue();
+          assert in.maxValue(level) <= in.maxValue();
+          assert in.docCount(level) > 0;
+          assert in.docCount(level) <= in.maxDocID(level) - in.minDocID(level) + 1;
+          if (level > 0) {
+            assert in.minDocID(level) <= in.minDocID(level - 1);
+            assert in.maxDocID(level) >= in.maxDocID(level - 1);
+            assert in.minValue(level) <= in.minValue(level - 1);
+            assert in.maxValue(level) >= in.maxValue(level - 1);
+            assert in.docCount(level) >= in.docCount(level - 1);
+          }
+        }
+      }
+    }
+
+    @Override
+    public int numLevels() {
+      assertThread("Doc values skipper", creationThread);
+      return in.numLevels();
+    }
+
+    @Override
+    public int minDocID(int level) {
+      assertThread("Doc values skipper", creationThread);
+      assert level >= 0 && level < Math.max(1, in.numLevels());
+      return in.minDocID(level);
+    }
+
+    @Override
+    public int maxDocID(int level) {
+      assertThread("Doc values skipper", creationThread);
+      assert level >= 0 && level < Math.max(1, in.numLevels());
+      return in.maxDocID(level);
+    }
+
+    @Override
+    public long minValue(int level) {
+      assertThread("Doc values skipper", creationThread);
+      assert level >= 0 && level < in.numLevels();
+      return in.minValue(level);
+    }
+
+    @Override
+    public long maxValue(int level) {
+      assertThread("Doc values skipper", creationThread);
+      assert level >= 0 && level < in.numLevels();
+      return in.maxValue(level);
+    }
+
+    @Override
+    public int docCount(int level) {
+      assertThread("Doc values skipper", creationThread);
+      assert level >= 0 && level < in.numLevels();
+      return in.docCount(level);
+    }
+
+    @Override
+    public long minValue() {
+      return in.minValue();
+    }
+
+    @Override
+    public long maxValue() {
+      return in.maxValue();
+    }
+
+    @Override
+    public int docCount() {
+      return in.docCount();
+    }
+  }
+
   /** Wraps a SortedSetDocValues but with additional asserts */
   public static class AssertingPointValues extends PointValues {
     private final Thread creationThread = Thread.currentThread();
@@ -1245,6 +1349,19 @@ public class AssertingLeafReader extends FilterLeafReader {
     }
   }
 
+  @Override
+  public DocValuesSkipper getDocValuesSkipper(String field) throws IOException {
+    DocValuesSkipper skipper = super.getDocValuesSkipper(field);
+    FieldInfo fi = getFieldInfos().fieldInfo(field);
+    if (skipper != null) {
+      assert fi != null;
+      assert fi.getDocValuesType() == DocValuesType.NUMERIC || fi.getDocValuesType() == DocValuesType.SORTED_NUMERIC;
+      return new AssertingDocValuesSkipper(skipper);
+    } else {
+      return null;
+    }
+  }
+
   @Override
   public SortedSetDocValues getSortedSetDocValues(String field) throws IOException {
     SortedSetDocValues dv = super.getSortedSetDocValues(field);
@@ -128,6 +128,11 @@ public final class FieldFilterLeafReader extends FilterLeafReader {
     return hasField(field) ? super.getSortedNumericDocValues(field) : null;
   }
   
+  @Override
+  public DocValuesSkipper getDocValuesSkipper(String field) throws IOException {
+    return hasField(field) ? super.getDocValuesSkipper(field) : null;
+  }
+
   @Override
   public SortedSetDocValues getSortedSetDocValues(String field) throws IOException {
     return hasField(field) ? super.getSortedSetDocValues(field) : null;
@@ -25,24 +25,32 @@ import org.apache.lucene.index.LeafReaderContext;
  */
 class AssertingCollector extends FilterCollector {
 
+  private final boolean leavesInOrder;
   private int maxDoc = -1;
   private int previousLeafMaxDoc = 0;
 
   /** Wrap the given collector in order to add assertions. */
   public static Collector wrap(Collector in) {
+    return wrap(in, true);
+  }
+
+  /** Wrap the given collector in order to add assertions, documents are only
+   *  expected to be collected in order globally if {@code leavesInOrder} is true. */
+  static Collector wrap(Collector in, boolean leavesInOrder) {
     if (in instanceof AssertingCollector) {
       return in;
     }
-    return new AssertingCollector(in);
+    return new AssertingCollector(in, leavesInOrder);
   }
 
-  private AssertingCollector(Collector in) {
+  private AssertingCollector(Collector in, boolean leavesInOrder) {
     super(in);
+    this.leavesInOrder = leavesInOrder;
   }
 
   @Override
   public LeafCollector getLeafCollector(LeafReaderContext context) throws IOException {
-    assert context.docBase >= previousLeafMaxDoc;
+    assert leavesInOrder == false || context.docBase >= previousLeafMaxDoc;
     previousLeafMaxDoc = context.docBase + context.reader().maxDoc();
 
     final LeafCollector in = super.getLeafCollector(context);
@@ -52,7 +60,7 @@ class AssertingCollector extends FilterCollector {
       public void collect(int doc) throws IOException {
         // check that documents are scored in order globally,
         // not only per segment
-        assert docBase + doc >= maxDoc : "collection is not in order: current doc="
+        assert leavesInOrder == false || docBase + doc >= maxDoc : "collection is not in order: current doc="
             + (docBase + doc) + " while " + maxDoc + " has already been collected";
 
         super.collect(doc);
@@ -69,7 +69,18 @@ public class AssertingIndexSearcher extends IndexSearcher {
   @Override
   protected void search(List<LeafReaderContext> leaves, Weight weight, Collector collector) throws IOException {
     assert weight instanceof AssertingWeight;
-    super.search(leaves, weight, AssertingCollector.wrap(collector));
+    // leaves may have been reordered, see IndexSearcher#setReorderLeaves
+    boolean leavesInOrder = true;
+    for (int i = 1; i < leaves.size(); ++i) {
+      leavesInOrder &= leaves.get(i - 1).docBase < leaves.get(i).docBase;
+    }
+    super.search(leaves, weight, AssertingCollector.wrap(collector, leavesInOrder));
+  }
+
+  @Override
+  protected void search(LeafReaderContextPartition[] partitions, Weight weight, Collector collector) throws IOException {
+    assert weight instanceof AssertingWeight;
+    super.search(partitions, weight, AssertingCollector.wrap(collector));
   }
 
   @Override
@@ -50,5 +50,38 @@ class AssertingLeafCollector extends FilterLeafCollector {
     lastCollected = doc;
   }
 
+  @Override
+  public void collect(DocIdStream stream) throws IOException {
+    in.collect(new DocIdStream() {
+      boolean consumed;
+
+      @Override
+      public void forEach(DocIdConsumer consumer) throws IOException {
+        assert consumed == false : "A terminal operation has already been called";
+        consumed = true;
+        stream.forEach(doc -> {
+          assert doc > lastCollected : "Out of order : " + lastCollected + " " + doc;
+          assert doc >= min : "Out of range: " + doc + " < " + min;
+          assert doc < max : "Out of range: " + doc + " >= " + max;
+          assert scorer.docID() == doc : "Collected: " + doc + " but scorer: " + scorer.docID();
+          consumer.accept(doc);
+          lastCollected = doc;
+        });
+      }
+
+      @Override
+      public int count() throws IOException {
+        assert consumed == false : "A terminal operation has already been called";
+        consumed = true;
+        return stream.count();
+      }
+    });
+  }
+
+  @Override
+  public DocIdSetIterator competitiveIterator() throws IOException {
+    return in.competitiveIterator();
+  }
+
 }
 
@@ -22,6 +22,7 @@ import java.util.Random;
 
 import junit.framework.Assert;
 import org.apache.lucene.index.BinaryDocValues;
+import org.apache.lucene.index.DocValuesSkipper;
 import org.apache.lucene.index.FieldInfos;
 import org.apache.lucene.index.Fields;
 import org.apache.lucene.index.IndexReader;
@@ -202,6 +203,11 @@ public class QueryUtils {
         return null;
       }
 
+      @Override
+      public DocValuesSkipper getDocValuesSkipper(String field) throws IOException {
+        return null;
+      }
+
       @Override
       public NumericDocValues getNormValues(String field) throws IOException {
         return null;
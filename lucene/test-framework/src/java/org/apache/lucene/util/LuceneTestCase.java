@@ -60,6 +60,7 @@ import java.util.Random;
 import java.util.Set;
 import java.util.TimeZone;
 import java.util.TreeSet;
+import java.util.concurrent.Executor;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -981,6 +982,11 @@ public abstract class LuceneTestCase extends Assert {
       c.setMergeScheduler(cms);
     }
 
+    if (c.getMergeScheduler() instanceof ConcurrentMergeScheduler && rarely(r)) {
+      // merge formats concurrently too
+      ((ConcurrentMergeScheduler) c.getMergeScheduler()).setIntraMergeExecutor(newThreadPerTaskExecutor("intra-merge"));
+    }
+
     if (r.nextBoolean()) {
       if (rarely(r)) {
         // crazy value
@@ -1003,9 +1009,26 @@ public abstract class LuceneTestCase extends Assert {
     if (rarely(r)) {
       c.setCheckPendingFlushUpdate(false);
     }
+    if (rarely(r)) {
+      // flush fields concurrently
+      c.setFlushExecutor(newThreadPerTaskExecutor("flush"));
+    }
+    if (rarely(r)) {
+      c.setIndexingBufferAllocator(new IndexingBufferAllocator.Recycling(TestUtil.nextInt(r, 0, 64) * 1024L * 1024L));
+    }
     return c;
   }
 
+  /** Returns an executor that runs every task in a new thread, so that there
+   *  is nothing to shut down once callers are done waiting for their tasks. */
+  private static Executor newThreadPerTaskExecutor(String name) {
+    return command -> {
+      Thread thread = new Thread(command, name);
+      thread.setDaemon(true);
+      thread.start();
+    };
+  }
+
   private static void avoidPathologicalMerging(IndexWriterConfig iwc) {
     // Don't allow "tiny" flushed segments with "big" merge
     // floor: this leads to pathological O(N^2) merge costs:
@@ -1929,6 +1952,7 @@ public abstract class LuceneTestCase extends Assert {
         ret = random.nextBoolean() ? new IndexSearcher(r) : new IndexSearcher(r.getContext());
       }
       ret.setSimilarity(classEnvRule.similarity);
+      ret.setReorderLeaves(random.nextBoolean());
       return ret;
     } else {
       int threads = 0;
@@ -1970,6 +1994,7 @@ public abstract class LuceneTestCase extends Assert {
       }
       ret.setSimilarity(classEnvRule.similarity);
       ret.setQueryCachingPolicy(MAYBE_CACHE_POLICY);
+      ret.setReorderLeaves(random.nextBoolean());
       return ret;
     }
   }
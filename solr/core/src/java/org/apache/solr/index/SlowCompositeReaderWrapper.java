@@ -148,6 +148,13 @@ public final class SlowCompositeReaderWrapper extends LeafReader {
     return MultiDocValues.getSortedNumericValues(in, field); // TODO cache?
   }
 
+  @Override
+  public DocValuesSkipper getDocValuesSkipper(String field) throws IOException {
+    ensureOpen();
+    // skip data is per segment
+    return null;
+  }
+
   @Override
   public SortedDocValues getSortedDocValues(String field) throws IOException {
     ensureOpen();
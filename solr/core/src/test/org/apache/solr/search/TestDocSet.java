@@ -22,6 +22,7 @@ import java.util.List;
 import java.util.Random;
 
 import org.apache.lucene.index.BinaryDocValues;
+import org.apache.lucene.index.DocValuesSkipper;
 import org.apache.lucene.index.FieldInfos;
 import org.apache.lucene.index.Fields;
 import org.apache.lucene.index.IndexReader;
@@ -433,6 +434,11 @@ public class TestDocSet extends SolrTestCase {
         return null;
       }
 
+      @Override
+      public DocValuesSkipper getDocValuesSkipper(String field) {
+        return null;
+      }
+
       @Override
       public NumericDocValues getNormValues(String field) {
         return null;